@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Compares two JMH result files written with <code>-rf json</code>, such as
+ * the results of the release branch and of a pull request, and exits with
+ * status 1 when a benchmark got slower by more than the threshold and its
+ * error margins.
+ * 
+ * <p>
+ * Usage: BenchmarkComparator baseline.json current.json [threshold percent]
+ * </p>
+ */
+public class BenchmarkComparator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparator baseline.json current.json [threshold percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+        Map<String, Score> baseline = readScores(new File(args[0]));
+        Map<String, Score> current = readScores(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-72s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-72s %14s %14.1f %9s%n", entry.getKey(), "-", now.value, "new");
+                continue;
+            }
+
+            // Positive changes are improvements, whether higher or lower is better.
+            double change = (now.value - before.value) / before.value * 100;
+            if (!now.higherIsBetter) {
+                change = -change;
+            }
+            boolean regressed = change < -threshold
+                    && Math.abs(now.value - before.value) > before.error + now.error;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-72s %14.1f %14.1f %+8.1f%%%s%n", entry.getKey(), before.value, now.value, change,
+                    regressed ? "  REGRESSION" : "");
+        }
+
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed by more than " + threshold + "%");
+            System.exit(1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Score> readScores(File file) throws IOException {
+        List<Map<String, Object>> results = new ObjectMapper().readValue(file, List.class);
+        Map<String, Score> scores = new LinkedHashMap<String, Score>();
+        for (Map<String, Object> result : results) {
+            String name = (String) result.get("benchmark");
+            Map<String, Object> params = (Map<String, Object>) result.get("params");
+            if (params != null) {
+                name += new TreeMap<String, Object>(params);
+            }
+            Map<String, Object> metric = (Map<String, Object>) result.get("primaryMetric");
+            Score score = new Score();
+            score.value = toDouble(metric.get("score"));
+            score.error = toDouble(metric.get("scoreError"));
+            score.higherIsBetter = "thrpt".equals(result.get("mode"));
+            scores.put(name, score);
+        }
+        return scores;
+    }
+
+    private static double toDouble(Object value) {
+        // JMH writes "NaN" as a string when the error is unknown.
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return 0;
+    }
+
+    private static class Score {
+        double value;
+        double error;
+        boolean higherIsBetter;
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.benchmarks;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aliyun.oss.ClientConfiguration;
+import com.aliyun.oss.HttpMethod;
+import com.aliyun.oss.common.comm.DefaultServiceClient;
+import com.aliyun.oss.common.comm.RequestMessage;
+import com.aliyun.oss.common.comm.ServiceClient;
+import com.aliyun.oss.internal.EndpointResolver;
+import com.aliyun.oss.internal.OSSRequestMessageBuilder;
+import com.aliyun.oss.internal.OSSUtils;
+import com.aliyun.oss.model.GenericRequest;
+
+/**
+ * Measures building the request message of a GET, HEAD and PUT of small
+ * objects spread over a few buckets, including resolving the endpoint, and
+ * resolving the endpoint alone with and without the {@link EndpointResolver}
+ * cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBuildingBenchmark {
+
+    private static final String[] BUCKETS = { "bucket-a", "bucket-b", "bucket-c", "bucket-d" };
+    private static final HttpMethod[] METHODS = { HttpMethod.GET, HttpMethod.HEAD, HttpMethod.PUT };
+
+    private final URI endpoint = URI.create("http://oss-cn-hangzhou.aliyuncs.com");
+    private final ClientConfiguration config = new ClientConfiguration();
+    private final EndpointResolver resolver = new EndpointResolver();
+    private ServiceClient client;
+    private int count;
+
+    @Setup
+    public void setUp() {
+        client = new DefaultServiceClient(config);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.shutdown();
+    }
+
+    @Benchmark
+    public RequestMessage build() {
+        int i = count++ & Integer.MAX_VALUE;
+        String bucket = BUCKETS[i & 3];
+        String key = "small/object-" + (i & 1023);
+        return new OSSRequestMessageBuilder(client).setEndpoint(endpoint).setMethod(METHODS[i % METHODS.length])
+                .setBucket(bucket).setKey(key).setOriginalRequest(new GenericRequest(bucket, key)).build();
+    }
+
+    @Benchmark
+    public URI resolveEndpoint() {
+        return OSSUtils.determineFinalEndpoint(endpoint, BUCKETS[count++ & 3], config);
+    }
+
+    @Benchmark
+    public URI resolveCachedEndpoint() {
+        return resolver.resolve(endpoint, BUCKETS[count++ & 3], config);
+    }
+
+}
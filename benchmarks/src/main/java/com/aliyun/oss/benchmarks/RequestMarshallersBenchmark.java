@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aliyun.oss.common.comm.io.FixedLengthInputStream;
+import com.aliyun.oss.common.parser.RequestMarshallers;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.DeleteObjectsRequest;
+import com.aliyun.oss.model.PartETag;
+
+/**
+ * Measures marshalling the largest request bodies the SDK builds: deleting
+ * 1000 objects at once, and completing an upload of 1000 parts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestMarshallersBenchmark {
+
+    private DeleteObjectsRequest deleteObjectsRequest;
+    private CompleteMultipartUploadRequest completeMultipartUploadRequest;
+
+    @Setup
+    public void setUp() {
+        List<String> keys = new ArrayList<String>();
+        List<PartETag> partETags = new ArrayList<PartETag>();
+        for (int i = 1; i <= 1000; i++) {
+            keys.add("path/to/object-" + i);
+            partETags.add(new PartETag(i, "3858F62230AC3C915F300C664312C11F-" + i));
+        }
+        deleteObjectsRequest = new DeleteObjectsRequest("bucket");
+        deleteObjectsRequest.setKeys(keys);
+        completeMultipartUploadRequest = new CompleteMultipartUploadRequest("bucket", "key", "upload-id",
+                partETags);
+    }
+
+    @Benchmark
+    public byte[] deleteObjects() {
+        return RequestMarshallers.deleteObjectsRequestMarshaller.marshall(deleteObjectsRequest);
+    }
+
+    @Benchmark
+    public FixedLengthInputStream completeMultipartUpload() {
+        return RequestMarshallers.completeMultipartUploadRequestMarshaller.marshall(completeMultipartUploadRequest);
+    }
+
+}
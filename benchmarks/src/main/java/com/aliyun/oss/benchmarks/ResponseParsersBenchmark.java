@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.comm.ResponseMessage;
+import com.aliyun.oss.common.parser.ResponseParseException;
+import com.aliyun.oss.internal.OSSErrorResponseHandler;
+import com.aliyun.oss.internal.ResponseParsers;
+import com.aliyun.oss.model.ObjectListing;
+import com.aliyun.oss.model.PartListing;
+
+/**
+ * Measures parsing the response bodies of a full page of ListObjects and
+ * ListParts, and turning an error response into an {@link OSSException}. The
+ * concurrent variants run on 64 threads, which share the pooled parsers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseParsersBenchmark {
+
+    private static final String NO_SUCH_KEY = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error>"
+            + "<Code>NoSuchKey</Code><Message>The specified key does not exist.</Message>"
+            + "<RequestId>5A1BC3D2E6F7A8B9C0D1E2F3</RequestId><HostId>bucket.oss-cn-hangzhou.aliyuncs.com</HostId>"
+            + "<Key>path/to/object</Key></Error>";
+
+    private final OSSErrorResponseHandler errorResponseHandler = new OSSErrorResponseHandler();
+    private byte[] listObjects;
+    private byte[] listParts;
+    private byte[] error;
+
+    @Setup
+    public void setUp() throws UnsupportedEncodingException {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?><ListBucketResult>"
+                + "<Name>bucket</Name><Prefix>path/</Prefix><Marker></Marker><MaxKeys>1000</MaxKeys>"
+                + "<Delimiter></Delimiter><IsTruncated>true</IsTruncated><NextMarker>path/to/object-1000</NextMarker>");
+        for (int i = 1; i <= 1000; i++) {
+            xml.append("<Contents><Key>path/to/object-").append(i).append("</Key>")
+                    .append("<LastModified>2017-10-19T06:40:30.000Z</LastModified>")
+                    .append("<ETag>\"5B3C1A2E053D763E1B002CC607C5A0FE\"</ETag><Type>Normal</Type>")
+                    .append("<Size>").append(i * 1024).append("</Size><StorageClass>Standard</StorageClass>")
+                    .append("<Owner><ID>1234567890</ID><DisplayName>1234567890</DisplayName></Owner></Contents>");
+        }
+        listObjects = xml.append("</ListBucketResult>").toString().getBytes("UTF-8");
+
+        xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?><ListPartsResult>"
+                + "<Bucket>bucket</Bucket><Key>path/to/object</Key><UploadId>0004B999EF5A239BB9138C6227D69F95</UploadId>"
+                + "<PartNumberMarker></PartNumberMarker><NextPartNumberMarker>1000</NextPartNumberMarker>"
+                + "<MaxParts>1000</MaxParts><IsTruncated>false</IsTruncated>");
+        for (int i = 1; i <= 1000; i++) {
+            xml.append("<Part><PartNumber>").append(i).append("</PartNumber>")
+                    .append("<LastModified>2017-10-19T06:40:30.000Z</LastModified>")
+                    .append("<ETag>\"3349DC700140D7F86A0784842780****\"</ETag><Size>6291456</Size></Part>");
+        }
+        listParts = xml.append("</ListPartsResult>").toString().getBytes("UTF-8");
+
+        error = NO_SUCH_KEY.getBytes("UTF-8");
+    }
+
+    @Benchmark
+    public ObjectListing listObjects() throws ResponseParseException {
+        return ResponseParsers.listObjectsReponseParser.parse(response(200, listObjects));
+    }
+
+    @Benchmark
+    public PartListing listParts() throws ResponseParseException {
+        return ResponseParsers.listPartsResponseParser.parse(response(200, listParts));
+    }
+
+    @Benchmark
+    public OSSException error() {
+        try {
+            errorResponseHandler.handle(response(404, error));
+            throw new IllegalStateException("The error response should be turned into an exception");
+        } catch (OSSException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    @Threads(64)
+    public ObjectListing listObjectsConcurrent() throws ResponseParseException {
+        return listObjects();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public OSSException errorConcurrent() {
+        return error();
+    }
+
+    private static ResponseMessage response(int statusCode, byte[] content) {
+        ResponseMessage response = new ResponseMessage(null);
+        response.setStatusCode(statusCode);
+        response.setContent(new ByteArrayInputStream(content));
+        response.setContentLength(content.length);
+        return response;
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aliyun.oss.common.auth.HmacSHA1Signature;
+import com.aliyun.oss.common.comm.RequestMessage;
+import com.aliyun.oss.common.utils.HttpHeaders;
+import com.aliyun.oss.internal.SignUtils;
+
+/**
+ * Measures signing a request: building the canonical string from the headers
+ * and sub-resources, and computing its HmacSHA1 signature.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignatureBenchmark {
+
+    private static final String ACCESS_KEY_SECRET = "Oh6aB2ywBIwSXmGdmyJnR1uSnVnrRw";
+
+    private final HmacSHA1Signature signature = new HmacSHA1Signature();
+    private RequestMessage request;
+    private String canonicalString;
+
+    @Setup
+    public void setUp() {
+        request = new RequestMessage("bucket", "path/to/object");
+        request.addHeader(HttpHeaders.DATE, "Thu, 17 Nov 2005 18:49:58 GMT");
+        request.addHeader(HttpHeaders.CONTENT_TYPE, "application/octet-stream");
+        request.addHeader(HttpHeaders.CONTENT_MD5, "ODBGOERFMDMzQTczRUY3NUE3NzA5QzdFNUYzMDQxNEM=");
+        request.addHeader("x-oss-meta-author", "someone");
+        request.addHeader("x-oss-meta-project", "benchmarks");
+        request.addHeader("x-oss-security-token", "token");
+        request.addParameter("uploadId", "0004B9895DBBB6EC98E36");
+        request.addParameter("partNumber", "7");
+        canonicalString = canonicalString();
+    }
+
+    @Benchmark
+    public String canonicalString() {
+        return SignUtils.buildCanonicalString("PUT", "/bucket/path/to/object", request, null);
+    }
+
+    @Benchmark
+    public String computeSignature() {
+        return signature.computeSignature(ACCESS_KEY_SECRET, canonicalString);
+    }
+
+    @Benchmark
+    public String sign() {
+        return signature.computeSignature(ACCESS_KEY_SECRET, canonicalString());
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.benchmarks;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CheckedInputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aliyun.oss.common.comm.RepeatableInputStreamEntity.NoAutoClosedInputStreamEntity;
+import com.aliyun.oss.common.comm.io.BodyPipelineInputStream;
+import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.event.ProgressEvent;
+import com.aliyun.oss.event.ProgressInputStream;
+import com.aliyun.oss.event.ProgressListener;
+import com.aliyun.oss.internal.OSSConstants;
+
+/**
+ * Measures reading request and response bodies through the body pipeline,
+ * with progress reporting and CRC64 enabled, against the stack of wrapper
+ * streams it replaced. The bodies come from a stream which doesn't support
+ * mark, like a network or user-provided stream.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamStackBenchmark {
+
+    private static final int OLD_ENTITY_BUFFER_SIZE = 2048;
+
+    private static final ProgressListener LISTENER = new ProgressListener() {
+        @Override
+        public void progressChanged(ProgressEvent progressEvent) {
+        }
+    };
+
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Param({ "65536", "4194304" })
+    public int size;
+
+    private byte[] data;
+    private final byte[] buffer = new byte[OSSConstants.DEFAULT_BUFFER_SIZE];
+
+    @Setup
+    public void setUp() {
+        data = new byte[size];
+        new Random(0).nextBytes(data);
+    }
+
+    @Benchmark
+    public long uploadStacked() throws IOException {
+        InputStream content = new BufferedInputStream(unmarkable(), OSSConstants.DEFAULT_STREAM_BUFFER_SIZE);
+        content.mark(OSSConstants.DEFAULT_STREAM_BUFFER_SIZE);
+        content = new ProgressInputStream(content, LISTENER) {
+        };
+        CheckedInputStream checked = new CheckedInputStream(content, new CRC64());
+        byte[] entityBuffer = new byte[OLD_ENTITY_BUFFER_SIZE];
+        int l;
+        while ((l = checked.read(entityBuffer)) != -1) {
+            DISCARD.write(entityBuffer, 0, l);
+        }
+        return checked.getChecksum().getValue();
+    }
+
+    @Benchmark
+    public long uploadPipeline() throws IOException {
+        BodyPipelineInputStream content = new BodyPipelineInputStream(unmarkable()).withReplayBuffer();
+        content.mark(OSSConstants.DEFAULT_STREAM_BUFFER_SIZE);
+        content.withRequestProgress(LISTENER).withChecksum();
+        new NoAutoClosedInputStreamEntity(content, data.length).writeTo(DISCARD);
+        content.close();
+        return content.getChecksumValue();
+    }
+
+    @Benchmark
+    public long downloadStacked() throws IOException {
+        InputStream content = new ProgressInputStream(unmarkable(), LISTENER) {
+        };
+        content = new CheckedInputStream(content, new CRC64());
+        content = new ProgressInputStream(content, LISTENER) {
+        };
+        CheckedInputStream checked = new CheckedInputStream(content, new CRC64());
+        drain(checked);
+        return checked.getChecksum().getValue();
+    }
+
+    @Benchmark
+    public long downloadPipeline() throws IOException {
+        BodyPipelineInputStream content = BodyPipelineInputStream.pipelineOf(unmarkable())
+                .withResponseProgress(LISTENER).withChecksum().withTransferCompletedEvent(LISTENER);
+        drain(content);
+        return content.getChecksumValue();
+    }
+
+    private InputStream unmarkable() {
+        return new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+
+    private void drain(InputStream in) throws IOException {
+        while (in.read(buffer) != -1) {
+        }
+    }
+
+}
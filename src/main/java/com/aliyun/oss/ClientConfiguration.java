@@ -29,8 +29,14 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import com.aliyun.oss.common.auth.RequestSigner;
+import com.aliyun.oss.common.cache.MetadataCachePolicy;
+import com.aliyun.oss.common.cache.ObjectCachePolicy;
+import com.aliyun.oss.common.comm.ConnectionPoolPolicy;
 import com.aliyun.oss.common.comm.IdleConnectionReaper;
 import com.aliyun.oss.common.comm.Protocol;
+import com.aliyun.oss.common.compress.CompressionCodec;
+import com.aliyun.oss.common.crypto.EncryptionMaterials;
+import com.aliyun.oss.common.metrics.MetricsCollector;
 import com.aliyun.oss.common.utils.ResourceManager;
 import com.aliyun.oss.common.utils.VersionInfoUtils;
 import com.aliyun.oss.internal.OSSConstants;
@@ -50,6 +56,10 @@ public class ClientConfiguration {
     public static final int DEFAULT_MAX_CONNECTIONS = 1024;
     public static final long DEFAULT_CONNECTION_TTL = -1;
     public static final long DEFAULT_IDLE_CONNECTION_TIME = 60 * 1000;
+    public static final long DEFAULT_IDLE_CONNECTION_REAP_INTERVAL = 5 * 1000;
+    public static final long DEFAULT_DNS_CACHE_TTL = 60 * 1000;
+    public static final long DEFAULT_MAX_COALESCED_BODY_SIZE = 1024 * 1024;
+    public static final long DEFAULT_ADDRESS_QUARANTINE_TIME = 30 * 1000;
     public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY = 2 * 1000;
     public static final int DEFAULT_THREAD_POOL_WAIT_TIME = 60 * 1000;
     public static final int DEFAULT_REQUEST_TIMEOUT = 5 * 60 * 1000;
@@ -66,8 +76,14 @@ public class ClientConfiguration {
     protected int socketTimeout = DEFAULT_SOCKET_TIMEOUT;
     protected int maxConnections = DEFAULT_MAX_CONNECTIONS;
     protected long connectionTTL = DEFAULT_CONNECTION_TTL;
+    protected ConnectionPoolPolicy connectionPoolPolicy = new ConnectionPoolPolicy();
     protected boolean useReaper = DEFAULT_USE_REAPER;
     protected long idleConnectionTime = DEFAULT_IDLE_CONNECTION_TIME;
+    protected long idleConnectionReapInterval = DEFAULT_IDLE_CONNECTION_REAP_INTERVAL;
+
+    protected boolean dnsBalancingEnabled = false;
+    protected long dnsCacheTTL = DEFAULT_DNS_CACHE_TTL;
+    protected long addressQuarantineTime = DEFAULT_ADDRESS_QUARANTINE_TIME;
 
     protected Protocol protocol = Protocol.HTTP;
 
@@ -94,6 +110,18 @@ public class ClientConfiguration {
 
     protected List<RequestSigner> signerHandlers = new LinkedList<RequestSigner>();
 
+    protected MetricsCollector metricsCollector = null;
+
+    protected ObjectCachePolicy objectCachePolicy = null;
+    protected MetadataCachePolicy metadataCachePolicy = null;
+
+    protected boolean requestCoalescingEnabled = false;
+    protected long maxCoalescedBodySize = DEFAULT_MAX_COALESCED_BODY_SIZE;
+
+    protected CompressionCodec compressionCodec = null;
+    protected EncryptionMaterials encryptionMaterials = null;
+    protected boolean virtualThreadsEnabled = false;
+
     /**
      * Gets the user agent string.
      * 
@@ -255,6 +283,27 @@ public class ClientConfiguration {
         this.maxConnections = maxConnections;
     }
 
+    /**
+     * Gets the sizing policy of the connection pool, such as the per-route
+     * limits and the adaptive resizing.
+     * 
+     * @return The connection pool policy.
+     */
+    public ConnectionPoolPolicy getConnectionPoolPolicy() {
+        return connectionPoolPolicy;
+    }
+
+    /**
+     * Sets the sizing policy of the connection pool. By default every route
+     * may use all the max connections.
+     * 
+     * @param connectionPoolPolicy
+     *            The connection pool policy.
+     */
+    public void setConnectionPoolPolicy(ConnectionPoolPolicy connectionPoolPolicy) {
+        this.connectionPoolPolicy = connectionPoolPolicy;
+    }
+
     /**
      * Gets the socket timeout in millisecond. 0 means infinite timeout, not
      * recommended.
@@ -394,6 +443,93 @@ public class ClientConfiguration {
         this.idleConnectionTime = idleConnectionTime;
     }
 
+    /**
+     * Gets the interval between two checks of the idle and expired
+     * connections. By default it's 5 seconds.
+     * 
+     * @return The reaping interval in millisecond.
+     */
+    public long getIdleConnectionReapInterval() {
+        return idleConnectionReapInterval;
+    }
+
+    /**
+     * Sets the interval between two checks of the idle and expired
+     * connections.
+     * 
+     * @param idleConnectionReapInterval
+     *            The reaping interval in millisecond.
+     */
+    public void setIdleConnectionReapInterval(long idleConnectionReapInterval) {
+        this.idleConnectionReapInterval = idleConnectionReapInterval;
+    }
+
+    /**
+     * Gets the flag of spreading the connections over all the addresses of
+     * the endpoint. By default it's false.
+     * 
+     * @return true if the DNS balancing is enabled.
+     */
+    public boolean isDnsBalancingEnabled() {
+        return dnsBalancingEnabled;
+    }
+
+    /**
+     * Sets the flag of spreading the connections over all the addresses of
+     * the endpoint. When enabled, all the addresses of the endpoint are
+     * cached for {@link #getDnsCacheTTL()}, new connections go to them in
+     * round-robin order, and the addresses failing repeatedly are avoided for
+     * {@link #getAddressQuarantineTime()}.
+     * 
+     * @param dnsBalancingEnabled
+     *            True to enable the DNS balancing; False to disable it.
+     */
+    public void setDnsBalancingEnabled(boolean dnsBalancingEnabled) {
+        this.dnsBalancingEnabled = dnsBalancingEnabled;
+    }
+
+    /**
+     * Gets the time for which the resolved addresses of the endpoint are
+     * cached when the DNS balancing is enabled. By default it's 60 seconds.
+     * 
+     * @return The DNS cache TTL in millisecond.
+     */
+    public long getDnsCacheTTL() {
+        return dnsCacheTTL;
+    }
+
+    /**
+     * Sets the time for which the resolved addresses of the endpoint are
+     * cached when the DNS balancing is enabled.
+     * 
+     * @param dnsCacheTTL
+     *            The DNS cache TTL in millisecond.
+     */
+    public void setDnsCacheTTL(long dnsCacheTTL) {
+        this.dnsCacheTTL = dnsCacheTTL;
+    }
+
+    /**
+     * Gets the time for which a failing address is avoided when the DNS
+     * balancing is enabled. By default it's 30 seconds.
+     * 
+     * @return The quarantine time in millisecond.
+     */
+    public long getAddressQuarantineTime() {
+        return addressQuarantineTime;
+    }
+
+    /**
+     * Sets the time for which a failing address is avoided when the DNS
+     * balancing is enabled.
+     * 
+     * @param addressQuarantineTime
+     *            The quarantine time in millisecond.
+     */
+    public void setAddressQuarantineTime(long addressQuarantineTime) {
+        this.addressQuarantineTime = addressQuarantineTime;
+    }
+
     /**
      * Gets the OSS's protocol (HTTP or HTTPS).
      */
@@ -652,4 +788,185 @@ public class ClientConfiguration {
         }
     }
 
+    /**
+     * Gets the metrics collector which receives the metrics of every request.
+     * 
+     * @return The metrics collector, or null if the metrics are disabled.
+     */
+    public MetricsCollector getMetricsCollector() {
+        return metricsCollector;
+    }
+
+    /**
+     * Sets the metrics collector which receives the metrics of every request,
+     * such as the signing time, connection lease wait, time to first byte and
+     * bytes transferred. By default it's null, which disables the metrics.
+     * 
+     * @param metricsCollector
+     *            The metrics collector, e.g. a
+     *            {@link com.aliyun.oss.common.metrics.DefaultMetricsCollector}.
+     */
+    public void setMetricsCollector(MetricsCollector metricsCollector) {
+        this.metricsCollector = metricsCollector;
+    }
+
+    /**
+     * Gets the policy of the client-side object cache.
+     * 
+     * @return The object cache policy, or null if the cache is disabled.
+     */
+    public ObjectCachePolicy getObjectCachePolicy() {
+        return objectCachePolicy;
+    }
+
+    /**
+     * Sets the policy of the client-side object cache. When set, whole-object
+     * GETs are served from the cache after a conditional GET confirms the
+     * cached ETag is still current. By default it's null, which disables the
+     * cache.
+     * 
+     * @param objectCachePolicy
+     *            The object cache policy.
+     */
+    public void setObjectCachePolicy(ObjectCachePolicy objectCachePolicy) {
+        this.objectCachePolicy = objectCachePolicy;
+    }
+
+    /**
+     * Gets the policy of the client-side metadata cache.
+     * 
+     * @return The metadata cache policy, or null if the cache is disabled.
+     */
+    public MetadataCachePolicy getMetadataCachePolicy() {
+        return metadataCachePolicy;
+    }
+
+    /**
+     * Sets the policy of the client-side metadata cache. When set, the results
+     * of doesObjectExist, getObjectMetadata and getSimplifiedObjectMeta,
+     * including objects not found, are reused until they expire or the object
+     * is changed through this client. By default it's null, which disables the
+     * cache.
+     * 
+     * @param metadataCachePolicy
+     *            The metadata cache policy.
+     */
+    public void setMetadataCachePolicy(MetadataCachePolicy metadataCachePolicy) {
+        this.metadataCachePolicy = metadataCachePolicy;
+    }
+
+    /**
+     * Gets the flag of coalescing concurrent identical object GET and HEAD
+     * requests. By default it's false.
+     * 
+     * @return true if the request coalescing is enabled.
+     */
+    public boolean isRequestCoalescingEnabled() {
+        return requestCoalescingEnabled;
+    }
+
+    /**
+     * Sets the flag of coalescing concurrent identical object GET and HEAD
+     * requests. When enabled, the requests for the same object, range and
+     * constraints sent while an identical one is waiting for its response are
+     * not sent, and get a copy of its metadata and body instead.
+     * 
+     * @param requestCoalescingEnabled
+     *            true to coalesce the identical requests.
+     */
+    public void setRequestCoalescingEnabled(boolean requestCoalescingEnabled) {
+        this.requestCoalescingEnabled = requestCoalescingEnabled;
+    }
+
+    /**
+     * Gets the max body size in bytes of a coalesced GET request.
+     * 
+     * @return The max body size of a coalesced GET request.
+     */
+    public long getMaxCoalescedBodySize() {
+        return maxCoalescedBodySize;
+    }
+
+    /**
+     * Sets the max body size in bytes of a coalesced GET request. The body is
+     * buffered to be copied to every caller, and the callers of a larger body
+     * send their own request. By default it's 1MB.
+     * 
+     * @param maxCoalescedBodySize
+     *            The max body size of a coalesced GET request.
+     */
+    public void setMaxCoalescedBodySize(long maxCoalescedBodySize) {
+        this.maxCoalescedBodySize = maxCoalescedBodySize;
+    }
+
+
+    /**
+     * Gets the codec compressing the uploaded objects.
+     * 
+     * @return The compression codec, or null if the objects aren't compressed.
+     */
+    public CompressionCodec getCompressionCodec() {
+        return compressionCodec;
+    }
+
+    /**
+     * Sets the codec compressing the bodies of putObject and uploadFile,
+     * unless the request sets its own. The codec name is recorded in the user
+     * metadata and getObject decompresses the content of such objects. By
+     * default it's null, which disables the compression.
+     * 
+     * @param compressionCodec
+     *            The compression codec, e.g. a
+     *            {@link com.aliyun.oss.common.compress.GzipCodec}.
+     */
+    public void setCompressionCodec(CompressionCodec compressionCodec) {
+        this.compressionCodec = compressionCodec;
+    }
+
+    /**
+     * Gets the master key of the client-side encryption.
+     * 
+     * @return The encryption materials, or null if the objects aren't
+     *         encrypted.
+     */
+    public EncryptionMaterials getEncryptionMaterials() {
+        return encryptionMaterials;
+    }
+
+    /**
+     * Sets the master key of the client-side encryption, unless the request
+     * sets its own. The bodies of putObject and uploadFile are encrypted with
+     * a new data key wrapped in the user metadata, and getObject decrypts the
+     * content, including ranges, of such objects. By default it's null, which
+     * disables the encryption.
+     * 
+     * @param encryptionMaterials
+     *            The encryption materials.
+     */
+    public void setEncryptionMaterials(EncryptionMaterials encryptionMaterials) {
+        this.encryptionMaterials = encryptionMaterials;
+    }
+
+    /**
+     * Gets the flag of running the client's own tasks on virtual threads.
+     * 
+     * @return True if it's enabled; False if it's disabled.
+     */
+    public boolean isVirtualThreadsEnabled() {
+        return virtualThreadsEnabled;
+    }
+
+    /**
+     * Sets the flag of running the client's own tasks on virtual threads: the
+     * parts of uploadFile and downloadFile, the batched operations and the
+     * requests of the request timeout mode. It only takes effect on JDK 21 or
+     * later; on older JDKs the platform threads are used. By default it's
+     * false.
+     * 
+     * @param enabled
+     *            True if it's enabled; False if it's disabled.
+     */
+    public void setVirtualThreadsEnabled(boolean enabled) {
+        this.virtualThreadsEnabled = enabled;
+    }
 }
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -679,6 +680,22 @@ public interface OSS {
      */
     public ObjectMetadata getObjectMetadata(GenericRequest genericRequest) throws OSSException, ClientException;
 
+    /**
+     * Gets the metadata of many {@link OSSObject}s with concurrent HEAD
+     * requests. The keys are read, and their requests sent, as the results
+     * are consumed, and the results are returned in the order the requests
+     * complete. The objects not found and the failed requests are returned
+     * as results instead of being thrown.
+     * 
+     * @param headObjectsRequest
+     *            A {@link HeadObjectsRequest} instance which specifies the
+     *            bucket name, the object keys and the max number of
+     *            concurrent requests.
+     *
+     * @return The iterator of the {@link HeadObjectResult}s.
+     */
+    public Iterator<HeadObjectResult> headObjects(HeadObjectsRequest headObjectsRequest) throws ClientException;
+
     /**
      * Append the data to the appendable object specified in
      * {@link AppendObjectRequest}. It's not applicable to normal OSS object.
@@ -780,6 +797,21 @@ public interface OSS {
     @Deprecated
     public boolean doesObjectExist(HeadObjectRequest headObjectRequest) throws OSSException, ClientException;
 
+    /**
+     * Gets the metadata of the {@link OSSObject} if it meets the constraints of
+     * the request. The object not found and the constraints not met are
+     * returned as the status code of the result instead of an
+     * {@link OSSException}, so that probing many missing or unchanged objects
+     * is cheap.
+     * 
+     * @param headObjectRequest
+     *            A {@link HeadObjectRequest} instance which specifies the
+     *            bucket name, object key and constraints.
+     * @return A {@link HeadObjectResult} instance which is found, not found,
+     *         not modified or failed the precondition.
+     */
+    public HeadObjectResult headObject(HeadObjectRequest headObjectRequest) throws OSSException, ClientException;
+
     /**
      * Sets the Access Control List (ACL) on a {@link OSSObject} instance.
      * 
@@ -1857,6 +1889,33 @@ public interface OSS {
      */
     public DownloadFileResult downloadFile(DownloadFileRequest downloadFileRequest) throws Throwable;
 
+    /**
+     * Object composition
+     * 
+     * Concatenates the source objects, or ranges of them, in order into a new
+     * object by a multipart upload. A source of at least 100KB is copied on
+     * the server by {@link #uploadPartCopy(UploadPartCopyRequest)}, so its
+     * bytes don't pass through the client. The smaller sources are downloaded
+     * and uploaded together as regular parts. The parts are uploaded in
+     * parallel by a thread pool, though by default the thread pool only has
+     * one thread. The sources must not change while they're composed, the
+     * copies and downloads are constrained by the ETags the sources had when
+     * the composition started. Optionally a checkpoint file could be used to
+     * track the progress of the composition and resume it later upon failure,
+     * as long as the sources are unchanged. Without a checkpoint file a failed
+     * composition aborts its multipart upload.
+     * 
+     * @param composeObjectRequest
+     *            A {@link ComposeObjectRequest} instance that specifies the
+     *            target bucket name, object key, the sources, part sizes,
+     *            thread count (from 1 to 1000) and checkpoint file.
+     * @return A {@link ComposeObjectResult} instance which has the new
+     *         object's key, ETag, location, and the number of bytes copied on
+     *         the server.
+     * @throws Throwable
+     */
+    public ComposeObjectResult composeObject(ComposeObjectRequest composeObjectRequest) throws Throwable;
+
     /**
      * Creates a live streaming channel. OSS could manage the RTMP inbound
      * stream by the "Live Channel". To store the RTMP stream into OSS, this
@@ -2277,4 +2336,20 @@ public interface OSS {
     public UdfApplicationLog getUdfApplicationLog(GetUdfApplicationLogRequest getUdfApplicationLogRequest)
             throws OSSException, ClientException;
 
+    /**
+     * Warms up the client before it serves traffic. The pooled connections
+     * to the buckets are opened ahead of time, including the TLS handshake for
+     * HTTPS, and the response parsers, the signer and the MIME types are
+     * initialized.
+     * 
+     * @param warmUpRequest
+     *            A {@link WarmUpRequest} instance that specifies the buckets
+     *            and the number of connections per bucket.
+     * @return A {@link WarmUpResult} instance which reports how long the
+     *         warm-up took and the number of connections opened.
+     * @throws ClientException
+     *             OSS Client side exception.
+     */
+    public WarmUpResult warmUp(WarmUpRequest warmUpRequest) throws ClientException;
+
 }
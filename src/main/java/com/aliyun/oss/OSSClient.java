@@ -45,14 +45,20 @@ import java.net.URL;
 import java.net.UnknownHostException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.aliyun.oss.common.auth.Credentials;
 import com.aliyun.oss.common.auth.CredentialsProvider;
 import com.aliyun.oss.common.auth.DefaultCredentialProvider;
 import com.aliyun.oss.common.auth.ServiceSignature;
+import com.aliyun.oss.common.cache.MetadataCacheStats;
+import com.aliyun.oss.common.cache.ObjectCacheStats;
+import com.aliyun.oss.common.comm.ConnectionPoolStats;
 import com.aliyun.oss.common.comm.DefaultServiceClient;
 import com.aliyun.oss.common.comm.RequestMessage;
 import com.aliyun.oss.common.comm.ResponseMessage;
@@ -65,12 +71,14 @@ import com.aliyun.oss.common.utils.HttpUtil;
 import com.aliyun.oss.internal.CORSOperation;
 import com.aliyun.oss.internal.LiveChannelOperation;
 import com.aliyun.oss.internal.OSSBucketOperation;
+import com.aliyun.oss.internal.OSSComposeOperation;
 import com.aliyun.oss.internal.OSSDownloadOperation;
 import com.aliyun.oss.internal.OSSHeaders;
 import com.aliyun.oss.internal.OSSMultipartOperation;
 import com.aliyun.oss.internal.OSSObjectOperation;
 import com.aliyun.oss.internal.OSSUdfOperation;
 import com.aliyun.oss.internal.OSSUploadOperation;
+import com.aliyun.oss.internal.OSSWarmUpOperation;
 import com.aliyun.oss.internal.OSSUtils;
 import com.aliyun.oss.internal.RequestParameters;
 import com.aliyun.oss.internal.SignUtils;
@@ -86,7 +94,8 @@ public class OSSClient implements OSS {
     private CredentialsProvider credsProvider;
 
     /* The valid endpoint for accessing to OSS services */
-    private URI endpoint;
+    private volatile URI endpoint;
+    private final Lock endpointLock = new ReentrantLock();
 
     /* The default service client */
     private ServiceClient serviceClient;
@@ -98,8 +107,10 @@ public class OSSClient implements OSS {
     private CORSOperation corsOperation;
     private OSSUploadOperation uploadOperation;
     private OSSDownloadOperation downloadOperation;
+    private OSSComposeOperation composeOperation;
     private LiveChannelOperation liveChannelOperation;
     private OSSUdfOperation udfOperation;
+    private OSSWarmUpOperation warmUpOperation;
 
     /**
      * Uses the default OSS Endpoint(http://oss-cn-hangzhou.aliyuncs.com) and
@@ -234,7 +245,7 @@ public class OSSClient implements OSS {
      * 
      * @return OSS services Endpoint.
      */
-    public synchronized URI getEndpoint() {
+    public URI getEndpoint() {
         return URI.create(endpoint.toString());
     }
 
@@ -244,20 +255,26 @@ public class OSSClient implements OSS {
      * @param endpoint
      *            OSS services endpoint.
      */
-    public synchronized void setEndpoint(String endpoint) {
+    public void setEndpoint(String endpoint) {
         URI uri = toURI(endpoint);
-        this.endpoint = uri;
+        endpointLock.lock();
+        try {
+            this.endpoint = uri;
 
-        if (isIpOrLocalhost(uri)) {
-            serviceClient.getClientConfiguration().setSLDEnabled(true);
-        }
+            if (isIpOrLocalhost(uri)) {
+                serviceClient.getClientConfiguration().setSLDEnabled(true);
+            }
 
-        this.bucketOperation.setEndpoint(uri);
-        this.objectOperation.setEndpoint(uri);
-        this.multipartOperation.setEndpoint(uri);
-        this.corsOperation.setEndpoint(uri);
-        this.liveChannelOperation.setEndpoint(uri);
-        this.udfOperation.setEndpoint(uri);
+            this.bucketOperation.setEndpoint(uri);
+            this.objectOperation.setEndpoint(uri);
+            this.multipartOperation.setEndpoint(uri);
+            this.corsOperation.setEndpoint(uri);
+            this.liveChannelOperation.setEndpoint(uri);
+            this.udfOperation.setEndpoint(uri);
+            this.warmUpOperation.setEndpoint(uri);
+        } finally {
+            endpointLock.unlock();
+        }
     }
 
     /**
@@ -303,12 +320,14 @@ public class OSSClient implements OSS {
     private void initOperations() {
         this.bucketOperation = new OSSBucketOperation(this.serviceClient, this.credsProvider);
         this.objectOperation = new OSSObjectOperation(this.serviceClient, this.credsProvider);
-        this.multipartOperation = new OSSMultipartOperation(this.serviceClient, this.credsProvider);
+        this.multipartOperation = new OSSMultipartOperation(this.serviceClient, this.credsProvider, this.objectOperation);
         this.corsOperation = new CORSOperation(this.serviceClient, this.credsProvider);
         this.uploadOperation = new OSSUploadOperation(this.multipartOperation);
         this.downloadOperation = new OSSDownloadOperation(objectOperation);
+        this.composeOperation = new OSSComposeOperation(this.multipartOperation, this.objectOperation);
         this.liveChannelOperation = new LiveChannelOperation(this.serviceClient, this.credsProvider);
         this.udfOperation = new OSSUdfOperation(this.serviceClient, this.credsProvider);
+        this.warmUpOperation = new OSSWarmUpOperation(this.serviceClient, this.credsProvider);
     }
 
     @Override
@@ -328,6 +347,39 @@ public class OSSClient implements OSS {
         return serviceClient.getClientConfiguration();
     }
 
+    /**
+     * Gets the stats of the HTTP connection pool, including the leased,
+     * pending and available connections in total and per route.
+     * 
+     * @return The {@link ConnectionPoolStats} of the client, or null if the
+     *         client does not pool connections.
+     */
+    public ConnectionPoolStats getConnectionPoolStats() {
+        return serviceClient.getConnectionPoolStats();
+    }
+
+    /**
+     * Gets the stats of the client-side object cache, including the hits,
+     * misses and evictions.
+     * 
+     * @return The {@link ObjectCacheStats} of the client, or null if the
+     *         object cache is disabled.
+     */
+    public ObjectCacheStats getObjectCacheStats() {
+        return objectOperation.getObjectCacheStats();
+    }
+
+    /**
+     * Gets the stats of the client-side metadata cache, including the hits,
+     * misses and evictions.
+     * 
+     * @return The {@link MetadataCacheStats} of the client, or null if the
+     *         metadata cache is disabled.
+     */
+    public MetadataCacheStats getMetadataCacheStats() {
+        return objectOperation.getMetadataCacheStats();
+    }
+
     @Override
     public Bucket createBucket(String bucketName) throws OSSException, ClientException {
         return this.createBucket(new CreateBucketRequest(bucketName));
@@ -583,6 +635,11 @@ public class OSSClient implements OSS {
         return objectOperation.getObjectMetadata(genericRequest);
     }
 
+    @Override
+    public Iterator<HeadObjectResult> headObjects(HeadObjectsRequest headObjectsRequest) throws ClientException {
+        return objectOperation.headObjects(headObjectsRequest);
+    }
+
     @Override
     public AppendObjectResult appendObject(AppendObjectRequest appendObjectRequest)
             throws OSSException, ClientException {
@@ -625,6 +682,11 @@ public class OSSClient implements OSS {
         return doesObjectExist(new GenericRequest(headObjectRequest.getBucketName(), headObjectRequest.getKey()));
     }
 
+    @Override
+    public HeadObjectResult headObject(HeadObjectRequest headObjectRequest) throws OSSException, ClientException {
+        return objectOperation.headObject(headObjectRequest);
+    }
+
     @Override
     public boolean doesObjectExist(GenericRequest genericRequest) throws OSSException, ClientException {
         return objectOperation.doesObjectExist(genericRequest);
@@ -703,7 +765,7 @@ public class OSSClient implements OSS {
         String resourcePath = OSSUtils.determineResourcePath(bucketName, key, config.isSLDEnabled());
 
         RequestMessage requestMessage = new RequestMessage(bucketName, key);
-        requestMessage.setEndpoint(OSSUtils.determineFinalEndpoint(endpoint, bucketName, config));
+        requestMessage.setEndpoint(serviceClient.getEndpointResolver().resolve(endpoint, bucketName, config));
         requestMessage.setMethod(method);
         requestMessage.setResourcePath(resourcePath);
         requestMessage.setHeaders(request.getHeaders());
@@ -1180,6 +1242,11 @@ public class OSSClient implements OSS {
         return downloadOperation.downloadFile(downloadFileRequest);
     }
 
+    @Override
+    public ComposeObjectResult composeObject(ComposeObjectRequest composeObjectRequest) throws Throwable {
+        return composeOperation.composeObject(composeObjectRequest);
+    }
+
     @Override
     public CreateLiveChannelResult createLiveChannel(CreateLiveChannelRequest createLiveChannelRequest)
             throws OSSException, ClientException {
@@ -1380,6 +1447,11 @@ public class OSSClient implements OSS {
         return this.udfOperation.getUdfApplicationLog(getUdfApplicationLogRequest);
     }
 
+    @Override
+    public WarmUpResult warmUp(WarmUpRequest warmUpRequest) throws ClientException {
+        return this.warmUpOperation.warmUp(warmUpRequest);
+    }
+
     @Override
     public void shutdown() {
         try {
@@ -1387,6 +1459,8 @@ public class OSSClient implements OSS {
         } catch (Exception e) {
             logException("shutdown throw exception: ", e);
         }
+        objectOperation.clearCaches();
+        objectOperation.shutdown();
     }
 
 }
@@ -251,4 +251,15 @@ public interface OSSErrorCode {
      * The archive file is not restored before usage.
      */
     static final String INVALID_OBJECT_STATE = "InvalidObjectState";
+
+    /**
+     * The archive file is being restored.
+     */
+    static final String RESTORE_ALREADY_IN_PROGRESS = "RestoreAlreadyInProgress";
+
+    /**
+     * The operation is not supported for the resource, such as restoring a
+     * file which isn't archived.
+     */
+    static final String OPERATION_NOT_SUPPORTED = "OperationNotSupported";
 }
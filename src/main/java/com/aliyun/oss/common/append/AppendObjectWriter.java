@@ -0,0 +1,452 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.append;
+
+import static com.aliyun.oss.common.utils.LogUtils.getLog;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.internal.OSSHeaders;
+import com.aliyun.oss.model.AppendObjectRequest;
+import com.aliyun.oss.model.AppendObjectResult;
+import com.aliyun.oss.model.HeadObjectRequest;
+import com.aliyun.oss.model.HeadObjectResult;
+import com.aliyun.oss.model.ObjectMetadata;
+
+/**
+ * Appends records from any number of threads to an appendable object, such as
+ * an audit log, with one appendObject request per batch instead of one per
+ * record.
+ * 
+ * <p>
+ * The records are buffered in a bounded queue and a single writer thread
+ * group-commits them once the flush interval has passed or the batch is
+ * large enough, tracking the next position from the results. The records of
+ * a thread are appended in order, and as they are; add a line separator to
+ * each record if needed. {@link #flush()} waits until the records appended
+ * before it are stored.
+ * </p>
+ * 
+ * <p>
+ * When the position is stale, because another writer appended to the object
+ * or an append was retried after it succeeded, the writer reads the length
+ * and CRC-64 of the object with a HEAD request. If the object already ends
+ * with the batch, the batch isn't appended again; otherwise it's appended at
+ * the new length. Once the object reaches the max object size, the writer
+ * rolls over to the next object, named key.1, key.2 and so on.
+ * </p>
+ */
+public class AppendObjectWriter implements Closeable, Flushable {
+
+    /* Markers queued after the records, compared by identity. */
+    private static final byte[] FLUSH = new byte[0];
+    private static final byte[] CLOSE = new byte[0];
+
+    private static final long RETRY_BACKOFF = 100;
+
+    private final OSS client;
+    private final String bucketName;
+    private final String key;
+    private final AppendWriterPolicy policy;
+    private final BlockingQueue<byte[]> records;
+    private final Thread writerThread;
+
+    private final AtomicLong queuedRecords = new AtomicLong();
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final Condition committed = commitLock.newCondition();
+    private long committedRecords;
+    private volatile ClientException failure;
+    private volatile boolean closed;
+
+    /* Only used by the writer thread, published for the getters. */
+    private int objectIndex;
+    private volatile String currentKey;
+    private volatile long position = -1;
+    private Long objectCRC;
+    private final AtomicLong appendCount = new AtomicLong();
+
+    public AppendObjectWriter(OSS client, String bucketName, String key) {
+        this(client, bucketName, key, new AppendWriterPolicy());
+    }
+
+    public AppendObjectWriter(OSS client, String bucketName, String key, AppendWriterPolicy policy) {
+        if (policy.getFlushInterval() < 0 || policy.getMaxBatchSize() <= 0 || policy.getBufferCapacity() <= 0
+                || policy.getMaxObjectSize() <= 0) {
+            throw new IllegalArgumentException("Invalid append writer policy");
+        }
+        this.client = client;
+        this.bucketName = bucketName;
+        this.key = key;
+        this.currentKey = key;
+        this.policy = policy;
+        this.records = new ArrayBlockingQueue<byte[]>(policy.getBufferCapacity());
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "oss-append-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a record to be appended, blocking while the buffer is full.
+     * 
+     * @param record
+     *            The bytes of the record.
+     * @throws ClientException
+     *             If the writer is closed or failed to append earlier
+     *             records.
+     */
+    public void append(byte[] record) throws ClientException {
+        checkState();
+        try {
+            records.put(record.clone());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while appending", e);
+        }
+        queuedRecords.incrementAndGet();
+    }
+
+    /**
+     * Queues a record to be appended in UTF-8.
+     */
+    public void append(String record) throws ClientException {
+        try {
+            append(record.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new ClientException(e);
+        }
+    }
+
+    /**
+     * Appends the buffered records right away and waits until the records
+     * queued before this call are stored.
+     * 
+     * @throws ClientException
+     *             If the records couldn't be appended.
+     */
+    public void flush() throws ClientException {
+        long target = queuedRecords.get();
+        checkState();
+        try {
+            records.put(FLUSH);
+            commitLock.lock();
+            try {
+                while (committedRecords < target && failure == null) {
+                    committed.await();
+                }
+            } finally {
+                commitLock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while flushing", e);
+        }
+        if (failure != null) {
+            throw new ClientException(failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * Appends the buffered records and stops the writer thread.
+     * 
+     * @throws ClientException
+     *             If the records couldn't be appended.
+     */
+    @Override
+    public void close() throws ClientException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (failure == null) {
+                flush();
+            }
+        } finally {
+            closed = true;
+            try {
+                records.put(CLOSE);
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure != null) {
+            throw new ClientException(failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * Gets the key of the object being appended to.
+     */
+    public String getCurrentKey() {
+        return currentKey;
+    }
+
+    /**
+     * Gets the position of the next append, or -1 before the first one.
+     */
+    public long getNextPosition() {
+        return position;
+    }
+
+    /**
+     * Gets the number of appendObject requests sent.
+     */
+    public long getAppendCount() {
+        return appendCount.get();
+    }
+
+    private void checkState() {
+        if (failure != null) {
+            throw new ClientException(failure.getMessage(), failure);
+        }
+        if (closed) {
+            throw new ClientException("The append writer is closed");
+        }
+    }
+
+    private void writeLoop() {
+        List<byte[]> batch = new ArrayList<byte[]>();
+        long batchSize = 0;
+        long deadline = 0;
+        try {
+            while (true) {
+                byte[] record;
+                if (batch.isEmpty()) {
+                    record = records.take();
+                } else {
+                    record = records.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
+
+                if (record == null || record == FLUSH || record == CLOSE) {
+                    commit(batch, batchSize);
+                    batch.clear();
+                    batchSize = 0;
+                    if (record == CLOSE) {
+                        return;
+                    }
+                    continue;
+                }
+
+                if (!batch.isEmpty() && batchSize + record.length > policy.getMaxBatchSize()) {
+                    commit(batch, batchSize);
+                    batch.clear();
+                    batchSize = 0;
+                }
+                if (batch.isEmpty()) {
+                    deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(policy.getFlushInterval());
+                }
+                batch.add(record);
+                batchSize += record.length;
+                if (batchSize >= policy.getMaxBatchSize()) {
+                    commit(batch, batchSize);
+                    batch.clear();
+                    batchSize = 0;
+                }
+            }
+        } catch (InterruptedException e) {
+            fail(new ClientException("The append writer was interrupted", e));
+        }
+    }
+
+    private void commit(List<byte[]> batch, long batchSize) {
+        if (!batch.isEmpty() && failure == null) {
+            byte[] data = new byte[(int) batchSize];
+            int offset = 0;
+            for (byte[] record : batch) {
+                System.arraycopy(record, 0, data, offset, record.length);
+                offset += record.length;
+            }
+            try {
+                write(data);
+            } catch (RuntimeException e) {
+                getLog().warn("Failed to append " + batch.size() + " records to " + currentKey, e);
+                fail(e instanceof ClientException ? (ClientException) e : new ClientException(e));
+            }
+        }
+
+        // The records of a failed writer are dropped, and counted as done so
+        // that no flush waits for them.
+        commitLock.lock();
+        try {
+            committedRecords += batch.size();
+            committed.signalAll();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private void fail(ClientException e) {
+        commitLock.lock();
+        try {
+            if (failure == null) {
+                failure = e;
+            }
+            committed.signalAll();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private void write(byte[] data) {
+        if (position < 0) {
+            locate();
+        }
+        if (position > 0 && position + data.length > policy.getMaxObjectSize()) {
+            rollOver();
+        }
+
+        for (int attempt = 0;; attempt++) {
+            try {
+                AppendObjectRequest request = new AppendObjectRequest(bucketName, currentKey,
+                        new ByteArrayInputStream(data)).withPosition(position);
+                request.setInitCRC(objectCRC);
+                AppendObjectResult result = client.appendObject(request);
+                appendCount.incrementAndGet();
+                position = result.getNextPosition() != null ? result.getNextPosition() : position + data.length;
+                objectCRC = parseCRC(result.getObjectCRC());
+                return;
+            } catch (OSSException e) {
+                if (OSSErrorCode.OBJECT_NOT_APPENDALBE.equals(e.getErrorCode())) {
+                    rollOver();
+                } else if (attempt >= policy.getMaxRetries()) {
+                    throw e;
+                } else if (recover(data)) {
+                    return;
+                }
+            } catch (ClientException e) {
+                if (attempt >= policy.getMaxRetries()) {
+                    throw e;
+                }
+                backOff(attempt);
+                if (recover(data)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the actual length of the object after a failed or conflicting
+     * append.
+     * 
+     * @return true if the object already ends with the data, which was
+     *         appended by a request that seemed to fail.
+     */
+    private boolean recover(byte[] data) {
+        long expectedPosition = position;
+        Long expectedCRC = objectCRC;
+        if (!readObject()) {
+            rollOver();
+            return false;
+        }
+
+        if (position == expectedPosition + data.length && expectedCRC != null && objectCRC != null) {
+            CRC64 dataCRC = new CRC64();
+            dataCRC.update(data, data.length);
+            if (CRC64.combine(expectedCRC, dataCRC.getValue(), data.length) == objectCRC) {
+                return true;
+            }
+        }
+        if (position > 0 && position + data.length > policy.getMaxObjectSize()) {
+            rollOver();
+        }
+        return false;
+    }
+
+    /**
+     * Finds the first object of the sequence that can still be appended to.
+     */
+    private void locate() {
+        while (!readObject() || (position > 0 && position >= policy.getMaxObjectSize())) {
+            nextObject();
+        }
+    }
+
+    private void rollOver() {
+        nextObject();
+        locate();
+    }
+
+    private void nextObject() {
+        objectIndex++;
+        currentKey = key + "." + objectIndex;
+        position = -1;
+        objectCRC = null;
+    }
+
+    /**
+     * Reads the length and CRC-64 of the current object.
+     * 
+     * @return false if the object exists but isn't appendable.
+     */
+    private boolean readObject() {
+        HeadObjectResult result = client.headObject(new HeadObjectRequest(bucketName, currentKey));
+        if (!result.isFound()) {
+            position = 0;
+            objectCRC = 0L;
+            return true;
+        }
+
+        ObjectMetadata metadata = result.getObjectMetadata();
+        if (!"Appendable".equals(metadata.getObjectType())) {
+            return false;
+        }
+        position = metadata.getContentLength();
+        Object crc = metadata.getRawMetadata().get(OSSHeaders.OSS_HASH_CRC64_ECMA);
+        objectCRC = crc != null ? parseCRC(crc.toString()) : null;
+        return true;
+    }
+
+    private static Long parseCRC(String crc) {
+        return crc != null ? new BigInteger(crc).longValue() : null;
+    }
+
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(RETRY_BACKOFF << Math.min(attempt, 6));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while retrying an append", e);
+        }
+    }
+
+}
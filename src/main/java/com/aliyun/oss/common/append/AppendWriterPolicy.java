@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.append;
+
+/**
+ * The batching and rollover policy of an {@link AppendObjectWriter}. The
+ * buffered records are appended in one request once the flush interval has
+ * passed since the oldest of them, or once they reach the max batch size,
+ * whichever comes first.
+ */
+public class AppendWriterPolicy {
+
+    public static final long DEFAULT_FLUSH_INTERVAL = 200;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1024 * 1024;
+    public static final int DEFAULT_BUFFER_CAPACITY = 10000;
+    public static final long DEFAULT_MAX_OBJECT_SIZE = 1024L * 1024 * 1024;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+
+    private long flushInterval = DEFAULT_FLUSH_INTERVAL;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private int bufferCapacity = DEFAULT_BUFFER_CAPACITY;
+    private long maxObjectSize = DEFAULT_MAX_OBJECT_SIZE;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+
+    /**
+     * Gets the max time in millisecond a record is buffered before it's
+     * appended.
+     */
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     * Sets the max time in millisecond a record is buffered before it's
+     * appended. By default it's 200.
+     * 
+     * @param flushInterval
+     *            The flush interval in millisecond.
+     */
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public AppendWriterPolicy withFlushInterval(long flushInterval) {
+        setFlushInterval(flushInterval);
+        return this;
+    }
+
+    /**
+     * Gets the size in bytes of the buffered records that triggers an append.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Sets the size in bytes of the buffered records that triggers an append.
+     * A larger record is appended on its own. By default it's 1MB.
+     * 
+     * @param maxBatchSize
+     *            The max batch size in bytes.
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public AppendWriterPolicy withMaxBatchSize(int maxBatchSize) {
+        setMaxBatchSize(maxBatchSize);
+        return this;
+    }
+
+    /**
+     * Gets the max number of records waiting to be appended.
+     */
+    public int getBufferCapacity() {
+        return bufferCapacity;
+    }
+
+    /**
+     * Sets the max number of records waiting to be appended. Writers block
+     * once the buffer is full, until the pending records are appended. By
+     * default it's 10000.
+     * 
+     * @param bufferCapacity
+     *            The buffer capacity in records.
+     */
+    public void setBufferCapacity(int bufferCapacity) {
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    public AppendWriterPolicy withBufferCapacity(int bufferCapacity) {
+        setBufferCapacity(bufferCapacity);
+        return this;
+    }
+
+    /**
+     * Gets the size in bytes at which the writer rolls over to a new object.
+     */
+    public long getMaxObjectSize() {
+        return maxObjectSize;
+    }
+
+    /**
+     * Sets the size in bytes at which the writer rolls over to a new object.
+     * A batch that would grow a non-empty object beyond it goes to the next
+     * object instead. By default it's 1GB; OSS caps appendable objects at 5GB.
+     * 
+     * @param maxObjectSize
+     *            The max object size in bytes.
+     */
+    public void setMaxObjectSize(long maxObjectSize) {
+        this.maxObjectSize = maxObjectSize;
+    }
+
+    public AppendWriterPolicy withMaxObjectSize(long maxObjectSize) {
+        setMaxObjectSize(maxObjectSize);
+        return this;
+    }
+
+    /**
+     * Gets the max number of times a failed append is retried.
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Sets the max number of times a failed or conflicting append is retried
+     * before the writer fails. By default it's 3.
+     * 
+     * @param maxRetries
+     *            The max retries.
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public AppendWriterPolicy withMaxRetries(int maxRetries) {
+        setMaxRetries(maxRetries);
+        return this;
+    }
+
+}
@@ -42,10 +42,8 @@ public class HmacSHA1Signature extends ServiceSignature {
     /* Signature version. */
     private static final String VERSION = "1";
 
-    private static final Object LOCK = new Object();
-
     /* Prototype of the Mac instance. */
-    private static Mac macInstance;
+    private static volatile Mac macInstance;
 
     public String getAlgorithm() {
         return ALGORITHM;
@@ -69,17 +67,17 @@ public class HmacSHA1Signature extends ServiceSignature {
             // Because Mac.getInstance(String) calls a synchronized method, it
             // could block on
             // invoked concurrently, so use prototype pattern to improve perf.
-            if (macInstance == null) {
-                synchronized (LOCK) {
-                    if (macInstance == null) {
-                        macInstance = Mac.getInstance(ALGORITHM);
-                    }
-                }
+            // Racing threads may each create a prototype, which is harmless
+            // and takes no lock that would pin a virtual thread.
+            Mac prototype = macInstance;
+            if (prototype == null) {
+                prototype = Mac.getInstance(ALGORITHM);
+                macInstance = prototype;
             }
 
             Mac mac = null;
             try {
-                mac = (Mac) macInstance.clone();
+                mac = (Mac) prototype.clone();
             } catch (CloneNotSupportedException e) {
                 // If it is not clonable, create a new one.
                 mac = Mac.getInstance(ALGORITHM);
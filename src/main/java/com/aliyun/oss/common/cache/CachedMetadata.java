@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.cache;
+
+import static com.aliyun.oss.internal.OSSUtils.copyObjectMetadata;
+
+import java.util.Date;
+
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.SimplifiedObjectMeta;
+
+/**
+ * An entry of the {@link MetadataCache}: either the metadata of an existing
+ * object, or the fact that the object was not found.
+ */
+public class CachedMetadata {
+
+    private final ObjectMetadata metadata;
+    private final SimplifiedObjectMeta simplifiedMeta;
+    private final boolean found;
+    private final long expirationTime;
+
+    CachedMetadata(ObjectMetadata metadata, SimplifiedObjectMeta simplifiedMeta, boolean found,
+            long expirationTime) {
+        this.metadata = metadata;
+        this.simplifiedMeta = simplifiedMeta;
+        this.found = found;
+        this.expirationTime = expirationTime;
+    }
+
+    /**
+     * Gets whether the object exists.
+     */
+    public boolean isFound() {
+        return found;
+    }
+
+    /**
+     * Gets a copy of the full metadata of the object, or null if only the
+     * simplified metadata is known.
+     */
+    public ObjectMetadata getObjectMetadata() {
+        return metadata != null ? copyObjectMetadata(metadata) : null;
+    }
+
+    /**
+     * Gets the simplified metadata of the object, or null if the object was
+     * not found.
+     */
+    public SimplifiedObjectMeta getSimplifiedObjectMeta() {
+        if (!found) {
+            return null;
+        }
+        SimplifiedObjectMeta meta = new SimplifiedObjectMeta();
+        if (simplifiedMeta != null) {
+            meta.setETag(simplifiedMeta.getETag());
+            meta.setSize(simplifiedMeta.getSize());
+            meta.setLastModified(copyOf(simplifiedMeta.getLastModified()));
+        } else {
+            meta.setETag(metadata.getETag());
+            meta.setSize(metadata.getContentLength());
+            meta.setLastModified(copyOf(metadata.getLastModified()));
+        }
+        return meta;
+    }
+
+    boolean isExpired(long now) {
+        return now >= expirationTime;
+    }
+
+    private static Date copyOf(Date date) {
+        return date != null ? new Date(date.getTime()) : null;
+    }
+
+}
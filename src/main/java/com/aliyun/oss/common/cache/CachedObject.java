@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.cache;
+
+import static com.aliyun.oss.internal.OSSUtils.copyObjectMetadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.aliyun.oss.model.ObjectMetadata;
+
+/**
+ * An object kept by the {@link TieredObjectCache}, either in memory or as a
+ * file of the disk tier.
+ */
+public class CachedObject {
+
+    private final String eTag;
+    private final ObjectMetadata metadata;
+    private final long size;
+    private final byte[] data;
+    private final File file;
+    private volatile long lastAccessTime;
+
+    CachedObject(String eTag, ObjectMetadata metadata, byte[] data) {
+        this.eTag = eTag;
+        this.metadata = copyObjectMetadata(metadata);
+        this.size = data.length;
+        this.data = data;
+        this.file = null;
+    }
+
+    CachedObject(String eTag, ObjectMetadata metadata, File file, long size) {
+        this.eTag = eTag;
+        this.metadata = copyObjectMetadata(metadata);
+        this.size = size;
+        this.data = null;
+        this.file = file;
+    }
+
+    /**
+     * Gets the ETag of the cached copy, which is used to revalidate it.
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Gets a copy of the object metadata returned when the object was cached.
+     */
+    public ObjectMetadata getObjectMetadata() {
+        return copyObjectMetadata(metadata);
+    }
+
+    /**
+     * Gets the size of the object content in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Opens a new stream of the cached content.
+     * 
+     * @throws IOException
+     *             If the file of the disk tier has been removed.
+     */
+    public InputStream openContent() throws IOException {
+        if (data != null) {
+            return new ByteArrayInputStream(data);
+        }
+        return new FileInputStream(file);
+    }
+
+    boolean isOnDisk() {
+        return file != null;
+    }
+
+    long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    void setLastAccessTime(long lastAccessTime) {
+        this.lastAccessTime = lastAccessTime;
+    }
+
+    void discard() {
+        if (file != null && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+}
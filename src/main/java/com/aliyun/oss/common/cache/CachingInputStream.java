@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.cache;
+
+import static com.aliyun.oss.common.utils.LogUtils.getLog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.aliyun.oss.model.ObjectMetadata;
+
+/**
+ * Copies the object content into the cache while the caller reads it. The
+ * copy is added to the cache only when the whole content has been read, so a
+ * partially consumed or failed download never leaves a truncated entry.
+ */
+class CachingInputStream extends FilterInputStream {
+
+    private final TieredObjectCache cache;
+    private final String key;
+    private final String eTag;
+    private final ObjectMetadata metadata;
+    private final long expectedLength;
+    private final File file;
+
+    private OutputStream copy;
+    private long copied = 0;
+
+    CachingInputStream(InputStream in, TieredObjectCache cache, String key, String eTag, ObjectMetadata metadata,
+            File file) throws IOException {
+        super(in);
+        this.cache = cache;
+        this.key = key;
+        this.eTag = eTag;
+        this.metadata = metadata;
+        this.expectedLength = metadata.getContentLength();
+        this.file = file;
+        this.copy = file != null ? new FileOutputStream(file) : new ByteArrayOutputStream((int) expectedLength);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b == -1) {
+            commit();
+        } else {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int bytesRead = super.read(b, off, len);
+        if (bytesRead == -1) {
+            commit();
+        } else {
+            write(b, off, bytesRead);
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // The skipped bytes are still needed by the cached copy.
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int bytesRead = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (bytesRead == -1) {
+                break;
+            }
+            skipped += bytesRead;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            abort();
+        }
+    }
+
+    private void write(byte[] b, int off, int len) {
+        if (copy == null) {
+            return;
+        }
+        if (copied + len > expectedLength) {
+            abort();
+            return;
+        }
+        try {
+            copy.write(b, off, len);
+            copied += len;
+        } catch (IOException e) {
+            getLog().warn("Unable to cache object " + key + ": " + e.getMessage());
+            abort();
+        }
+    }
+
+    private void commit() {
+        if (copy == null) {
+            return;
+        }
+        OutputStream out = copy;
+        copy = null;
+        try {
+            out.close();
+        } catch (IOException e) {
+            getLog().warn("Unable to cache object " + key + ": " + e.getMessage());
+            discard();
+            return;
+        }
+        if (copied != expectedLength) {
+            discard();
+        } else if (file != null) {
+            cache.put(key, new CachedObject(eTag, metadata, file, copied));
+        } else {
+            cache.put(key, new CachedObject(eTag, metadata, ((ByteArrayOutputStream) out).toByteArray()));
+        }
+    }
+
+    private void abort() {
+        if (copy == null) {
+            return;
+        }
+        try {
+            copy.close();
+        } catch (IOException e) {
+        }
+        copy = null;
+        discard();
+    }
+
+    private void discard() {
+        if (file != null && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.cache;
+
+import static com.aliyun.oss.internal.OSSUtils.copyObjectMetadata;
+
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.SimplifiedObjectMeta;
+
+/**
+ * A concurrent cache of object metadata and of objects not found, so that
+ * repeated existence and metadata checks don't need a round trip. Entries
+ * expire after the time to live of the policy, and the oldest entries are
+ * evicted first once the max entries is reached.
+ * 
+ * <p>
+ * A lookup takes a stamp of its key before sending its request and passes it
+ * back when caching the response. The response is not cached if the object
+ * was invalidated in between, since it might predate the change. The stamps
+ * are kept per stripe of keys, so an invalidation may also drop the
+ * concurrent lookups of the few other keys sharing its stripe, but never
+ * those of the rest.
+ * </p>
+ */
+public class MetadataCache {
+
+    private final int maxEntries;
+    private final long ttl;
+    private final long negativeTtl;
+
+    private final ConcurrentMap<String, CachedMetadata> entries = new ConcurrentHashMap<String, CachedMetadata>();
+    private final Queue<Insertion> insertions = new ConcurrentLinkedQueue<Insertion>();
+    private final AtomicInteger insertionCount = new AtomicInteger();
+    private static final int INVALIDATION_STRIPES = 256;
+
+    private final AtomicLongArray invalidationCounts = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public MetadataCache(MetadataCachePolicy policy) {
+        this.maxEntries = Math.max(1, policy.getMaxEntries());
+        this.ttl = policy.getTtl();
+        this.negativeTtl = policy.getNegativeTtl();
+    }
+
+    /**
+     * Gets the cached entry of the object, or null if it is not cached or has
+     * expired.
+     */
+    public CachedMetadata get(String key) {
+        CachedMetadata entry = entries.get(key);
+        if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Gets the stamp to pass back when caching the response of a lookup of the
+     * object.
+     */
+    public long stamp(String key) {
+        return invalidationCounts.get(stripe(key));
+    }
+
+    /**
+     * Caches the full metadata of an existing object.
+     */
+    public void putObjectMetadata(String key, ObjectMetadata metadata, long stamp) {
+        if (ttl > 0) {
+            put(key, new CachedMetadata(copyObjectMetadata(metadata), null, true,
+                    System.currentTimeMillis() + ttl), stamp);
+        }
+    }
+
+    /**
+     * Caches the simplified metadata of an existing object. The full metadata
+     * already cached is kept if the object has not changed.
+     */
+    public void putSimplifiedObjectMeta(String key, SimplifiedObjectMeta simplifiedMeta, long stamp) {
+        if (ttl <= 0) {
+            return;
+        }
+        CachedMetadata current = get(key);
+        ObjectMetadata metadata = current != null ? current.getObjectMetadata() : null;
+        if (metadata != null && metadata.getETag() != null && metadata.getETag().equals(simplifiedMeta.getETag())) {
+            put(key, new CachedMetadata(metadata, null, true, System.currentTimeMillis() + ttl), stamp);
+        } else {
+            SimplifiedObjectMeta copy = new SimplifiedObjectMeta();
+            copy.setETag(simplifiedMeta.getETag());
+            copy.setSize(simplifiedMeta.getSize());
+            if (simplifiedMeta.getLastModified() != null) {
+                copy.setLastModified(new Date(simplifiedMeta.getLastModified().getTime()));
+            }
+            put(key, new CachedMetadata(null, copy, true, System.currentTimeMillis() + ttl), stamp);
+        }
+    }
+
+    /**
+     * Caches the fact that the object does not exist.
+     */
+    public void putNotFound(String key, long stamp) {
+        if (negativeTtl > 0) {
+            put(key, new CachedMetadata(null, null, false, System.currentTimeMillis() + negativeTtl), stamp);
+        }
+    }
+
+    /**
+     * Removes the cached entry of the object, if any.
+     */
+    public void invalidate(String key) {
+        invalidationCounts.incrementAndGet(stripe(key));
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all the cached entries.
+     */
+    public void clear() {
+        for (int i = 0; i < INVALIDATION_STRIPES; i++) {
+            invalidationCounts.incrementAndGet(i);
+        }
+        entries.clear();
+    }
+
+    /**
+     * Records a lookup served from the cache.
+     */
+    public void recordHit() {
+        hitCount.incrementAndGet();
+    }
+
+    /**
+     * Records a lookup sent to OSS.
+     */
+    public void recordMiss() {
+        missCount.incrementAndGet();
+    }
+
+    public MetadataCacheStats getStats() {
+        return new MetadataCacheStats(hitCount.get(), missCount.get(), evictionCount.get(), entries.size());
+    }
+
+    private void put(String key, CachedMetadata entry, long stamp) {
+        if (stamp != stamp(key)) {
+            return;
+        }
+        entries.put(key, entry);
+        // An invalidation between the check and the put may have missed the
+        // entry, so the stamp is checked again once the entry is visible.
+        if (stamp != stamp(key)) {
+            entries.remove(key, entry);
+            return;
+        }
+        insertions.add(new Insertion(key, entry));
+        if (insertionCount.incrementAndGet() > maxEntries) {
+            evict();
+        }
+    }
+
+    private void evict() {
+        while (insertionCount.get() > maxEntries) {
+            Insertion eldest = insertions.poll();
+            if (eldest == null) {
+                return;
+            }
+            insertionCount.decrementAndGet();
+            // Entries replaced since their insertion are no longer there.
+            if (entries.remove(eldest.key, eldest.entry)) {
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    private static int stripe(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return h & (INVALIDATION_STRIPES - 1);
+    }
+
+    private static class Insertion {
+        final String key;
+        final CachedMetadata entry;
+
+        Insertion(String key, CachedMetadata entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+
+}
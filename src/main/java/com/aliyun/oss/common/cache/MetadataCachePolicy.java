@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.cache;
+
+/**
+ * The sizing and expiration policy of the client-side metadata cache. Found
+ * and not found objects are kept for their own time to live, and the oldest
+ * entries are evicted first once the max entries is reached.
+ */
+public class MetadataCachePolicy {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    public static final long DEFAULT_TTL = 5 * 1000;
+    public static final long DEFAULT_NEGATIVE_TTL = 5 * 1000;
+
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private long ttl = DEFAULT_TTL;
+    private long negativeTtl = DEFAULT_NEGATIVE_TTL;
+
+    /**
+     * Gets the max number of objects kept in the cache.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Sets the max number of objects kept in the cache. By default it's 10000.
+     * 
+     * @param maxEntries
+     *            The max number of entries.
+     */
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public MetadataCachePolicy withMaxEntries(int maxEntries) {
+        setMaxEntries(maxEntries);
+        return this;
+    }
+
+    /**
+     * Gets the time to live in millisecond of the metadata of existing
+     * objects.
+     */
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Sets the time to live in millisecond of the metadata of existing
+     * objects. Changes made by other clients are not seen until it expires. By
+     * default it's 5 seconds.
+     * 
+     * @param ttl
+     *            The time to live in millisecond.
+     */
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public MetadataCachePolicy withTtl(long ttl) {
+        setTtl(ttl);
+        return this;
+    }
+
+    /**
+     * Gets the time to live in millisecond of the objects not found.
+     */
+    public long getNegativeTtl() {
+        return negativeTtl;
+    }
+
+    /**
+     * Sets the time to live in millisecond of the objects not found. Objects
+     * created by other clients are not seen until it expires. By default it's
+     * 5 seconds, and 0 disables the negative caching.
+     * 
+     * @param negativeTtl
+     *            The time to live in millisecond.
+     */
+    public void setNegativeTtl(long negativeTtl) {
+        this.negativeTtl = negativeTtl;
+    }
+
+    public MetadataCachePolicy withNegativeTtl(long negativeTtl) {
+        setNegativeTtl(negativeTtl);
+        return this;
+    }
+
+}
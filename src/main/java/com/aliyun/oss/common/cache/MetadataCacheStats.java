@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.cache;
+
+/**
+ * A point-in-time view of the client-side metadata cache. A hit is an
+ * existence or metadata check answered without a round trip, including the
+ * checks of objects known not to exist.
+ */
+public class MetadataCacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int entryCount;
+
+    public MetadataCacheStats(long hitCount, long missCount, long evictionCount, int entryCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Gets the number of checks answered from the cache.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of checks sent to OSS.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the ratio of the checks answered from the cache, or 0 if there was
+     * no check yet.
+     */
+    public double getHitRatio() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Gets the number of entries evicted to stay within the max entries.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the number of entries, including the expired ones not yet removed.
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    @Override
+    public String toString() {
+        return "[hits: " + hitCount + "; misses: " + missCount + "; evictions: " + evictionCount + "; entries: "
+                + entryCount + "]";
+    }
+
+}
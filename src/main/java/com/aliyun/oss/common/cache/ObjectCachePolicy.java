@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.cache;
+
+import java.io.File;
+
+/**
+ * The sizing policy of the client-side object cache. Objects up to the max
+ * heap object size are kept in memory, larger ones are kept as files in the
+ * disk directory. Each tier is bounded by its capacity in bytes and evicts the
+ * least recently used objects first. The disk tier is disabled unless a disk
+ * directory is set.
+ */
+public class ObjectCachePolicy {
+
+    public static final long DEFAULT_HEAP_CAPACITY = 64 * 1024 * 1024L;
+    public static final long DEFAULT_MAX_HEAP_OBJECT_SIZE = 256 * 1024L;
+    public static final long DEFAULT_DISK_CAPACITY = 1024 * 1024 * 1024L;
+    public static final long DEFAULT_MAX_DISK_OBJECT_SIZE = 64 * 1024 * 1024L;
+
+    private long heapCapacity = DEFAULT_HEAP_CAPACITY;
+    private long maxHeapObjectSize = DEFAULT_MAX_HEAP_OBJECT_SIZE;
+    private File diskDirectory = null;
+    private long diskCapacity = DEFAULT_DISK_CAPACITY;
+    private long maxDiskObjectSize = DEFAULT_MAX_DISK_OBJECT_SIZE;
+
+    /**
+     * Gets the total bytes of the objects kept in memory.
+     */
+    public long getHeapCapacity() {
+        return heapCapacity;
+    }
+
+    /**
+     * Sets the total bytes of the objects kept in memory. By default it's 64MB.
+     * 
+     * @param heapCapacity
+     *            The capacity of the heap tier in bytes.
+     */
+    public void setHeapCapacity(long heapCapacity) {
+        this.heapCapacity = heapCapacity;
+    }
+
+    public ObjectCachePolicy withHeapCapacity(long heapCapacity) {
+        setHeapCapacity(heapCapacity);
+        return this;
+    }
+
+    /**
+     * Gets the size of the largest object kept in memory.
+     */
+    public long getMaxHeapObjectSize() {
+        return maxHeapObjectSize;
+    }
+
+    /**
+     * Sets the size of the largest object kept in memory. By default it's
+     * 256KB.
+     * 
+     * @param maxHeapObjectSize
+     *            The max object size of the heap tier in bytes.
+     */
+    public void setMaxHeapObjectSize(long maxHeapObjectSize) {
+        this.maxHeapObjectSize = maxHeapObjectSize;
+    }
+
+    public ObjectCachePolicy withMaxHeapObjectSize(long maxHeapObjectSize) {
+        setMaxHeapObjectSize(maxHeapObjectSize);
+        return this;
+    }
+
+    /**
+     * Gets the directory of the disk tier, or null if the disk tier is
+     * disabled.
+     */
+    public File getDiskDirectory() {
+        return diskDirectory;
+    }
+
+    /**
+     * Sets the directory of the disk tier. The cached files are removed when
+     * they are evicted and when the client is shut down.
+     * 
+     * @param diskDirectory
+     *            The directory of the cached files, or null to disable the
+     *            disk tier.
+     */
+    public void setDiskDirectory(File diskDirectory) {
+        this.diskDirectory = diskDirectory;
+    }
+
+    public ObjectCachePolicy withDiskDirectory(File diskDirectory) {
+        setDiskDirectory(diskDirectory);
+        return this;
+    }
+
+    /**
+     * Gets the total bytes of the objects kept on disk.
+     */
+    public long getDiskCapacity() {
+        return diskCapacity;
+    }
+
+    /**
+     * Sets the total bytes of the objects kept on disk. By default it's 1GB.
+     * 
+     * @param diskCapacity
+     *            The capacity of the disk tier in bytes.
+     */
+    public void setDiskCapacity(long diskCapacity) {
+        this.diskCapacity = diskCapacity;
+    }
+
+    public ObjectCachePolicy withDiskCapacity(long diskCapacity) {
+        setDiskCapacity(diskCapacity);
+        return this;
+    }
+
+    /**
+     * Gets the size of the largest object kept on disk.
+     */
+    public long getMaxDiskObjectSize() {
+        return maxDiskObjectSize;
+    }
+
+    /**
+     * Sets the size of the largest object kept on disk. Larger objects are
+     * never cached. By default it's 64MB.
+     * 
+     * @param maxDiskObjectSize
+     *            The max object size of the disk tier in bytes.
+     */
+    public void setMaxDiskObjectSize(long maxDiskObjectSize) {
+        this.maxDiskObjectSize = maxDiskObjectSize;
+    }
+
+    public ObjectCachePolicy withMaxDiskObjectSize(long maxDiskObjectSize) {
+        setMaxDiskObjectSize(maxDiskObjectSize);
+        return this;
+    }
+
+}
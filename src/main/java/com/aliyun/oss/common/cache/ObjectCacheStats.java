@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.cache;
+
+/**
+ * A point-in-time view of the client-side object cache. A hit is a read
+ * served from the cache after OSS confirmed the cached copy is up to date, a
+ * miss is a read whose content was downloaded from OSS.
+ */
+public class ObjectCacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int heapEntryCount;
+    private final long heapSize;
+    private final int diskEntryCount;
+    private final long diskSize;
+
+    public ObjectCacheStats(long hitCount, long missCount, long evictionCount, int heapEntryCount, long heapSize,
+            int diskEntryCount, long diskSize) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.heapEntryCount = heapEntryCount;
+        this.heapSize = heapSize;
+        this.diskEntryCount = diskEntryCount;
+        this.diskSize = diskSize;
+    }
+
+    /**
+     * Gets the number of reads served from the cache.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of reads downloaded from OSS.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the ratio of the reads served from the cache, or 0 if there was no
+     * read yet.
+     */
+    public double getHitRatio() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Gets the number of objects evicted to stay within the capacity.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the number of objects kept in memory.
+     */
+    public int getHeapEntryCount() {
+        return heapEntryCount;
+    }
+
+    /**
+     * Gets the total bytes of the objects kept in memory.
+     */
+    public long getHeapSize() {
+        return heapSize;
+    }
+
+    /**
+     * Gets the number of objects kept on disk.
+     */
+    public int getDiskEntryCount() {
+        return diskEntryCount;
+    }
+
+    /**
+     * Gets the total bytes of the objects kept on disk.
+     */
+    public long getDiskSize() {
+        return diskSize;
+    }
+
+    @Override
+    public String toString() {
+        return "[hits: " + hitCount + "; misses: " + missCount + "; evictions: " + evictionCount + "; heap: "
+                + heapEntryCount + " objects, " + heapSize + " bytes; disk: " + diskEntryCount + " objects, "
+                + diskSize + " bytes]";
+    }
+
+}
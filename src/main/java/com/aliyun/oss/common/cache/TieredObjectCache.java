@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.cache;
+
+import static com.aliyun.oss.common.utils.LogUtils.getLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.aliyun.oss.common.utils.HttpHeaders;
+import com.aliyun.oss.model.ObjectMetadata;
+
+/**
+ * A read-through cache of whole objects with a heap tier for small objects
+ * and a disk tier for large ones, both evicting the least recently used
+ * objects first. Entries are identified by their ETag so that the caller can
+ * revalidate them with a conditional GET before serving them.
+ * 
+ * <p>
+ * Lookups take no lock. They only stamp the entry with its access time, and
+ * the objects read the longest ago are evicted first, so the order is
+ * approximate under concurrent reads. Insertions and removals are serialized,
+ * and the files of the disk tier are deleted once the lock is released.
+ * </p>
+ */
+public class TieredObjectCache {
+
+    private static final Comparator<Map.Entry<String, CachedObject>> LEAST_RECENTLY_USED_FIRST =
+            new Comparator<Map.Entry<String, CachedObject>>() {
+                @Override
+                public int compare(Map.Entry<String, CachedObject> e1, Map.Entry<String, CachedObject> e2) {
+                    long t1 = e1.getValue().getLastAccessTime();
+                    long t2 = e2.getValue().getLastAccessTime();
+                    return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+                }
+            };
+
+    private final long heapCapacity;
+    private final long maxHeapObjectSize;
+    private final File diskDirectory;
+    private final long diskCapacity;
+    private final long maxDiskObjectSize;
+
+    private final ConcurrentMap<String, CachedObject> heapEntries = new ConcurrentHashMap<String, CachedObject>();
+    private final ConcurrentMap<String, CachedObject> diskEntries = new ConcurrentHashMap<String, CachedObject>();
+    private final Lock lock = new ReentrantLock();
+    private volatile long heapSize = 0;
+    private volatile long diskSize = 0;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public TieredObjectCache(ObjectCachePolicy policy) {
+        this.heapCapacity = policy.getHeapCapacity();
+        this.maxHeapObjectSize = Math.min(policy.getMaxHeapObjectSize(), Math.min(heapCapacity, Integer.MAX_VALUE));
+        this.diskDirectory = policy.getDiskDirectory();
+        this.diskCapacity = policy.getDiskCapacity();
+        this.maxDiskObjectSize = Math.min(policy.getMaxDiskObjectSize(), diskCapacity);
+    }
+
+    /**
+     * Gets the cached copy of the object, or null if it is not cached.
+     */
+    public CachedObject get(String key) {
+        CachedObject entry = heapEntries.get(key);
+        if (entry == null) {
+            entry = diskEntries.get(key);
+        }
+        if (entry != null) {
+            entry.setLastAccessTime(System.nanoTime());
+        }
+        return entry;
+    }
+
+    /**
+     * Wraps the content of a downloaded object so that it is added to the
+     * cache once it has been read to the end. The content is returned as is
+     * when the object has no ETag, no known length or does not fit in any
+     * tier.
+     */
+    public InputStream cacheOnRead(String key, ObjectMetadata metadata, InputStream content) {
+        String eTag = metadata.getETag();
+        long length = metadata.getContentLength();
+        if (eTag == null || !metadata.getRawMetadata().containsKey(HttpHeaders.CONTENT_LENGTH)) {
+            return content;
+        }
+
+        try {
+            if (length <= maxHeapObjectSize) {
+                return new CachingInputStream(content, this, key, eTag, metadata, null);
+            } else if (diskDirectory != null && length <= maxDiskObjectSize) {
+                if (!diskDirectory.isDirectory() && !diskDirectory.mkdirs()) {
+                    throw new IOException("Cannot create directory " + diskDirectory);
+                }
+                File file = File.createTempFile("oss-cache-", ".tmp", diskDirectory);
+                return new CachingInputStream(content, this, key, eTag, metadata, file);
+            }
+        } catch (IOException e) {
+            getLog().warn("Unable to cache object " + key + ": " + e.getMessage());
+        }
+        return content;
+    }
+
+    /**
+     * Removes the cached copy of the object, if any.
+     */
+    public void invalidate(String key) {
+        List<CachedObject> discarded = new ArrayList<CachedObject>();
+        lock.lock();
+        try {
+            remove(key, discarded);
+        } finally {
+            lock.unlock();
+        }
+        discard(discarded);
+    }
+
+    /**
+     * Removes all the cached objects, including the files of the disk tier.
+     */
+    public void clear() {
+        List<CachedObject> discarded;
+        lock.lock();
+        try {
+            discarded = new ArrayList<CachedObject>(diskEntries.values());
+            heapEntries.clear();
+            diskEntries.clear();
+            heapSize = 0;
+            diskSize = 0;
+        } finally {
+            lock.unlock();
+        }
+        discard(discarded);
+    }
+
+    /**
+     * Records a read served from the cache.
+     */
+    public void recordHit() {
+        hitCount.incrementAndGet();
+    }
+
+    /**
+     * Records a read downloaded from OSS.
+     */
+    public void recordMiss() {
+        missCount.incrementAndGet();
+    }
+
+    public ObjectCacheStats getStats() {
+        return new ObjectCacheStats(hitCount.get(), missCount.get(), evictionCount.get(), heapEntries.size(),
+                heapSize, diskEntries.size(), diskSize);
+    }
+
+    void put(String key, CachedObject entry) {
+        List<CachedObject> discarded = new ArrayList<CachedObject>();
+        entry.setLastAccessTime(System.nanoTime());
+        lock.lock();
+        try {
+            remove(key, discarded);
+            if (entry.isOnDisk()) {
+                diskEntries.put(key, entry);
+                diskSize += entry.getSize();
+                diskSize -= evict(diskEntries, diskSize, diskCapacity, discarded);
+            } else {
+                heapEntries.put(key, entry);
+                heapSize += entry.getSize();
+                heapSize -= evict(heapEntries, heapSize, heapCapacity, discarded);
+            }
+        } finally {
+            lock.unlock();
+        }
+        discard(discarded);
+    }
+
+    private void remove(String key, List<CachedObject> discarded) {
+        CachedObject entry = heapEntries.remove(key);
+        if (entry != null) {
+            heapSize -= entry.getSize();
+        }
+        entry = diskEntries.remove(key);
+        if (entry != null) {
+            diskSize -= entry.getSize();
+            discarded.add(entry);
+        }
+    }
+
+    private long evict(Map<String, CachedObject> entries, long size, long capacity, List<CachedObject> discarded) {
+        if (size <= capacity) {
+            return 0;
+        }
+        List<Map.Entry<String, CachedObject>> candidates = new ArrayList<Map.Entry<String, CachedObject>>(
+                entries.entrySet());
+        Collections.sort(candidates, LEAST_RECENTLY_USED_FIRST);
+        long evicted = 0;
+        for (Map.Entry<String, CachedObject> candidate : candidates) {
+            if (size - evicted <= capacity) {
+                break;
+            }
+            CachedObject entry = candidate.getValue();
+            entries.remove(candidate.getKey());
+            discarded.add(entry);
+            evicted += entry.getSize();
+            evictionCount.incrementAndGet();
+        }
+        return evicted;
+    }
+
+    private static void discard(List<CachedObject> entries) {
+        for (CachedObject entry : entries) {
+            entry.discard();
+        }
+    }
+
+}
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import static com.aliyun.oss.common.utils.LogUtils.getLog;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.util.InetAddressUtils;
+
+/**
+ * A {@link DnsResolver} which caches all the addresses of a host for a TTL
+ * and spreads the new connections across them in round-robin order. The
+ * outcome and latency of the connections and requests to every address are
+ * tracked; an address failing repeatedly is quarantined, i.e. tried only
+ * after all the other addresses, for a while. Addresses much slower than the
+ * fastest one of the same host are tried after the healthy ones as well.
+ * 
+ * <p>
+ * The connection operator of HttpClient tries the resolved addresses in
+ * order, so a connection attempt falls through to the next address when one
+ * address cannot be reached.
+ * </p>
+ */
+class BalancingDnsResolver implements DnsResolver {
+
+    /* Consecutive failures after which an address is quarantined. */
+    static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+    /* Error rate, after enough samples, above which an address is quarantined. */
+    static final double MAX_ERROR_RATE = 0.5;
+    static final int MIN_ERROR_RATE_SAMPLES = 10;
+
+    /* An address slower than this factor times the fastest one is degraded. */
+    static final double DEGRADED_LATENCY_FACTOR = 4.0;
+    static final long DEGRADED_LATENCY_FLOOR = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final double EWMA_WEIGHT = 0.2;
+    private static final int MAX_CACHED_HOSTS = 1024;
+
+    private final DnsResolver delegate;
+    private final long ttl;
+    private final long quarantineTime;
+
+    private final ConcurrentMap<String, CachedAddresses> cache = new ConcurrentHashMap<String, CachedAddresses>();
+    private final ConcurrentMap<InetAddress, AddressHealth> health = new ConcurrentHashMap<InetAddress, AddressHealth>();
+
+    /**
+     * @param delegate
+     *            The resolver looking up all the addresses of a host.
+     * @param ttl
+     *            The time in millisecond for which the addresses are cached.
+     * @param quarantineTime
+     *            The time in millisecond for which a failing address is
+     *            quarantined.
+     */
+    BalancingDnsResolver(DnsResolver delegate, long ttl, long quarantineTime) {
+        this.delegate = delegate;
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+        this.quarantineTime = TimeUnit.MILLISECONDS.toNanos(quarantineTime);
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        if (InetAddressUtils.isIPv4Address(host) || InetAddressUtils.isIPv6Address(host)) {
+            return delegate.resolve(host);
+        }
+
+        CachedAddresses cached = lookup(host);
+        InetAddress[] addresses = cached.addresses;
+        if (addresses.length <= 1) {
+            return addresses.clone();
+        }
+
+        long now = System.nanoTime();
+        int offset = (cached.next.getAndIncrement() & Integer.MAX_VALUE) % addresses.length;
+
+        double fastest = Double.MAX_VALUE;
+        for (InetAddress address : addresses) {
+            AddressHealth h = health.get(address);
+            if (h != null && !h.isQuarantined(now) && h.latency() > 0) {
+                fastest = Math.min(fastest, h.latency());
+            }
+        }
+
+        List<InetAddress> healthy = new ArrayList<InetAddress>(addresses.length);
+        List<InetAddress> degraded = new ArrayList<InetAddress>(0);
+        List<InetAddress> quarantined = new ArrayList<InetAddress>(0);
+        for (int i = 0; i < addresses.length; i++) {
+            InetAddress address = addresses[(offset + i) % addresses.length];
+            AddressHealth h = health.get(address);
+            if (h == null) {
+                healthy.add(address);
+            } else if (h.isQuarantined(now)) {
+                quarantined.add(address);
+            } else if (fastest != Double.MAX_VALUE && h.latency() > DEGRADED_LATENCY_FLOOR
+                    && h.latency() > fastest * DEGRADED_LATENCY_FACTOR) {
+                degraded.add(address);
+            } else {
+                healthy.add(address);
+            }
+        }
+        healthy.addAll(degraded);
+        healthy.addAll(quarantined);
+        return healthy.toArray(new InetAddress[healthy.size()]);
+    }
+
+    private CachedAddresses lookup(String host) throws UnknownHostException {
+        long now = System.nanoTime();
+        CachedAddresses cached = cache.get(host);
+        if (cached != null && now - cached.resolvedTime < ttl) {
+            return cached;
+        }
+
+        InetAddress[] addresses;
+        try {
+            addresses = delegate.resolve(host);
+        } catch (UnknownHostException e) {
+            if (cached != null) {
+                // Keep serving the stale addresses while the DNS is unavailable.
+                getLog().warn("Unable to refresh the addresses of " + host + ", using cached ones: " + e.getMessage());
+                return cached;
+            }
+            throw e;
+        }
+
+        if (cache.size() >= MAX_CACHED_HOSTS) {
+            evictExpired(now);
+        }
+        CachedAddresses refreshed = new CachedAddresses(addresses, now,
+                cached != null ? cached.next.get() : (int) (now & Integer.MAX_VALUE));
+        cache.put(host, refreshed);
+        return refreshed;
+    }
+
+    private void evictExpired(long now) {
+        for (Map.Entry<String, CachedAddresses> entry : cache.entrySet()) {
+            if (now - entry.getValue().resolvedTime >= ttl) {
+                cache.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Records a successful connection or request to an address.
+     * 
+     * @param address
+     *            The remote address.
+     * @param latency
+     *            The connect latency in nanoseconds, or -1 for a request,
+     *            whose latency depends on the operation rather than the
+     *            address.
+     */
+    void recordSuccess(InetAddress address, long latency) {
+        if (address != null) {
+            getHealth(address).success(latency);
+        }
+    }
+
+    /**
+     * Records a failed connection or request to an address.
+     */
+    void recordFailure(InetAddress address) {
+        if (address != null && getHealth(address).failure(quarantineTime)) {
+            getLog().warn("Quarantine address " + address.getHostAddress() + " for "
+                    + TimeUnit.NANOSECONDS.toMillis(quarantineTime) + "ms after repeated failures.");
+        }
+    }
+
+    boolean isQuarantined(InetAddress address) {
+        AddressHealth h = health.get(address);
+        return h != null && h.isQuarantined(System.nanoTime());
+    }
+
+    private AddressHealth getHealth(InetAddress address) {
+        AddressHealth h = health.get(address);
+        if (h == null) {
+            AddressHealth created = new AddressHealth();
+            h = health.putIfAbsent(address, created);
+            if (h == null) {
+                h = created;
+            }
+        }
+        return h;
+    }
+
+    private static class CachedAddresses {
+        final InetAddress[] addresses;
+        final long resolvedTime;
+        final AtomicInteger next;
+
+        CachedAddresses(InetAddress[] addresses, long resolvedTime, int next) {
+            this.addresses = addresses;
+            this.resolvedTime = resolvedTime;
+            this.next = new AtomicInteger(next);
+        }
+    }
+
+    private static class AddressHealth {
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicInteger samples = new AtomicInteger();
+        private final AtomicLong errorRate = new AtomicLong(Double.doubleToLongBits(0));
+        private final AtomicLong latency = new AtomicLong(Double.doubleToLongBits(0));
+        private volatile long quarantinedUntil;
+        private volatile boolean quarantined;
+
+        boolean isQuarantined(long now) {
+            return quarantined && now - quarantinedUntil < 0;
+        }
+
+        double latency() {
+            return Double.longBitsToDouble(latency.get());
+        }
+
+        void success(long nanos) {
+            consecutiveFailures.set(0);
+            samples.incrementAndGet();
+            updateEwma(errorRate, 0, false);
+            if (nanos >= 0) {
+                updateEwma(latency, nanos, true);
+            }
+        }
+
+        /**
+         * @return true if the address has just been quarantined.
+         */
+        boolean failure(long quarantineTime) {
+            int failures = consecutiveFailures.incrementAndGet();
+            int n = samples.incrementAndGet();
+            double rate = updateEwma(errorRate, 1, false);
+            if (failures >= MAX_CONSECUTIVE_FAILURES || (n >= MIN_ERROR_RATE_SAMPLES && rate > MAX_ERROR_RATE)) {
+                // Start afresh once the quarantine is over.
+                consecutiveFailures.set(0);
+                samples.set(0);
+                errorRate.set(Double.doubleToLongBits(0));
+                latency.set(Double.doubleToLongBits(0));
+                boolean alreadyQuarantined = isQuarantined(System.nanoTime());
+                quarantinedUntil = System.nanoTime() + quarantineTime;
+                quarantined = true;
+                return !alreadyQuarantined;
+            }
+            return false;
+        }
+
+        private static double updateEwma(AtomicLong holder, double sample, boolean seed) {
+            while (true) {
+                long bits = holder.get();
+                double current = Double.longBitsToDouble(bits);
+                double updated = seed && current == 0 ? sample : current + EWMA_WEIGHT * (sample - current);
+                if (holder.compareAndSet(bits, Double.doubleToLongBits(updated))) {
+                    return updated;
+                }
+            }
+        }
+    }
+
+}
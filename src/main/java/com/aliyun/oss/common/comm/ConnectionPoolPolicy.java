@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+/**
+ * The sizing policy of the HTTP connection pool. Every bucket accessed with a
+ * virtual-hosted style endpoint is a distinct route of the pool, so the
+ * per-route limits prevent a single hot bucket from taking up all the
+ * connections of a client.
+ * 
+ * <p>
+ * When adaptive sizing is enabled, the per-route limit of a route grows while
+ * its average connection lease wait exceeds the lease wait threshold, and
+ * shrinks back towards the configured limit once the route is mostly idle.
+ * The limit never exceeds the total connections minus the capacity reserved
+ * for the other routes.
+ * </p>
+ */
+public class ConnectionPoolPolicy {
+
+    public static final long DEFAULT_LEASE_WAIT_THRESHOLD = 20;
+    public static final long DEFAULT_ADJUSTMENT_INTERVAL = 1000;
+
+    private int maxConnectionsPerRoute = -1;
+    private int minReservedConnectionsPerRoute = 0;
+    private boolean adaptiveSizingEnabled = false;
+    private long leaseWaitThreshold = DEFAULT_LEASE_WAIT_THRESHOLD;
+    private long adjustmentInterval = DEFAULT_ADJUSTMENT_INTERVAL;
+
+    /**
+     * Gets the maximum connections per route. By default it's -1, which means
+     * the same as the client's max connections.
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * Sets the maximum connections per route.
+     * 
+     * @param maxConnectionsPerRoute
+     *            The maximum connections per route, or a non-positive value to
+     *            use the client's max connections.
+     */
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    /**
+     * Gets the connections reserved for every route, which no other route can
+     * take. A route without connections gives its reserve back at the next
+     * adjustment. By default it's 0.
+     */
+    public int getMinReservedConnectionsPerRoute() {
+        return minReservedConnectionsPerRoute;
+    }
+
+    /**
+     * Sets the connections reserved for every route, which no other route can
+     * take.
+     * 
+     * @param minReservedConnectionsPerRoute
+     *            The reserved connections per route.
+     */
+    public void setMinReservedConnectionsPerRoute(int minReservedConnectionsPerRoute) {
+        this.minReservedConnectionsPerRoute = minReservedConnectionsPerRoute;
+    }
+
+    /**
+     * Gets the flag of resizing the per-route limits from the lease wait
+     * times. By default it's false.
+     */
+    public boolean isAdaptiveSizingEnabled() {
+        return adaptiveSizingEnabled;
+    }
+
+    /**
+     * Sets the flag of resizing the per-route limits from the lease wait
+     * times.
+     * 
+     * @param adaptiveSizingEnabled
+     *            True to enable the adaptive sizing; False to disable it.
+     */
+    public void setAdaptiveSizingEnabled(boolean adaptiveSizingEnabled) {
+        this.adaptiveSizingEnabled = adaptiveSizingEnabled;
+    }
+
+    /**
+     * Gets the average lease wait in milliseconds above which the limit of a
+     * route grows. By default it's 20 ms.
+     */
+    public long getLeaseWaitThreshold() {
+        return leaseWaitThreshold;
+    }
+
+    /**
+     * Sets the average lease wait in milliseconds above which the limit of a
+     * route grows.
+     * 
+     * @param leaseWaitThreshold
+     *            The lease wait threshold in milliseconds.
+     */
+    public void setLeaseWaitThreshold(long leaseWaitThreshold) {
+        this.leaseWaitThreshold = leaseWaitThreshold;
+    }
+
+    /**
+     * Gets the minimum interval in milliseconds between two adjustments of the
+     * per-route limits. By default it's 1 second.
+     */
+    public long getAdjustmentInterval() {
+        return adjustmentInterval;
+    }
+
+    /**
+     * Sets the minimum interval in milliseconds between two adjustments of the
+     * per-route limits.
+     * 
+     * @param adjustmentInterval
+     *            The adjustment interval in milliseconds.
+     */
+    public void setAdjustmentInterval(long adjustmentInterval) {
+        this.adjustmentInterval = adjustmentInterval;
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A point-in-time view of the HTTP connection pool of a client, in total and
+ * per route. A route is identified by its target host, such as
+ * http://bucket.oss-cn-hangzhou.aliyuncs.com.
+ */
+public class ConnectionPoolStats {
+
+    private final int leased;
+    private final int pending;
+    private final int available;
+    private final int max;
+    private final Map<String, ConnectionPoolStats> routeStats;
+
+    public ConnectionPoolStats(int leased, int pending, int available, int max) {
+        this(leased, pending, available, max, Collections.<String, ConnectionPoolStats> emptyMap());
+    }
+
+    public ConnectionPoolStats(int leased, int pending, int available, int max,
+            Map<String, ConnectionPoolStats> routeStats) {
+        this.leased = leased;
+        this.pending = pending;
+        this.available = available;
+        this.max = max;
+        this.routeStats = Collections.unmodifiableMap(routeStats);
+    }
+
+    /**
+     * Gets the number of connections in use.
+     */
+    public int getLeased() {
+        return leased;
+    }
+
+    /**
+     * Gets the number of requests waiting for a connection.
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    /**
+     * Gets the number of idle connections kept alive in the pool.
+     */
+    public int getAvailable() {
+        return available;
+    }
+
+    /**
+     * Gets the maximum number of connections.
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the stats of every route, keyed by the target host of the route.
+     * Empty for the stats of a single route.
+     */
+    public Map<String, ConnectionPoolStats> getRouteStats() {
+        return routeStats;
+    }
+
+    @Override
+    public String toString() {
+        return "[leased: " + leased + "; pending: " + pending + "; available: " + available + "; max: " + max + "]";
+    }
+
+}
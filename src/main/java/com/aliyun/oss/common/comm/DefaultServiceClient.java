@@ -19,16 +19,27 @@
 
 package com.aliyun.oss.common.comm;
 
+import static com.aliyun.oss.common.utils.LogUtils.getLog;
+
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLContext;
 
 import org.apache.commons.codec.binary.Base64;
-import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpStatus;
 import org.apache.http.auth.AUTH;
@@ -42,8 +53,10 @@ import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.UnsupportedSchemeException;
 import org.apache.http.config.SocketConfig;
 import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
@@ -54,7 +67,9 @@ import org.apache.http.impl.client.BasicAuthCache;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
 import org.apache.http.ssl.SSLContextBuilder;
 
 import com.aliyun.oss.ClientConfiguration;
@@ -64,7 +79,6 @@ import com.aliyun.oss.OSSErrorCode;
 import com.aliyun.oss.OSSException;
 import com.aliyun.oss.common.utils.ExceptionFactory;
 import com.aliyun.oss.common.utils.HttpHeaders;
-import com.aliyun.oss.common.utils.HttpUtil;
 import com.aliyun.oss.common.utils.IOUtils;
 
 /**
@@ -73,6 +87,8 @@ import com.aliyun.oss.common.utils.IOUtils;
 public class DefaultServiceClient extends ServiceClient {
     protected static HttpRequestFactory httpRequestFactory = new HttpRequestFactory();
 
+    private static final int MAX_WARM_UP_THREADS = 16;
+
     protected CloseableHttpClient httpClient;
     protected HttpClientConnectionManager connectionManager;
     protected RequestConfig requestConfig;
@@ -80,6 +96,9 @@ public class DefaultServiceClient extends ServiceClient {
     protected HttpHost proxyHttpHost;
     protected AuthCache authCache;
 
+    /* Balances the connections over the addresses of the endpoint if enabled. */
+    private BalancingDnsResolver dnsResolver;
+
     public DefaultServiceClient(ClientConfiguration config) {
         super(config);
         this.connectionManager = createHttpClientConnectionManager();
@@ -118,6 +137,7 @@ public class DefaultServiceClient extends ServiceClient {
         setProxyAuthorizationIfNeed(httpRequest);
         HttpClientContext httpContext = createHttpContext();
         httpContext.setRequestConfig(this.requestConfig);
+        bindMetricsTracker(httpContext, context);
 
         CloseableHttpResponse httpResponse = null;
         try {
@@ -151,15 +171,12 @@ public class DefaultServiceClient extends ServiceClient {
             }
         }
 
-        for (Header header : httpResponse.getAllHeaders()) {
-            if (HttpHeaders.CONTENT_LENGTH.equals(header.getName())) {
-                response.setContentLength(Long.parseLong(header.getValue()));
-            }
-            response.addHeader(header.getName(), header.getValue());
+        response.setHeaders(new ResponseHeaderMap(httpResponse.getAllHeaders()));
+        String contentLength = response.getHeaders().get(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength != null) {
+            response.setContentLength(Long.parseLong(contentLength));
         }
 
-        HttpUtil.convertHeaderCharsetFromIso88591(response.getHeaders());
-
         return response;
     }
 
@@ -217,6 +234,7 @@ public class DefaultServiceClient extends ServiceClient {
 
     protected CloseableHttpClient createHttpClient(HttpClientConnectionManager connectionManager) {
         return HttpClients.custom().setConnectionManager(connectionManager).setUserAgent(this.config.getUserAgent())
+                .setRequestExecutor(new InstrumentedHttpRequestExecutor(this.dnsResolver))
                 .disableContentCompression().disableAutomaticRetries().build();
     }
 
@@ -238,20 +256,28 @@ public class DefaultServiceClient extends ServiceClient {
 
         SSLConnectionSocketFactory sslSocketFactory = new SSLConnectionSocketFactory(sslContext,
                 NoopHostnameVerifier.INSTANCE);
+        ConnectionSocketFactory plainSocketFactory = PlainConnectionSocketFactory.getSocketFactory();
+        ConnectionSocketFactory secureSocketFactory = sslSocketFactory;
+        if (config.isDnsBalancingEnabled()) {
+            this.dnsResolver = new BalancingDnsResolver(SystemDefaultDnsResolver.INSTANCE, config.getDnsCacheTTL(),
+                    config.getAddressQuarantineTime());
+            plainSocketFactory = new HealthTrackingSocketFactory(plainSocketFactory, this.dnsResolver);
+            secureSocketFactory = new HealthTrackingSocketFactory(secureSocketFactory, this.dnsResolver);
+        }
+
         Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory> create()
-                .register(Protocol.HTTP.toString(), PlainConnectionSocketFactory.getSocketFactory())
-                .register(Protocol.HTTPS.toString(), sslSocketFactory).build();
+                .register(Protocol.HTTP.toString(), plainSocketFactory)
+                .register(Protocol.HTTPS.toString(), secureSocketFactory).build();
 
-        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
-                socketFactoryRegistry);
-        connectionManager.setDefaultMaxPerRoute(config.getMaxConnections());
-        connectionManager.setMaxTotal(config.getMaxConnections());
+        PoolingHttpClientConnectionManager connectionManager = new InstrumentedHttpClientConnectionManager(
+                socketFactoryRegistry, this.dnsResolver, config.getConnectionPoolPolicy(),
+                config.getMaxConnections(), config.getConnectionTTL());
         connectionManager.setValidateAfterInactivity(config.getValidateAfterInactivity());
         connectionManager.setDefaultSocketConfig(
                 SocketConfig.custom().setSoTimeout(config.getSocketTimeout()).setTcpNoDelay(true).build());
         if (config.isUseReaper()) {
-            IdleConnectionReaper.setIdleConnectionTime(config.getIdleConnectionTime());
-            IdleConnectionReaper.registerConnectionManager(connectionManager);
+            IdleConnectionReaper.registerConnectionManager(connectionManager, config.getIdleConnectionTime(),
+                    config.getIdleConnectionReapInterval());
         }
         return connectionManager;
     }
@@ -266,6 +292,16 @@ public class DefaultServiceClient extends ServiceClient {
         return httpContext;
     }
 
+    /**
+     * Exposes the metrics tracker of the request, if any, to the instrumented
+     * connection manager and request executor.
+     */
+    static void bindMetricsTracker(HttpClientContext httpContext, ExecutionContext context) {
+        if (context.getMetricsTracker() != null) {
+            httpContext.setAttribute(RequestMetricsTracker.HTTP_CONTEXT_ATTRIBUTE, context.getMetricsTracker());
+        }
+    }
+
     private void setProxyAuthorizationIfNeed(HttpRequestBase httpRequest) {
         if (this.credentialsProvider != null) {
             String auth = this.config.getProxyUsername() + ":" + this.config.getProxyPassword();
@@ -275,6 +311,124 @@ public class DefaultServiceClient extends ServiceClient {
         }
     }
 
+    @Override
+    public ConnectionPoolStats getConnectionPoolStats() {
+        if (this.connectionManager instanceof InstrumentedHttpClientConnectionManager) {
+            return ((InstrumentedHttpClientConnectionManager) this.connectionManager).getConnectionPoolStats();
+        }
+        return null;
+    }
+
+    @Override
+    public int openConnections(List<URI> endpoints, int connectionsPerEndpoint) {
+        if (!(this.connectionManager instanceof InstrumentedHttpClientConnectionManager) || endpoints.isEmpty()
+                || connectionsPerEndpoint <= 0) {
+            return 0;
+        }
+
+        final InstrumentedHttpClientConnectionManager manager = (InstrumentedHttpClientConnectionManager) this.connectionManager;
+        List<HttpRoute> routes = new ArrayList<HttpRoute>();
+        for (URI endpoint : endpoints) {
+            boolean secure = Protocol.HTTPS.toString().equalsIgnoreCase(endpoint.getScheme());
+            HttpHost target = new HttpHost(endpoint.getHost(), endpoint.getPort(), endpoint.getScheme());
+            if (target.getPort() < 0) {
+                // Requests are routed to the resolved default port, so must the
+                // warmed connections be.
+                try {
+                    target = new HttpHost(target.getHostName(), DefaultSchemePortResolver.INSTANCE.resolve(target),
+                            target.getSchemeName());
+                } catch (UnsupportedSchemeException e) {
+                    getLog().warn("Skip opening connections to " + endpoint + ": " + e.getMessage());
+                    continue;
+                }
+            }
+            if (this.proxyHttpHost == null) {
+                routes.add(new HttpRoute(target, null, secure));
+            } else if (!secure) {
+                routes.add(new HttpRoute(target, null, this.proxyHttpHost, false));
+            } else {
+                // Tunnelled routes are only established by real requests.
+                getLog().debug("Skip opening connections to " + endpoint + " through the proxy.");
+            }
+        }
+
+        List<Callable<WarmUpConnection>> tasks = new ArrayList<Callable<WarmUpConnection>>();
+        int remaining = config.getMaxConnections();
+        for (final HttpRoute route : routes) {
+            int count = Math.min(Math.min(connectionsPerEndpoint, manager.getMaxPerRoute(route)), remaining);
+            remaining -= count;
+            for (int i = 0; i < count; i++) {
+                tasks.add(new Callable<WarmUpConnection>() {
+                    @Override
+                    public WarmUpConnection call() throws Exception {
+                        return openConnection(manager, route);
+                    }
+                });
+            }
+        }
+        if (tasks.isEmpty()) {
+            return 0;
+        }
+
+        // All the connections are leased before any is released, so that
+        // every task gets a distinct connection.
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(tasks.size(), MAX_WARM_UP_THREADS));
+        List<WarmUpConnection> leased = new ArrayList<WarmUpConnection>();
+        try {
+            for (Future<WarmUpConnection> future : executor.invokeAll(tasks)) {
+                try {
+                    leased.add(future.get());
+                } catch (ExecutionException e) {
+                    getLog().warn("Unable to open a pooled connection: " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException(e.getMessage(), e);
+        } finally {
+            executor.shutdown();
+        }
+
+        int opened = 0;
+        for (WarmUpConnection connection : leased) {
+            if (connection.opened) {
+                opened++;
+            }
+            manager.releaseConnection(connection.conn, null, config.getIdleConnectionTime(), TimeUnit.MILLISECONDS);
+        }
+        return opened;
+    }
+
+    private WarmUpConnection openConnection(HttpClientConnectionManager manager, HttpRoute route)
+            throws Exception {
+        int timeout = config.getConnectionRequestTimeout() > 0 ? config.getConnectionRequestTimeout()
+                : config.getConnectionTimeout();
+        HttpClientConnection conn = manager.requestConnection(route, null).get(timeout, TimeUnit.MILLISECONDS);
+        if (conn.isOpen()) {
+            return new WarmUpConnection(conn, false);
+        }
+
+        try {
+            HttpClientContext context = createHttpContext();
+            manager.connect(conn, route, config.getConnectionTimeout(), context);
+            manager.routeComplete(conn, route, context);
+            return new WarmUpConnection(conn, true);
+        } catch (IOException e) {
+            manager.releaseConnection(conn, null, 0, TimeUnit.MILLISECONDS);
+            throw e;
+        }
+    }
+
+    private static class WarmUpConnection {
+        final HttpClientConnection conn;
+        final boolean opened;
+
+        WarmUpConnection(HttpClientConnection conn, boolean opened) {
+            this.conn = conn;
+            this.opened = opened;
+        }
+    }
+
     @Override
     public void shutdown() {
         IdleConnectionReaper.removeConnectionManager(this.connectionManager);
@@ -50,6 +50,9 @@ public class ExecutionContext {
 
     private Credentials credentials;
 
+    /* Tracks the request phases if a metrics collector is configured. */
+    private RequestMetricsTracker metricsTracker;
+
     public RetryStrategy getRetryStrategy() {
         return retryStrategy;
     }
@@ -130,4 +133,12 @@ public class ExecutionContext {
         this.credentials = credentials;
     }
 
+    RequestMetricsTracker getMetricsTracker() {
+        return metricsTracker;
+    }
+
+    void setMetricsTracker(RequestMetricsTracker metricsTracker) {
+        this.metricsTracker = metricsTracker;
+    }
+
 }
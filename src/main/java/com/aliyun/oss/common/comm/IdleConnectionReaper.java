@@ -21,101 +21,198 @@ package com.aliyun.oss.common.comm;
 
 import static com.aliyun.oss.common.utils.LogUtils.getLog;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.pool.ConnPoolControl;
 
 /**
- * A daemon thread used to periodically check connection pools for idle
- * connections.
+ * Periodically closes the expired and idle connections of the registered
+ * connection pools. Every pool is reaped by its own task, with its own idle
+ * time and interval, on a shared daemon scheduler. The scheduler thread is
+ * started on demand and exits once no pool is registered anymore.
  */
-public final class IdleConnectionReaper extends Thread {
-    private static final int REAP_INTERVAL_MILLISECONDS = 5 * 1000;
-    private static final ArrayList<HttpClientConnectionManager> connectionManagers = new ArrayList<HttpClientConnectionManager>();
+public final class IdleConnectionReaper {
+    private static final long DEFAULT_REAP_INTERVAL_MILLISECONDS = 5 * 1000;
+    private static final long SCHEDULER_KEEP_ALIVE_SECONDS = 60;
 
-    private static IdleConnectionReaper instance;
+    private static final ConcurrentMap<HttpClientConnectionManager, Registration> registrations = new ConcurrentHashMap<HttpClientConnectionManager, Registration>();
 
-    private static long idleConnectionTime = 60 * 1000;
+    private static final ScheduledThreadPoolExecutor scheduler = createScheduler();
 
-    private volatile boolean shuttingDown;
+    private static final AtomicLong totalReclaimedConnections = new AtomicLong();
+
+    private static volatile long idleConnectionTime = 60 * 1000;
 
     private IdleConnectionReaper() {
-        super("idle_connection_reaper");
-        setDaemon(true);
     }
 
-    public static synchronized boolean registerConnectionManager(HttpClientConnectionManager connectionManager) {
-        if (instance == null) {
-            instance = new IdleConnectionReaper();
-            instance.start();
-        }
-        return connectionManagers.add(connectionManager);
+    private static ScheduledThreadPoolExecutor createScheduler() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "idle_connection_reaper");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.setKeepAliveTime(SCHEDULER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
-    public static synchronized boolean removeConnectionManager(HttpClientConnectionManager connectionManager) {
-        boolean b = connectionManagers.remove(connectionManager);
-        if (connectionManagers.isEmpty())
-            shutdown();
-        return b;
+    /**
+     * Registers a connection pool reaped with the shared idle connection time
+     * every 5 seconds.
+     */
+    public static boolean registerConnectionManager(HttpClientConnectionManager connectionManager) {
+        return register(connectionManager, -1, DEFAULT_REAP_INTERVAL_MILLISECONDS);
     }
 
-    private void markShuttingDown() {
-        shuttingDown = true;
+    /**
+     * Registers a connection pool with its own reaping policy.
+     * 
+     * @param connectionManager
+     *            The connection pool.
+     * @param idleConnectionTime
+     *            The max idle time in millisecond of the pool's connections.
+     * @param reapInterval
+     *            The interval in millisecond between two reapings.
+     * @return true if the pool was not registered yet.
+     */
+    public static boolean registerConnectionManager(HttpClientConnectionManager connectionManager,
+            long idleConnectionTime, long reapInterval) {
+        return register(connectionManager, Math.max(0, idleConnectionTime), reapInterval);
     }
 
-    @SuppressWarnings("unchecked")
-    @Override
-    public void run() {
-        while (true) {
-            if (shuttingDown) {
-                getLog().debug("Shutting down reaper thread.");
-                return;
-            }
+    private static boolean register(HttpClientConnectionManager connectionManager, long idleConnectionTime,
+            long reapInterval) {
+        Registration registration = new Registration(connectionManager, idleConnectionTime);
+        if (registrations.putIfAbsent(connectionManager, registration) != null) {
+            return false;
+        }
 
-            try {
-                Thread.sleep(REAP_INTERVAL_MILLISECONDS);
-            } catch (InterruptedException e) {
-            }
+        long interval = reapInterval > 0 ? reapInterval : DEFAULT_REAP_INTERVAL_MILLISECONDS;
+        registration.future = scheduler.scheduleWithFixedDelay(registration, interval, interval,
+                TimeUnit.MILLISECONDS);
+        // Don't leave a task behind if the pool was removed concurrently.
+        if (registrations.get(connectionManager) != registration) {
+            registration.future.cancel(false);
+        }
+        return true;
+    }
 
-            try {
-                List<HttpClientConnectionManager> connectionManagers = null;
-                synchronized (IdleConnectionReaper.class) {
-                    connectionManagers = (List<HttpClientConnectionManager>) IdleConnectionReaper.connectionManagers
-                            .clone();
-                }
-                for (HttpClientConnectionManager connectionManager : connectionManagers) {
-                    try {
-                        connectionManager.closeExpiredConnections();
-                        connectionManager.closeIdleConnections(idleConnectionTime, TimeUnit.MILLISECONDS);
-                    } catch (Exception ex) {
-                        getLog().warn("Unable to close idle connections", ex);
-                    }
-                }
-            } catch (Throwable t) {
-                getLog().debug("Reaper thread: ", t);
-            }
+    public static boolean removeConnectionManager(HttpClientConnectionManager connectionManager) {
+        Registration registration = registrations.remove(connectionManager);
+        if (registration == null) {
+            return false;
         }
+        registration.cancel();
+        return true;
     }
 
-    public static synchronized boolean shutdown() {
-        if (instance != null) {
-            instance.markShuttingDown();
-            instance.interrupt();
-            connectionManagers.clear();
-            instance = null;
-            return true;
+    /**
+     * Stops reaping all the registered connection pools.
+     */
+    public static boolean shutdown() {
+        boolean removed = false;
+        for (HttpClientConnectionManager connectionManager : registrations.keySet()) {
+            removed |= removeConnectionManager(connectionManager);
         }
-        return false;
+        return removed;
     }
 
-    public static synchronized int size() {
-        return connectionManagers.size();
+    public static int size() {
+        return registrations.size();
     }
 
-    public static synchronized void setIdleConnectionTime(long idletime) {
+    /**
+     * Sets the idle connection time of the pools registered without their own
+     * reaping policy.
+     * 
+     * @deprecated Use
+     *             {@link #registerConnectionManager(HttpClientConnectionManager, long, long)}
+     *             to set the idle connection time of every pool instead.
+     */
+    @Deprecated
+    public static void setIdleConnectionTime(long idletime) {
         idleConnectionTime = idletime;
     }
 
+    /**
+     * Gets the number of idle or expired connections closed in all pools.
+     */
+    public static long getReclaimedConnectionCount() {
+        return totalReclaimedConnections.get();
+    }
+
+    /**
+     * Gets the number of idle or expired connections closed in a pool.
+     * 
+     * @param connectionManager
+     *            The registered connection pool.
+     * @return The number of connections closed, or -1 if the pool is not
+     *         registered.
+     */
+    public static long getReclaimedConnectionCount(HttpClientConnectionManager connectionManager) {
+        Registration registration = registrations.get(connectionManager);
+        return registration != null ? registration.reclaimedConnections.get() : -1;
+    }
+
+    private static class Registration implements Runnable {
+        private final HttpClientConnectionManager connectionManager;
+        private final long idleConnectionTime;
+        private final AtomicLong reclaimedConnections = new AtomicLong();
+        private volatile ScheduledFuture<?> future;
+        private volatile boolean cancelled;
+
+        Registration(HttpClientConnectionManager connectionManager, long idleConnectionTime) {
+            this.connectionManager = connectionManager;
+            this.idleConnectionTime = idleConnectionTime;
+        }
+
+        void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+
+            try {
+                int before = availableConnections();
+                long idleTime = this.idleConnectionTime >= 0 ? this.idleConnectionTime
+                        : IdleConnectionReaper.idleConnectionTime;
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(idleTime, TimeUnit.MILLISECONDS);
+                int reclaimed = before - availableConnections();
+                if (reclaimed > 0) {
+                    reclaimedConnections.addAndGet(reclaimed);
+                    totalReclaimedConnections.addAndGet(reclaimed);
+                }
+            } catch (Exception ex) {
+                getLog().warn("Unable to close idle connections", ex);
+            }
+        }
+
+        private int availableConnections() {
+            if (connectionManager instanceof ConnPoolControl) {
+                return ((ConnPoolControl<?>) connectionManager).getTotalStats().getAvailable();
+            }
+            return 0;
+        }
+    }
+
 }
@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import static com.aliyun.oss.common.utils.LogUtils.getLog;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Pooling connection manager that applies the {@link ConnectionPoolPolicy}
+ * to every route, and reports the time spent opening connections to the
+ * {@link RequestMetricsTracker} of the request.
+ */
+class InstrumentedHttpClientConnectionManager extends PoolingHttpClientConnectionManager {
+
+    private final ConnectionPoolPolicy policy;
+    private final int maxTotal;
+    private final ConcurrentMap<HttpRoute, RouteState> routeStates = new ConcurrentHashMap<HttpRoute, RouteState>();
+    private final AtomicLong lastAdjustmentTime = new AtomicLong(System.nanoTime());
+
+    InstrumentedHttpClientConnectionManager(Registry<ConnectionSocketFactory> socketFactoryRegistry,
+            ConnectionPoolPolicy policy, int maxTotal, long connectionTTL) {
+        this(socketFactoryRegistry, null, policy, maxTotal, connectionTTL);
+    }
+
+    InstrumentedHttpClientConnectionManager(Registry<ConnectionSocketFactory> socketFactoryRegistry,
+            DnsResolver dnsResolver, ConnectionPoolPolicy policy, int maxTotal, long connectionTTL) {
+        super(socketFactoryRegistry, null, null, dnsResolver, connectionTTL, TimeUnit.MILLISECONDS);
+        this.policy = policy != null ? policy : new ConnectionPoolPolicy();
+        this.maxTotal = maxTotal;
+        setMaxTotal(maxTotal);
+        setDefaultMaxPerRoute(configuredMaxPerRoute());
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        final RouteState routeState = registerRoute(route);
+        final ConnectionRequest request = super.requestConnection(route, state);
+        return new ConnectionRequest() {
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit tunit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                long start = System.nanoTime();
+                try {
+                    return request.get(timeout, tunit);
+                } finally {
+                    routeState.leased(System.nanoTime() - start);
+                    adjustIfNeeded();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void connect(HttpClientConnection managedConn, HttpRoute route, int connectTimeout, HttpContext context)
+            throws IOException {
+        RequestMetricsTracker tracker = RequestMetricsTracker.from(context);
+        if (tracker == null) {
+            super.connect(managedConn, route, connectTimeout, context);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            super.connect(managedConn, route, connectTimeout, context);
+        } finally {
+            tracker.connected(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Gets the stats of the pool, in total and per route.
+     */
+    ConnectionPoolStats getConnectionPoolStats() {
+        Map<String, ConnectionPoolStats> routeStats = new HashMap<String, ConnectionPoolStats>();
+        for (HttpRoute route : getRoutes()) {
+            routeStats.put(route.getTargetHost().toURI(), toConnectionPoolStats(getStats(route), null));
+        }
+        return toConnectionPoolStats(getTotalStats(), routeStats);
+    }
+
+    private static ConnectionPoolStats toConnectionPoolStats(PoolStats stats,
+            Map<String, ConnectionPoolStats> routeStats) {
+        if (routeStats == null) {
+            return new ConnectionPoolStats(stats.getLeased(), stats.getPending(), stats.getAvailable(),
+                    stats.getMax());
+        }
+        return new ConnectionPoolStats(stats.getLeased(), stats.getPending(), stats.getAvailable(), stats.getMax(),
+                routeStats);
+    }
+
+    private int configuredMaxPerRoute() {
+        int maxPerRoute = policy.getMaxConnectionsPerRoute();
+        return maxPerRoute > 0 ? Math.min(maxPerRoute, maxTotal) : maxTotal;
+    }
+
+    /**
+     * The largest limit of a route which still leaves the reserved
+     * connections to all the other routes.
+     */
+    private int routeCeiling() {
+        int others = Math.max(0, routeStates.size() - 1);
+        return Math.max(1, maxTotal - others * policy.getMinReservedConnectionsPerRoute());
+    }
+
+    private RouteState registerRoute(HttpRoute route) {
+        RouteState routeState = routeStates.get(route);
+        if (routeState != null) {
+            return routeState;
+        }
+
+        RouteState created = new RouteState();
+        routeState = routeStates.putIfAbsent(route, created);
+        if (routeState != null) {
+            return routeState;
+        }
+
+        if (policy.getMinReservedConnectionsPerRoute() > 0) {
+            // A new route takes reserved capacity from all the others.
+            int ceiling = routeCeiling();
+            for (HttpRoute r : routeStates.keySet()) {
+                if (getMaxPerRoute(r) > ceiling) {
+                    setMaxPerRoute(r, ceiling);
+                }
+            }
+        }
+        return created;
+    }
+
+    private void adjustIfNeeded() {
+        boolean adaptive = policy.isAdaptiveSizingEnabled();
+        if (!adaptive && policy.getMinReservedConnectionsPerRoute() <= 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long last = lastAdjustmentTime.get();
+        if (now - last < TimeUnit.MILLISECONDS.toNanos(policy.getAdjustmentInterval())
+                || !lastAdjustmentTime.compareAndSet(last, now)) {
+            return;
+        }
+
+        long threshold = TimeUnit.MILLISECONDS.toNanos(policy.getLeaseWaitThreshold());
+        int baseline = configuredMaxPerRoute();
+        for (Map.Entry<HttpRoute, RouteState> entry : routeStates.entrySet()) {
+            HttpRoute route = entry.getKey();
+            long leases = entry.getValue().leases.getAndSet(0);
+            long waitTime = entry.getValue().waitTime.getAndSet(0);
+            PoolStats stats = getStats(route);
+
+            if (leases == 0 && stats.getLeased() == 0 && stats.getAvailable() == 0 && stats.getPending() == 0) {
+                // The route has gone away, give its reserved capacity back.
+                routeStates.remove(route);
+                setMaxPerRoute(route, baseline);
+                continue;
+            }
+            if (!adaptive) {
+                continue;
+            }
+
+            int ceiling = Math.min(routeCeiling(), maxTotal);
+            int current = getMaxPerRoute(route);
+            int adjusted = current;
+            long averageWait = leases > 0 ? waitTime / leases : 0;
+            if (averageWait > threshold) {
+                adjusted = Math.min(ceiling, current + Math.max(1, current / 4));
+            } else if (averageWait < threshold / 4 && current > baseline && stats.getLeased() < current / 2) {
+                adjusted = Math.max(baseline, current - Math.max(1, (current - baseline) / 2));
+            }
+            adjusted = Math.min(adjusted, ceiling);
+
+            if (adjusted != current) {
+                getLog().debug("Resize the connection limit of route " + route + " from " + current + " to "
+                        + adjusted + ", average lease wait " + TimeUnit.NANOSECONDS.toMillis(averageWait) + "ms");
+                setMaxPerRoute(route, adjusted);
+            }
+        }
+
+        if (!adaptive) {
+            // The routes left grow back to the configured limit, within the
+            // capacity the gone routes gave back.
+            int limit = Math.min(baseline, routeCeiling());
+            for (HttpRoute route : routeStates.keySet()) {
+                if (getMaxPerRoute(route) != limit) {
+                    setMaxPerRoute(route, limit);
+                }
+            }
+        }
+    }
+
+    private static class RouteState {
+        final AtomicLong leases = new AtomicLong();
+        final AtomicLong waitTime = new AtomicLong();
+
+        void leased(long wait) {
+            leases.incrementAndGet();
+            waitTime.addAndGet(wait);
+        }
+    }
+
+}
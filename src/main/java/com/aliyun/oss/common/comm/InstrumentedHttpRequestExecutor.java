@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpInetConnection;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+/**
+ * Request executor that reports the request transfer time, the time to first
+ * byte and the request body bytes to the {@link RequestMetricsTracker} of the
+ * request, and the outcome of the request to the
+ * {@link BalancingDnsResolver} if any.
+ */
+class InstrumentedHttpRequestExecutor extends HttpRequestExecutor {
+
+    private final BalancingDnsResolver resolver;
+
+    InstrumentedHttpRequestExecutor(BalancingDnsResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    @Override
+    protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection conn, HttpContext context)
+            throws IOException, HttpException {
+        RequestMetricsTracker tracker = RequestMetricsTracker.from(context);
+        if (tracker == null) {
+            try {
+                return super.doSendRequest(request, conn, context);
+            } catch (IOException e) {
+                recordFailure(conn);
+                throw e;
+            }
+        }
+
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntityEnclosingRequest entityRequest = (HttpEntityEnclosingRequest) request;
+            if (entityRequest.getEntity() != null) {
+                entityRequest.setEntity(new CountingEntity(entityRequest.getEntity(), tracker));
+            }
+        }
+
+        tracker.requestSendStarted();
+        try {
+            return super.doSendRequest(request, conn, context);
+        } catch (IOException e) {
+            recordFailure(conn);
+            throw e;
+        } finally {
+            tracker.requestSendCompleted();
+        }
+    }
+
+    @Override
+    protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection conn, HttpContext context)
+            throws HttpException, IOException {
+        RequestMetricsTracker tracker = RequestMetricsTracker.from(context);
+        try {
+            HttpResponse response = super.doReceiveResponse(request, conn, context);
+            if (resolver != null && conn instanceof HttpInetConnection) {
+                InetAddress address = ((HttpInetConnection) conn).getRemoteAddress();
+                if (response.getStatusLine().getStatusCode() >= HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+                    resolver.recordFailure(address);
+                } else {
+                    resolver.recordSuccess(address, -1);
+                }
+            }
+            return response;
+        } catch (IOException e) {
+            recordFailure(conn);
+            throw e;
+        } finally {
+            if (tracker != null) {
+                tracker.responseHeadersReceived();
+            }
+        }
+    }
+
+    private void recordFailure(HttpClientConnection conn) {
+        if (resolver != null && conn instanceof HttpInetConnection) {
+            try {
+                resolver.recordFailure(((HttpInetConnection) conn).getRemoteAddress());
+            } catch (RuntimeException e) {
+                /* The connection has already been shut down. */
+            }
+        }
+    }
+
+    private static class CountingEntity extends HttpEntityWrapper {
+        private final RequestMetricsTracker tracker;
+
+        CountingEntity(HttpEntity entity, RequestMetricsTracker tracker) {
+            super(entity);
+            this.tracker = tracker;
+        }
+
+        @Override
+        public void writeTo(OutputStream outstream) throws IOException {
+            super.writeTo(new CountingOutputStream(outstream, tracker));
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private final RequestMetricsTracker tracker;
+
+        CountingOutputStream(OutputStream out, RequestMetricsTracker tracker) {
+            super(out);
+            this.tracker = tracker;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            tracker.bytesSent(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            tracker.bytesSent(len);
+        }
+    }
+
+}
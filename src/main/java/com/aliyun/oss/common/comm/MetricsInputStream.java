@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the response body bytes of one attempt and notifies the
+ * {@link RequestMetricsTracker} when the body is exhausted or closed.
+ */
+class MetricsInputStream extends FilterInputStream {
+
+    private final RequestMetricsTracker tracker;
+    private final int attemptId;
+    private long bytesRead;
+    private long markedBytesRead;
+    private boolean completed;
+
+    MetricsInputStream(InputStream in, RequestMetricsTracker tracker, int attemptId) {
+        super(in);
+        this.tracker = tracker;
+        this.attemptId = attemptId;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b == -1) {
+            complete();
+        } else {
+            bytesRead++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n == -1) {
+            complete();
+        } else {
+            bytesRead += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        bytesRead += skipped;
+        return skipped;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+        super.mark(readlimit);
+        markedBytesRead = bytesRead;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        bytesRead = markedBytesRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            complete();
+        }
+    }
+
+    private void complete() {
+        if (!completed) {
+            completed = true;
+            tracker.responseCompleted(attemptId, bytesRead);
+        }
+    }
+
+}
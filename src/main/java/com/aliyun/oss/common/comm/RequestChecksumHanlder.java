@@ -20,11 +20,10 @@
 package com.aliyun.oss.common.comm;
 
 import java.io.InputStream;
-import java.util.zip.CheckedInputStream;
 
 import com.aliyun.oss.ClientException;
 import com.aliyun.oss.OSSException;
-import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.common.comm.io.BodyPipelineInputStream;
 
 public class RequestChecksumHanlder implements RequestHandler {
 
@@ -35,9 +34,7 @@ public class RequestChecksumHanlder implements RequestHandler {
             return;
         }
 
-        CRC64 crc = new CRC64();
-        CheckedInputStream checkedInputstream = new CheckedInputStream(originalInputStream, crc);
-        request.setContent(checkedInputstream);
+        request.setContent(BodyPipelineInputStream.pipelineOf(originalInputStream).withChecksum());
     }
 
 }
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent identical requests into a single one. The first caller
+ * of a key sends the request, and the callers arriving with the same key
+ * before its response is received wait for it and get their own copy of the
+ * result, or the same exception. A result which cannot be shared, such as a
+ * body too large to buffer, makes the waiting callers send their own request.
+ */
+public class RequestCoalescer {
+
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<String, Flight>();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * A request which can be coalesced.
+     * 
+     * @param <T>
+     *            The type of the result.
+     * @param <S>
+     *            The type of the result shared with the waiting callers.
+     */
+    public static abstract class Execution<T, S> {
+
+        /**
+         * Sends the request.
+         */
+        protected abstract T execute();
+
+        /**
+         * Prepares the result of the request to be shared, e.g. by buffering
+         * its body. Only called when other callers are waiting for it.
+         * 
+         * @return The shared result, or null if it cannot be shared.
+         */
+        protected abstract S share(T result);
+
+        /**
+         * Creates the copy of the shared result returned to one caller.
+         */
+        protected abstract T copy(S shared);
+    }
+
+    /**
+     * Executes the request, or waits for the identical request in flight.
+     * 
+     * @param key
+     *            The key identifying identical requests.
+     * @param execution
+     *            The request.
+     * @return The result of the request.
+     */
+    public <T, S> T execute(String key, Execution<T, S> execution) {
+        Flight flight = new Flight();
+        while (true) {
+            Flight current = flights.putIfAbsent(key, flight);
+            if (current == null) {
+                return lead(key, flight, execution);
+            }
+            if (current.join()) {
+                coalescedCount.incrementAndGet();
+                return follow(current, execution);
+            }
+            // The request in flight has just received its response.
+            flights.remove(key, current);
+        }
+    }
+
+    /**
+     * Gets the number of requests which were not sent since an identical one
+     * was in flight.
+     */
+    public long getCoalescedRequestCount() {
+        return coalescedCount.get();
+    }
+
+    private <T, S> T lead(String key, Flight flight, Execution<T, S> execution) {
+        T result;
+        try {
+            result = execution.execute();
+        } catch (RuntimeException e) {
+            flights.remove(key, flight);
+            flight.close();
+            flight.complete(null, e);
+            throw e;
+        } catch (Error e) {
+            flights.remove(key, flight);
+            flight.close();
+            flight.complete(null, e);
+            throw e;
+        }
+
+        flights.remove(key, flight);
+        if (flight.close() == 0) {
+            return result;
+        }
+
+        S shared;
+        try {
+            shared = execution.share(result);
+        } catch (RuntimeException e) {
+            flight.complete(null, e);
+            throw e;
+        }
+        flight.complete(shared, null);
+        return shared != null ? execution.copy(shared) : result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, S> T follow(Flight flight, Execution<T, S> execution) {
+        flight.await();
+        if (flight.failure instanceof RuntimeException) {
+            throw (RuntimeException) flight.failure;
+        } else if (flight.failure instanceof Error) {
+            throw (Error) flight.failure;
+        }
+        if (flight.shared == null) {
+            return execution.execute();
+        }
+        return execution.copy((S) flight.shared);
+    }
+
+    private static class Flight {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private int followers = 0;
+        private boolean closed = false;
+        private volatile Object shared;
+        private volatile Throwable failure;
+
+        synchronized boolean join() {
+            if (closed) {
+                return false;
+            }
+            followers++;
+            return true;
+        }
+
+        synchronized int close() {
+            closed = true;
+            return followers;
+        }
+
+        void complete(Object shared, Throwable failure) {
+            this.shared = shared;
+            this.failure = failure;
+            done.countDown();
+        }
+
+        void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+}
@@ -21,6 +21,7 @@ package com.aliyun.oss.common.comm;
 
 import java.net.URI;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -59,6 +60,12 @@ public class RequestMessage extends HttpMesssage {
     /* Indicate whether using chunked encoding */
     private boolean useChunkEncoding = false;
 
+    /* The operation name used to tag the request metrics */
+    private String operationName;
+
+    /* The error status codes returned to the response parser, not thrown */
+    private int[] acceptedStatusCodes = new int[0];
+
     /* The original request provided by user */
     private final WebServiceRequest originalRequest;
 
@@ -120,6 +127,21 @@ public class RequestMessage extends HttpMesssage {
         return this.getContent() == null || this.getContent().markSupported();
     }
 
+    /**
+     * Sets the error status codes, e.g. 404 Not Found, expected by the caller.
+     * The responses with these codes are returned to the response parser
+     * instead of being thrown as an exception, which saves the cost of
+     * creating the exception when the status is a common outcome.
+     */
+    public void setAcceptedStatusCodes(int... acceptedStatusCodes) {
+        this.acceptedStatusCodes = acceptedStatusCodes.clone();
+        Arrays.sort(this.acceptedStatusCodes);
+    }
+
+    int[] getAcceptedStatusCodes() {
+        return acceptedStatusCodes;
+    }
+
     public String toString() {
         return "Endpoint: " + this.getEndpoint().getHost() + ", ResourcePath: " + this.getResourcePath() + ", Headers:"
                 + this.getHeaders();
@@ -169,4 +191,12 @@ public class RequestMessage extends HttpMesssage {
         this.key = key;
     }
 
+    public String getOperationName() {
+        return operationName;
+    }
+
+    public void setOperationName(String operationName) {
+        this.operationName = operationName;
+    }
+
 }
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import static com.aliyun.oss.common.utils.LogUtils.getLog;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.http.protocol.HttpContext;
+
+import com.aliyun.oss.common.metrics.MetricsCollector;
+import com.aliyun.oss.common.metrics.RequestMetrics;
+
+/**
+ * Tracks the phases of one logical request and publishes its
+ * {@link RequestMetrics} to the configured {@link MetricsCollector} exactly
+ * once.
+ */
+class RequestMetricsTracker {
+
+    /* The attribute name of the tracker in the HTTP context. */
+    static final String HTTP_CONTEXT_ATTRIBUTE = "oss.request-metrics-tracker";
+
+    private final MetricsCollector collector;
+    private final RequestMetrics metrics = new RequestMetrics();
+    private final long startTime = System.nanoTime();
+    private final AtomicBoolean published = new AtomicBoolean(false);
+
+    private volatile int attempt;
+    private volatile boolean armed;
+    private volatile boolean responseCompleted;
+
+    private long attemptStartTime;
+    private long connectTime;
+    private long sendStartTime;
+    private long sendEndTime;
+    private long headersReceivedTime;
+
+    RequestMetricsTracker(MetricsCollector collector, RequestMessage request) {
+        this.collector = collector;
+        String operationName = request.getOperationName();
+        if (operationName == null) {
+            operationName = request.getMethod().toString();
+        }
+        metrics.setOperationName(operationName);
+        metrics.setBucketName(request.getBucket());
+        metrics.setKey(request.getKey());
+        metrics.setMethod(request.getMethod());
+    }
+
+    static RequestMetricsTracker from(HttpContext context) {
+        if (context == null) {
+            return null;
+        }
+        Object tracker = context.getAttribute(HTTP_CONTEXT_ATTRIBUTE);
+        return tracker instanceof RequestMetricsTracker ? (RequestMetricsTracker) tracker : null;
+    }
+
+    RequestMetrics getMetrics() {
+        return metrics;
+    }
+
+    void signed(long signingTime) {
+        metrics.setSigningTime(signingTime);
+    }
+
+    /**
+     * Starts a new attempt, discarding the phase timings of the previous one.
+     */
+    int attemptStarted(int retries) {
+        metrics.setRetryCount(retries);
+        metrics.setStatusCode(-1);
+        metrics.setConnectionLeaseTime(-1);
+        metrics.setConnectTime(-1);
+        metrics.setTimeToFirstByte(-1);
+        metrics.setRequestTransferTime(-1);
+        metrics.setResponseTransferTime(-1);
+        metrics.setBytesSent(0);
+        metrics.setBytesReceived(0);
+        connectTime = 0;
+        sendStartTime = 0;
+        sendEndTime = 0;
+        headersReceivedTime = 0;
+        responseCompleted = false;
+        attemptStartTime = System.nanoTime();
+        return ++attempt;
+    }
+
+    void connected(long duration) {
+        connectTime += duration;
+        metrics.setConnectTime(connectTime);
+    }
+
+    void requestSendStarted() {
+        sendStartTime = System.nanoTime();
+        metrics.setConnectionLeaseTime(Math.max(0, sendStartTime - attemptStartTime - connectTime));
+    }
+
+    void requestSendCompleted() {
+        sendEndTime = System.nanoTime();
+        metrics.setRequestTransferTime(sendEndTime - sendStartTime);
+    }
+
+    void bytesSent(long bytes) {
+        metrics.setBytesSent(metrics.getBytesSent() + bytes);
+    }
+
+    void responseHeadersReceived() {
+        headersReceivedTime = System.nanoTime();
+        if (sendEndTime > 0) {
+            metrics.setTimeToFirstByte(headersReceivedTime - sendEndTime);
+        }
+    }
+
+    void responseReceived(ResponseMessage response) {
+        if (response != null) {
+            metrics.setStatusCode(response.getStatusCode());
+        }
+    }
+
+    /**
+     * Called by the response body stream of an attempt when the body is
+     * exhausted or closed.
+     */
+    void responseCompleted(int attemptId, long bytesReceived) {
+        if (attemptId != attempt) {
+            return;
+        }
+        metrics.setBytesReceived(bytesReceived);
+        if (headersReceivedTime > 0) {
+            metrics.setResponseTransferTime(System.nanoTime() - headersReceivedTime);
+        }
+        responseCompleted = true;
+        if (armed) {
+            publish(null);
+        }
+    }
+
+    /**
+     * Marks the request as successfully completed. The metrics are published
+     * now if there is no response body pending, otherwise once the body is
+     * consumed.
+     */
+    void succeeded(boolean bodyPending) {
+        armed = true;
+        if (!bodyPending || responseCompleted) {
+            publish(null);
+        }
+    }
+
+    void failed(Exception ex) {
+        publish(ex);
+    }
+
+    private void publish(Exception ex) {
+        if (!published.compareAndSet(false, true)) {
+            return;
+        }
+        metrics.setException(ex);
+        metrics.setTotalTime(System.nanoTime() - startTime);
+        try {
+            collector.collect(metrics);
+        } catch (RuntimeException e) {
+            getLog().warn("Failed to collect request metrics: " + e.getMessage());
+        }
+    }
+
+}
@@ -19,14 +19,13 @@
 
 package com.aliyun.oss.common.comm;
 
-import java.io.BufferedInputStream;
 import java.io.InputStream;
 import java.util.Map;
 
 import com.aliyun.oss.ClientException;
 import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.comm.io.BodyPipelineInputStream;
 import com.aliyun.oss.common.utils.HttpHeaders;
-import com.aliyun.oss.event.ProgressInputStream;
 import com.aliyun.oss.event.ProgressListener;
 import com.aliyun.oss.model.WebServiceRequest;
 
@@ -55,11 +54,11 @@ public class RequestProgressHanlder implements RequestHandler {
         if (content == null) {
             return;
         }
-        if (!content.markSupported()) {
-            content = new BufferedInputStream(content);
+        BodyPipelineInputStream pipeline = BodyPipelineInputStream.pipelineOf(content);
+        if (listener != ProgressListener.NOOP) {
+            pipeline.withRequestProgress(listener);
         }
-        request.setContent(listener == ProgressListener.NOOP ? content
-                : ProgressInputStream.inputStreamForRequest(content, originalRequest));
+        request.setContent(pipeline);
     }
 
 }
@@ -20,11 +20,10 @@
 package com.aliyun.oss.common.comm;
 
 import java.io.InputStream;
-import java.util.zip.CheckedInputStream;
 
 import com.aliyun.oss.ClientException;
 import com.aliyun.oss.OSSException;
-import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.common.comm.io.BodyPipelineInputStream;
 
 public class ResponseChecksumHandler implements ResponseHandler {
 
@@ -35,9 +34,7 @@ public class ResponseChecksumHandler implements ResponseHandler {
             return;
         }
 
-        CRC64 crc = new CRC64();
-        CheckedInputStream checkedInputstream = new CheckedInputStream(originalInputStream, crc);
-        response.setContent(checkedInputstream);
+        response.setContent(BodyPipelineInputStream.pipelineOf(originalInputStream).withChecksum());
     }
 
 }
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import java.io.UnsupportedEncodingException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.http.Header;
+
+/**
+ * A case-insensitive view of the headers of an HTTP response, backed directly
+ * by the headers of the response instead of a copy of them. A header value is
+ * converted from iso-8859-1 to utf-8 only when it's read, so that reading the
+ * few headers most responses need doesn't pay for all of them. If a header
+ * occurs more than once, the last one wins.
+ * 
+ * <p>
+ * The view is copied to a case-insensitive map on the first modification.
+ * </p>
+ */
+public class ResponseHeaderMap extends AbstractMap<String, String> {
+
+    private static final String ISO_8859_1_CHARSET = "iso-8859-1";
+    private static final String UTF8_CHARSET = "utf-8";
+
+    private final Header[] headers;
+    private final String[] values;
+    private int size = -1;
+
+    private Map<String, String> modified;
+
+    public ResponseHeaderMap(Header[] headers) {
+        this.headers = headers;
+        this.values = new String[headers.length];
+    }
+
+    @Override
+    public String get(Object key) {
+        if (modified != null) {
+            return modified.get(key);
+        }
+        int index = indexOf(key);
+        return index != -1 ? valueAt(index) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (modified != null) {
+            return modified.containsKey(key);
+        }
+        return indexOf(key) != -1;
+    }
+
+    @Override
+    public int size() {
+        if (modified != null) {
+            return modified.size();
+        }
+        if (size == -1) {
+            int count = 0;
+            for (int i = 0; i < headers.length; i++) {
+                if (isLast(i)) {
+                    count++;
+                }
+            }
+            size = count;
+        }
+        return size;
+    }
+
+    @Override
+    public String put(String key, String value) {
+        return modifiable().put(key, value);
+    }
+
+    @Override
+    public String remove(Object key) {
+        return modifiable().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        modifiable().clear();
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        if (modified != null) {
+            return modified.entrySet();
+        }
+        return new AbstractSet<Map.Entry<String, String>>() {
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                return new HeaderIterator();
+            }
+
+            @Override
+            public int size() {
+                return ResponseHeaderMap.this.size();
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        String name = (String) key;
+        for (int i = headers.length - 1; i >= 0; i--) {
+            if (name.equalsIgnoreCase(headers[i].getName())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isLast(int index) {
+        String name = headers[index].getName();
+        for (int i = index + 1; i < headers.length; i++) {
+            if (name.equalsIgnoreCase(headers[i].getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String valueAt(int index) {
+        String value = values[index];
+        if (value == null) {
+            value = decode(headers[index].getValue());
+            values[index] = value;
+        }
+        return value;
+    }
+
+    private static String decode(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                try {
+                    return new String(value.getBytes(ISO_8859_1_CHARSET), UTF8_CHARSET);
+                } catch (UnsupportedEncodingException e) {
+                    throw new IllegalArgumentException("Invalid charset name: " + e.getMessage(), e);
+                }
+            }
+        }
+        return value;
+    }
+
+    private Map<String, String> modifiable() {
+        if (modified == null) {
+            Map<String, String> copy = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+            for (int i = 0; i < headers.length; i++) {
+                copy.put(headers[i].getName(), valueAt(i));
+            }
+            modified = copy;
+        }
+        return modified;
+    }
+
+    private class HeaderIterator implements Iterator<Map.Entry<String, String>> {
+
+        private int next = advance(0);
+
+        private int advance(int from) {
+            int index = from;
+            while (index < headers.length && !isLast(index)) {
+                index++;
+            }
+            return index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < headers.length;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int index = next;
+            next = advance(index + 1);
+            return new SimpleImmutableEntry<String, String>(headers[index].getName(), valueAt(index));
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
@@ -27,8 +27,8 @@ import java.util.Map;
 
 import com.aliyun.oss.ClientException;
 import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.comm.io.BodyPipelineInputStream;
 import com.aliyun.oss.common.utils.HttpHeaders;
-import com.aliyun.oss.event.ProgressInputStream;
 import com.aliyun.oss.event.ProgressListener;
 import com.aliyun.oss.model.WebServiceRequest;
 
@@ -57,8 +57,7 @@ public class ResponseProgressHandler implements ResponseHandler {
 
         InputStream content = response.getContent();
         if (content != null && listener != ProgressListener.NOOP) {
-            InputStream progressInputStream = ProgressInputStream.inputStreamForResponse(content, originalRequest);
-            response.setContent(progressInputStream);
+            response.setContent(BodyPipelineInputStream.pipelineOf(content).withResponseProgress(listener));
         }
     }
 
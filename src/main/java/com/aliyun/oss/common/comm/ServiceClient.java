@@ -28,6 +28,8 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.http.HttpMessage;
@@ -37,8 +39,11 @@ import com.aliyun.oss.ClientException;
 import com.aliyun.oss.HttpMethod;
 import com.aliyun.oss.ServiceException;
 import com.aliyun.oss.common.auth.RequestSigner;
+import com.aliyun.oss.common.comm.io.BodyPipelineInputStream;
+import com.aliyun.oss.common.metrics.MetricsCollector;
 import com.aliyun.oss.common.utils.HttpUtil;
 import com.aliyun.oss.common.utils.LogUtils;
+import com.aliyun.oss.internal.EndpointResolver;
 import com.aliyun.oss.internal.OSSConstants;
 
 /**
@@ -48,6 +53,8 @@ public abstract class ServiceClient {
 
     protected ClientConfiguration config;
 
+    private final EndpointResolver endpointResolver = new EndpointResolver();
+
     protected ServiceClient(ClientConfiguration config) {
         this.config = config;
     }
@@ -56,6 +63,14 @@ public abstract class ServiceClient {
         return this.config;
     }
 
+    /**
+     * Gets the cache of the final endpoints of the requests sent by this
+     * client.
+     */
+    public EndpointResolver getEndpointResolver() {
+        return this.endpointResolver;
+    }
+
     /**
      * Send HTTP request with specified context to OSS and wait for HTTP
      * response.
@@ -85,7 +100,15 @@ public abstract class ServiceClient {
         RetryStrategy retryStrategy = context.getRetryStrategy() != null ? context.getRetryStrategy()
                 : this.getDefaultRetryStrategy();
 
+        RequestMetricsTracker metricsTracker = null;
+        MetricsCollector metricsCollector = config.getMetricsCollector();
+        if (metricsCollector != null) {
+            metricsTracker = new RequestMetricsTracker(metricsCollector, request);
+            context.setMetricsTracker(metricsTracker);
+        }
+
         // Sign the request if a signer provided.
+        long signStartTime = System.nanoTime();
         if (context.getSigner() != null && !request.isUseUrlSignature()) {
             context.getSigner().sign(request);
         }
@@ -93,10 +116,19 @@ public abstract class ServiceClient {
         for (RequestSigner signer : context.getSignerHandlers()) {
             signer.sign(request);
         }
+        if (metricsTracker != null) {
+            metricsTracker.signed(System.nanoTime() - signStartTime);
+        }
 
+        // Read the request body through a single pipeline, which the request
+        // handlers add their stages to and which is reset before a retry.
         InputStream requestContent = request.getContent();
-        if (requestContent != null && requestContent.markSupported()) {
-            requestContent.mark(OSSConstants.DEFAULT_STREAM_BUFFER_SIZE);
+        if (requestContent != null) {
+            requestContent = BodyPipelineInputStream.pipelineOf(requestContent);
+            request.setContent(requestContent);
+            if (requestContent.markSupported()) {
+                requestContent.mark(OSSConstants.DEFAULT_STREAM_BUFFER_SIZE);
+            }
         }
 
         int retries = 0;
@@ -129,6 +161,7 @@ public abstract class ServiceClient {
                 Request httpRequest = buildRequest(request, context);
 
                 // Step 3. Send HTTP request to OSS.
+                int attemptId = metricsTracker != null ? metricsTracker.attemptStarted(retries) : 0;
                 long startTime = System.currentTimeMillis();
                 response = sendRequestCore(httpRequest, context);
                 long duration = System.currentTimeMillis() - startTime;
@@ -136,9 +169,20 @@ public abstract class ServiceClient {
                     LogUtils.getLog().warn(formatSlowRequestLog(request, response, duration));
                 }
 
+                if (metricsTracker != null) {
+                    metricsTracker.responseReceived(response);
+                    if (response != null && response.isSuccessful() && response.getContent() != null) {
+                        response.setContent(new MetricsInputStream(response.getContent(), metricsTracker, attemptId));
+                    }
+                }
+
                 // Step 4. Preprocess HTTP response.
                 handleResponse(response, context.getResponseHandlers());
 
+                if (metricsTracker != null) {
+                    metricsTracker.succeeded(response != null && response.getContent() != null);
+                }
+
                 return response;
             } catch (ServiceException sex) {
                 logException("[Server]Unable to execute HTTP request: ", sex,
@@ -150,6 +194,7 @@ public abstract class ServiceClient {
                 closeResponseSilently(response);
 
                 if (!shouldRetry(sex, request, response, retries, retryStrategy)) {
+                    failMetrics(metricsTracker, sex);
                     throw sex;
                 }
             } catch (ClientException cex) {
@@ -159,6 +204,7 @@ public abstract class ServiceClient {
                 closeResponseSilently(response);
 
                 if (!shouldRetry(cex, request, response, retries, retryStrategy)) {
+                    failMetrics(metricsTracker, cex);
                     throw cex;
                 }
             } catch (Exception ex) {
@@ -167,8 +213,10 @@ public abstract class ServiceClient {
 
                 closeResponseSilently(response);
 
-                throw new ClientException(
+                ClientException cex = new ClientException(
                         COMMON_RESOURCE_MANAGER.getFormattedString("ConnectionError", ex.getMessage()), ex);
+                failMetrics(metricsTracker, cex);
+                throw cex;
             } finally {
                 retries++;
             }
@@ -185,6 +233,7 @@ public abstract class ServiceClient {
         Request request = new Request();
         request.setMethod(requestMessage.getMethod());
         request.setUseChunkEncoding(requestMessage.isUseChunkEncoding());
+        request.setAcceptedStatusCodes(requestMessage.getAcceptedStatusCodes());
 
         if (requestMessage.isUseUrlSignature()) {
             request.setUrl(requestMessage.getAbsoluteUrl().toString());
@@ -297,6 +346,12 @@ public abstract class ServiceClient {
         return false;
     }
 
+    private static void failMetrics(RequestMetricsTracker metricsTracker, Exception ex) {
+        if (metricsTracker != null) {
+            metricsTracker.failed(ex);
+        }
+    }
+
     private void closeResponseSilently(ResponseMessage response) {
         if (response != null) {
             try {
@@ -316,6 +371,27 @@ public abstract class ServiceClient {
 
     protected abstract RetryStrategy getDefaultRetryStrategy();
 
+    /**
+     * Gets the stats of the HTTP connection pool, or null if the client does
+     * not pool connections.
+     */
+    public ConnectionPoolStats getConnectionPoolStats() {
+        return null;
+    }
+
+    /**
+     * Opens pooled connections to the endpoints ahead of the requests.
+     * 
+     * @param endpoints
+     *            The endpoints, such as http://bucket.oss-cn-hangzhou.aliyuncs.com.
+     * @param connectionsPerEndpoint
+     *            The number of connections to be kept open per endpoint.
+     * @return The number of connections newly opened.
+     */
+    public int openConnections(List<URI> endpoints, int connectionsPerEndpoint) {
+        return 0;
+    }
+
     public abstract void shutdown();
 
     /**
@@ -327,6 +403,7 @@ public abstract class ServiceClient {
         private HttpMethod method;
         private boolean useUrlSignature = false;
         private boolean useChunkEncoding = false;
+        private int[] acceptedStatusCodes = new int[0];
 
         public String getUri() {
             return this.uri;
@@ -359,5 +436,17 @@ public abstract class ServiceClient {
         public void setUseChunkEncoding(boolean useChunkEncoding) {
             this.useChunkEncoding = useChunkEncoding;
         }
+
+        void setAcceptedStatusCodes(int[] acceptedStatusCodes) {
+            this.acceptedStatusCodes = acceptedStatusCodes;
+        }
+
+        /**
+         * Checks if the error status code is expected by the caller, see
+         * {@link RequestMessage#setAcceptedStatusCodes(int...)}.
+         */
+        public boolean isAcceptedStatusCode(int statusCode) {
+            return Arrays.binarySearch(acceptedStatusCodes, statusCode) >= 0;
+        }
     }
 }
@@ -28,6 +28,8 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -41,6 +43,7 @@ import com.aliyun.oss.ClientException;
 import com.aliyun.oss.OSSErrorCode;
 import com.aliyun.oss.OSSException;
 import com.aliyun.oss.common.utils.ExceptionFactory;
+import com.aliyun.oss.common.utils.VirtualThreads;
 
 /**
  * Default implementation of {@link ServiceClient}.
@@ -51,11 +54,20 @@ public class TimeoutServiceClient extends DefaultServiceClient {
     public TimeoutServiceClient(ClientConfiguration config) {
         super(config);
 
-        int processors = Runtime.getRuntime().availableProcessors();
-        executor = new ThreadPoolExecutor(processors * 5, processors * 10, 60L, TimeUnit.SECONDS,
-                new ArrayBlockingQueue<Runnable>(processors * 100), Executors.defaultThreadFactory(),
-                new ThreadPoolExecutor.CallerRunsPolicy());
-        executor.allowCoreThreadTimeOut(true);
+        ThreadFactory virtualThreadFactory = config.isVirtualThreadsEnabled()
+                ? VirtualThreads.newThreadFactory("oss-timeout-") : null;
+        if (virtualThreadFactory != null) {
+            // Virtual threads are cheap to block, so every request gets its
+            // own thread instead of waiting for a bounded pool.
+            executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<Runnable>(), virtualThreadFactory);
+        } else {
+            int processors = Runtime.getRuntime().availableProcessors();
+            executor = new ThreadPoolExecutor(processors * 5, processors * 10, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(processors * 100), Executors.defaultThreadFactory(),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+        }
     }
 
     @Override
@@ -63,6 +75,7 @@ public class TimeoutServiceClient extends DefaultServiceClient {
         HttpRequestBase httpRequest = httpRequestFactory.createHttpRequest(request, context);
         HttpClientContext httpContext = HttpClientContext.create();
         httpContext.setRequestConfig(this.requestConfig);
+        bindMetricsTracker(httpContext, context);
 
         CloseableHttpResponse httpResponse = null;
         HttpRequestTask httpRequestTask = new HttpRequestTask(httpRequest, httpContext);
@@ -0,0 +1,392 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm.io;
+
+import static com.aliyun.oss.event.ProgressPublisher.publishProgress;
+import static com.aliyun.oss.event.ProgressPublisher.publishRequestBytesTransferred;
+import static com.aliyun.oss.event.ProgressPublisher.publishResponseBytesTransferred;
+import static com.aliyun.oss.internal.OSSConstants.DEFAULT_BUFFER_SIZE;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.event.ProgressEventType;
+import com.aliyun.oss.event.ProgressListener;
+
+/**
+ * The single stream a request or response body is read through. It bounds
+ * the body, supports mark and reset, publishes the progress and calculates
+ * the CRC64 of the body in one pass over the bytes read, instead of stacking a
+ * wrapper stream for each of them.
+ * 
+ * <p>
+ * Stages are added to the pipeline of a body with the with* methods, and
+ * {@link #pipelineOf(InputStream)} returns the pipeline a body already has, so
+ * that the request and response handlers add to the same stream. If the
+ * wrapped stream doesn't support mark, the pipeline can keep the bytes read
+ * after a mark in buffers from the {@link BufferPool}, so they can be read
+ * again after a reset. The checksum, position and progress are restored on
+ * reset as well.
+ * </p>
+ */
+public class BodyPipelineInputStream extends FilterInputStream {
+
+    private static final int DEFAULT_NOTIFICATION_THRESHOLD = 8 * 1024;
+
+    private long limit = -1;
+    private long position;
+    private boolean replayable;
+
+    private CRC64 checksum;
+
+    private ProgressListener progressListener;
+    private boolean responseProgress;
+    private ProgressListener completionListener;
+    private int unnotifiedByteCount;
+    private boolean doneEOF;
+
+    // The state at the last mark.
+    private boolean marked;
+    private long markedPosition;
+    private long markedChecksum;
+
+    // The bytes read since the last mark if the wrapped stream doesn't support
+    // mark, replayed after a reset.
+    private List<byte[]> replayBuffers;
+    private int replayLimit;
+    private int replayLength;
+    private int replayPosition;
+
+    private final byte[] singleByte = new byte[1];
+
+    public BodyPipelineInputStream(InputStream in) {
+        super(in);
+        if (in == null) {
+            throw new IllegalArgumentException("Source input stream may not be null");
+        }
+    }
+
+    /**
+     * Returns the stream itself if it's a pipeline already, otherwise a new
+     * pipeline reading from it.
+     */
+    public static BodyPipelineInputStream pipelineOf(InputStream in) {
+        if (in instanceof BodyPipelineInputStream) {
+            return (BodyPipelineInputStream) in;
+        }
+        return new BodyPipelineInputStream(in);
+    }
+
+    /**
+     * Reads no more than the given number of bytes from the wrapped stream.
+     */
+    public BodyPipelineInputStream withLimit(long limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Supports mark and reset even if the wrapped stream doesn't, by keeping
+     * the bytes read after a mark.
+     */
+    public BodyPipelineInputStream withReplayBuffer() {
+        this.replayable = true;
+        return this;
+    }
+
+    /**
+     * Calculates the CRC64 of the bytes read. Does nothing if the checksum is
+     * calculated already.
+     */
+    public BodyPipelineInputStream withChecksum() {
+        if (checksum == null) {
+            checksum = new CRC64();
+        }
+        return this;
+    }
+
+    /**
+     * Publishes the bytes read as request bytes transferred.
+     */
+    public BodyPipelineInputStream withRequestProgress(ProgressListener listener) {
+        this.progressListener = listener;
+        this.responseProgress = false;
+        return this;
+    }
+
+    /**
+     * Publishes the bytes read as response bytes transferred.
+     */
+    public BodyPipelineInputStream withResponseProgress(ProgressListener listener) {
+        this.progressListener = listener;
+        this.responseProgress = true;
+        return this;
+    }
+
+    /**
+     * Publishes {@link ProgressEventType#TRANSFER_COMPLETED_EVENT} when the end
+     * of the body is reached or the stream is closed.
+     */
+    public BodyPipelineInputStream withTransferCompletedEvent(ProgressListener listener) {
+        this.completionListener = listener;
+        return this;
+    }
+
+    /**
+     * Gets the CRC64 of the bytes read, or null if the checksum isn't
+     * calculated.
+     */
+    public Long getChecksumValue() {
+        return checksum != null ? checksum.getValue() : null;
+    }
+
+    public final InputStream getWrappedInputStream() {
+        return in;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int bytesRead = read(singleByte, 0, 1);
+        return bytesRead == -1 ? -1 : singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (limit >= 0) {
+            if (position >= limit) {
+                eof();
+                return -1;
+            }
+            len = (int) Math.min(len, limit - position);
+        }
+
+        int bytesRead;
+        if (replayPosition < replayLength) {
+            bytesRead = replay(b, off, len);
+        } else {
+            bytesRead = in.read(b, off, len);
+            if (bytesRead == -1) {
+                eof();
+                return -1;
+            }
+            if (replayBuffers != null) {
+                record(b, off, bytesRead);
+            }
+        }
+
+        position += bytesRead;
+        if (checksum != null) {
+            checksum.update(b, off, bytesRead);
+        }
+        if (progressListener != null) {
+            onBytesRead(bytesRead);
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        byte[] buffer = BufferPool.acquire();
+        try {
+            long skipped = 0;
+            while (skipped < n) {
+                int bytesRead = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (bytesRead == -1) {
+                    break;
+                }
+                skipped += bytesRead;
+            }
+            return skipped;
+        } finally {
+            BufferPool.release(buffer);
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        long available = (long) (replayLength - replayPosition) + in.available();
+        if (limit >= 0) {
+            available = Math.min(available, limit - position);
+        }
+        return (int) Math.min(available, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return replayable || in.markSupported();
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        if (in.markSupported()) {
+            in.mark(readlimit);
+        } else if (!replayable) {
+            return;
+        } else if (replayPosition < replayLength) {
+            // Marking while replaying, keep the bytes after the new mark.
+            discardReplayed();
+            replayLimit = Math.max(readlimit, replayLength);
+        } else {
+            releaseReplayBuffers();
+            replayBuffers = new ArrayList<byte[]>();
+            replayLimit = readlimit;
+        }
+
+        marked = true;
+        markedPosition = position;
+        markedChecksum = checksum != null ? checksum.getValue() : 0;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        if (!markSupported()) {
+            throw new IOException("mark/reset not supported");
+        }
+        if (!marked) {
+            throw new IOException("Mark not set");
+        }
+        if (in.markSupported()) {
+            in.reset();
+        } else {
+            if (replayBuffers == null) {
+                throw new IOException("Resetting to invalid mark");
+            }
+            replayPosition = 0;
+        }
+
+        position = markedPosition;
+        if (checksum != null) {
+            checksum = new CRC64(markedChecksum);
+        }
+        unnotifiedByteCount = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        eof();
+        releaseReplayBuffers();
+        super.close();
+    }
+
+    private void onBytesRead(int bytesRead) {
+        unnotifiedByteCount += bytesRead;
+        if (unnotifiedByteCount >= DEFAULT_NOTIFICATION_THRESHOLD) {
+            notifyBytesRead();
+        }
+    }
+
+    private void notifyBytesRead() {
+        if (responseProgress) {
+            publishResponseBytesTransferred(progressListener, unnotifiedByteCount);
+        } else {
+            publishRequestBytesTransferred(progressListener, unnotifiedByteCount);
+        }
+        unnotifiedByteCount = 0;
+    }
+
+    private void eof() {
+        if (doneEOF) {
+            return;
+        }
+        doneEOF = true;
+        if (progressListener != null) {
+            notifyBytesRead();
+        }
+        if (completionListener != null) {
+            publishProgress(completionListener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
+        }
+    }
+
+    private void record(byte[] b, int off, int len) {
+        if (replayLength + len > replayLimit) {
+            // Read past the read limit, the mark is invalid now.
+            releaseReplayBuffers();
+            return;
+        }
+
+        while (len > 0) {
+            int bufferIndex = replayLength / DEFAULT_BUFFER_SIZE;
+            int bufferOffset = replayLength % DEFAULT_BUFFER_SIZE;
+            if (bufferIndex == replayBuffers.size()) {
+                replayBuffers.add(BufferPool.acquire());
+            }
+            int count = Math.min(len, DEFAULT_BUFFER_SIZE - bufferOffset);
+            System.arraycopy(b, off, replayBuffers.get(bufferIndex), bufferOffset, count);
+            replayLength += count;
+            off += count;
+            len -= count;
+        }
+        replayPosition = replayLength;
+    }
+
+    private int replay(byte[] b, int off, int len) {
+        int count = Math.min(len, replayLength - replayPosition);
+        int copied = 0;
+        while (copied < count) {
+            int bufferIndex = replayPosition / DEFAULT_BUFFER_SIZE;
+            int bufferOffset = replayPosition % DEFAULT_BUFFER_SIZE;
+            int n = Math.min(count - copied, DEFAULT_BUFFER_SIZE - bufferOffset);
+            System.arraycopy(replayBuffers.get(bufferIndex), bufferOffset, b, off + copied, n);
+            replayPosition += n;
+            copied += n;
+        }
+        return count;
+    }
+
+    private void discardReplayed() {
+        List<byte[]> remaining = new ArrayList<byte[]>();
+        int remainingLength = replayLength - replayPosition;
+        byte[] copy = new byte[remainingLength];
+        replay(copy, 0, remainingLength);
+        releaseReplayBuffers();
+
+        replayBuffers = remaining;
+        replayLimit = Integer.MAX_VALUE;
+        record(copy, 0, remainingLength);
+        replayPosition = 0;
+    }
+
+    private void releaseReplayBuffers() {
+        if (replayBuffers != null) {
+            for (byte[] buffer : replayBuffers) {
+                BufferPool.release(buffer);
+            }
+        }
+        replayBuffers = null;
+        replayLength = 0;
+        replayPosition = 0;
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm.io;
+
+import static com.aliyun.oss.internal.OSSConstants.DEFAULT_BUFFER_SIZE;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of the byte buffers used to copy and replay request and response
+ * bodies, so that a buffer isn't allocated for every request. All the buffers
+ * are {@link com.aliyun.oss.internal.OSSConstants#DEFAULT_BUFFER_SIZE} bytes.
+ */
+public final class BufferPool {
+
+    static final int MAX_POOLED_BUFFERS = 256;
+
+    private static final Queue<byte[]> buffers = new ConcurrentLinkedQueue<byte[]>();
+    private static final AtomicInteger pooledCount = new AtomicInteger();
+
+    private BufferPool() {
+    }
+
+    /**
+     * Takes a buffer from the pool, or allocates one if the pool is empty.
+     */
+    public static byte[] acquire() {
+        byte[] buffer = buffers.poll();
+        if (buffer == null) {
+            return new byte[DEFAULT_BUFFER_SIZE];
+        }
+        pooledCount.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer taken by {@link #acquire()} to the pool. The buffer must
+     * not be used afterwards.
+     */
+    public static void release(byte[] buffer) {
+        if (buffer == null || buffer.length != DEFAULT_BUFFER_SIZE) {
+            return;
+        }
+        if (pooledCount.incrementAndGet() > MAX_POOLED_BUFFERS) {
+            pooledCount.decrementAndGet();
+            return;
+        }
+        buffers.offer(buffer);
+    }
+
+}
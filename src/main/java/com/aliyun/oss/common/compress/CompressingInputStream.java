@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.aliyun.oss.common.comm.io.BufferPool;
+
+/**
+ * The stream of the content compressed while it's read. The source is read a
+ * buffer at a time and the compressed bytes of each buffer are served before
+ * reading the next one, so the content is never held in memory.
+ * <p>
+ * If the source supports mark, the stream can be marked before its first read
+ * and reset to it: the source is rewound and the compressor restarted, as the
+ * state of the compressor can't be kept at any other position.
+ * </p>
+ */
+class CompressingInputStream extends InputStream {
+
+    private final InputStream source;
+    private final CompressionCodec codec;
+    private final PendingBytes pending = new PendingBytes();
+    private OutputStream compressor;
+    private byte[] buffer;
+    private boolean finished = false;
+    private boolean marked = false;
+
+    CompressingInputStream(InputStream source, CompressionCodec codec) {
+        this.source = source;
+        this.codec = codec;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int bytesRead = read(b, 0, 1);
+        return bytesRead == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (pending.remaining() == 0) {
+            if (finished) {
+                return -1;
+            }
+            fill();
+        }
+        return pending.drainTo(b, off, len);
+    }
+
+    private void fill() throws IOException {
+        pending.clear();
+        if (compressor == null) {
+            compressor = codec.newCompressingStream(pending);
+            buffer = BufferPool.acquire();
+        }
+        int bytesRead = source.read(buffer);
+        if (bytesRead == -1) {
+            compressor.close();
+            finished = true;
+            releaseBuffer();
+        } else if (bytesRead > 0) {
+            compressor.write(buffer, 0, bytesRead);
+        }
+    }
+
+    @Override
+    public boolean markSupported() {
+        return source.markSupported();
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        marked = compressor == null && pending.remaining() == 0;
+        if (marked) {
+            source.mark(readlimit);
+        }
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        if (!marked) {
+            throw new IOException("Resetting to invalid mark");
+        }
+        source.reset();
+        if (compressor != null && !finished) {
+            compressor.close();
+        }
+        compressor = null;
+        finished = false;
+        pending.clear();
+        releaseBuffer();
+    }
+
+    @Override
+    public int available() {
+        return pending.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        releaseBuffer();
+        source.close();
+    }
+
+    private void releaseBuffer() {
+        if (buffer != null) {
+            BufferPool.release(buffer);
+            buffer = null;
+        }
+    }
+
+    /**
+     * The compressed bytes not read yet.
+     */
+    private static class PendingBytes extends OutputStream {
+
+        private byte[] bytes = new byte[1024];
+        private int count = 0;
+        private int position = 0;
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(1);
+            bytes[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(len);
+            System.arraycopy(b, off, bytes, count, len);
+            count += len;
+        }
+
+        int remaining() {
+            return count - position;
+        }
+
+        int drainTo(byte[] b, int off, int len) {
+            int n = Math.min(len, remaining());
+            System.arraycopy(bytes, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        void clear() {
+            count = 0;
+            position = 0;
+        }
+
+        private void ensureCapacity(int len) {
+            if (count + len > bytes.length) {
+                byte[] grown = new byte[Math.max(bytes.length * 2, count + len)];
+                System.arraycopy(bytes, 0, grown, 0, count);
+                bytes = grown;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The codec of the client-side compression. The name of the codec is recorded
+ * in the user metadata of the compressed objects, so the objects are
+ * decompressed with the codec registered in {@link CompressionCodecs} under
+ * the same name when they are read.
+ * <p>
+ * The multipart uploads compress their parts independently, so the
+ * decompressing stream must accept a concatenation of compressed streams and
+ * return the concatenation of their contents, as gzip, zstd and lz4 frames do.
+ * </p>
+ * <p>
+ * The codecs on the class path are registered by {@link java.util.ServiceLoader}
+ * when listed in META-INF/services/com.aliyun.oss.common.compress.CompressionCodec.
+ * </p>
+ */
+public interface CompressionCodec {
+
+    /**
+     * Gets the name of the codec recorded in the object metadata.
+     */
+    String getName();
+
+    /**
+     * Wraps the output stream with a stream compressing the bytes written.
+     * Closing the returned stream finishes the compressed stream and closes
+     * the wrapped one.
+     */
+    OutputStream newCompressingStream(OutputStream out) throws IOException;
+
+    /**
+     * Wraps the input stream with a stream decompressing the bytes read.
+     */
+    InputStream newDecompressingStream(InputStream in) throws IOException;
+
+}
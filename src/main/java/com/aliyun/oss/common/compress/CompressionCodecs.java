@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.compress;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.aliyun.oss.common.utils.LogUtils;
+
+/**
+ * The registry of the compression codecs, which are looked up by the name
+ * recorded in the metadata of the compressed objects. The gzip codec and the
+ * codecs found by {@link ServiceLoader} are registered by default.
+ */
+public final class CompressionCodecs {
+
+    /**
+     * The user metadata key of the codec name.
+     */
+    public static final String CODEC_METADATA_KEY = "client-compression";
+
+    /**
+     * The user metadata key of the object length before compression, which is
+     * only recorded when the length is known before uploading.
+     */
+    public static final String UNCOMPRESSED_LENGTH_METADATA_KEY = "client-uncompressed-length";
+
+    /**
+     * The codec disabling the compression of a request when a codec is set
+     * in the client configuration.
+     */
+    public static final CompressionCodec NONE = new CompressionCodec() {
+
+        @Override
+        public String getName() {
+            return "none";
+        }
+
+        @Override
+        public OutputStream newCompressingStream(OutputStream out) {
+            return out;
+        }
+
+        @Override
+        public InputStream newDecompressingStream(InputStream in) {
+            return in;
+        }
+    };
+
+    private static final ConcurrentMap<String, CompressionCodec> codecs = new ConcurrentHashMap<String, CompressionCodec>();
+
+    static {
+        register(new GzipCodec());
+        try {
+            Iterator<CompressionCodec> it = ServiceLoader.load(CompressionCodec.class).iterator();
+            while (it.hasNext()) {
+                register(it.next());
+            }
+        } catch (ServiceConfigurationError e) {
+            LogUtils.getLog().warn("Cannot load the compression codecs: " + e.getMessage());
+        }
+    }
+
+    private CompressionCodecs() {
+    }
+
+    /**
+     * Registers the codec under its name, replacing the one registered under
+     * the same name.
+     */
+    public static void register(CompressionCodec codec) {
+        codecs.put(codec.getName().toLowerCase(), codec);
+    }
+
+    /**
+     * Gets the codec registered under the name, or null if there is none.
+     */
+    public static CompressionCodec get(String name) {
+        return name != null ? codecs.get(name.toLowerCase()) : null;
+    }
+
+    /**
+     * Gets the codec compressing the request, which is the one of the request
+     * if set, or else the one of the client, or null if the request isn't
+     * compressed.
+     */
+    public static CompressionCodec resolve(CompressionCodec requestCodec, CompressionCodec clientCodec) {
+        CompressionCodec codec = requestCodec != null ? requestCodec : clientCodec;
+        return codec == NONE ? null : codec;
+    }
+
+    /**
+     * Returns a stream of the content compressed while it's read.
+     */
+    public static InputStream compress(InputStream content, CompressionCodec codec) {
+        return new CompressingInputStream(content, codec);
+    }
+
+    /**
+     * Returns a stream of the content decompressed while it's read. The codec
+     * is created on the first read, so that the compressed header isn't read
+     * before.
+     */
+    public static InputStream decompress(InputStream content, CompressionCodec codec) {
+        return new DecompressingInputStream(content, codec);
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The stream of the content decompressed while it's read. The compressed
+ * stream is kept so that its checksum can still be checked against the one of
+ * the server.
+ */
+public class DecompressingInputStream extends InputStream {
+
+    private final InputStream compressedStream;
+    private final CompressionCodec codec;
+    private InputStream decompressor;
+
+    DecompressingInputStream(InputStream compressedStream, CompressionCodec codec) {
+        this.compressedStream = compressedStream;
+        this.codec = codec;
+    }
+
+    /**
+     * Gets the stream of the compressed content.
+     */
+    public InputStream getCompressedStream() {
+        return compressedStream;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return decompressor().read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return decompressor().read(b, off, len);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        return decompressor().skip(n);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return decompressor != null ? decompressor.available() : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (decompressor != null) {
+            decompressor.close();
+        }
+        compressedStream.close();
+    }
+
+    private InputStream decompressor() throws IOException {
+        if (decompressor == null) {
+            decompressor = codec.newDecompressingStream(compressedStream);
+        }
+        return decompressor;
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.compress;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The gzip codec of the JDK.
+ */
+public class GzipCodec implements CompressionCodec {
+
+    public static final String NAME = "gzip";
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public OutputStream newCompressingStream(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, BUFFER_SIZE);
+    }
+
+    @Override
+    public InputStream newDecompressingStream(InputStream in) throws IOException {
+        return new GZIPInputStream(new MemberAwareInputStream(in), BUFFER_SIZE);
+    }
+
+    /**
+     * GZIPInputStream only looks for the next member when the source reports
+     * available bytes, which a network stream doesn't do until they arrive.
+     * This stream reports a byte until the end is reached, so that the members
+     * of a multipart object are all read.
+     */
+    private static class MemberAwareInputStream extends FilterInputStream {
+
+        private boolean eof = false;
+
+        MemberAwareInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            eof = b == -1;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int bytesRead = super.read(b, off, len);
+            eof = bytesRead == -1;
+            return bytesRead;
+        }
+
+        @Override
+        public int available() throws IOException {
+            int available = super.available();
+            return available > 0 || eof ? available : 1;
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.crypto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.common.utils.BinaryUtil;
+
+/**
+ * The data key and initial counter block of an encrypted object. The content
+ * is encrypted with AES in counter mode, which keeps its length and can start
+ * at any offset, so the parts of a multipart upload and the ranges of a GET
+ * are encrypted and decrypted independently. The counter mode doesn't
+ * authenticate the content, its integrity is checked by the CRC of the
+ * encrypted bytes.
+ */
+public class ContentCryptoMaterial {
+
+    public static final String CONTENT_CIPHER_ALGORITHM = "AES/CTR/NoPadding";
+
+    /**
+     * The user metadata key of the wrapped data key.
+     */
+    public static final String KEY_METADATA_KEY = "client-side-encryption-key";
+
+    /**
+     * The user metadata key of the initial counter block.
+     */
+    public static final String START_METADATA_KEY = "client-side-encryption-start";
+
+    /**
+     * The user metadata key of the content cipher algorithm.
+     */
+    public static final String CEK_ALGORITHM_METADATA_KEY = "client-side-encryption-cek-alg";
+
+    /**
+     * The user metadata key of the key wrap algorithm.
+     */
+    public static final String WRAP_ALGORITHM_METADATA_KEY = "client-side-encryption-wrap-alg";
+
+    static final int BLOCK_SIZE = 16;
+
+    private final SecretKey dataKey;
+    private final byte[] start;
+    private final byte[] wrappedKey;
+
+    private ContentCryptoMaterial(SecretKey dataKey, byte[] start, byte[] wrappedKey) {
+        this.dataKey = dataKey;
+        this.start = start;
+        this.wrappedKey = wrappedKey;
+    }
+
+    /**
+     * Creates the material of a new object with a random data key.
+     */
+    public static ContentCryptoMaterial create(EncryptionMaterials materials) {
+        try {
+            SecretKey dataKey = materials.generateDataKey();
+            return new ContentCryptoMaterial(dataKey, materials.generateStart(), materials.wrap(dataKey));
+        } catch (GeneralSecurityException e) {
+            throw new ClientException("Cannot create the data key: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the material of an object from its user metadata, or null if the
+     * object isn't encrypted by the client-side encryption.
+     */
+    public static ContentCryptoMaterial fromMetadata(Map<String, String> userMetadata, EncryptionMaterials materials) {
+        return fromMetadata(userMetadata.get(KEY_METADATA_KEY), userMetadata.get(START_METADATA_KEY), materials);
+    }
+
+    /**
+     * Gets the material from its wrapped data key and initial counter block
+     * encoded in base64, or null if either is null.
+     */
+    public static ContentCryptoMaterial fromMetadata(String wrappedKey, String start, EncryptionMaterials materials) {
+        if (wrappedKey == null || start == null) {
+            return null;
+        }
+        byte[] wrappedKeyBytes = BinaryUtil.fromBase64String(wrappedKey);
+        try {
+            return new ContentCryptoMaterial(materials.unwrap(wrappedKeyBytes), BinaryUtil.fromBase64String(start),
+                    wrappedKeyBytes);
+        } catch (GeneralSecurityException e) {
+            throw new ClientException("Cannot unwrap the data key: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds the wrapped data key and the initial counter block to the user
+     * metadata.
+     */
+    public void toMetadata(Map<String, String> userMetadata) {
+        userMetadata.put(KEY_METADATA_KEY, getWrappedKey());
+        userMetadata.put(START_METADATA_KEY, getStart());
+        userMetadata.put(CEK_ALGORITHM_METADATA_KEY, CONTENT_CIPHER_ALGORITHM);
+        userMetadata.put(WRAP_ALGORITHM_METADATA_KEY, EncryptionMaterials.KEY_WRAP_ALGORITHM);
+    }
+
+    /**
+     * Gets the wrapped data key in base64.
+     */
+    public String getWrappedKey() {
+        return BinaryUtil.toBase64String(wrappedKey);
+    }
+
+    /**
+     * Gets the initial counter block in base64.
+     */
+    public String getStart() {
+        return BinaryUtil.toBase64String(start);
+    }
+
+    /**
+     * Returns a stream encrypting, or decrypting, the content read from the
+     * offset of the object.
+     * 
+     * @param content
+     *            The content starting at the offset.
+     * @param offset
+     *            The offset of the content in the object.
+     */
+    public InputStream newCipherStream(InputStream content, long offset) {
+        return new CtrCipherInputStream(content, this, offset);
+    }
+
+    /**
+     * Creates the cipher positioned at the offset of the object.
+     */
+    Cipher newCipher(long offset) throws IOException {
+        byte[] counter = start.clone();
+        long block = offset / BLOCK_SIZE;
+        for (int i = BLOCK_SIZE - 1; i >= 0 && block != 0; i--) {
+            long sum = (counter[i] & 0xffL) + (block & 0xffL);
+            counter[i] = (byte) sum;
+            block = (block >>> 8) + (sum >>> 8);
+        }
+        try {
+            Cipher cipher = Cipher.getInstance(CONTENT_CIPHER_ALGORITHM);
+            cipher.init(Cipher.ENCRYPT_MODE, dataKey, new IvParameterSpec(counter));
+            int skip = (int) (offset % BLOCK_SIZE);
+            if (skip > 0) {
+                cipher.update(new byte[skip]);
+            }
+            return cipher;
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot create the content cipher: " + e.getMessage(), e);
+        }
+    }
+
+}
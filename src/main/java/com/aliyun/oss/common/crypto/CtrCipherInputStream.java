@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.crypto;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.crypto.Cipher;
+import javax.crypto.ShortBufferException;
+
+/**
+ * The stream encrypting, or decrypting, the content with AES in counter mode.
+ * The bytes are transformed in place as they're read, and the cipher is
+ * repositioned when the source is skipped or reset, so the stream is
+ * repeatable whenever its source is.
+ */
+public class CtrCipherInputStream extends FilterInputStream {
+
+    private final ContentCryptoMaterial material;
+    private long position;
+    private long markedPosition;
+    private Cipher cipher;
+
+    CtrCipherInputStream(InputStream in, ContentCryptoMaterial material, long offset) {
+        super(in);
+        this.material = material;
+        this.position = offset;
+        this.markedPosition = offset;
+    }
+
+    /**
+     * Gets the stream of the untransformed content.
+     */
+    public InputStream getSourceStream() {
+        return in;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int bytesRead = read(b, 0, 1);
+        return bytesRead == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int bytesRead = in.read(b, off, len);
+        if (bytesRead > 0) {
+            try {
+                cipher().update(b, off, bytesRead, b, off);
+            } catch (ShortBufferException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            position += bytesRead;
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        if (skipped > 0) {
+            position += skipped;
+            cipher = null;
+        }
+        return skipped;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        in.mark(readlimit);
+        markedPosition = position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        in.reset();
+        position = markedPosition;
+        cipher = null;
+    }
+
+    private Cipher cipher() throws IOException {
+        if (cipher == null) {
+            cipher = material.newCipher(position);
+        }
+        return cipher;
+    }
+
+}
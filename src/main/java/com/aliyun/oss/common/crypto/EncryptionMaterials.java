@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.crypto;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * The master key of the client-side envelope encryption. Every object is
+ * encrypted with its own random data key, which is stored in the object
+ * metadata wrapped by the master key. The data keys have the length of the
+ * master key, so a 256 bits key needs the unlimited strength policy on the
+ * JREs without it.
+ */
+public class EncryptionMaterials {
+
+    public static final String KEY_WRAP_ALGORITHM = "AESWrap";
+
+    private final SecretKey masterKey;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Creates the materials with an AES master key.
+     * 
+     * @param masterKey
+     *            The AES key of 128, 192 or 256 bits wrapping the data keys.
+     */
+    public EncryptionMaterials(SecretKey masterKey) {
+        if (masterKey == null || !"AES".equalsIgnoreCase(masterKey.getAlgorithm())) {
+            throw new IllegalArgumentException("The master key must be an AES key.");
+        }
+        this.masterKey = masterKey;
+    }
+
+    /**
+     * Creates the materials with the bytes of an AES master key.
+     */
+    public EncryptionMaterials(byte[] masterKey) {
+        this(new SecretKeySpec(masterKey, "AES"));
+    }
+
+    SecretKey generateDataKey() throws GeneralSecurityException {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(masterKey.getEncoded().length * 8, random);
+        return generator.generateKey();
+    }
+
+    byte[] generateStart() {
+        byte[] start = new byte[ContentCryptoMaterial.BLOCK_SIZE];
+        random.nextBytes(start);
+        return start;
+    }
+
+    byte[] wrap(SecretKey dataKey) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(KEY_WRAP_ALGORITHM);
+        cipher.init(Cipher.WRAP_MODE, masterKey);
+        return cipher.wrap(dataKey);
+    }
+
+    SecretKey unwrap(byte[] wrappedKey) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(KEY_WRAP_ALGORITHM);
+        cipher.init(Cipher.UNWRAP_MODE, masterKey);
+        return (SecretKey) cipher.unwrap(wrappedKey, "AES", Cipher.SECRET_KEY);
+    }
+
+}
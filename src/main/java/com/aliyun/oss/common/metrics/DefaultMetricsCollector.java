@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The default {@link MetricsCollector} that aggregates the request metrics by
+ * operation name into lock-free histograms, e.g.
+ * 
+ * <pre>
+ * DefaultMetricsCollector metrics = new DefaultMetricsCollector();
+ * ClientConfiguration conf = new ClientConfiguration();
+ * conf.setMetricsCollector(metrics);
+ * ...
+ * long p99 = metrics.getOperationMetrics("GetObject").getTotalTime().getValueAtPercentile(99);
+ * </pre>
+ */
+public class DefaultMetricsCollector implements MetricsCollector {
+
+    private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<String, OperationMetrics>();
+
+    @Override
+    public void collect(RequestMetrics metrics) {
+        String operationName = metrics.getOperationName();
+        OperationMetrics operation = operations.get(operationName);
+        if (operation == null) {
+            OperationMetrics created = new OperationMetrics(operationName);
+            operation = operations.putIfAbsent(operationName, created);
+            if (operation == null) {
+                operation = created;
+            }
+        }
+        operation.record(metrics);
+    }
+
+    /**
+     * Gets the aggregated metrics of an operation.
+     * 
+     * @param operationName
+     *            The operation name, such as GetObject.
+     * @return The {@link OperationMetrics} of the operation, or null if no
+     *         request of the operation has completed.
+     */
+    public OperationMetrics getOperationMetrics(String operationName) {
+        return operations.get(operationName);
+    }
+
+    /**
+     * Gets the aggregated metrics of all the operations, keyed by operation
+     * name.
+     */
+    public Map<String, OperationMetrics> getAllOperationMetrics() {
+        return Collections.unmodifiableMap(operations);
+    }
+
+    /**
+     * Discards all the aggregated metrics.
+     */
+    public void reset() {
+        operations.clear();
+    }
+
+}
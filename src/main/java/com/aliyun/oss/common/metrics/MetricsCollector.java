@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.metrics;
+
+/**
+ * Receives the metrics of every request sent by an OSS client. The collector
+ * is invoked once per logical request, after the last retry attempt has
+ * completed and, for requests returning a body, after the body has been fully
+ * read or closed.
+ * 
+ * <p>
+ * Implementations are called on the request threads and must therefore be
+ * thread-safe and return quickly. Any runtime exception thrown by the
+ * collector is logged and ignored.
+ * </p>
+ */
+public interface MetricsCollector {
+
+    /**
+     * Collects the metrics of a completed request.
+     * 
+     * @param metrics
+     *            The {@link RequestMetrics} of the request.
+     */
+    public void collect(RequestMetrics metrics);
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The aggregated metrics of one operation, e.g. all the GetObject requests
+ * sent by a client. Latencies are recorded in microseconds.
+ */
+public class OperationMetrics {
+
+    private final String operationName;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    /* Responses counted by status class, index 0 is for no response. */
+    private final AtomicLongArray statusClassCounts = new AtomicLongArray(6);
+
+    private final LatencyHistogram totalTime = new LatencyHistogram();
+    private final LatencyHistogram signingTime = new LatencyHistogram();
+    private final LatencyHistogram connectionLeaseTime = new LatencyHistogram();
+    private final LatencyHistogram connectTime = new LatencyHistogram();
+    private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+    private final LatencyHistogram requestTransferTime = new LatencyHistogram();
+    private final LatencyHistogram responseTransferTime = new LatencyHistogram();
+
+    public OperationMetrics(String operationName) {
+        this.operationName = operationName;
+    }
+
+    /**
+     * Adds the metrics of a completed request.
+     * 
+     * @param metrics
+     *            The metrics of the request.
+     */
+    public void record(RequestMetrics metrics) {
+        requestCount.incrementAndGet();
+        if (!metrics.isSuccessful()) {
+            errorCount.incrementAndGet();
+        }
+        retryCount.addAndGet(metrics.getRetryCount());
+        bytesSent.addAndGet(metrics.getBytesSent());
+        bytesReceived.addAndGet(metrics.getBytesReceived());
+
+        int statusClass = metrics.getStatusCode() / 100;
+        statusClassCounts.incrementAndGet(statusClass >= 1 && statusClass <= 5 ? statusClass : 0);
+
+        recordNanos(totalTime, metrics.getTotalTime());
+        recordNanos(signingTime, metrics.getSigningTime());
+        recordNanos(connectionLeaseTime, metrics.getConnectionLeaseTime());
+        recordNanos(connectTime, metrics.getConnectTime());
+        recordNanos(timeToFirstByte, metrics.getTimeToFirstByte());
+        recordNanos(requestTransferTime, metrics.getRequestTransferTime());
+        recordNanos(responseTransferTime, metrics.getResponseTransferTime());
+    }
+
+    private static void recordNanos(LatencyHistogram histogram, long nanos) {
+        if (nanos >= 0) {
+            histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+        }
+    }
+
+    public String getOperationName() {
+        return operationName;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /**
+     * Gets the number of responses of a status class.
+     * 
+     * @param statusClass
+     *            The status class, from 1 (1xx) to 5 (5xx), or 0 for requests
+     *            which did not receive any response.
+     */
+    public long getStatusClassCount(int statusClass) {
+        return statusClassCounts.get(statusClass);
+    }
+
+    public LatencyHistogram getTotalTime() {
+        return totalTime;
+    }
+
+    public LatencyHistogram getSigningTime() {
+        return signingTime;
+    }
+
+    public LatencyHistogram getConnectionLeaseTime() {
+        return connectionLeaseTime;
+    }
+
+    public LatencyHistogram getConnectTime() {
+        return connectTime;
+    }
+
+    public LatencyHistogram getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    public LatencyHistogram getRequestTransferTime() {
+        return requestTransferTime;
+    }
+
+    public LatencyHistogram getResponseTransferTime() {
+        return responseTransferTime;
+    }
+
+    @Override
+    public String toString() {
+        return operationName + " [requests=" + getRequestCount() + ", errors=" + getErrorCount() + ", retries="
+                + getRetryCount() + ", bytesSent=" + getBytesSent() + ", bytesReceived=" + getBytesReceived()
+                + ", totalTimeUs={" + totalTime + "}, timeToFirstByteUs={" + timeToFirstByte + "}]";
+    }
+
+}
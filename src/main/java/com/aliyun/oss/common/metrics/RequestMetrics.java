@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.metrics;
+
+import com.aliyun.oss.HttpMethod;
+
+/**
+ * The metrics of a single logical request, including all of its retries. All
+ * the durations are in nanoseconds; the phase durations (connection lease,
+ * connect, time to first byte and transfer) describe the last attempt, while
+ * the total time covers every attempt as well as the retry pauses. A duration
+ * of -1 means the phase was not observed, e.g. no connection was opened
+ * because a pooled one was reused.
+ */
+public class RequestMetrics {
+
+    private String operationName;
+    private String bucketName;
+    private String key;
+    private HttpMethod method;
+
+    private int statusCode = -1;
+    private int retryCount;
+
+    private long signingTime = -1;
+    private long connectionLeaseTime = -1;
+    private long connectTime = -1;
+    private long timeToFirstByte = -1;
+    private long requestTransferTime = -1;
+    private long responseTransferTime = -1;
+    private long totalTime = -1;
+
+    private long bytesSent;
+    private long bytesReceived;
+
+    private Exception exception;
+
+    /**
+     * Gets the operation name, such as PutObject or UploadPart.
+     */
+    public String getOperationName() {
+        return operationName;
+    }
+
+    public void setOperationName(String operationName) {
+        this.operationName = operationName;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public void setBucketName(String bucketName) {
+        this.bucketName = bucketName;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    public void setMethod(HttpMethod method) {
+        this.method = method;
+    }
+
+    /**
+     * Gets the HTTP status code of the last attempt, or -1 if no response was
+     * received.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Gets the number of retries, 0 if the first attempt completed the request.
+     */
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    public void setRetryCount(int retryCount) {
+        this.retryCount = retryCount;
+    }
+
+    /**
+     * Gets the time spent signing the request.
+     */
+    public long getSigningTime() {
+        return signingTime;
+    }
+
+    public void setSigningTime(long signingTime) {
+        this.signingTime = signingTime;
+    }
+
+    /**
+     * Gets the time spent waiting for a connection from the pool.
+     */
+    public long getConnectionLeaseTime() {
+        return connectionLeaseTime;
+    }
+
+    public void setConnectionLeaseTime(long connectionLeaseTime) {
+        this.connectionLeaseTime = connectionLeaseTime;
+    }
+
+    /**
+     * Gets the time spent opening a new connection, including the TLS
+     * handshake.
+     */
+    public long getConnectTime() {
+        return connectTime;
+    }
+
+    public void setConnectTime(long connectTime) {
+        this.connectTime = connectTime;
+    }
+
+    /**
+     * Gets the time between the request being sent and the response headers
+     * being received.
+     */
+    public long getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    public void setTimeToFirstByte(long timeToFirstByte) {
+        this.timeToFirstByte = timeToFirstByte;
+    }
+
+    /**
+     * Gets the time spent writing the request line, headers and body.
+     */
+    public long getRequestTransferTime() {
+        return requestTransferTime;
+    }
+
+    public void setRequestTransferTime(long requestTransferTime) {
+        this.requestTransferTime = requestTransferTime;
+    }
+
+    /**
+     * Gets the time between the response headers being received and the
+     * response body being fully read or closed.
+     */
+    public long getResponseTransferTime() {
+        return responseTransferTime;
+    }
+
+    public void setResponseTransferTime(long responseTransferTime) {
+        this.responseTransferTime = responseTransferTime;
+    }
+
+    /**
+     * Gets the end-to-end time of the request, including all the retries.
+     */
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    public void setTotalTime(long totalTime) {
+        this.totalTime = totalTime;
+    }
+
+    /**
+     * Gets the number of request body bytes written by the last attempt.
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public void setBytesSent(long bytesSent) {
+        this.bytesSent = bytesSent;
+    }
+
+    /**
+     * Gets the number of response body bytes read by the caller.
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public void setBytesReceived(long bytesReceived) {
+        this.bytesReceived = bytesReceived;
+    }
+
+    /**
+     * Gets the exception that failed the request, or null if it succeeded.
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    public void setException(Exception exception) {
+        this.exception = exception;
+    }
+
+    public boolean isSuccessful() {
+        return exception == null && statusCode / 100 == 2;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestMetrics [operationName=" + operationName + ", bucketName=" + bucketName + ", key=" + key
+                + ", statusCode=" + statusCode + ", retryCount=" + retryCount + ", signingTime=" + signingTime
+                + ", connectionLeaseTime=" + connectionLeaseTime + ", connectTime=" + connectTime
+                + ", timeToFirstByte=" + timeToFirstByte + ", requestTransferTime=" + requestTransferTime
+                + ", responseTransferTime=" + responseTransferTime + ", totalTime=" + totalTime + ", bytesSent="
+                + bytesSent + ", bytesReceived=" + bytesReceived + "]";
+    }
+
+}
@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.multipart;
+
+import static com.aliyun.oss.common.utils.LogUtils.getLog;
+import static com.aliyun.oss.common.utils.LogUtils.logException;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.utils.VirtualThreads;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.ListMultipartUploadsRequest;
+import com.aliyun.oss.model.ListPartsRequest;
+import com.aliyun.oss.model.MultipartUpload;
+import com.aliyun.oss.model.MultipartUploadListing;
+import com.aliyun.oss.model.PartListing;
+import com.aliyun.oss.model.PartSummary;
+
+/**
+ * Aborts the stale multipart uploads of buckets, such as the ones left behind
+ * by failed jobs, whose parts are charged as storage until they're aborted.
+ * 
+ * <p>
+ * A sweep pages through the uploads of a bucket with listMultipartUploads,
+ * fetching the next page while the current one is processed, and aborts the
+ * stale ones on a pool of the max concurrency. The listing waits while the
+ * pool is busy, so a bucket with hundreds of thousands of uploads is swept
+ * with a page and the in-flight aborts in memory. Before an upload is
+ * aborted its parts are listed to measure the bytes reclaimed. Every request
+ * is retried by the retry strategy of the client; an upload which still
+ * fails is counted and left to the next sweep.
+ * </p>
+ * 
+ * <p>
+ * The reaper is a {@link Runnable} sweeping all its buckets once per run, so
+ * it can be scheduled with a fixed delay to run continuously. Its threads are
+ * virtual threads when the client enables them. Call {@link #shutdown()} once
+ * it's no longer used.
+ * </p>
+ */
+public class MultipartUploadReaper implements Runnable {
+
+    private final OSS client;
+    private final MultipartUploadReaperPolicy policy;
+    private final List<String> bucketNames;
+    private final ExecutorService abortExecutor;
+    private final ExecutorService listExecutor;
+    private final Semaphore permits;
+    private final ReapResult total = new ReapResult();
+    private volatile ReapResult lastResult;
+
+    public MultipartUploadReaper(OSS client, String... bucketNames) {
+        this(client, new MultipartUploadReaperPolicy(), bucketNames);
+    }
+
+    public MultipartUploadReaper(OSS client, MultipartUploadReaperPolicy policy, String... bucketNames) {
+        if (policy.getMinAge() < 0 || policy.getMaxConcurrency() <= 0 || policy.getMaxUploadsPerPage() <= 0
+                || policy.getMaxUploadsPerPage() > 1000) {
+            throw new IllegalArgumentException("Invalid multipart upload reaper policy");
+        }
+        this.client = client;
+        this.policy = policy;
+        this.bucketNames = Arrays.asList(bucketNames);
+        boolean virtualThreads = client instanceof OSSClient
+                && ((OSSClient) client).getClientConfiguration().isVirtualThreadsEnabled();
+        this.abortExecutor = Executors.newFixedThreadPool(policy.getMaxConcurrency(), VirtualThreads.threadFactory(
+                virtualThreads, "oss-upload-reaper-", VirtualThreads.daemonThreadFactory("oss-upload-reaper-")));
+        this.listExecutor = Executors.newSingleThreadExecutor(VirtualThreads.threadFactory(virtualThreads,
+                "oss-upload-reaper-list-", VirtualThreads.daemonThreadFactory("oss-upload-reaper-list-")));
+        this.permits = new Semaphore(policy.getMaxConcurrency());
+    }
+
+    /**
+     * Sweeps all the buckets once. The failure of a bucket is logged and
+     * doesn't stop the sweep of the others.
+     */
+    @Override
+    public void run() {
+        ReapResult result = new ReapResult();
+        for (String bucketName : bucketNames) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            try {
+                result.add(reap(bucketName));
+            } catch (RuntimeException e) {
+                logException("Sweep the multipart uploads of " + bucketName + " failed: ", e);
+            }
+        }
+        lastResult = result;
+        getLog().info("Swept the multipart uploads of " + bucketNames + ": " + result);
+    }
+
+    /**
+     * Aborts the stale uploads of a bucket, returning once the aborts
+     * finished.
+     * 
+     * @param bucketName
+     *            The bucket name.
+     * @return The counters of the sweep.
+     * @throws OSSException
+     *             If the uploads failed to be listed.
+     * @throws ClientException
+     *             If the uploads failed to be listed.
+     */
+    public ReapResult reap(String bucketName) throws OSSException, ClientException {
+        ReapResult result = new ReapResult();
+        Date cutoff = new Date(System.currentTimeMillis() - policy.getMinAge());
+        try {
+            Future<MultipartUploadListing> nextPage = listExecutor.submit(new ListTask(bucketName, null, null));
+            while (nextPage != null) {
+                MultipartUploadListing listing = getPage(nextPage);
+                nextPage = null;
+                if (listing.isTruncated()) {
+                    nextPage = listExecutor.submit(
+                            new ListTask(bucketName, listing.getNextKeyMarker(), listing.getNextUploadIdMarker()));
+                }
+
+                for (MultipartUpload upload : listing.getMultipartUploads()) {
+                    result.addScanned();
+                    if (upload.getInitiated() == null || !upload.getInitiated().before(cutoff)) {
+                        continue;
+                    }
+                    permits.acquire();
+                    try {
+                        abortExecutor.execute(new AbortTask(bucketName, upload, result));
+                    } catch (RuntimeException e) {
+                        permits.release();
+                        throw e;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Waits for the aborts in flight.
+            permits.acquireUninterruptibly(policy.getMaxConcurrency());
+            permits.release(policy.getMaxConcurrency());
+            total.add(result);
+        }
+        return result;
+    }
+
+    private static MultipartUploadListing getPage(Future<MultipartUploadListing> page)
+            throws InterruptedException {
+        try {
+            return page.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ClientException(e.getCause());
+        }
+    }
+
+    /**
+     * Gets the counters of the last run over all the buckets, or null if it
+     * never ran.
+     */
+    public ReapResult getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Gets the counters of all the sweeps since the reaper was created.
+     */
+    public ReapResult getTotal() {
+        return total;
+    }
+
+    /**
+     * Stops the threads of the reaper. A sweep running is interrupted.
+     */
+    public void shutdown() {
+        listExecutor.shutdownNow();
+        // The aborts which never started give their permits back.
+        permits.release(abortExecutor.shutdownNow().size());
+    }
+
+    private class ListTask implements Callable<MultipartUploadListing> {
+
+        private final String bucketName;
+        private final String keyMarker;
+        private final String uploadIdMarker;
+
+        ListTask(String bucketName, String keyMarker, String uploadIdMarker) {
+            this.bucketName = bucketName;
+            this.keyMarker = keyMarker;
+            this.uploadIdMarker = uploadIdMarker;
+        }
+
+        @Override
+        public MultipartUploadListing call() {
+            ListMultipartUploadsRequest request = new ListMultipartUploadsRequest(bucketName);
+            request.setPrefix(policy.getPrefix());
+            request.setMaxUploads(policy.getMaxUploadsPerPage());
+            request.setKeyMarker(keyMarker);
+            request.setUploadIdMarker(uploadIdMarker);
+            return client.listMultipartUploads(request);
+        }
+    }
+
+    private class AbortTask implements Runnable {
+
+        private final String bucketName;
+        private final MultipartUpload upload;
+        private final ReapResult result;
+
+        AbortTask(String bucketName, MultipartUpload upload, ReapResult result) {
+            this.bucketName = bucketName;
+            this.upload = upload;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long bytes = policy.isMeasureReclaimedBytes() ? measure() : 0;
+                client.abortMultipartUpload(
+                        new AbortMultipartUploadRequest(bucketName, upload.getKey(), upload.getUploadId()));
+                result.addAborted(bytes);
+            } catch (OSSException e) {
+                if (OSSErrorCode.NO_SUCH_UPLOAD.equals(e.getErrorCode())) {
+                    result.addVanished();
+                } else {
+                    result.addFailed();
+                    logException("Abort the upload " + upload.getUploadId() + " of " + upload.getKey()
+                            + " failed: ", e);
+                }
+            } catch (RuntimeException e) {
+                result.addFailed();
+                logException("Abort the upload " + upload.getUploadId() + " of " + upload.getKey() + " failed: ",
+                        e);
+            } finally {
+                permits.release();
+            }
+        }
+
+        private long measure() {
+            long bytes = 0;
+            Integer partNumberMarker = null;
+            PartListing listing;
+            do {
+                ListPartsRequest request = new ListPartsRequest(bucketName, upload.getKey(), upload.getUploadId());
+                request.setMaxParts(1000);
+                request.setPartNumberMarker(partNumberMarker);
+                listing = client.listParts(request);
+                for (PartSummary part : listing.getParts()) {
+                    bytes += part.getSize();
+                }
+                partNumberMarker = listing.getNextPartNumberMarker();
+            } while (listing.isTruncated());
+            return bytes;
+        }
+    }
+}
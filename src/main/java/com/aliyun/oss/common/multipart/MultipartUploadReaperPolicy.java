@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.multipart;
+
+/**
+ * The selection and concurrency policy of a {@link MultipartUploadReaper}.
+ * An upload is stale once it was initiated the min age ago, and only the
+ * uploads of the objects with the prefix are considered.
+ */
+public class MultipartUploadReaperPolicy {
+
+    public static final long DEFAULT_MIN_AGE = 24 * 60 * 60 * 1000L;
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+    public static final int DEFAULT_MAX_UPLOADS_PER_PAGE = 1000;
+
+    private long minAge = DEFAULT_MIN_AGE;
+    private String prefix;
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private int maxUploadsPerPage = DEFAULT_MAX_UPLOADS_PER_PAGE;
+    private boolean measureReclaimedBytes = true;
+
+    /**
+     * Gets the age in millisecond after which an upload is aborted.
+     */
+    public long getMinAge() {
+        return minAge;
+    }
+
+    /**
+     * Sets the age in millisecond after which an upload is aborted, measured
+     * from its initiation. By default it's one day.
+     * 
+     * @param minAge
+     *            The min age in millisecond.
+     */
+    public void setMinAge(long minAge) {
+        this.minAge = minAge;
+    }
+
+    public MultipartUploadReaperPolicy withMinAge(long minAge) {
+        setMinAge(minAge);
+        return this;
+    }
+
+    /**
+     * Gets the prefix of the object keys whose uploads are aborted.
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Sets the prefix of the object keys whose uploads are aborted. It's
+     * applied by the server when listing the uploads. By default all the
+     * uploads of the bucket are considered.
+     * 
+     * @param prefix
+     *            The key prefix.
+     */
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public MultipartUploadReaperPolicy withPrefix(String prefix) {
+        setPrefix(prefix);
+        return this;
+    }
+
+    /**
+     * Gets the max number of uploads aborted at the same time.
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Sets the max number of uploads aborted at the same time. The listing
+     * waits while this many aborts are in flight. By default it's 16.
+     * 
+     * @param maxConcurrency
+     *            The max concurrency.
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public MultipartUploadReaperPolicy withMaxConcurrency(int maxConcurrency) {
+        setMaxConcurrency(maxConcurrency);
+        return this;
+    }
+
+    /**
+     * Gets the max number of uploads listed by a request.
+     */
+    public int getMaxUploadsPerPage() {
+        return maxUploadsPerPage;
+    }
+
+    /**
+     * Sets the max number of uploads listed by a request, at most 1000. By
+     * default it's 1000.
+     * 
+     * @param maxUploadsPerPage
+     *            The page size.
+     */
+    public void setMaxUploadsPerPage(int maxUploadsPerPage) {
+        this.maxUploadsPerPage = maxUploadsPerPage;
+    }
+
+    public MultipartUploadReaperPolicy withMaxUploadsPerPage(int maxUploadsPerPage) {
+        setMaxUploadsPerPage(maxUploadsPerPage);
+        return this;
+    }
+
+    /**
+     * Gets whether the parts of an upload are listed before it's aborted, to
+     * report the bytes reclaimed.
+     */
+    public boolean isMeasureReclaimedBytes() {
+        return measureReclaimedBytes;
+    }
+
+    /**
+     * Sets whether the parts of an upload are listed before it's aborted, to
+     * report the bytes reclaimed. It costs a listParts request per 1000 parts
+     * of each upload. By default it's true.
+     * 
+     * @param measureReclaimedBytes
+     *            Whether to measure the reclaimed bytes.
+     */
+    public void setMeasureReclaimedBytes(boolean measureReclaimedBytes) {
+        this.measureReclaimedBytes = measureReclaimedBytes;
+    }
+
+    public MultipartUploadReaperPolicy withMeasureReclaimedBytes(boolean measureReclaimedBytes) {
+        setMeasureReclaimedBytes(measureReclaimedBytes);
+        return this;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.multipart;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The counters of a {@link MultipartUploadReaper}, for a sweep or since it
+ * was created. They're updated by the abort threads while a sweep runs.
+ */
+public class ReapResult {
+
+    private final AtomicLong scannedUploads = new AtomicLong();
+    private final AtomicLong abortedUploads = new AtomicLong();
+    private final AtomicLong vanishedUploads = new AtomicLong();
+    private final AtomicLong failedUploads = new AtomicLong();
+    private final AtomicLong reclaimedBytes = new AtomicLong();
+
+    /**
+     * Gets the number of uploads listed, stale or not.
+     */
+    public long getScannedUploads() {
+        return scannedUploads.get();
+    }
+
+    /**
+     * Gets the number of stale uploads aborted.
+     */
+    public long getAbortedUploads() {
+        return abortedUploads.get();
+    }
+
+    /**
+     * Gets the number of stale uploads completed or aborted by someone else
+     * before they were aborted.
+     */
+    public long getVanishedUploads() {
+        return vanishedUploads.get();
+    }
+
+    /**
+     * Gets the number of stale uploads which failed to be aborted, after the
+     * retries of the client. They're left to the next sweep.
+     */
+    public long getFailedUploads() {
+        return failedUploads.get();
+    }
+
+    /**
+     * Gets the total size of the parts of the aborted uploads, or 0 if they
+     * aren't measured.
+     */
+    public long getReclaimedBytes() {
+        return reclaimedBytes.get();
+    }
+
+    void addScanned() {
+        scannedUploads.incrementAndGet();
+    }
+
+    void addAborted(long bytes) {
+        abortedUploads.incrementAndGet();
+        reclaimedBytes.addAndGet(bytes);
+    }
+
+    void addVanished() {
+        vanishedUploads.incrementAndGet();
+    }
+
+    void addFailed() {
+        failedUploads.incrementAndGet();
+    }
+
+    void add(ReapResult result) {
+        scannedUploads.addAndGet(result.getScannedUploads());
+        abortedUploads.addAndGet(result.getAbortedUploads());
+        vanishedUploads.addAndGet(result.getVanishedUploads());
+        failedUploads.addAndGet(result.getFailedUploads());
+        reclaimedBytes.addAndGet(result.getReclaimedBytes());
+    }
+
+    @Override
+    public String toString() {
+        return "ReapResult [scanned=" + getScannedUploads() + ", aborted=" + getAbortedUploads() + ", vanished="
+                + getVanishedUploads() + ", failed=" + getFailedUploads() + ", reclaimedBytes="
+                + getReclaimedBytes() + "]";
+    }
+}
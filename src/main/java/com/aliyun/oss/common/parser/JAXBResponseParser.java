@@ -22,18 +22,17 @@ package com.aliyun.oss.common.parser;
 import static com.aliyun.oss.internal.OSSUtils.COMMON_RESOURCE_MANAGER;
 
 import java.io.InputStream;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.sax.SAXSource;
 
 import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
 import com.aliyun.oss.common.comm.ResponseMessage;
 
@@ -50,14 +49,27 @@ public class JAXBResponseParser implements ResponseParser<Object> {
 
     // Because JAXBContext.newInstance() is a very slow method,
     // it can improve performance a lot to cache the instances of JAXBContext
-    // for used context paths or class types.
-    private static HashMap<Object, JAXBContext> cachedContexts = new HashMap<Object, JAXBContext>();
+    // for used context paths or class types. Unmarshallers aren't thread
+    // safe, so each context comes with a pool of them.
+    private static final ConcurrentMap<Class<?>, ParserPool<Unmarshaller>> unmarshallerPools = new ConcurrentHashMap<Class<?>, ParserPool<Unmarshaller>>();
+
+    private static final ParserPool<XMLReader> xmlReaderPool = new ParserPool<XMLReader>() {
+        @Override
+        protected XMLReader create() throws Exception {
+            return saxParserFactory.newSAXParser().getXMLReader();
+        }
+    };
 
     static {
         saxParserFactory.setNamespaceAware(true);
         saxParserFactory.setValidating(false);
     }
 
+    /**
+     * Creates a parser of the model class. Its JAXB context is initialized by
+     * the first parse, or ahead of it by {@link #warmUp(Class)}, so that a
+     * failing JAXB implementation only fails the parsing.
+     */
     public JAXBResponseParser(Class<?> modelClass) {
         assert (modelClass != null);
         this.modelClass = modelClass;
@@ -70,38 +82,62 @@ public class JAXBResponseParser implements ResponseParser<Object> {
 
     private Object getObject(InputStream responseContent) throws ResponseParseException {
         try {
-            if (!cachedContexts.containsKey(modelClass)) {
-                initJAXBContext(modelClass);
-            }
-
-            assert (cachedContexts.containsKey(modelClass));
-            JAXBContext jc = cachedContexts.get(modelClass);
-            Unmarshaller um = jc.createUnmarshaller();
+            ParserPool<Unmarshaller> unmarshallerPool = getUnmarshallerPool(modelClass);
+            Unmarshaller um = unmarshallerPool.acquire();
+            XMLReader xmlReader = xmlReaderPool.acquire();
             // It performs better to call Unmarshaller#unmarshal(Source)
             // than to call Unmarshaller#unmarshall(InputStream)
             // if XMLReader is specified in the SAXSource instance.
-            return um.unmarshal(getSAXSource(responseContent));
-        } catch (JAXBException e) {
-            throw new ResponseParseException(
-                    COMMON_RESOURCE_MANAGER.getFormattedString("FailedToParseResponse", e.getMessage()), e);
-        } catch (SAXException e) {
-            throw new ResponseParseException(
-                    COMMON_RESOURCE_MANAGER.getFormattedString("FailedToParseResponse", e.getMessage()), e);
-        } catch (ParserConfigurationException e) {
+            Object result = um.unmarshal(new SAXSource(xmlReader, new InputSource(responseContent)));
+            // Only the parsers that succeeded go back to the pools.
+            unmarshallerPool.release(um);
+            xmlReaderPool.release(xmlReader);
+            return result;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
             throw new ResponseParseException(
                     COMMON_RESOURCE_MANAGER.getFormattedString("FailedToParseResponse", e.getMessage()), e);
         }
     }
 
-    private static synchronized void initJAXBContext(Class<?> c) throws JAXBException {
-        if (!cachedContexts.containsKey(c)) {
-            JAXBContext jc = JAXBContext.newInstance(c);
-            cachedContexts.put(c, jc);
+    /**
+     * Initializes the JAXB context of the model class and the SAX parser
+     * ahead of the first response to parse.
+     */
+    public static void warmUp(Class<?> modelClass) throws ResponseParseException {
+        try {
+            ParserPool<Unmarshaller> unmarshallerPool = getUnmarshallerPool(modelClass);
+            unmarshallerPool.release(unmarshallerPool.acquire());
+            xmlReaderPool.release(xmlReaderPool.acquire());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ResponseParseException(e.getMessage(), e);
         }
     }
 
-    private static SAXSource getSAXSource(InputStream content) throws SAXException, ParserConfigurationException {
-        SAXParser saxParser = saxParserFactory.newSAXParser();
-        return new SAXSource(saxParser.getXMLReader(), new InputSource(content));
+    private static ParserPool<Unmarshaller> getUnmarshallerPool(Class<?> c) throws JAXBException {
+        ParserPool<Unmarshaller> pool = unmarshallerPools.get(c);
+        if (pool == null) {
+            // Concurrent first uses may both create a context; one is kept.
+            final JAXBContext jc;
+            try {
+                jc = JAXBContext.newInstance(c);
+            } catch (RuntimeException e) {
+                throw new JAXBException(e.getMessage(), e);
+            }
+            pool = new ParserPool<Unmarshaller>() {
+                @Override
+                protected Unmarshaller create() throws JAXBException {
+                    return jc.createUnmarshaller();
+                }
+            };
+            ParserPool<Unmarshaller> existing = unmarshallerPools.putIfAbsent(c, pool);
+            if (existing != null) {
+                pool = existing;
+            }
+        }
+        return pool;
     }
-}
\ No newline at end of file
+}
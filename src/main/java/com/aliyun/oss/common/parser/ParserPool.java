@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.parser;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of the parsers that are expensive to create but not thread
+ * safe, such as unmarshallers and SAX readers, so that they are reused across
+ * responses instead of created for every one. A parser is used by one thread
+ * at a time between {@link #acquire()} and {@link #release(Object)}.
+ * 
+ * <p>
+ * The pool holds the parsers instead of thread locals, so the parsers are
+ * shared by short-lived and virtual threads too.
+ * </p>
+ */
+public abstract class ParserPool<T> {
+
+    static final int MAX_POOLED_PARSERS = 64;
+
+    private final Queue<T> parsers = new ConcurrentLinkedQueue<T>();
+    private final AtomicInteger pooledCount = new AtomicInteger();
+
+    /**
+     * Creates a parser when the pool is empty.
+     */
+    protected abstract T create() throws Exception;
+
+    /**
+     * Takes a parser from the pool, or creates one if the pool is empty.
+     */
+    public T acquire() throws Exception {
+        T parser = parsers.poll();
+        if (parser == null) {
+            return create();
+        }
+        pooledCount.decrementAndGet();
+        return parser;
+    }
+
+    /**
+     * Returns a parser taken by {@link #acquire()} to the pool. Only a parser
+     * that completed its last parsing should be returned; one that failed is
+     * dropped instead, as its state is unknown.
+     */
+    public void release(T parser) {
+        if (parser == null) {
+            return;
+        }
+        if (pooledCount.incrementAndGet() > MAX_POOLED_PARSERS) {
+            pooledCount.decrementAndGet();
+            return;
+        }
+        parsers.offer(parser);
+    }
+
+    int size() {
+        return pooledCount.get();
+    }
+}
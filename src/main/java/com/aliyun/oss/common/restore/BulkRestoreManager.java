@@ -0,0 +1,345 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.restore;
+
+import static com.aliyun.oss.common.utils.LogUtils.logException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.aliyun.oss.ClientErrorCode;
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.utils.VirtualThreads;
+import com.aliyun.oss.model.HeadObjectResult;
+import com.aliyun.oss.model.HeadObjectsRequest;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.StorageClass;
+
+/**
+ * Restores many Archive objects and downloads each of them as soon as it's
+ * readable.
+ * 
+ * <p>
+ * The restoreObject requests are sent max concurrency at a time. Then the
+ * calling thread polls the restore state of all the objects still being
+ * restored, with a round of concurrent HEAD requests per poll, instead of a
+ * thread per object. The poll interval grows while no object is restored and
+ * is reset once some are, as the restores of a bulk recall tend to complete
+ * together. Every object found restored, or already readable, is passed to a
+ * pool of download threads calling the {@link RestoredObjectHandler}, while
+ * the others are still polled.
+ * </p>
+ * 
+ * <p>
+ * The HEAD requests go through the metadata cache of the client, if enabled,
+ * so the restore state is seen at most the cache TTL late. The restore and
+ * download threads are virtual threads when the client enables them. Call
+ * {@link #shutdown()} once the manager is no longer used.
+ * </p>
+ */
+public class BulkRestoreManager {
+
+    private enum RestoreState {
+        RESTORING, READABLE
+    }
+
+    private final OSS client;
+    private final BulkRestorePolicy policy;
+    private final ExecutorService restoreExecutor;
+    private final ExecutorService downloadExecutor;
+
+    public BulkRestoreManager(OSS client) {
+        this(client, new BulkRestorePolicy());
+    }
+
+    public BulkRestoreManager(OSS client, BulkRestorePolicy policy) {
+        if (policy.getMaxConcurrency() <= 0 || policy.getDownloadConcurrency() <= 0
+                || policy.getInitialPollInterval() <= 0 || policy.getMaxPollInterval() < policy.getInitialPollInterval()
+                || policy.getPollBackoff() < 1 || policy.getMaxWaitTime() < 0 || policy.getMaxPollFailures() <= 0) {
+            throw new IllegalArgumentException("Invalid bulk restore policy");
+        }
+        this.client = client;
+        this.policy = policy;
+        boolean virtualThreads = client instanceof OSSClient
+                && ((OSSClient) client).getClientConfiguration().isVirtualThreadsEnabled();
+        this.restoreExecutor = Executors.newFixedThreadPool(policy.getMaxConcurrency(), VirtualThreads.threadFactory(
+                virtualThreads, "oss-restore-", VirtualThreads.daemonThreadFactory("oss-restore-")));
+        this.downloadExecutor = Executors.newFixedThreadPool(policy.getDownloadConcurrency(),
+                VirtualThreads.threadFactory(virtualThreads, "oss-restore-download-",
+                        VirtualThreads.daemonThreadFactory("oss-restore-download-")));
+    }
+
+    /**
+     * Restores the objects and passes each of them to the handler once it's
+     * readable, returning when all of them are handled or failed. An object
+     * which isn't archived is passed to the handler right away.
+     * 
+     * @param bucketName
+     *            The bucket name.
+     * @param keys
+     *            The keys of the objects.
+     * @param handler
+     *            The handler of the restored objects.
+     * @return The outcome, with the exceptions of the objects failed.
+     * @throws InterruptedException
+     *             If the calling thread is interrupted while waiting.
+     */
+    public BulkRestoreResult restoreAndFetch(String bucketName, Iterable<String> keys,
+            RestoredObjectHandler handler) throws InterruptedException {
+        BulkRestoreResult result = new BulkRestoreResult();
+        List<Future<?>> downloads = new ArrayList<Future<?>>();
+        List<String> restoring = restore(bucketName, keys, handler, result, downloads);
+        poll(bucketName, restoring, handler, result, downloads);
+
+        for (Future<?> download : downloads) {
+            try {
+                download.get();
+            } catch (ExecutionException e) {
+                // The failures are recorded by the downloads.
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sends the restoreObject requests, returning the keys of the objects
+     * being restored.
+     */
+    private List<String> restore(String bucketName, Iterable<String> keys, RestoredObjectHandler handler,
+            BulkRestoreResult result, List<Future<?>> downloads) throws InterruptedException {
+        CompletionService<RestoreState> completionService = new ExecutorCompletionService<RestoreState>(
+                restoreExecutor);
+        Map<Future<RestoreState>, String> pending = new HashMap<Future<RestoreState>, String>();
+        List<String> restoring = new ArrayList<String>();
+        Set<String> seen = new HashSet<String>();
+
+        Iterator<String> iterator = keys.iterator();
+        while (iterator.hasNext() || !pending.isEmpty()) {
+            if (iterator.hasNext() && pending.size() < policy.getMaxConcurrency()) {
+                String key = iterator.next();
+                if (seen.add(key)) {
+                    pending.put(completionService.submit(new RestoreTask(bucketName, key)), key);
+                }
+                continue;
+            }
+
+            Future<RestoreState> future = completionService.take();
+            String key = pending.remove(future);
+            try {
+                if (future.get() == RestoreState.READABLE) {
+                    downloads.add(downloadExecutor.submit(new FetchTask(bucketName, key, handler, result)));
+                } else {
+                    result.addRestored();
+                    restoring.add(key);
+                }
+            } catch (ExecutionException e) {
+                result.addFailure(key, toException(e.getCause()));
+            }
+        }
+        return restoring;
+    }
+
+    /**
+     * Polls the restore state of the objects until none is being restored.
+     */
+    private void poll(String bucketName, List<String> restoring, RestoredObjectHandler handler,
+            BulkRestoreResult result, List<Future<?>> downloads) throws InterruptedException {
+        long deadline = policy.getMaxWaitTime() > 0 ? System.currentTimeMillis() + policy.getMaxWaitTime()
+                : Long.MAX_VALUE;
+        long interval = policy.getInitialPollInterval();
+        Map<String, Integer> pollFailures = new HashMap<String, Integer>();
+
+        while (!restoring.isEmpty()) {
+            if (System.currentTimeMillis() + interval > deadline) {
+                Thread.sleep(Math.max(0, deadline - System.currentTimeMillis()));
+            } else {
+                Thread.sleep(interval);
+            }
+
+            result.addPoll();
+            boolean progressed = false;
+            List<String> stillRestoring = new ArrayList<String>();
+            Iterator<HeadObjectResult> results = client.headObjects(
+                    new HeadObjectsRequest(bucketName, restoring).withMaxConcurrency(policy.getMaxConcurrency()));
+            while (results.hasNext()) {
+                HeadObjectResult headResult = results.next();
+                String key = headResult.getKey();
+                if (headResult.isFailed()) {
+                    Exception exception = headResult.getException();
+                    logException("Poll the restore of " + key + " failed: ", exception);
+                    Integer failures = pollFailures.get(key);
+                    failures = failures == null ? 1 : failures + 1;
+                    if (!isTransient(exception) || failures >= policy.getMaxPollFailures()) {
+                        result.addFailure(key, exception);
+                    } else {
+                        // Polled again, the retries of the client are exhausted.
+                        pollFailures.put(key, failures);
+                        stillRestoring.add(key);
+                    }
+                    continue;
+                }
+                pollFailures.remove(key);
+                if (!headResult.isFound()) {
+                    result.addFailure(key, new OSSException("The object " + key + " does not exist.",
+                            OSSErrorCode.NO_SUCH_KEY, headResult.getRequestId(), null, null, null, null));
+                } else if (isReadable(headResult.getObjectMetadata())) {
+                    downloads.add(downloadExecutor.submit(new FetchTask(bucketName, key, handler, result)));
+                    progressed = true;
+                } else {
+                    if (headResult.getObjectMetadata().getObjectRawRestore() == null) {
+                        // The restored copy expired before it was polled.
+                        restoreAgain(bucketName, key);
+                    }
+                    stillRestoring.add(key);
+                }
+            }
+            restoring = stillRestoring;
+
+            if (!restoring.isEmpty() && System.currentTimeMillis() >= deadline) {
+                for (String key : restoring) {
+                    result.addFailure(key, new ClientException("The object " + key + " isn't restored within "
+                            + policy.getMaxWaitTime() + " ms."));
+                }
+                break;
+            }
+
+            interval = progressed ? policy.getInitialPollInterval()
+                    : Math.min(policy.getMaxPollInterval(), (long) (interval * policy.getPollBackoff()));
+        }
+    }
+
+    /**
+     * Whether a failed poll may succeed later. The error of a HEAD request has
+     * no body, so a server error has an unknown code.
+     */
+    private static boolean isTransient(Exception exception) {
+        if (!(exception instanceof OSSException)) {
+            return true;
+        }
+        String errorCode = ((OSSException) exception).getErrorCode();
+        return ClientErrorCode.UNKNOWN.equals(errorCode) || OSSErrorCode.INTERNAL_ERROR.equals(errorCode)
+                || OSSErrorCode.REQUEST_TIMEOUT.equals(errorCode);
+    }
+
+    private static boolean isReadable(ObjectMetadata metadata) {
+        if (metadata.getObjectStorageClass() != StorageClass.Archive) {
+            return true;
+        }
+        return metadata.getObjectRawRestore() != null && metadata.isRestoreCompleted();
+    }
+
+    private void restoreAgain(String bucketName, String key) {
+        try {
+            new RestoreTask(bucketName, key).call();
+        } catch (Exception e) {
+            logException("Restore " + key + " again failed: ", e);
+        }
+    }
+
+    private static Exception toException(Throwable cause) {
+        return cause instanceof Exception ? (Exception) cause : new ClientException(cause);
+    }
+
+    /**
+     * Stops the threads of the manager. The downloads not started are
+     * dropped.
+     */
+    public void shutdown() {
+        restoreExecutor.shutdownNow();
+        downloadExecutor.shutdownNow();
+    }
+
+    private class RestoreTask implements Callable<RestoreState> {
+
+        private final String bucketName;
+        private final String key;
+
+        RestoreTask(String bucketName, String key) {
+            this.bucketName = bucketName;
+            this.key = key;
+        }
+
+        @Override
+        public RestoreState call() throws Exception {
+            try {
+                // 202 when the restore is started, 200 when the object is restored already.
+                return client.restoreObject(bucketName, key).getStatusCode() == 200 ? RestoreState.READABLE
+                        : RestoreState.RESTORING;
+            } catch (OSSException e) {
+                if (OSSErrorCode.RESTORE_ALREADY_IN_PROGRESS.equals(e.getErrorCode())) {
+                    return RestoreState.RESTORING;
+                }
+                if (OSSErrorCode.OPERATION_NOT_SUPPORTED.equals(e.getErrorCode())) {
+                    // The object isn't archived.
+                    return RestoreState.READABLE;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private class FetchTask implements Runnable {
+
+        private final String bucketName;
+        private final String key;
+        private final RestoredObjectHandler handler;
+        private final BulkRestoreResult result;
+
+        FetchTask(String bucketName, String key, RestoredObjectHandler handler, BulkRestoreResult result) {
+            this.bucketName = bucketName;
+            this.key = key;
+            this.handler = handler;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            try {
+                OSSObject object = client.getObject(bucketName, key);
+                try {
+                    handler.handle(object);
+                } finally {
+                    object.close();
+                }
+                result.addFetched();
+            } catch (Exception e) {
+                result.addFailure(key, e);
+                logException("Fetch the restored object " + key + " failed: ", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.restore;
+
+/**
+ * The concurrency and polling policy of a {@link BulkRestoreManager}. The
+ * restore state of the objects is polled at the initial poll interval, which
+ * is multiplied by the backoff after each poll finding no object restored, up
+ * to the max poll interval, and reset once objects are restored again.
+ */
+public class BulkRestorePolicy {
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+    public static final int DEFAULT_DOWNLOAD_CONCURRENCY = 4;
+    public static final long DEFAULT_INITIAL_POLL_INTERVAL = 10 * 1000;
+    public static final long DEFAULT_MAX_POLL_INTERVAL = 5 * 60 * 1000;
+    public static final double DEFAULT_POLL_BACKOFF = 2;
+    public static final int DEFAULT_MAX_POLL_FAILURES = 5;
+
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private int downloadConcurrency = DEFAULT_DOWNLOAD_CONCURRENCY;
+    private long initialPollInterval = DEFAULT_INITIAL_POLL_INTERVAL;
+    private long maxPollInterval = DEFAULT_MAX_POLL_INTERVAL;
+    private double pollBackoff = DEFAULT_POLL_BACKOFF;
+    private long maxWaitTime = 0;
+    private int maxPollFailures = DEFAULT_MAX_POLL_FAILURES;
+
+    /**
+     * Gets the max number of restore and HEAD requests in flight.
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Sets the max number of restore and HEAD requests in flight. By default
+     * it's 16.
+     * 
+     * @param maxConcurrency
+     *            The max concurrency.
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public BulkRestorePolicy withMaxConcurrency(int maxConcurrency) {
+        setMaxConcurrency(maxConcurrency);
+        return this;
+    }
+
+    /**
+     * Gets the number of threads downloading the restored objects.
+     */
+    public int getDownloadConcurrency() {
+        return downloadConcurrency;
+    }
+
+    /**
+     * Sets the number of threads downloading the restored objects. By default
+     * it's 4.
+     * 
+     * @param downloadConcurrency
+     *            The download concurrency.
+     */
+    public void setDownloadConcurrency(int downloadConcurrency) {
+        this.downloadConcurrency = downloadConcurrency;
+    }
+
+    public BulkRestorePolicy withDownloadConcurrency(int downloadConcurrency) {
+        setDownloadConcurrency(downloadConcurrency);
+        return this;
+    }
+
+    /**
+     * Gets the interval in millisecond of the first polls.
+     */
+    public long getInitialPollInterval() {
+        return initialPollInterval;
+    }
+
+    /**
+     * Sets the interval in millisecond of the first polls, and of the polls
+     * following one which found objects restored. By default it's 10 seconds.
+     * 
+     * @param initialPollInterval
+     *            The initial poll interval in millisecond.
+     */
+    public void setInitialPollInterval(long initialPollInterval) {
+        this.initialPollInterval = initialPollInterval;
+    }
+
+    public BulkRestorePolicy withInitialPollInterval(long initialPollInterval) {
+        setInitialPollInterval(initialPollInterval);
+        return this;
+    }
+
+    /**
+     * Gets the max interval in millisecond between two polls.
+     */
+    public long getMaxPollInterval() {
+        return maxPollInterval;
+    }
+
+    /**
+     * Sets the max interval in millisecond between two polls. By default it's
+     * 5 minutes.
+     * 
+     * @param maxPollInterval
+     *            The max poll interval in millisecond.
+     */
+    public void setMaxPollInterval(long maxPollInterval) {
+        this.maxPollInterval = maxPollInterval;
+    }
+
+    public BulkRestorePolicy withMaxPollInterval(long maxPollInterval) {
+        setMaxPollInterval(maxPollInterval);
+        return this;
+    }
+
+    /**
+     * Gets the factor the poll interval is multiplied by after a poll finding
+     * no object restored.
+     */
+    public double getPollBackoff() {
+        return pollBackoff;
+    }
+
+    /**
+     * Sets the factor the poll interval is multiplied by after a poll finding
+     * no object restored, at least 1. By default it's 2.
+     * 
+     * @param pollBackoff
+     *            The poll backoff factor.
+     */
+    public void setPollBackoff(double pollBackoff) {
+        this.pollBackoff = pollBackoff;
+    }
+
+    public BulkRestorePolicy withPollBackoff(double pollBackoff) {
+        setPollBackoff(pollBackoff);
+        return this;
+    }
+
+    /**
+     * Gets the time in millisecond after which the objects still being
+     * restored are reported as failed, or 0 to wait for them indefinitely.
+     */
+    public long getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    /**
+     * Sets the time in millisecond after which the objects still being
+     * restored are reported as failed, or 0 to wait for them indefinitely. By
+     * default it's 0.
+     * 
+     * @param maxWaitTime
+     *            The max wait time in millisecond.
+     */
+    public void setMaxWaitTime(long maxWaitTime) {
+        this.maxWaitTime = maxWaitTime;
+    }
+
+    public BulkRestorePolicy withMaxWaitTime(long maxWaitTime) {
+        setMaxWaitTime(maxWaitTime);
+        return this;
+    }
+
+    /**
+     * Gets the number of consecutive polls of an object which may fail before
+     * the object is reported as failed.
+     */
+    public int getMaxPollFailures() {
+        return maxPollFailures;
+    }
+
+    /**
+     * Sets the number of consecutive polls of an object which may fail before
+     * the object is reported as failed. A poll failing with an error which
+     * isn't transient fails the object at once. By default it's 5.
+     * 
+     * @param maxPollFailures
+     *            The max consecutive poll failures.
+     */
+    public void setMaxPollFailures(int maxPollFailures) {
+        this.maxPollFailures = maxPollFailures;
+    }
+
+    public BulkRestorePolicy withMaxPollFailures(int maxPollFailures) {
+        setMaxPollFailures(maxPollFailures);
+        return this;
+    }
+}
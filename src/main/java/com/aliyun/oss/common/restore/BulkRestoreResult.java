@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.restore;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The outcome of a {@link BulkRestoreManager#restoreAndFetch} call.
+ */
+public class BulkRestoreResult {
+
+    private final AtomicLong restoredObjects = new AtomicLong();
+    private final AtomicLong fetchedObjects = new AtomicLong();
+    private final AtomicLong polls = new AtomicLong();
+    private final Map<String, Exception> failures = new ConcurrentHashMap<String, Exception>();
+
+    /**
+     * Gets the number of objects whose restore was started.
+     */
+    public long getRestoredObjects() {
+        return restoredObjects.get();
+    }
+
+    /**
+     * Gets the number of objects downloaded and handled.
+     */
+    public long getFetchedObjects() {
+        return fetchedObjects.get();
+    }
+
+    /**
+     * Gets the number of polls of the restore state.
+     */
+    public long getPolls() {
+        return polls.get();
+    }
+
+    /**
+     * Gets the exceptions of the objects which failed to be restored,
+     * downloaded or handled, by key.
+     */
+    public Map<String, Exception> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    void addRestored() {
+        restoredObjects.incrementAndGet();
+    }
+
+    void addFetched() {
+        fetchedObjects.incrementAndGet();
+    }
+
+    void addPoll() {
+        polls.incrementAndGet();
+    }
+
+    void addFailure(String key, Exception exception) {
+        failures.put(key, exception);
+    }
+
+    @Override
+    public String toString() {
+        return "BulkRestoreResult [restored=" + getRestoredObjects() + ", fetched=" + getFetchedObjects()
+                + ", polls=" + getPolls() + ", failed=" + failures.size() + "]";
+    }
+}
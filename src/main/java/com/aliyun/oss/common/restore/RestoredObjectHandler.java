@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.restore;
+
+import com.aliyun.oss.model.OSSObject;
+
+/**
+ * Consumes the objects of a {@link BulkRestoreManager} once they're readable.
+ * It's called by the download threads concurrently, and the object is closed
+ * after it returns.
+ */
+public interface RestoredObjectHandler {
+
+    /**
+     * Handles a restored object, typically reading its content.
+     * 
+     * @param object
+     *            The object, with its content to read.
+     * @throws Exception
+     *             If the object fails to be handled, it's reported as failed.
+     */
+    public void handle(OSSObject object) throws Exception;
+
+}
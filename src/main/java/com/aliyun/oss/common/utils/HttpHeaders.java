@@ -30,6 +30,7 @@ public interface HttpHeaders {
     public static final String CONTENT_ENCODING = "Content-Encoding";
     public static final String CONTENT_LENGTH = "Content-Length";
     public static final String CONTENT_MD5 = "Content-MD5";
+    public static final String CONTENT_RANGE = "Content-Range";
     public static final String CONTENT_TYPE = "Content-Type";
     public static final String TRANSFER_ENCODING = "Transfer-Encoding";
     public static final String DATE = "Date";
@@ -19,7 +19,6 @@
 
 package com.aliyun.oss.common.utils;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -33,10 +32,12 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.util.zip.CheckedInputStream;
 
+import com.aliyun.oss.common.comm.io.BodyPipelineInputStream;
 import com.aliyun.oss.common.comm.io.BoundedInputStream;
 import com.aliyun.oss.common.comm.io.RepeatableBoundedFileInputStream;
 import com.aliyun.oss.common.comm.io.RepeatableFileInputStream;
-import com.aliyun.oss.internal.OSSConstants;
+import com.aliyun.oss.common.compress.DecompressingInputStream;
+import com.aliyun.oss.common.crypto.CtrCipherInputStream;
 
 public class IOUtils {
 
@@ -132,7 +133,7 @@ public class IOUtils {
             if (original instanceof FileInputStream) {
                 repeatable = new RepeatableFileInputStream((FileInputStream) original);
             } else {
-                repeatable = new BufferedInputStream(original, OSSConstants.DEFAULT_STREAM_BUFFER_SIZE);
+                repeatable = new BodyPipelineInputStream(original).withReplayBuffer();
             }
         } else {
             repeatable = original;
@@ -146,7 +147,7 @@ public class IOUtils {
             if (original.getWrappedInputStream() instanceof FileInputStream) {
                 repeatable = new RepeatableBoundedFileInputStream(original);
             } else {
-                repeatable = new BufferedInputStream(original, OSSConstants.DEFAULT_STREAM_BUFFER_SIZE);
+                repeatable = new BodyPipelineInputStream(original).withReplayBuffer();
             }
         } else {
             repeatable = original;
@@ -155,6 +156,15 @@ public class IOUtils {
     }
 
     public static Long getCRCValue(InputStream inputStream) {
+        if (inputStream instanceof DecompressingInputStream) {
+            return getCRCValue(((DecompressingInputStream) inputStream).getCompressedStream());
+        }
+        if (inputStream instanceof CtrCipherInputStream) {
+            return getCRCValue(((CtrCipherInputStream) inputStream).getSourceStream());
+        }
+        if (inputStream instanceof BodyPipelineInputStream) {
+            return ((BodyPipelineInputStream) inputStream).getChecksumValue();
+        }
         if (inputStream instanceof CheckedInputStream) {
             return ((CheckedInputStream) inputStream).getChecksum().getValue();
         }
@@ -46,6 +46,7 @@ public class LogUtils {
         errorCodeFilterList.add(OSSErrorCode.NO_SUCH_CORS_CONFIGURATION);
         errorCodeFilterList.add(OSSErrorCode.NO_SUCH_WEBSITE_CONFIGURATION);
         errorCodeFilterList.add(OSSErrorCode.NO_SUCH_LIFECYCLE);
+        errorCodeFilterList.add(OSSErrorCode.NOT_MODIFIED);
     }
 
     public static Log getLog() {
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.utils;
+
+import static com.aliyun.oss.common.utils.LogUtils.getLog;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates virtual threads on JDK 21 or later. The SDK is compiled for older
+ * JDKs, so the virtual thread builder is looked up reflectively; on older
+ * JDKs, and on JDK 19 and 20 where the builder is a preview API, virtual
+ * threads are reported as unsupported.
+ */
+public final class VirtualThreads {
+
+    private static final int MIN_JAVA_VERSION = 21;
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        if (javaVersion() >= MIN_JAVA_VERSION) {
+            try {
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                name = Class.forName("java.lang.Thread$Builder").getMethod("name", String.class, long.class);
+                factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            } catch (Exception e) {
+                getLog().warn("Virtual threads are unavailable: " + e);
+                ofVirtual = null;
+            }
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Checks if the running JDK supports virtual threads.
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates a factory of virtual threads named with the prefix and a
+     * sequence number.
+     * 
+     * @return The thread factory, or null if virtual threads are unsupported.
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix) {
+        if (!isSupported()) {
+            return null;
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 1L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to create a virtual thread factory", e);
+        }
+    }
+
+    /**
+     * Returns a factory of virtual threads if they are enabled and supported,
+     * or else the given factory of platform threads.
+     */
+    public static ThreadFactory threadFactory(boolean enabled, String namePrefix, ThreadFactory platformFactory) {
+        ThreadFactory factory = enabled ? newThreadFactory(namePrefix) : null;
+        return factory != null ? factory : platformFactory;
+    }
+
+    /**
+     * Creates a factory of daemon platform threads named with the prefix and a
+     * sequence number, the fallback of the background executors.
+     */
+    public static ThreadFactory daemonThreadFactory(final String namePrefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, namePrefix + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    static int javaVersion() {
+        String version = System.getProperty("java.specification.version", "");
+        if (version.startsWith("1.")) {
+            version = version.substring(2);
+        }
+        try {
+            return Integer.parseInt(version);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.event;
+
+/**
+ * A progress event that coalesces the bytes transferred since the previous
+ * event, delivered by an {@link AsyncProgressListener}. Besides the bytes of
+ * this event, it carries the totals and the throughput of the transfer.
+ */
+public class AggregatedProgressEvent extends ProgressEvent {
+
+    private final long transferredBytes;
+    private final long totalBytes;
+    private final long bytesPerSecond;
+    private final long averageBytesPerSecond;
+    private final long estimatedTimeRemaining;
+
+    public AggregatedProgressEvent(ProgressEventType eventType, long bytes, long transferredBytes, long totalBytes,
+            long bytesPerSecond, long averageBytesPerSecond, long estimatedTimeRemaining) {
+        super(eventType, bytes);
+        this.transferredBytes = transferredBytes;
+        this.totalBytes = totalBytes;
+        this.bytesPerSecond = bytesPerSecond;
+        this.averageBytesPerSecond = averageBytesPerSecond;
+        this.estimatedTimeRemaining = estimatedTimeRemaining;
+    }
+
+    /**
+     * Gets the bytes transferred in this direction since the transfer started.
+     */
+    public long getTransferredBytes() {
+        return transferredBytes;
+    }
+
+    /**
+     * Gets the bytes to transfer in this direction, as published by the
+     * content length events, or -1 if unknown.
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Gets the throughput since the previous event, in bytes per second.
+     */
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Gets the throughput since the transfer started, in bytes per second.
+     */
+    public long getAverageBytesPerSecond() {
+        return averageBytesPerSecond;
+    }
+
+    /**
+     * Gets the estimated time to transfer the remaining bytes at the average
+     * throughput, in milliseconds, or -1 if unknown.
+     */
+    public long getEstimatedTimeRemaining() {
+        return estimatedTimeRemaining;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + ", transferred: " + transferredBytes + ", total: " + totalBytes
+                + ", bytes/s: " + bytesPerSecond + ", average bytes/s: " + averageBytesPerSecond + ", eta(ms): "
+                + estimatedTimeRemaining;
+    }
+}
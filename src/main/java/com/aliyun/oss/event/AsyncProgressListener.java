@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.event;
+
+import static com.aliyun.oss.common.utils.LogUtils.logException;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A progress listener that takes the progress events off the I/O threads and
+ * delivers them to another listener on a dispatcher thread, so that a slow
+ * listener doesn't slow the transfer down and the listener doesn't need to be
+ * thread safe, even when the parts of a transfer run concurrently.
+ * 
+ * <p>
+ * The bytes transferred are added to striped counters and delivered as one
+ * {@link AggregatedProgressEvent} per direction and interval, with the
+ * throughput and the estimated time remaining. The other events are delivered
+ * in the order they were published, after the bytes transferred before them.
+ * Wrap the listener of a request with it, one per transfer:
+ * </p>
+ * 
+ * <pre>
+ * request.setProgressListener(new AsyncProgressListener(listener));
+ * </pre>
+ */
+public class AsyncProgressListener implements ProgressListener {
+
+    public static final long DEFAULT_INTERVAL = 200;
+
+    private static ScheduledExecutorService defaultDispatcher;
+
+    private final ProgressListener listener;
+    private final long interval;
+    private final ScheduledExecutorService dispatcher;
+
+    private final StripedCounter requestBytes = new StripedCounter();
+    private final StripedCounter responseBytes = new StripedCounter();
+    private final AtomicLong requestContentLength = new AtomicLong(-1);
+    private final AtomicLong responseContentLength = new AtomicLong(-1);
+    private final AtomicLong startTime = new AtomicLong(-1);
+    private final Queue<ProgressEvent> events = new ConcurrentLinkedQueue<ProgressEvent>();
+
+    private final Runnable dispatch = new Runnable() {
+        @Override
+        public void run() {
+            dispatch();
+        }
+    };
+
+    private final Object tickerLock = new Object();
+    private volatile boolean ticking;
+    private ScheduledFuture<?> ticker;
+
+    // Accessed by the dispatcher only, one task at a time.
+    private final Direction request = new Direction(ProgressEventType.REQUEST_BYTE_TRANSFER_EVENT);
+    private final Direction response = new Direction(ProgressEventType.RESPONSE_BYTE_TRANSFER_EVENT);
+
+    public AsyncProgressListener(ProgressListener listener) {
+        this(listener, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * @param listener
+     *            The listener to deliver the events to.
+     * @param interval
+     *            The interval in milliseconds to deliver the bytes transferred
+     *            at.
+     */
+    public AsyncProgressListener(ProgressListener listener, long interval) {
+        this(listener, interval, getDefaultDispatcher());
+    }
+
+    /**
+     * @param listener
+     *            The listener to deliver the events to.
+     * @param interval
+     *            The interval in milliseconds to deliver the bytes transferred
+     *            at.
+     * @param dispatcher
+     *            The executor to deliver the events on. It must run one task
+     *            at a time.
+     */
+    public AsyncProgressListener(ProgressListener listener, long interval, ScheduledExecutorService dispatcher) {
+        if (listener == null || dispatcher == null) {
+            throw new IllegalArgumentException("listener and dispatcher must not be null.");
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive.");
+        }
+        this.listener = listener;
+        this.interval = interval;
+        this.dispatcher = dispatcher;
+    }
+
+    private static synchronized ScheduledExecutorService getDefaultDispatcher() {
+        if (defaultDispatcher == null) {
+            defaultDispatcher = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "oss-progress-dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return defaultDispatcher;
+    }
+
+    @Override
+    public void progressChanged(ProgressEvent progressEvent) {
+        startTime.compareAndSet(-1, System.nanoTime());
+
+        switch (progressEvent.getEventType()) {
+        case REQUEST_BYTE_TRANSFER_EVENT:
+            requestBytes.add(progressEvent.getBytes());
+            startTicking();
+            return;
+        case RESPONSE_BYTE_TRANSFER_EVENT:
+            responseBytes.add(progressEvent.getBytes());
+            startTicking();
+            return;
+        case REQUEST_CONTENT_LENGTH_EVENT:
+            addContentLength(requestContentLength, progressEvent.getBytes());
+            break;
+        case RESPONSE_CONTENT_LENGTH_EVENT:
+            addContentLength(responseContentLength, progressEvent.getBytes());
+            break;
+        default:
+            break;
+        }
+
+        events.offer(progressEvent);
+        dispatcher.execute(dispatch);
+    }
+
+    /**
+     * Waits until the events published so far have been delivered.
+     */
+    public void flush() throws InterruptedException {
+        try {
+            dispatcher.submit(dispatch).get();
+        } catch (ExecutionException e) {
+            logException("Failed to deliver the progress events: ", e);
+        }
+    }
+
+    private static void addContentLength(AtomicLong contentLength, long bytes) {
+        while (true) {
+            long current = contentLength.get();
+            if (contentLength.compareAndSet(current, Math.max(current, 0) + bytes)) {
+                return;
+            }
+        }
+    }
+
+    private void startTicking() {
+        if (ticking) {
+            return;
+        }
+        synchronized (tickerLock) {
+            if (!ticking) {
+                ticker = dispatcher.scheduleAtFixedRate(dispatch, interval, interval, TimeUnit.MILLISECONDS);
+                ticking = true;
+            }
+        }
+    }
+
+    private void stopTicking() {
+        synchronized (tickerLock) {
+            if (ticking) {
+                ticker.cancel(false);
+                ticker = null;
+                ticking = false;
+            }
+        }
+    }
+
+    private void dispatch() {
+        ProgressEvent event;
+        while ((event = events.poll()) != null) {
+            switch (event.getEventType()) {
+            case TRANSFER_COMPLETED_EVENT:
+            case TRANSFER_FAILED_EVENT:
+            case TRANSFER_CANCELED_EVENT:
+                deliverBytes();
+                deliver(event);
+                stopTicking();
+                break;
+            case TRANSFER_PART_COMPLETED_EVENT:
+            case TRANSFER_PART_FAILED_EVENT:
+                deliverBytes();
+                deliver(event);
+                break;
+            default:
+                deliver(event);
+                break;
+            }
+        }
+        deliverBytes();
+    }
+
+    private void deliverBytes() {
+        long now = System.nanoTime();
+        request.deliver(requestBytes.sum(), requestContentLength.get(), now);
+        response.deliver(responseBytes.sum(), responseContentLength.get(), now);
+    }
+
+    private void deliver(ProgressEvent event) {
+        try {
+            listener.progressChanged(event);
+        } catch (RuntimeException e) {
+            logException("Progress listener failed: ", e);
+        }
+    }
+
+    private class Direction {
+
+        private final ProgressEventType eventType;
+        private long deliveredBytes;
+        private long lastDeliveryTime = -1;
+
+        Direction(ProgressEventType eventType) {
+            this.eventType = eventType;
+        }
+
+        void deliver(long transferredBytes, long totalBytes, long now) {
+            long bytes = transferredBytes - deliveredBytes;
+            if (bytes <= 0) {
+                return;
+            }
+
+            long start = startTime.get();
+            long since = lastDeliveryTime != -1 ? lastDeliveryTime : start;
+            long bytesPerSecond = perSecond(bytes, now - since);
+            long averageBytesPerSecond = perSecond(transferredBytes, now - start);
+            long estimatedTimeRemaining = -1;
+            if (totalBytes >= 0 && averageBytesPerSecond > 0) {
+                estimatedTimeRemaining = Math.max(totalBytes - transferredBytes, 0) * 1000 / averageBytesPerSecond;
+            }
+
+            deliveredBytes = transferredBytes;
+            lastDeliveryTime = now;
+            AsyncProgressListener.this.deliver(new AggregatedProgressEvent(eventType, bytes, transferredBytes,
+                    totalBytes, bytesPerSecond, averageBytesPerSecond, estimatedTimeRemaining));
+        }
+
+        private long perSecond(long bytes, long nanos) {
+            return nanos > 0 ? (long) (bytes * 1e9 / nanos) : 0;
+        }
+    }
+
+}
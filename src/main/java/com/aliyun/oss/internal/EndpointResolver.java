@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import static com.aliyun.oss.internal.OSSUtils.buildCanonicalHost;
+import static com.aliyun.oss.internal.OSSUtils.buildEndpoint;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.aliyun.oss.ClientConfiguration;
+
+/**
+ * A concurrent cache of the final endpoints of the requests, per endpoint and
+ * bucket, so that building a request doesn't need to format the host, filter
+ * it against the CName exclude list and parse a new URI every time.
+ * 
+ * <p>
+ * The entries of an endpoint are dropped when the endpoint is set again, and an
+ * entry is resolved again if the CName or SLD setting of the client
+ * configuration has changed since. Changes to the CName exclude list take
+ * effect when the endpoint is set again.
+ * </p>
+ */
+public class EndpointResolver {
+
+    static final int MAX_BUCKETS_PER_ENDPOINT = 1024;
+
+    private static final String NO_BUCKET = "";
+
+    private final ConcurrentMap<URI, ConcurrentMap<String, ResolvedEndpoint>> endpoints =
+            new ConcurrentHashMap<URI, ConcurrentMap<String, ResolvedEndpoint>>();
+
+    /**
+     * Gets the final endpoint of the requests to the bucket, see
+     * {@link OSSUtils#determineFinalEndpoint(URI, String, ClientConfiguration)}.
+     */
+    public URI resolve(URI endpoint, String bucket, ClientConfiguration config) {
+        return lookup(endpoint, bucket, config).uri;
+    }
+
+    /**
+     * Gets the host of the final endpoint of the requests to the bucket.
+     */
+    public String resolveHost(URI endpoint, String bucket, ClientConfiguration config) {
+        return lookup(endpoint, bucket, config).host;
+    }
+
+    /**
+     * Drops the resolved endpoints of all the buckets of the endpoint.
+     */
+    public void invalidate(URI endpoint) {
+        endpoints.remove(endpoint);
+    }
+
+    public void clear() {
+        endpoints.clear();
+    }
+
+    private ResolvedEndpoint lookup(URI endpoint, String bucket, ClientConfiguration config) {
+        boolean supportCname = config.isSupportCname();
+        boolean sldEnabled = config.isSLDEnabled();
+
+        ConcurrentMap<String, ResolvedEndpoint> buckets = endpoints.get(endpoint);
+        if (buckets == null) {
+            buckets = new ConcurrentHashMap<String, ResolvedEndpoint>();
+            ConcurrentMap<String, ResolvedEndpoint> existing = endpoints.putIfAbsent(endpoint, buckets);
+            if (existing != null) {
+                buckets = existing;
+            }
+        }
+
+        String bucketKey = bucket != null ? bucket : NO_BUCKET;
+        ResolvedEndpoint resolved = buckets.get(bucketKey);
+        if (resolved != null && resolved.supportCname == supportCname && resolved.sldEnabled == sldEnabled) {
+            return resolved;
+        }
+
+        String host = buildCanonicalHost(endpoint, bucket, config);
+        resolved = new ResolvedEndpoint(buildEndpoint(endpoint, host), host, supportCname, sldEnabled);
+        if (buckets.size() < MAX_BUCKETS_PER_ENDPOINT) {
+            buckets.put(bucketKey, resolved);
+        }
+        return resolved;
+    }
+
+    private static final class ResolvedEndpoint {
+
+        final URI uri;
+        final String host;
+        final boolean supportCname;
+        final boolean sldEnabled;
+
+        ResolvedEndpoint(URI uri, String host, boolean supportCname, boolean sldEnabled) {
+            this.uri = uri;
+            this.host = host;
+            this.supportCname = supportCname;
+            this.sldEnabled = sldEnabled;
+        }
+    }
+
+}
@@ -317,7 +317,7 @@ public class LiveChannelOperation extends OSSOperation {
         // Endpoint
         RequestMessage requestMessage = new RequestMessage(bucketName, liveChannelName);
         ClientConfiguration config = this.client.getClientConfiguration();
-        requestMessage.setEndpoint(OSSUtils.determineFinalEndpoint(this.endpoint, bucketName, config));
+        requestMessage.setEndpoint(this.client.getEndpointResolver().resolve(this.endpoint, bucketName, config));
 
         // Headers
         requestMessage.addHeader(HttpHeaders.DATE, expires.toString());
@@ -38,18 +38,25 @@ public class Mimetypes {
     /* The default MIME type */
     public static final String DEFAULT_MIMETYPE = "application/octet-stream";
 
-    private static Mimetypes mimetypes = null;
-
     private HashMap<String, String> extensionToMimetypeMap = new HashMap<String, String>();
 
     private Mimetypes() {
     }
 
-    public synchronized static Mimetypes getInstance() {
-        if (mimetypes != null)
-            return mimetypes;
+    /*
+     * The instance is loaded once by the holder's class initialization, so
+     * getInstance() takes no lock afterwards.
+     */
+    private static class Holder {
+        static final Mimetypes INSTANCE = load();
+    }
+
+    public static Mimetypes getInstance() {
+        return Holder.INSTANCE;
+    }
 
-        mimetypes = new Mimetypes();
+    private static Mimetypes load() {
+        Mimetypes mimetypes = new Mimetypes();
         InputStream is = mimetypes.getClass().getResourceAsStream("/mime.types");
         if (is != null) {
             getLog().debug("Loading mime types from file in the classpath: mime.types");
@@ -0,0 +1,672 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import static com.aliyun.oss.common.utils.CodingUtils.assertParameterNotNull;
+import static com.aliyun.oss.common.utils.LogUtils.logException;
+import static com.aliyun.oss.internal.OSSUtils.ensureBucketNameValid;
+import static com.aliyun.oss.internal.OSSUtils.ensureObjectKeyValid;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.common.compress.CompressionCodecs;
+import com.aliyun.oss.common.crypto.ContentCryptoMaterial;
+import com.aliyun.oss.common.utils.ExceptionFactory;
+import com.aliyun.oss.common.utils.VirtualThreads;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadResult;
+import com.aliyun.oss.model.ComposeObjectRequest;
+import com.aliyun.oss.model.ComposeObjectResult;
+import com.aliyun.oss.model.ComposeSource;
+import com.aliyun.oss.model.GetObjectRequest;
+import com.aliyun.oss.model.HeadObjectResult;
+import com.aliyun.oss.model.HeadObjectsRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadResult;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.UploadPartCopyRequest;
+import com.aliyun.oss.model.UploadPartRequest;
+
+/**
+ * OSSComposeOperation
+ *
+ * Concatenates objects by a multipart upload. The parts are planned from the
+ * sizes of the sources: a source of at least the minimum part size is copied
+ * on the server by uploadPartCopy, split by the copy part size, while the
+ * smaller sources are downloaded and uploaded together as a regular part. A
+ * buffer of small sources still below the minimum part size borrows the head
+ * of the next large source, so only that slice passes through the client.
+ */
+public class OSSComposeOperation {
+
+    static class ComposeCheckPoint implements Serializable {
+
+        private static final long serialVersionUID = -3142390513829347154L;
+
+        private static final String COMPOSE_MAGIC = "5B0F9C1E-6E4A-4F0D-9B43-2D8A7C61E0F3";
+
+        // Not a monitor, so virtual threads aren't pinned while the file is written.
+        private final transient ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Gets the checkpoint data from the checkpoint file.
+         */
+        public void load(String cpFile) throws IOException, ClassNotFoundException {
+            lock.lock();
+            try {
+                FileInputStream fileIn = new FileInputStream(cpFile);
+                ObjectInputStream in = new ObjectInputStream(fileIn);
+                ComposeCheckPoint ccp = (ComposeCheckPoint) in.readObject();
+                assign(ccp);
+                in.close();
+                fileIn.close();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Writes the checkpoint data to the checkpoint file.
+         */
+        public void dump(String cpFile) throws IOException {
+            lock.lock();
+            try {
+                this.md5 = hashCode();
+                FileOutputStream fileOut = new FileOutputStream(cpFile);
+                ObjectOutputStream outStream = new ObjectOutputStream(fileOut);
+                outStream.writeObject(this);
+                outStream.close();
+                fileOut.close();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * The part upload complete, update the status.
+         */
+        public void update(int partIndex, PartETag partETag) {
+            lock.lock();
+            try {
+                partETags.add(partETag);
+                composeParts.get(partIndex).isCompleted = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Check if the target and the sources, down to their ETags, match the
+         * checkpoint.
+         */
+        public boolean isValid(String bucketName, String key, List<SourceStat> sourceStats) {
+            lock.lock();
+            try {
+                if (this.magic == null || !this.magic.equals(COMPOSE_MAGIC) || this.md5 != hashCode()) {
+                    return false;
+                }
+
+                return this.bucketName.equals(bucketName) && this.key.equals(key)
+                        && this.sourceStats.equals(sourceStats);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((bucketName == null) ? 0 : bucketName.hashCode());
+            result = prime * result + ((key == null) ? 0 : key.hashCode());
+            result = prime * result + ((magic == null) ? 0 : magic.hashCode());
+            result = prime * result + ((partETags == null) ? 0 : partETags.hashCode());
+            result = prime * result + ((sourceStats == null) ? 0 : sourceStats.hashCode());
+            result = prime * result + ((uploadID == null) ? 0 : uploadID.hashCode());
+            result = prime * result + ((composeParts == null) ? 0 : composeParts.hashCode());
+            return result;
+        }
+
+        private void assign(ComposeCheckPoint ccp) {
+            this.magic = ccp.magic;
+            this.md5 = ccp.md5;
+            this.bucketName = ccp.bucketName;
+            this.key = ccp.key;
+            this.uploadID = ccp.uploadID;
+            this.sourceStats = ccp.sourceStats;
+            this.composeParts = ccp.composeParts;
+            this.partETags = ccp.partETags;
+        }
+
+        public String magic;
+        public int md5;
+        public String bucketName;
+        public String key;
+        public String uploadID;
+        public ArrayList<SourceStat> sourceStats;
+        public ArrayList<ComposePart> composeParts;
+        public ArrayList<PartETag> partETags;
+    }
+
+    static class SourceStat implements Serializable {
+        private static final long serialVersionUID = 8217364012375932418L;
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((bucketName == null) ? 0 : bucketName.hashCode());
+            result = prime * result + ((key == null) ? 0 : key.hashCode());
+            result = prime * result + ((eTag == null) ? 0 : eTag.hashCode());
+            result = prime * result + (int) (beginIndex ^ (beginIndex >>> 32));
+            result = prime * result + (int) (length ^ (length >>> 32));
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SourceStat)) {
+                return false;
+            }
+            SourceStat other = (SourceStat) obj;
+            return bucketName.equals(other.bucketName) && key.equals(other.key)
+                    && (eTag == null ? other.eTag == null : eTag.equals(other.eTag))
+                    && beginIndex == other.beginIndex && length == other.length;
+        }
+
+        public String bucketName; // source bucket
+        public String key; // source key
+        public String eTag; // source ETag, the copies and reads are constrained by it.
+        public long beginIndex; // offset of the range in the source
+        public long length; // length of the range
+    }
+
+    static class Segment implements Serializable {
+        private static final long serialVersionUID = -5520318469871243206L;
+
+        public Segment(int source, long offset, long size) {
+            this.source = source;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + source;
+            result = prime * result + (int) (offset ^ (offset >>> 32));
+            result = prime * result + (int) (size ^ (size >>> 32));
+            return result;
+        }
+
+        public int source; // index of the source
+        public long offset; // offset in the source object
+        public long size; // segment size
+    }
+
+    static class ComposePart implements Serializable {
+        private static final long serialVersionUID = 2741098653129904571L;
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + (isCompleted ? 1231 : 1237);
+            result = prime * result + (isCopy ? 1231 : 1237);
+            result = prime * result + number;
+            result = prime * result + segments.hashCode();
+            result = prime * result + (int) (size ^ (size >>> 32));
+            return result;
+        }
+
+        public int number; // part number
+        public boolean isCopy; // copied on the server, it has a single segment.
+        public ArrayList<Segment> segments = new ArrayList<Segment>();
+        public long size; // part size
+        public boolean isCompleted; // upload completeness flag.
+    }
+
+    public OSSComposeOperation(OSSMultipartOperation multipartOperation, OSSObjectOperation objectOperation) {
+        this.multipartOperation = multipartOperation;
+        this.objectOperation = objectOperation;
+    }
+
+    public ComposeObjectResult composeObject(ComposeObjectRequest composeObjectRequest) throws Throwable {
+        assertParameterNotNull(composeObjectRequest, "composeObjectRequest");
+
+        String bucketName = composeObjectRequest.getBucketName();
+        String key = composeObjectRequest.getKey();
+
+        assertParameterNotNull(bucketName, "bucketName");
+        assertParameterNotNull(key, "key");
+        ensureBucketNameValid(bucketName);
+        ensureObjectKeyValid(key);
+
+        List<ComposeSource> sources = composeObjectRequest.getSources();
+        assertParameterNotNull(sources, "sources");
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("At least one source is required.");
+        }
+        for (ComposeSource source : sources) {
+            assertParameterNotNull(source.getBucketName(), "sourceBucketName");
+            assertParameterNotNull(source.getKey(), "sourceKey");
+            ensureBucketNameValid(source.getBucketName());
+            ensureObjectKeyValid(source.getKey());
+        }
+        if (composeObjectRequest.isEnableCheckpoint()) {
+            assertParameterNotNull(composeObjectRequest.getCheckpointFile(), "checkpointFile");
+        }
+
+        ArrayList<SourceStat> sourceStats = statSources(sources, composeObjectRequest.getTaskNum());
+        ComposeCheckPoint composeCheckPoint = new ComposeCheckPoint();
+
+        if (composeObjectRequest.isEnableCheckpoint()) {
+            // The checkpoint file either does not exist, or is corrupted, the
+            // whole object needs to be composed again.
+            try {
+                composeCheckPoint.load(composeObjectRequest.getCheckpointFile());
+            } catch (Exception e) {
+                remove(composeObjectRequest.getCheckpointFile());
+            }
+
+            // A source is updated, compose again.
+            if (!composeCheckPoint.isValid(bucketName, key, sourceStats)) {
+                prepare(composeCheckPoint, composeObjectRequest, sourceStats);
+                remove(composeObjectRequest.getCheckpointFile());
+            }
+        } else {
+            prepare(composeCheckPoint, composeObjectRequest, sourceStats);
+        }
+
+        try {
+            compose(composeCheckPoint, composeObjectRequest);
+        } catch (Throwable t) {
+            // Without a checkpoint nothing could resume the upload.
+            if (!composeObjectRequest.isEnableCheckpoint()) {
+                abort(composeCheckPoint, composeObjectRequest);
+            }
+            throw t;
+        }
+
+        ComposeObjectResult composeObjectResult = new ComposeObjectResult();
+        composeObjectResult.setMultipartUploadResult(complete(composeCheckPoint, composeObjectRequest));
+        for (ComposePart part : composeCheckPoint.composeParts) {
+            if (part.isCopy) {
+                composeObjectResult.setCopiedBytes(composeObjectResult.getCopiedBytes() + part.size);
+            } else {
+                composeObjectResult.setUploadedBytes(composeObjectResult.getUploadedBytes() + part.size);
+            }
+        }
+
+        if (composeObjectRequest.isEnableCheckpoint()) {
+            remove(composeObjectRequest.getCheckpointFile());
+        }
+
+        return composeObjectResult;
+    }
+
+    /**
+     * Gets the ETags and the ranges of the sources. The HEAD requests are sent
+     * concurrently, a batch per source bucket.
+     */
+    private ArrayList<SourceStat> statSources(List<ComposeSource> sources, int taskNum) throws Throwable {
+        Map<String, List<String>> keysByBucket = new LinkedHashMap<String, List<String>>();
+        for (ComposeSource source : sources) {
+            List<String> keys = keysByBucket.get(source.getBucketName());
+            if (keys == null) {
+                keys = new ArrayList<String>();
+                keysByBucket.put(source.getBucketName(), keys);
+            }
+            if (!keys.contains(source.getKey())) {
+                keys.add(source.getKey());
+            }
+        }
+
+        Map<String, ObjectMetadata> metadataByObject = new HashMap<String, ObjectMetadata>();
+        for (Map.Entry<String, List<String>> entry : keysByBucket.entrySet()) {
+            HeadObjectsRequest headObjectsRequest = new HeadObjectsRequest(entry.getKey(), entry.getValue())
+                    .withMaxConcurrency(taskNum);
+            Iterator<HeadObjectResult> results = objectOperation.headObjects(headObjectsRequest);
+            while (results.hasNext()) {
+                HeadObjectResult result = results.next();
+                if (result.isFailed()) {
+                    throw result.getException();
+                }
+                if (!result.isFound()) {
+                    throw ExceptionFactory.createOSSException(result.getRequestId(), OSSErrorCode.NO_SUCH_KEY,
+                            "The source object " + entry.getKey() + "/" + result.getKey() + " does not exist.");
+                }
+                metadataByObject.put(entry.getKey() + "/" + result.getKey(), result.getObjectMetadata());
+            }
+        }
+
+        ArrayList<SourceStat> sourceStats = new ArrayList<SourceStat>();
+        for (ComposeSource source : sources) {
+            ObjectMetadata metadata = metadataByObject.get(source.getBucketName() + "/" + source.getKey());
+            // The parts are copied and read as stored, the client-side encoded
+            // sources would make a result no client could decode.
+            Map<String, String> userMetadata = metadata.getUserMetadata();
+            if (userMetadata.containsKey(ContentCryptoMaterial.KEY_METADATA_KEY)) {
+                throw new IllegalArgumentException("The source " + source
+                        + " is encrypted by the client-side encryption and can't be composed.");
+            }
+            if (userMetadata.containsKey(CompressionCodecs.CODEC_METADATA_KEY)) {
+                throw new IllegalArgumentException("The source " + source
+                        + " is compressed by the client-side compression and can't be composed.");
+            }
+            SourceStat stat = new SourceStat();
+            stat.bucketName = source.getBucketName();
+            stat.key = source.getKey();
+            stat.eTag = metadata.getETag();
+            if (source.getBeginIndex() != null) {
+                stat.beginIndex = source.getBeginIndex();
+                stat.length = source.getLength();
+                if (stat.beginIndex < 0 || stat.length < 0
+                        || stat.beginIndex + stat.length > metadata.getContentLength()) {
+                    throw new IllegalArgumentException("The range of the source " + source
+                            + " is out of the object size " + metadata.getContentLength() + ".");
+                }
+            } else {
+                stat.beginIndex = 0;
+                stat.length = metadata.getContentLength();
+            }
+            sourceStats.add(stat);
+        }
+        return sourceStats;
+    }
+
+    private void prepare(ComposeCheckPoint composeCheckPoint, ComposeObjectRequest composeObjectRequest,
+            ArrayList<SourceStat> sourceStats) {
+        composeCheckPoint.magic = ComposeCheckPoint.COMPOSE_MAGIC;
+        composeCheckPoint.bucketName = composeObjectRequest.getBucketName();
+        composeCheckPoint.key = composeObjectRequest.getKey();
+        composeCheckPoint.sourceStats = sourceStats;
+        composeCheckPoint.composeParts = planParts(sourceStats, composeObjectRequest.getPartSize(),
+                composeObjectRequest.getCopyPartSize());
+        composeCheckPoint.partETags = new ArrayList<PartETag>();
+
+        ObjectMetadata metadata = composeObjectRequest.getObjectMetadata();
+        if (metadata == null) {
+            metadata = new ObjectMetadata();
+        }
+
+        if (metadata.getContentType() == null) {
+            metadata.setContentType(Mimetypes.getInstance().getMimetype(composeCheckPoint.key));
+        }
+
+        InitiateMultipartUploadRequest initiateUploadRequest = new InitiateMultipartUploadRequest(
+                composeObjectRequest.getBucketName(), composeObjectRequest.getKey(), metadata);
+        InitiateMultipartUploadResult initiateUploadResult = multipartOperation
+                .initiateMultipartUpload(initiateUploadRequest);
+        composeCheckPoint.uploadID = initiateUploadResult.getUploadId();
+    }
+
+    /**
+     * Splits the sources into parts. Every part but the last one is at least
+     * the minimum part size.
+     */
+    static ArrayList<ComposePart> planParts(List<SourceStat> sourceStats, long partSize, long copyPartSize) {
+        final long minPartSize = ComposeObjectRequest.MIN_PART_SIZE;
+        ArrayList<ComposePart> parts = new ArrayList<ComposePart>();
+        ComposePart buffer = new ComposePart();
+
+        for (int i = 0; i < sourceStats.size(); i++) {
+            long offset = sourceStats.get(i).beginIndex;
+            long remaining = sourceStats.get(i).length;
+
+            if (remaining >= minPartSize && buffer.size > 0) {
+                if (buffer.size < minPartSize) {
+                    // The buffer borrows the head of the source, unless the
+                    // rest would be too small to be copied.
+                    long needed = minPartSize - buffer.size;
+                    if (remaining - needed >= minPartSize) {
+                        addSegment(buffer, i, offset, needed);
+                        offset += needed;
+                        remaining -= needed;
+                    } else {
+                        addSegment(buffer, i, offset, remaining);
+                        remaining = 0;
+                    }
+                }
+                if (buffer.size >= minPartSize) {
+                    buffer = addPart(parts, buffer);
+                }
+            }
+
+            if (remaining >= minPartSize) {
+                while (remaining > 0) {
+                    long size = Math.min(remaining, copyPartSize);
+                    if (remaining - size > 0 && remaining - size < minPartSize) {
+                        size = remaining - minPartSize;
+                    }
+                    ComposePart part = new ComposePart();
+                    part.isCopy = true;
+                    addSegment(part, i, offset, size);
+                    addPart(parts, part);
+                    offset += size;
+                    remaining -= size;
+                }
+            } else if (remaining > 0) {
+                addSegment(buffer, i, offset, remaining);
+                if (buffer.size >= partSize) {
+                    buffer = addPart(parts, buffer);
+                }
+            }
+        }
+
+        // The last part may be small, an empty object is a single empty part.
+        if (buffer.size > 0 || parts.isEmpty()) {
+            addPart(parts, buffer);
+        }
+
+        if (parts.size() > 10000) {
+            throw new IllegalArgumentException("The sources need " + parts.size()
+                    + " parts, more than 10000, a larger part size is required.");
+        }
+        return parts;
+    }
+
+    private static void addSegment(ComposePart part, int source, long offset, long size) {
+        part.segments.add(new Segment(source, offset, size));
+        part.size += size;
+    }
+
+    private static ComposePart addPart(List<ComposePart> parts, ComposePart part) {
+        part.number = parts.size() + 1;
+        parts.add(part);
+        return new ComposePart();
+    }
+
+    private ExecutorService newTaskExecutor(int taskNum) {
+        boolean virtualThreads = multipartOperation.getInnerClient().getClientConfiguration().isVirtualThreadsEnabled();
+        return Executors.newFixedThreadPool(taskNum,
+                VirtualThreads.threadFactory(virtualThreads, "oss-compose-", Executors.defaultThreadFactory()));
+    }
+
+    private void compose(ComposeCheckPoint composeCheckPoint, ComposeObjectRequest composeObjectRequest)
+            throws Throwable {
+        ExecutorService service = newTaskExecutor(composeObjectRequest.getTaskNum());
+        ArrayList<Future<Void>> futures = new ArrayList<Future<Void>>();
+
+        for (int i = 0; i < composeCheckPoint.composeParts.size(); i++) {
+            if (!composeCheckPoint.composeParts.get(i).isCompleted) {
+                futures.add(service.submit(new Task(i, composeCheckPoint, composeObjectRequest)));
+            }
+        }
+        service.shutdown();
+
+        // Waiting for parts upload complete.
+        service.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    class Task implements Callable<Void> {
+
+        public Task(int partIndex, ComposeCheckPoint composeCheckPoint, ComposeObjectRequest composeObjectRequest) {
+            this.partIndex = partIndex;
+            this.composeCheckPoint = composeCheckPoint;
+            this.composeObjectRequest = composeObjectRequest;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            ComposePart part = composeCheckPoint.composeParts.get(partIndex);
+            try {
+                PartETag partETag = part.isCopy ? copyPart(part) : uploadPart(part);
+                composeCheckPoint.update(partIndex, partETag);
+                if (composeObjectRequest.isEnableCheckpoint()) {
+                    composeCheckPoint.dump(composeObjectRequest.getCheckpointFile());
+                }
+                return null;
+            } catch (Exception e) {
+                logException(String.format("Compose part %d of %s failed: ", part.number,
+                        composeObjectRequest.getKey()), e);
+                throw e;
+            }
+        }
+
+        private PartETag copyPart(ComposePart part) {
+            Segment segment = part.segments.get(0);
+            SourceStat source = composeCheckPoint.sourceStats.get(segment.source);
+            UploadPartCopyRequest uploadPartCopyRequest = new UploadPartCopyRequest(source.bucketName, source.key,
+                    composeObjectRequest.getBucketName(), composeObjectRequest.getKey(), composeCheckPoint.uploadID,
+                    part.number, segment.offset, segment.size);
+            if (source.eTag != null) {
+                uploadPartCopyRequest.setMatchingETagConstraints(Collections.singletonList(source.eTag));
+            }
+            return multipartOperation.uploadPartCopy(uploadPartCopyRequest).getPartETag();
+        }
+
+        private PartETag uploadPart(ComposePart part) throws IOException {
+            ByteArrayOutputStream content = new ByteArrayOutputStream((int) part.size);
+            byte[] buffer = new byte[OSSConstants.DEFAULT_BUFFER_SIZE];
+            for (Segment segment : part.segments) {
+                SourceStat source = composeCheckPoint.sourceStats.get(segment.source);
+                GetObjectRequest getObjectRequest = new GetObjectRequest(source.bucketName, source.key);
+                getObjectRequest.setRange(segment.offset, segment.offset + segment.size - 1);
+                if (source.eTag != null) {
+                    getObjectRequest.setMatchingETagConstraints(Collections.singletonList(source.eTag));
+                }
+                OSSObject object = objectOperation.getObject(getObjectRequest);
+                InputStream instream = object.getObjectContent();
+                try {
+                    long remaining = segment.size;
+                    while (remaining > 0) {
+                        int bytesRead = instream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                        if (bytesRead == -1) {
+                            throw new IOException("Unexpected end of the source " + source.bucketName + "/"
+                                    + source.key);
+                        }
+                        content.write(buffer, 0, bytesRead);
+                        remaining -= bytesRead;
+                    }
+                } finally {
+                    object.close();
+                }
+            }
+
+            UploadPartRequest uploadPartRequest = new UploadPartRequest();
+            uploadPartRequest.setBucketName(composeObjectRequest.getBucketName());
+            uploadPartRequest.setKey(composeObjectRequest.getKey());
+            uploadPartRequest.setUploadId(composeCheckPoint.uploadID);
+            uploadPartRequest.setPartNumber(part.number);
+            uploadPartRequest.setInputStream(new ByteArrayInputStream(content.toByteArray()));
+            uploadPartRequest.setPartSize(part.size);
+            return multipartOperation.uploadPart(uploadPartRequest).getPartETag();
+        }
+
+        private int partIndex;
+        private ComposeCheckPoint composeCheckPoint;
+        private ComposeObjectRequest composeObjectRequest;
+    }
+
+    private CompleteMultipartUploadResult complete(ComposeCheckPoint composeCheckPoint,
+            ComposeObjectRequest composeObjectRequest) {
+        Collections.sort(composeCheckPoint.partETags, new Comparator<PartETag>() {
+            @Override
+            public int compare(PartETag p1, PartETag p2) {
+                return p1.getPartNumber() - p2.getPartNumber();
+            }
+        });
+        CompleteMultipartUploadRequest completeUploadRequest = new CompleteMultipartUploadRequest(
+                composeObjectRequest.getBucketName(), composeObjectRequest.getKey(), composeCheckPoint.uploadID,
+                composeCheckPoint.partETags);
+        completeUploadRequest.setCallback(composeObjectRequest.getCallback());
+        return multipartOperation.completeMultipartUpload(completeUploadRequest);
+    }
+
+    private void abort(ComposeCheckPoint composeCheckPoint, ComposeObjectRequest composeObjectRequest) {
+        try {
+            multipartOperation.abortMultipartUpload(new AbortMultipartUploadRequest(
+                    composeObjectRequest.getBucketName(), composeObjectRequest.getKey(), composeCheckPoint.uploadID));
+        } catch (Exception e) {
+            logException("Abort the upload " + composeCheckPoint.uploadID + " failed: ", e);
+        }
+    }
+
+    private boolean remove(String filePath) {
+        boolean flag = false;
+        File file = new File(filePath);
+
+        if (file.isFile() && file.exists()) {
+            flag = file.delete();
+        }
+
+        return flag;
+    }
+
+    private OSSMultipartOperation multipartOperation;
+    private OSSObjectOperation objectOperation;
+}
@@ -47,7 +47,9 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+import com.aliyun.oss.common.utils.VirtualThreads;
 import com.aliyun.oss.event.ProgressEventType;
 import com.aliyun.oss.event.ProgressListener;
 import com.aliyun.oss.event.ProgressPublisher;
@@ -70,28 +72,41 @@ public class OSSDownloadOperation {
         private static final long serialVersionUID = 4682293344365787077L;
         private static final String DOWNLOAD_MAGIC = "92611BED-89E2-46B6-89E5-72F273D4B0A3";
 
+        // Not a monitor, so virtual threads aren't pinned while the file is written.
+        private final transient ReentrantLock lock = new ReentrantLock();
+
         /**
          * Loads the checkpoint data from the checkpoint file.
          */
-        public synchronized void load(String cpFile) throws IOException, ClassNotFoundException {
-            FileInputStream fileIn = new FileInputStream(cpFile);
-            ObjectInputStream in = new ObjectInputStream(fileIn);
-            DownloadCheckPoint dcp = (DownloadCheckPoint) in.readObject();
-            assign(dcp);
-            in.close();
-            fileIn.close();
+        public void load(String cpFile) throws IOException, ClassNotFoundException {
+            lock.lock();
+            try {
+                FileInputStream fileIn = new FileInputStream(cpFile);
+                ObjectInputStream in = new ObjectInputStream(fileIn);
+                DownloadCheckPoint dcp = (DownloadCheckPoint) in.readObject();
+                assign(dcp);
+                in.close();
+                fileIn.close();
+            } finally {
+                lock.unlock();
+            }
         }
 
         /**
          * Writes the checkpoint data to the checkpoint file.
          */
-        public synchronized void dump(String cpFile) throws IOException {
-            this.md5 = hashCode();
-            FileOutputStream fileOut = new FileOutputStream(cpFile);
-            ObjectOutputStream outStream = new ObjectOutputStream(fileOut);
-            outStream.writeObject(this);
-            outStream.close();
-            fileOut.close();
+        public void dump(String cpFile) throws IOException {
+            lock.lock();
+            try {
+                this.md5 = hashCode();
+                FileOutputStream fileOut = new FileOutputStream(cpFile);
+                ObjectOutputStream outStream = new ObjectOutputStream(fileOut);
+                outStream.writeObject(this);
+                outStream.close();
+                fileOut.close();
+            } finally {
+                lock.unlock();
+            }
         }
 
         /**
@@ -99,30 +114,41 @@ public class OSSDownloadOperation {
          * 
          * @throws IOException
          */
-        public synchronized void update(int index, boolean completed) throws IOException {
-            downloadParts.get(index).isCompleted = completed;
+        public void update(int index, boolean completed) throws IOException {
+            lock.lock();
+            try {
+                downloadParts.get(index).isCompleted = completed;
+            } finally {
+                lock.unlock();
+            }
         }
 
         /**
          * Check if the object matches the checkpoint information.
          */
-        public synchronized boolean isValid(OSSObjectOperation objectOperation) {
-            // 比较checkpoint的magic和md5
-            if (this.magic == null || !this.magic.equals(DOWNLOAD_MAGIC) || this.md5 != hashCode()) {
-                return false;
-            }
+        public boolean isValid(OSSObjectOperation objectOperation) {
+            lock.lock();
+            try {
+                // 比较checkpoint的magic和md5
+                if (this.magic == null || !this.magic.equals(DOWNLOAD_MAGIC) || this.md5 != hashCode()) {
+                    return false;
+                }
 
-            GenericRequest genericRequest = new GenericRequest(bucketName, objectKey);
-            SimplifiedObjectMeta meta = objectOperation.getSimplifiedObjectMeta(genericRequest);
+                GenericRequest genericRequest = new GenericRequest(bucketName, objectKey);
+                SimplifiedObjectMeta meta = objectOperation.getSimplifiedObjectMeta(genericRequest);
 
-            // Object's size, last modified time or ETAG are not same as the one
-            // in the checkpoint.
-            if (this.objectStat.size != meta.getSize() || !this.objectStat.lastModified.equals(meta.getLastModified())
-                    || !this.objectStat.digest.equals(meta.getETag())) {
-                return false;
-            }
+                // Object's size, last modified time or ETAG are not same as the one
+                // in the checkpoint.
+                if (this.objectStat.size != meta.getSize()
+                        || !this.objectStat.lastModified.equals(meta.getLastModified())
+                        || !this.objectStat.digest.equals(meta.getETag())) {
+                    return false;
+                }
 
-            return true;
+                return true;
+            } finally {
+                lock.unlock();
+            }
         }
 
         @Override
@@ -398,11 +424,17 @@ public class OSSDownloadOperation {
         }
     }
 
+    private ExecutorService newTaskExecutor(int taskNum) {
+        boolean virtualThreads = objectOperation.getInnerClient().getClientConfiguration().isVirtualThreadsEnabled();
+        return Executors.newFixedThreadPool(taskNum,
+                VirtualThreads.threadFactory(virtualThreads, "oss-download-", Executors.defaultThreadFactory()));
+    }
+
     private DownloadResult download(DownloadCheckPoint downloadCheckPoint, DownloadFileRequest downloadFileRequest)
             throws Throwable {
         DownloadResult downloadResult = new DownloadResult();
         ArrayList<PartResult> taskResults = new ArrayList<PartResult>();
-        ExecutorService service = Executors.newFixedThreadPool(downloadFileRequest.getTaskNum());
+        ExecutorService service = newTaskExecutor(downloadFileRequest.getTaskNum());
         ArrayList<Future<PartResult>> futures = new ArrayList<Future<PartResult>>();
         List<Task> tasks = new ArrayList<Task>();
         ProgressListener listener = downloadFileRequest.getProgressListener();
@@ -41,7 +41,7 @@ public class OSSErrorResponseHandler implements ResponseHandler {
 
     public void handle(ResponseMessage response) throws OSSException, ClientException {
 
-        if (response.isSuccessful()) {
+        if (response.isSuccessful() || isAccepted(response)) {
             return;
         }
 
@@ -75,4 +75,8 @@ public class OSSErrorResponseHandler implements ResponseHandler {
         }
     }
 
+    private static boolean isAccepted(ResponseMessage response) {
+        return response.getRequest() != null && response.getRequest().isAcceptedStatusCode(response.getStatusCode());
+    }
+
 }
@@ -46,6 +46,7 @@ import static com.aliyun.oss.internal.ResponseParsers.listMultipartUploadsRespon
 import static com.aliyun.oss.internal.ResponseParsers.listPartsResponseParser;
 
 import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -61,6 +62,7 @@ import com.aliyun.oss.HttpMethod;
 import com.aliyun.oss.OSSException;
 import com.aliyun.oss.common.auth.CredentialsProvider;
 import com.aliyun.oss.common.comm.RequestMessage;
+import com.aliyun.oss.common.comm.io.BodyPipelineInputStream;
 import com.aliyun.oss.common.comm.ResponseHandler;
 import com.aliyun.oss.common.comm.ResponseMessage;
 import com.aliyun.oss.common.comm.ServiceClient;
@@ -94,8 +96,17 @@ public class OSSMultipartOperation extends OSSOperation {
     private static final int LIST_UPLOAD_MAX_RETURNS = 1000;
     private static final int MAX_PART_NUMBER = 10000;
 
+    // The operation whose caches are invalidated by the completed uploads.
+    private final OSSObjectOperation objectOperation;
+
     public OSSMultipartOperation(ServiceClient client, CredentialsProvider credsProvider) {
+        this(client, credsProvider, null);
+    }
+
+    public OSSMultipartOperation(ServiceClient client, CredentialsProvider credsProvider,
+            OSSObjectOperation objectOperation) {
         super(client, credsProvider);
+        this.objectOperation = objectOperation;
     }
 
     /**
@@ -171,11 +182,17 @@ public class OSSMultipartOperation extends OSSOperation {
         reponseHandlers.add(new OSSCallbackErrorResponseHandler());
 
         CompleteMultipartUploadResult result = null;
-        if (!isNeedReturnResponse(completeMultipartUploadRequest)) {
-            result = doOperation(request, completeMultipartUploadResponseParser, bucketName, key, true);
-        } else {
-            result = doOperation(request, completeMultipartUploadProcessResponseParser, bucketName, key, true, null,
-                    reponseHandlers);
+        try {
+            if (!isNeedReturnResponse(completeMultipartUploadRequest)) {
+                result = doOperation(request, completeMultipartUploadResponseParser, bucketName, key, true);
+            } else {
+                result = doOperation(request, completeMultipartUploadProcessResponseParser, bucketName, key, true,
+                        null, reponseHandlers);
+            }
+        } finally {
+            if (objectOperation != null) {
+                objectOperation.invalidateCachedObject(bucketName, key);
+            }
         }
 
         result.setClientCRC(calcObjectCRCFromParts(completeMultipartUploadRequest.getPartETags()));
@@ -300,7 +317,15 @@ public class OSSMultipartOperation extends OSSOperation {
 
         InputStream repeatableInputStream = null;
         try {
-            repeatableInputStream = newRepeatableInputStream(uploadPartRequest.buildPartialStream());
+            InputStream partStream = uploadPartRequest.getInputStream();
+            if (partStream instanceof FileInputStream) {
+                repeatableInputStream = newRepeatableInputStream(uploadPartRequest.buildPartialStream());
+            } else if (partStream.markSupported()) {
+                repeatableInputStream = new BodyPipelineInputStream(partStream).withLimit(uploadPartRequest.getPartSize());
+            } else {
+                repeatableInputStream = new BodyPipelineInputStream(partStream).withLimit(uploadPartRequest.getPartSize())
+                        .withReplayBuffer();
+            }
         } catch (IOException ex) {
             logException("Cannot wrap to repeatable input stream: ", ex);
             throw new ClientException("Cannot wrap to repeatable input stream: ", ex);
@@ -36,6 +36,7 @@ import static com.aliyun.oss.internal.OSSUtils.OSS_RESOURCE_MANAGER;
 import static com.aliyun.oss.internal.OSSUtils.addDateHeader;
 import static com.aliyun.oss.internal.OSSUtils.addHeader;
 import static com.aliyun.oss.internal.OSSUtils.addStringListHeader;
+import static com.aliyun.oss.internal.OSSUtils.copyObjectMetadata;
 import static com.aliyun.oss.internal.OSSUtils.determineInputStreamLength;
 import static com.aliyun.oss.internal.OSSUtils.ensureBucketNameValid;
 import static com.aliyun.oss.internal.OSSUtils.ensureObjectKeyValid;
@@ -68,13 +69,26 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.math.BigInteger;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.CheckedInputStream;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.http.HttpStatus;
 
@@ -84,10 +98,24 @@ import com.aliyun.oss.OSSErrorCode;
 import com.aliyun.oss.OSSException;
 import com.aliyun.oss.ServiceException;
 import com.aliyun.oss.common.auth.CredentialsProvider;
+import com.aliyun.oss.common.cache.CachedMetadata;
+import com.aliyun.oss.common.cache.CachedObject;
+import com.aliyun.oss.common.cache.MetadataCache;
+import com.aliyun.oss.common.cache.MetadataCachePolicy;
+import com.aliyun.oss.common.cache.MetadataCacheStats;
+import com.aliyun.oss.common.cache.ObjectCachePolicy;
+import com.aliyun.oss.common.cache.ObjectCacheStats;
+import com.aliyun.oss.common.cache.TieredObjectCache;
+import com.aliyun.oss.common.compress.CompressionCodec;
+import com.aliyun.oss.common.compress.CompressionCodecs;
+import com.aliyun.oss.common.crypto.ContentCryptoMaterial;
+import com.aliyun.oss.common.crypto.EncryptionMaterials;
+import com.aliyun.oss.common.comm.RequestCoalescer;
 import com.aliyun.oss.common.comm.RequestMessage;
 import com.aliyun.oss.common.comm.ResponseHandler;
 import com.aliyun.oss.common.comm.ResponseMessage;
 import com.aliyun.oss.common.comm.ServiceClient;
+import com.aliyun.oss.common.comm.io.BodyPipelineInputStream;
 import com.aliyun.oss.common.comm.io.RepeatableFileInputStream;
 import com.aliyun.oss.common.parser.ResponseParser;
 import com.aliyun.oss.common.utils.BinaryUtil;
@@ -98,10 +126,11 @@ import com.aliyun.oss.common.utils.HttpHeaders;
 import com.aliyun.oss.common.utils.HttpUtil;
 import com.aliyun.oss.common.utils.IOUtils;
 import com.aliyun.oss.common.utils.RangeSpec;
+import com.aliyun.oss.common.utils.VirtualThreads;
 import com.aliyun.oss.event.ProgressEventType;
-import com.aliyun.oss.event.ProgressInputStream;
 import com.aliyun.oss.event.ProgressListener;
 import com.aliyun.oss.internal.ResponseParsers.GetObjectResponseParser;
+import com.aliyun.oss.internal.ResponseParsers.HeadObjectResponseParser;
 import com.aliyun.oss.model.AppendObjectRequest;
 import com.aliyun.oss.model.AppendObjectResult;
 import com.aliyun.oss.model.CannedAccessControlList;
@@ -114,6 +143,8 @@ import com.aliyun.oss.model.GenericRequest;
 import com.aliyun.oss.model.GenericResult;
 import com.aliyun.oss.model.GetObjectRequest;
 import com.aliyun.oss.model.HeadObjectRequest;
+import com.aliyun.oss.model.HeadObjectResult;
+import com.aliyun.oss.model.HeadObjectsRequest;
 import com.aliyun.oss.model.OSSObject;
 import com.aliyun.oss.model.OSSSymlink;
 import com.aliyun.oss.model.ObjectAcl;
@@ -124,14 +155,27 @@ import com.aliyun.oss.model.PutObjectResult;
 import com.aliyun.oss.model.RestoreObjectResult;
 import com.aliyun.oss.model.SetObjectAclRequest;
 import com.aliyun.oss.model.SimplifiedObjectMeta;
+import com.aliyun.oss.model.WebServiceRequest;
 
 /**
  * Object operation.
  */
 public class OSSObjectOperation extends OSSOperation {
 
+    private final TieredObjectCache objectCache;
+    private final MetadataCache metadataCache;
+    private final RequestCoalescer requestCoalescer;
+    private volatile ExecutorService batchExecutor;
+    private final Lock batchExecutorLock = new ReentrantLock();
+
     public OSSObjectOperation(ServiceClient client, CredentialsProvider credsProvider) {
         super(client, credsProvider);
+        ObjectCachePolicy objectCachePolicy = client.getClientConfiguration().getObjectCachePolicy();
+        this.objectCache = objectCachePolicy != null ? new TieredObjectCache(objectCachePolicy) : null;
+        MetadataCachePolicy metadataCachePolicy = client.getClientConfiguration().getMetadataCachePolicy();
+        this.metadataCache = metadataCachePolicy != null ? new MetadataCache(metadataCachePolicy) : null;
+        this.requestCoalescer = client.getClientConfiguration().isRequestCoalescingEnabled() ? new RequestCoalescer()
+                : null;
     }
 
     /**
@@ -225,6 +269,7 @@ public class OSSObjectOperation extends OSSOperation {
         String bucketName = null;
         String key = null;
         RequestMessage request = null;
+        boolean cacheable = false;
 
         if (!getObjectRequest.isUseUrlSignature()) {
             assertParameterNotNull(getObjectRequest, "getObjectRequest");
@@ -251,6 +296,8 @@ public class OSSObjectOperation extends OSSOperation {
             request = new OSSRequestMessageBuilder(getInnerClient()).setEndpoint(getEndpoint())
                     .setMethod(HttpMethod.GET).setBucket(bucketName).setKey(key).setHeaders(headers)
                     .setParameters(params).setOriginalRequest(getObjectRequest).build();
+
+            cacheable = objectCache != null && isCacheable(getObjectRequest);
         } else {
             request = new RequestMessage(getObjectRequest, bucketName, key);
             request.setMethod(HttpMethod.GET);
@@ -263,17 +310,23 @@ public class OSSObjectOperation extends OSSOperation {
         OSSObject ossObject = null;
         try {
             publishProgress(listener, ProgressEventType.TRANSFER_STARTED_EVENT);
-            ossObject = doOperation(request, new GetObjectResponseParser(bucketName, key), bucketName, key, true);
+            if (cacheable) {
+                ossObject = getObjectThroughCache(request, bucketName, key);
+            } else {
+                ossObject = sendGetObjectRequest(request, bucketName, key);
+            }
             InputStream instream = ossObject.getObjectContent();
-            ProgressInputStream progressInputStream = new ProgressInputStream(instream, listener) {
-                @Override
-                protected void onEOF() {
-                    publishProgress(getListener(), ProgressEventType.TRANSFER_COMPLETED_EVENT);
-                };
-            };
-            CRC64 crc = new CRC64();
-            CheckedInputStream checkedInputstream = new CheckedInputStream(progressInputStream, crc);
-            ossObject.setObjectContent(checkedInputstream);
+            instream = BodyPipelineInputStream.pipelineOf(instream).withTransferCompletedEvent(listener).withChecksum();
+            ContentCryptoMaterial cryptoMaterial = getContentCryptoMaterial(getObjectRequest,
+                    ossObject.getObjectMetadata());
+            if (cryptoMaterial != null) {
+                instream = cryptoMaterial.newCipherStream(instream, getContentOffset(ossObject.getObjectMetadata()));
+            }
+            CompressionCodec codec = getContentCodec(getObjectRequest, ossObject.getObjectMetadata());
+            if (codec != null) {
+                instream = CompressionCodecs.decompress(instream, codec);
+            }
+            ossObject.setObjectContent(instream);
         } catch (RuntimeException e) {
             publishProgress(listener, ProgressEventType.TRANSFER_FAILED_EVENT);
             throw e;
@@ -282,6 +335,300 @@ public class OSSObjectOperation extends OSSOperation {
         return ossObject;
     }
 
+    /**
+     * Gets the data key of an object encrypted by the client-side encryption,
+     * or null if its content isn't decrypted.
+     */
+    private ContentCryptoMaterial getContentCryptoMaterial(GetObjectRequest getObjectRequest,
+            ObjectMetadata metadata) {
+        EncryptionMaterials encryptionMaterials = getEncryptionMaterials(getObjectRequest.getEncryptionMaterials());
+        if (encryptionMaterials == null || metadata == null) {
+            return null;
+        }
+        return ContentCryptoMaterial.fromMetadata(metadata.getUserMetadata(), encryptionMaterials);
+    }
+
+    /**
+     * Gets the offset of the returned content in the object from the
+     * Content-Range header of a range GET.
+     */
+    static long getContentOffset(ObjectMetadata metadata) {
+        for (Map.Entry<String, Object> header : metadata.getRawMetadata().entrySet()) {
+            if (header.getKey().equalsIgnoreCase(OSSHeaders.CONTENT_RANGE) && header.getValue() != null) {
+                // Content-Range: bytes 100-199/1000
+                String range = header.getValue().toString().trim();
+                int start = range.indexOf(' ');
+                int end = range.indexOf('-');
+                if (end > start) {
+                    try {
+                        return Long.parseLong(range.substring(start + 1, end).trim());
+                    } catch (NumberFormatException e) {
+                        throw new ClientException("Invalid Content-Range: " + range);
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the codec of an object compressed by the client-side compression,
+     * or null if its content is returned as it is.
+     */
+    private static CompressionCodec getContentCodec(GetObjectRequest getObjectRequest, ObjectMetadata metadata) {
+        if (!getObjectRequest.isDecompressionEnabled() || getObjectRequest.getRange() != null
+                || getObjectRequest.getProcess() != null || metadata == null) {
+            return null;
+        }
+        for (String header : getObjectRequest.getHeaders().keySet()) {
+            if (header.equalsIgnoreCase(OSSHeaders.RANGE)) {
+                return null;
+            }
+        }
+        String name = metadata.getUserMetadata().get(CompressionCodecs.CODEC_METADATA_KEY);
+        return name != null ? CompressionCodecs.get(name) : null;
+    }
+
+    /**
+     * Revalidates the cached copy of the object, if any, with a conditional GET
+     * and serves it when OSS responds 304 Not Modified. Otherwise the
+     * downloaded content is added to the cache once it has been read.
+     */
+    private OSSObject getObjectThroughCache(RequestMessage request, String bucketName, String key) {
+
+        String cacheKey = getCacheKey(bucketName, key);
+        CachedObject cachedObject = objectCache.get(cacheKey);
+        InputStream cachedContent = null;
+        if (cachedObject != null) {
+            try {
+                cachedContent = cachedObject.openContent();
+                request.addHeader(OSSHeaders.GET_OBJECT_IF_NONE_MATCH,
+                        joinETags(Collections.singletonList(cachedObject.getETag())));
+                request.setAcceptedStatusCodes(HttpStatus.SC_NOT_MODIFIED);
+            } catch (IOException e) {
+                // The file of the disk tier has just been evicted.
+                cachedObject = null;
+            }
+        }
+
+        OSSObject ossObject = null;
+        try {
+            ossObject = sendGetObjectRequest(request, bucketName, key);
+        } catch (RuntimeException e) {
+            safeClose(cachedContent);
+            throw e;
+        }
+
+        if (cachedObject != null && isNotModified(ossObject)) {
+            safeCloseResponse(ossObject.getResponse());
+            objectCache.recordHit();
+            return newCachedOSSObject(bucketName, key, cachedObject, cachedContent, ossObject.getRequestId());
+        }
+
+        safeClose(cachedContent);
+        objectCache.recordMiss();
+        ossObject.setObjectContent(
+                objectCache.cacheOnRead(cacheKey, ossObject.getObjectMetadata(), ossObject.getObjectContent()));
+        return ossObject;
+    }
+
+    private static boolean isNotModified(OSSObject ossObject) {
+        return ossObject.getResponse() != null
+                && ossObject.getResponse().getStatusCode() == HttpStatus.SC_NOT_MODIFIED;
+    }
+
+    /**
+     * Sends the GET request, or waits for an identical one in flight and gets
+     * a copy of its metadata and buffered body.
+     */
+    private OSSObject sendGetObjectRequest(final RequestMessage request, final String bucketName, final String key) {
+        if (requestCoalescer == null || request.isUseUrlSignature()) {
+            return doOperation(request, new GetObjectResponseParser(bucketName, key), bucketName, key, true);
+        }
+
+        final long maxBodySize = client.getClientConfiguration().getMaxCoalescedBodySize();
+        return requestCoalescer.execute(getCoalescingKey(request, bucketName, key),
+                new RequestCoalescer.Execution<OSSObject, SharedObject>() {
+
+                    @Override
+                    protected OSSObject execute() {
+                        return doOperation(request, new GetObjectResponseParser(bucketName, key), bucketName, key,
+                                true);
+                    }
+
+                    @Override
+                    protected SharedObject share(OSSObject ossObject) {
+                        ObjectMetadata metadata = ossObject.getObjectMetadata();
+                        if (isNotModified(ossObject) || !metadata.getRawMetadata().containsKey(OSSHeaders.CONTENT_LENGTH)
+                                || metadata.getContentLength() > maxBodySize) {
+                            return null;
+                        }
+                        try {
+                            return new SharedObject(ossObject,
+                                    IOUtils.readStreamAsByteArray(ossObject.getObjectContent()));
+                        } catch (IOException e) {
+                            logException("Cannot read object content stream: ", e);
+                            throw new ClientException(OSS_RESOURCE_MANAGER.getString("CannotReadContentStream"), e);
+                        } finally {
+                            safeClose(ossObject.getObjectContent());
+                        }
+                    }
+
+                    @Override
+                    protected OSSObject copy(SharedObject shared) {
+                        return shared.newOSSObject();
+                    }
+                });
+    }
+
+    /**
+     * Sends the HEAD request, or waits for an identical one in flight and gets
+     * a copy of its metadata.
+     */
+    private ObjectMetadata sendHeadObjectRequest(final RequestMessage request, final String bucketName,
+            final String key, final List<ResponseHandler> reponseHandlers) {
+        if (requestCoalescer == null) {
+            return doOperation(request, getObjectMetadataResponseParser, bucketName, key, true, null,
+                    reponseHandlers);
+        }
+
+        return requestCoalescer.execute(getCoalescingKey(request, bucketName, key),
+                new RequestCoalescer.Execution<ObjectMetadata, ObjectMetadata>() {
+
+                    @Override
+                    protected ObjectMetadata execute() {
+                        return doOperation(request, getObjectMetadataResponseParser, bucketName, key, true, null,
+                                reponseHandlers);
+                    }
+
+                    @Override
+                    protected ObjectMetadata share(ObjectMetadata metadata) {
+                        return metadata;
+                    }
+
+                    @Override
+                    protected ObjectMetadata copy(ObjectMetadata metadata) {
+                        return copyObjectMetadata(metadata);
+                    }
+                });
+    }
+
+    /**
+     * Identifies the requests for the same object with the same range,
+     * version, constraints and other headers and parameters of the caller.
+     * The Date header is set by the SDK for each request, so it's left out.
+     */
+    private String getCoalescingKey(RequestMessage request, String bucketName, String key) {
+        WebServiceRequest originalRequest = request.getOriginalRequest();
+        Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(request.getHeaders());
+        headers.remove(OSSHeaders.DATE);
+        return request.getMethod() + " " + getCacheKey(bucketName, key) + " " + headers
+                + new TreeMap<String, String>(request.getParameters())
+                + new TreeMap<String, String>(originalRequest.getHeaders())
+                + new TreeMap<String, String>(originalRequest.getParameters());
+    }
+
+    /**
+     * The response of a coalesced GET request, with its body buffered.
+     */
+    private static class SharedObject {
+        private final String bucketName;
+        private final String key;
+        private final String requestId;
+        private final Long serverCRC;
+        private final ObjectMetadata metadata;
+        private final byte[] content;
+
+        SharedObject(OSSObject ossObject, byte[] content) {
+            this.bucketName = ossObject.getBucketName();
+            this.key = ossObject.getKey();
+            this.requestId = ossObject.getRequestId();
+            this.serverCRC = ossObject.getServerCRC();
+            this.metadata = ossObject.getObjectMetadata();
+            this.content = content;
+        }
+
+        OSSObject newOSSObject() {
+            OSSObject ossObject = new OSSObject();
+            ossObject.setBucketName(bucketName);
+            ossObject.setKey(key);
+            ossObject.setRequestId(requestId);
+            ossObject.setServerCRC(serverCRC);
+            ossObject.setObjectMetadata(copyObjectMetadata(metadata));
+            ossObject.setObjectContent(new ByteArrayInputStream(content));
+            return ossObject;
+        }
+    }
+
+    private static OSSObject newCachedOSSObject(String bucketName, String key, CachedObject cachedObject,
+            InputStream cachedContent, String requestId) {
+        OSSObject ossObject = new OSSObject();
+        ossObject.setBucketName(bucketName);
+        ossObject.setKey(key);
+        ossObject.setObjectMetadata(cachedObject.getObjectMetadata());
+        ossObject.setObjectContent(cachedContent);
+        ossObject.setRequestId(requestId);
+        Object serverCRC = ossObject.getObjectMetadata().getRawMetadata().get(OSSHeaders.OSS_HASH_CRC64_ECMA);
+        if (serverCRC != null) {
+            ossObject.setServerCRC(new BigInteger(serverCRC.toString()).longValue());
+        }
+        return ossObject;
+    }
+
+    /**
+     * Gets the stats of the client-side object cache, or null if the cache is
+     * disabled.
+     */
+    public ObjectCacheStats getObjectCacheStats() {
+        return objectCache != null ? objectCache.getStats() : null;
+    }
+
+    /**
+     * Gets the stats of the client-side metadata cache, or null if the cache
+     * is disabled.
+     */
+    public MetadataCacheStats getMetadataCacheStats() {
+        return metadataCache != null ? metadataCache.getStats() : null;
+    }
+
+    /**
+     * Removes all the entries of the client-side object and metadata caches.
+     */
+    public void clearCaches() {
+        if (objectCache != null) {
+            objectCache.clear();
+        }
+        if (metadataCache != null) {
+            metadataCache.clear();
+        }
+    }
+
+    void invalidateCachedObject(String bucketName, String key) {
+        if (bucketName == null || key == null) {
+            return;
+        }
+        if (objectCache != null) {
+            objectCache.invalidate(getCacheKey(bucketName, key));
+        }
+        if (metadataCache != null) {
+            metadataCache.invalidate(getCacheKey(bucketName, key));
+        }
+    }
+
+    private static boolean isMetadataCacheable(GenericRequest genericRequest) {
+        return genericRequest.getHeaders().isEmpty() && genericRequest.getParameters().isEmpty();
+    }
+
+    private static OSSException createNoSuchKeyException(String requestId) {
+        return ExceptionFactory.createOSSException(requestId, OSSErrorCode.NO_SUCH_KEY,
+                OSS_RESOURCE_MANAGER.getString("NoSuchKey"));
+    }
+
+    private String getCacheKey(String bucketName, String key) {
+        return getEndpoint().getHost() + "/" + bucketName + "/" + key;
+    }
+
     /**
      * Populate a local file with the specified object.
      */
@@ -319,6 +666,14 @@ public class OSSObjectOperation extends OSSOperation {
      * Get simplified object meta.
      */
     public SimplifiedObjectMeta getSimplifiedObjectMeta(GenericRequest genericRequest) {
+        return getSimplifiedObjectMeta(genericRequest, false);
+    }
+
+    /**
+     * Gets the simplified object meta, or null if the object isn't found and
+     * the caller expects it, without creating an exception.
+     */
+    private SimplifiedObjectMeta getSimplifiedObjectMeta(GenericRequest genericRequest, boolean notFoundAsNull) {
 
         assertParameterNotNull(genericRequest, "genericRequest");
 
@@ -336,8 +691,45 @@ public class OSSObjectOperation extends OSSOperation {
         RequestMessage request = new OSSRequestMessageBuilder(getInnerClient()).setEndpoint(getEndpoint())
                 .setMethod(HttpMethod.GET).setBucket(bucketName).setKey(key).setParameters(params)
                 .setOriginalRequest(genericRequest).build();
+        if (notFoundAsNull) {
+            request.setAcceptedStatusCodes(HttpStatus.SC_NOT_FOUND);
+        }
 
-        return doOperation(request, getSimplifiedObjectMetaResponseParser, bucketName, key, true);
+        String cacheKey = null;
+        if (metadataCache != null && isMetadataCacheable(genericRequest)) {
+            cacheKey = getCacheKey(bucketName, key);
+            CachedMetadata cachedMetadata = metadataCache.get(cacheKey);
+            if (cachedMetadata != null) {
+                metadataCache.recordHit();
+                if (!cachedMetadata.isFound()) {
+                    if (notFoundAsNull) {
+                        return null;
+                    }
+                    throw createNoSuchKeyException(null);
+                }
+                return cachedMetadata.getSimplifiedObjectMeta();
+            }
+            metadataCache.recordMiss();
+        }
+
+        long stamp = cacheKey != null ? metadataCache.stamp(cacheKey) : 0;
+        try {
+            SimplifiedObjectMeta simplifiedMeta = doOperation(request, getSimplifiedObjectMetaResponseParser,
+                    bucketName, key, true);
+            if (cacheKey != null) {
+                if (simplifiedMeta != null) {
+                    metadataCache.putSimplifiedObjectMeta(cacheKey, simplifiedMeta, stamp);
+                } else {
+                    metadataCache.putNotFound(cacheKey, stamp);
+                }
+            }
+            return simplifiedMeta;
+        } catch (OSSException e) {
+            if (cacheKey != null && OSSErrorCode.NO_SUCH_KEY.equals(e.getErrorCode())) {
+                metadataCache.putNotFound(cacheKey, stamp);
+            }
+            throw e;
+        }
     }
 
     /**
@@ -366,15 +758,185 @@ public class OSSObjectOperation extends OSSOperation {
             public void handle(ResponseMessage response) throws ServiceException, ClientException {
                 if (response.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
                     safeCloseResponse(response);
-                    throw ExceptionFactory.createOSSException(
-                            response.getHeaders().get(OSSHeaders.OSS_HEADER_REQUEST_ID), OSSErrorCode.NO_SUCH_KEY,
-                            OSS_RESOURCE_MANAGER.getString("NoSuchKey"));
+                    throw createNoSuchKeyException(response.getHeaders().get(OSSHeaders.OSS_HEADER_REQUEST_ID));
                 }
             }
 
         });
 
-        return doOperation(request, getObjectMetadataResponseParser, bucketName, key, true, null, reponseHandlers);
+        String cacheKey = null;
+        if (metadataCache != null && isMetadataCacheable(genericRequest)) {
+            cacheKey = getCacheKey(bucketName, key);
+            CachedMetadata cachedMetadata = metadataCache.get(cacheKey);
+            if (cachedMetadata != null && !cachedMetadata.isFound()) {
+                metadataCache.recordHit();
+                throw createNoSuchKeyException(null);
+            }
+            ObjectMetadata metadata = cachedMetadata != null ? cachedMetadata.getObjectMetadata() : null;
+            if (metadata != null) {
+                metadataCache.recordHit();
+                return metadata;
+            }
+            metadataCache.recordMiss();
+        }
+
+        long stamp = cacheKey != null ? metadataCache.stamp(cacheKey) : 0;
+        try {
+            ObjectMetadata metadata = sendHeadObjectRequest(request, bucketName, key, reponseHandlers);
+            if (cacheKey != null) {
+                metadataCache.putObjectMetadata(cacheKey, metadata, stamp);
+            }
+            return metadata;
+        } catch (OSSException e) {
+            if (cacheKey != null && OSSErrorCode.NO_SUCH_KEY.equals(e.getErrorCode())) {
+                metadataCache.putNotFound(cacheKey, stamp);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the metadata of many objects with concurrent HEAD requests. The
+     * keys are read and their requests sent as the results are consumed, so
+     * at most max concurrency requests are in flight. The objects not found
+     * are returned without creating an exception.
+     */
+    public Iterator<HeadObjectResult> headObjects(HeadObjectsRequest headObjectsRequest) {
+
+        assertParameterNotNull(headObjectsRequest, "headObjectsRequest");
+
+        String bucketName = headObjectsRequest.getBucketName();
+        assertParameterNotNull(bucketName, "bucketName");
+        assertParameterNotNull(headObjectsRequest.getKeys(), "keys");
+        ensureBucketNameValid(bucketName);
+
+        return new HeadObjectsIterator(headObjectsRequest);
+    }
+
+    private HeadObjectResult headObject(HeadObjectsRequest headObjectsRequest, String key) {
+        String bucketName = headObjectsRequest.getBucketName();
+        try {
+            assertParameterNotNull(key, "key");
+            ensureObjectKeyValid(key);
+
+            String cacheKey = null;
+            if (metadataCache != null && isMetadataCacheable(headObjectsRequest)) {
+                cacheKey = getCacheKey(bucketName, key);
+                CachedMetadata cachedMetadata = metadataCache.get(cacheKey);
+                if (cachedMetadata != null
+                        && (!cachedMetadata.isFound() || cachedMetadata.getObjectMetadata() != null)) {
+                    metadataCache.recordHit();
+                    return new HeadObjectResult(key, cachedMetadata.getObjectMetadata());
+                }
+                metadataCache.recordMiss();
+            }
+
+            RequestMessage request = new OSSRequestMessageBuilder(getInnerClient()).setEndpoint(getEndpoint())
+                    .setMethod(HttpMethod.HEAD).setBucket(bucketName).setKey(key)
+                    .setOriginalRequest(headObjectsRequest).build();
+            request.setAcceptedStatusCodes(HttpStatus.SC_NOT_FOUND);
+
+            long stamp = cacheKey != null ? metadataCache.stamp(cacheKey) : 0;
+            HeadObjectResult result = doOperation(request, new HeadObjectResponseParser(key), bucketName, key, true);
+            if (cacheKey != null) {
+                if (result.isFound()) {
+                    metadataCache.putObjectMetadata(cacheKey, result.getObjectMetadata(), stamp);
+                } else {
+                    metadataCache.putNotFound(cacheKey, stamp);
+                }
+            }
+            return result;
+        } catch (RuntimeException e) {
+            return new HeadObjectResult(key, e);
+        }
+    }
+
+    /**
+     * Sends the HEAD requests of the keys on the batch executor, and returns
+     * their results in the order they complete.
+     */
+    private class HeadObjectsIterator implements Iterator<HeadObjectResult> {
+
+        private final HeadObjectsRequest headObjectsRequest;
+        private final Iterator<String> keys;
+        private final CompletionService<HeadObjectResult> completionService;
+        private int inFlight = 0;
+
+        HeadObjectsIterator(HeadObjectsRequest headObjectsRequest) {
+            this.headObjectsRequest = headObjectsRequest;
+            this.keys = headObjectsRequest.getKeys().iterator();
+            this.completionService = new ExecutorCompletionService<HeadObjectResult>(getBatchExecutor());
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (inFlight < headObjectsRequest.getMaxConcurrency() && keys.hasNext()) {
+                final String key = keys.next();
+                completionService.submit(new Callable<HeadObjectResult>() {
+                    @Override
+                    public HeadObjectResult call() {
+                        return headObject(headObjectsRequest, key);
+                    }
+                });
+                inFlight++;
+            }
+            return inFlight > 0;
+        }
+
+        @Override
+        public HeadObjectResult next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                Future<HeadObjectResult> future = completionService.take();
+                inFlight--;
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ClientException("Interrupted while waiting for the HEAD requests.", e);
+            } catch (ExecutionException e) {
+                throw new ClientException(e.getCause());
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private ExecutorService getBatchExecutor() {
+        ExecutorService executor = batchExecutor;
+        if (executor == null) {
+            batchExecutorLock.lock();
+            try {
+                if (batchExecutor == null) {
+                    batchExecutor = Executors.newCachedThreadPool(VirtualThreads.threadFactory(
+                            client.getClientConfiguration().isVirtualThreadsEnabled(), "oss-batch-",
+                            VirtualThreads.daemonThreadFactory("oss-batch-")));
+                }
+                executor = batchExecutor;
+            } finally {
+                batchExecutorLock.unlock();
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Stops the threads of the batch operations.
+     */
+    public void shutdown() {
+        batchExecutorLock.lock();
+        try {
+            if (batchExecutor != null) {
+                batchExecutor.shutdownNow();
+                batchExecutor = null;
+            }
+        } finally {
+            batchExecutorLock.unlock();
+        }
     }
 
     /**
@@ -392,8 +954,12 @@ public class OSSObjectOperation extends OSSOperation {
                 .setKey(copyObjectRequest.getDestinationKey()).setHeaders(headers).setOriginalRequest(copyObjectRequest)
                 .build();
 
-        return doOperation(request, copyObjectResponseParser, copyObjectRequest.getDestinationBucketName(),
-                copyObjectRequest.getDestinationKey(), true);
+        try {
+            return doOperation(request, copyObjectResponseParser, copyObjectRequest.getDestinationBucketName(),
+                    copyObjectRequest.getDestinationKey(), true);
+        } finally {
+            invalidateCachedObject(copyObjectRequest.getDestinationBucketName(), copyObjectRequest.getDestinationKey());
+        }
     }
 
     /**
@@ -415,7 +981,11 @@ public class OSSObjectOperation extends OSSOperation {
                 .setMethod(HttpMethod.DELETE).setBucket(bucketName).setKey(key).setOriginalRequest(genericRequest)
                 .build();
 
-        doOperation(request, emptyResponseParser, bucketName, key);
+        try {
+            doOperation(request, emptyResponseParser, bucketName, key);
+        } finally {
+            invalidateCachedObject(bucketName, key);
+        }
     }
 
     /**
@@ -442,13 +1012,21 @@ public class OSSObjectOperation extends OSSOperation {
                 .setInputSize(rawContent.length).setInputStream(new ByteArrayInputStream(rawContent))
                 .setOriginalRequest(deleteObjectsRequest).build();
 
-        return doOperation(request, deleteObjectsResponseParser, bucketName, null, true);
+        try {
+            return doOperation(request, deleteObjectsResponseParser, bucketName, null, true);
+        } finally {
+            for (String key : deleteObjectsRequest.getKeys()) {
+                invalidateCachedObject(bucketName, key);
+            }
+        }
     }
 
     /**
-     * Check if the object key exists under the specified bucket.
+     * Check if the object key exists under the specified bucket. The objects
+     * not found and the constraints not met are returned as the status code of
+     * the result without creating an exception.
      */
-    public void headObject(HeadObjectRequest headObjectRequest) throws OSSException, ClientException {
+    public HeadObjectResult headObject(HeadObjectRequest headObjectRequest) throws OSSException, ClientException {
 
         assertParameterNotNull(headObjectRequest, "headObjectRequest");
 
@@ -474,7 +1052,10 @@ public class OSSObjectOperation extends OSSOperation {
                 .setMethod(HttpMethod.HEAD).setBucket(bucketName).setKey(key).setHeaders(headers)
                 .setOriginalRequest(headObjectRequest).build();
 
-        doOperation(request, emptyResponseParser, bucketName, key);
+        request.setAcceptedStatusCodes(HttpStatus.SC_NOT_MODIFIED, HttpStatus.SC_NOT_FOUND,
+                HttpStatus.SC_PRECONDITION_FAILED);
+
+        return doOperation(request, new HeadObjectResponseParser(key), bucketName, key, true);
     }
 
     public void setObjectAcl(SetObjectAclRequest setObjectAclRequest) throws OSSException, ClientException {
@@ -546,7 +1127,11 @@ public class OSSObjectOperation extends OSSOperation {
                 .setInputStream(new ByteArrayInputStream(new byte[0])).setInputSize(0)
                 .setOriginalRequest(genericRequest).build();
 
-        return doOperation(request, ResponseParsers.restoreObjectResponseParser, bucketName, key);
+        try {
+            return doOperation(request, ResponseParsers.restoreObjectResponseParser, bucketName, key);
+        } finally {
+            invalidateCachedObject(bucketName, key);
+        }
     }
 
     public OSSSymlink getSymlink(GenericRequest genericRequest) throws OSSException, ClientException {
@@ -614,7 +1199,11 @@ public class OSSObjectOperation extends OSSOperation {
                 .setMethod(HttpMethod.PUT).setBucket(bucketName).setKey(symlink).setHeaders(headers)
                 .setParameters(params).setOriginalRequest(createSymlinkRequest).build();
 
-        doOperation(request, emptyResponseParser, bucketName, symlink);
+        try {
+            doOperation(request, emptyResponseParser, bucketName, symlink);
+        } finally {
+            invalidateCachedObject(bucketName, symlink);
+        }
     }
 
     public GenericResult processObject(ProcessObjectRequest processObjectRequest) throws OSSException, ClientException {
@@ -645,12 +1234,19 @@ public class OSSObjectOperation extends OSSOperation {
     }
 
     public boolean doesObjectExist(GenericRequest genericRequest) throws OSSException, ClientException {
+        if (metadataCache != null && genericRequest != null && isMetadataCacheable(genericRequest)) {
+            CachedMetadata cachedMetadata = metadataCache
+                    .get(getCacheKey(genericRequest.getBucketName(), genericRequest.getKey()));
+            if (cachedMetadata != null) {
+                metadataCache.recordHit();
+                return cachedMetadata.isFound();
+            }
+        }
+
         try {
-            this.getSimplifiedObjectMeta(genericRequest);
-            return true;
+            return getSimplifiedObjectMeta(genericRequest, true) != null;
         } catch (OSSException e) {
-            if (e.getErrorCode().equals(OSSErrorCode.NO_SUCH_BUCKET)
-                    || e.getErrorCode().equals(OSSErrorCode.NO_SUCH_KEY)) {
+            if (e.getErrorCode().equals(OSSErrorCode.NO_SUCH_BUCKET)) {
                 return false;
             }
             throw e;
@@ -758,6 +1354,18 @@ public class OSSObjectOperation extends OSSOperation {
         ensureObjectKeyValid(key);
         ensureCallbackValid(originalRequest.getCallback());
 
+        CompressionCodec codec = null;
+        ContentCryptoMaterial cryptoMaterial = null;
+        long uncompressedLength = metadata.getContentLength();
+        if (mode == WriteMode.OVERWRITE) {
+            codec = CompressionCodecs.resolve(originalRequest.getCompressionCodec(),
+                    getInnerClient().getClientConfiguration().getCompressionCodec());
+            EncryptionMaterials encryptionMaterials = getEncryptionMaterials(originalRequest.getEncryptionMaterials());
+            if (encryptionMaterials != null) {
+                cryptoMaterial = ContentCryptoMaterial.create(encryptionMaterials);
+            }
+        }
+
         InputStream repeatableInputStream = null;
         if (originalRequest.getFile() != null) {
             File toUpload = originalRequest.getFile();
@@ -767,13 +1375,25 @@ public class OSSObjectOperation extends OSSOperation {
                 throw new ClientException("Illegal file path: " + toUpload.getPath());
             }
 
-            metadata.setContentLength(toUpload.length());
+            uncompressedLength = toUpload.length();
+            if (codec == null) {
+                metadata.setContentLength(uncompressedLength);
+            }
             if (metadata.getContentType() == null) {
                 metadata.setContentType(Mimetypes.getInstance().getMimetype(toUpload, key));
             }
 
             try {
-                repeatableInputStream = new RepeatableFileInputStream(toUpload);
+                if (codec == null) {
+                    repeatableInputStream = new RepeatableFileInputStream(toUpload);
+                } else {
+                    // The compressed body is reset by rereading the file.
+                    repeatableInputStream = CompressionCodecs.compress(new RepeatableFileInputStream(toUpload), codec);
+                }
+                if (cryptoMaterial != null) {
+                    repeatableInputStream = cryptoMaterial.newCipherStream(repeatableInputStream, 0);
+                }
+                repeatableInputStream = newRepeatableInputStream(repeatableInputStream);
             } catch (IOException ex) {
                 logException("Cannot locate file to upload: ", ex);
                 throw new ClientException("Cannot locate file to upload: ", ex);
@@ -785,6 +1405,13 @@ public class OSSObjectOperation extends OSSOperation {
                 metadata.setContentType(Mimetypes.getInstance().getMimetype(key));
             }
 
+            if (codec != null) {
+                originalInputStream = CompressionCodecs.compress(originalInputStream, codec);
+            }
+            if (cryptoMaterial != null) {
+                originalInputStream = cryptoMaterial.newCipherStream(originalInputStream, 0);
+            }
+
             try {
                 repeatableInputStream = newRepeatableInputStream(originalInputStream);
             } catch (IOException ex) {
@@ -796,13 +1423,20 @@ public class OSSObjectOperation extends OSSOperation {
         Map<String, String> headers = new HashMap<String, String>();
         populateRequestMetadata(headers, metadata);
         populateRequestCallback(headers, originalRequest.getCallback());
+        long inputSize = determineInputStreamLength(repeatableInputStream, metadata.getContentLength());
+        if (codec != null) {
+            populateCompressionHeaders(headers, codec, uncompressedLength);
+            inputSize = -1;
+        }
+        if (cryptoMaterial != null) {
+            populateEncryptionHeaders(headers, cryptoMaterial);
+        }
         Map<String, String> params = new LinkedHashMap<String, String>();
         populateWriteObjectParams(mode, originalRequest, params);
 
         RequestMessage httpRequest = new OSSRequestMessageBuilder(getInnerClient()).setEndpoint(getEndpoint())
                 .setMethod(WriteMode.getMappingMethod(mode)).setBucket(bucketName).setKey(key).setHeaders(headers)
-                .setParameters(params).setInputStream(repeatableInputStream)
-                .setInputSize(determineInputStreamLength(repeatableInputStream, metadata.getContentLength()))
+                .setParameters(params).setInputStream(repeatableInputStream).setInputSize(inputSize)
                 .setOriginalRequest(originalRequest).build();
 
         List<ResponseHandler> reponseHandlers = new ArrayList<ResponseHandler>();
@@ -821,14 +1455,67 @@ public class OSSObjectOperation extends OSSOperation {
         } catch (RuntimeException e) {
             publishProgress(listener, ProgressEventType.TRANSFER_FAILED_EVENT);
             throw e;
+        } finally {
+            invalidateCachedObject(bucketName, key);
         }
         return result;
     }
 
+    /**
+     * Replaces the headers describing the uncompressed body with the ones of
+     * the client-side compression. The compressed length isn't known until
+     * the body is sent, so it's sent chunked.
+     */
+    static void populateCompressionHeaders(Map<String, String> headers, CompressionCodec codec,
+            long uncompressedLength) {
+        removeHeader(headers, OSSHeaders.CONTENT_LENGTH);
+        removeHeader(headers, OSSHeaders.CONTENT_MD5);
+        headers.put(OSSHeaders.OSS_USER_METADATA_PREFIX + CompressionCodecs.CODEC_METADATA_KEY, codec.getName());
+        if (uncompressedLength > 0) {
+            headers.put(OSSHeaders.OSS_USER_METADATA_PREFIX + CompressionCodecs.UNCOMPRESSED_LENGTH_METADATA_KEY,
+                    String.valueOf(uncompressedLength));
+        }
+    }
+
+    /**
+     * Adds the wrapped data key of the client-side encryption to the headers.
+     * The Content-MD5 of the plaintext doesn't match the encrypted body, so
+     * it's removed.
+     */
+    static void populateEncryptionHeaders(Map<String, String> headers, ContentCryptoMaterial cryptoMaterial) {
+        removeHeader(headers, OSSHeaders.CONTENT_MD5);
+        Map<String, String> userMetadata = new LinkedHashMap<String, String>();
+        cryptoMaterial.toMetadata(userMetadata);
+        for (Map.Entry<String, String> entry : userMetadata.entrySet()) {
+            headers.put(OSSHeaders.OSS_USER_METADATA_PREFIX + entry.getKey(), entry.getValue());
+        }
+    }
+
+    private EncryptionMaterials getEncryptionMaterials(EncryptionMaterials requestMaterials) {
+        return requestMaterials != null ? requestMaterials
+                : getInnerClient().getClientConfiguration().getEncryptionMaterials();
+    }
+
     private boolean isCrcCheckEnabled() {
         return getInnerClient().getClientConfiguration().isCrcCheckEnabled();
     }
 
+    private static boolean isCacheable(GetObjectRequest getObjectRequest) {
+        if (getObjectRequest.getRange() != null || getObjectRequest.getModifiedSinceConstraint() != null
+                || getObjectRequest.getUnmodifiedSinceConstraint() != null
+                || !getObjectRequest.getMatchingETagConstraints().isEmpty()
+                || !getObjectRequest.getNonmatchingETagConstraints().isEmpty()
+                || getObjectRequest.getResponseHeaders() != null || getObjectRequest.getProcess() != null) {
+            return false;
+        }
+        for (String header : getObjectRequest.getHeaders().keySet()) {
+            if (header.equalsIgnoreCase(OSSHeaders.RANGE) || header.toLowerCase().startsWith("if-")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean hasRangeInRequest(GetObjectRequest getObjectRequest) {
         return getObjectRequest.getHeaders().get(OSSHeaders.RANGE) != null;
     }
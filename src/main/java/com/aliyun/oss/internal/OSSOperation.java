@@ -75,7 +75,12 @@ public abstract class OSSOperation {
     }
 
     public void setEndpoint(URI endpoint) {
+        EndpointResolver endpointResolver = client.getEndpointResolver();
+        if (this.endpoint != null) {
+            endpointResolver.invalidate(this.endpoint);
+        }
         this.endpoint = URI.create(endpoint.toString());
+        endpointResolver.invalidate(this.endpoint);
     }
 
     protected ServiceClient getInnerClient() {
@@ -21,7 +21,7 @@ package com.aliyun.oss.internal;
 
 import static com.aliyun.oss.common.utils.CodingUtils.assertParameterInRange;
 import static com.aliyun.oss.internal.OSSConstants.DEFAULT_FILE_SIZE_LIMIT;
-import static com.aliyun.oss.internal.OSSUtils.determineFinalEndpoint;
+import static com.aliyun.oss.internal.OSSUtils.determineOperationName;
 import static com.aliyun.oss.internal.OSSUtils.determineResourcePath;
 
 import java.io.InputStream;
@@ -175,7 +175,7 @@ public class OSSRequestMessageBuilder {
         ClientConfiguration clientCofig = this.innerClient.getClientConfiguration();
         request.setBucket(bucket);
         request.setKey(key);
-        request.setEndpoint(determineFinalEndpoint(this.endpoint, this.bucket, clientCofig));
+        request.setEndpoint(innerClient.getEndpointResolver().resolve(this.endpoint, this.bucket, clientCofig));
         request.setResourcePath(determineResourcePath(this.bucket, this.key, clientCofig.isSLDEnabled()));
         request.setHeaders(sentHeaders);
         request.setParameters(sentParameters);
@@ -183,6 +183,11 @@ public class OSSRequestMessageBuilder {
         request.setContent(this.inputStream);
         request.setContentLength(this.inputSize);
         request.setUseChunkEncoding(this.inputSize == -1 ? true : this.useChunkEncoding);
+        // Only the metrics collector needs the operation name.
+        if (clientCofig.getMetricsCollector() != null) {
+            request.setOperationName(
+                    determineOperationName(this.method, this.bucket, this.key, sentParameters, sentHeaders));
+        }
 
         return request;
     }
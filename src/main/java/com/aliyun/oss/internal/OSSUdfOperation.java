@@ -34,7 +34,6 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.CheckedInputStream;
 
 import com.aliyun.oss.ClientException;
 import com.aliyun.oss.HttpMethod;
@@ -42,10 +41,9 @@ import com.aliyun.oss.OSSException;
 import com.aliyun.oss.common.auth.CredentialsProvider;
 import com.aliyun.oss.common.comm.RequestMessage;
 import com.aliyun.oss.common.comm.ServiceClient;
+import com.aliyun.oss.common.comm.io.BodyPipelineInputStream;
 import com.aliyun.oss.common.parser.RequestMarshallers;
-import com.aliyun.oss.common.utils.CRC64;
 import com.aliyun.oss.event.ProgressEventType;
-import com.aliyun.oss.event.ProgressInputStream;
 import com.aliyun.oss.event.ProgressListener;
 import com.aliyun.oss.internal.ResponseParsers.GetUdfApplicationLogResponseParser;
 import com.aliyun.oss.model.CreateUdfApplicationRequest;
@@ -355,15 +353,8 @@ public class OSSUdfOperation extends OSSOperation {
             publishProgress(listener, ProgressEventType.TRANSFER_STARTED_EVENT);
             udfApplicationLog = doOperation(request, new GetUdfApplicationLogResponseParser(udfName), null, null, true);
             InputStream instream = udfApplicationLog.getLogContent();
-            ProgressInputStream progressInputStream = new ProgressInputStream(instream, listener) {
-                @Override
-                protected void onEOF() {
-                    publishProgress(getListener(), ProgressEventType.TRANSFER_COMPLETED_EVENT);
-                };
-            };
-            CRC64 crc = new CRC64();
-            CheckedInputStream checkedInputstream = new CheckedInputStream(progressInputStream, crc);
-            udfApplicationLog.setLogContent(checkedInputstream);
+            udfApplicationLog.setLogContent(
+                    BodyPipelineInputStream.pipelineOf(instream).withTransferCompletedEvent(listener).withChecksum());
         } catch (RuntimeException e) {
             publishProgress(listener, ProgressEventType.TRANSFER_FAILED_EVENT);
             throw e;
@@ -24,6 +24,7 @@ import static com.aliyun.oss.common.utils.LogUtils.logException;
 import static com.aliyun.oss.internal.OSSUtils.ensureBucketNameValid;
 import static com.aliyun.oss.internal.OSSUtils.ensureObjectKeyValid;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -31,10 +32,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -42,7 +45,15 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.aliyun.oss.common.comm.io.BoundedInputStream;
+import com.aliyun.oss.common.comm.io.RepeatableBoundedFileInputStream;
+import com.aliyun.oss.common.compress.CompressionCodec;
+import com.aliyun.oss.common.compress.CompressionCodecs;
+import com.aliyun.oss.common.crypto.ContentCryptoMaterial;
+import com.aliyun.oss.common.crypto.EncryptionMaterials;
+import com.aliyun.oss.common.utils.VirtualThreads;
 import com.aliyun.oss.event.ProgressEventType;
 import com.aliyun.oss.event.ProgressListener;
 import com.aliyun.oss.event.ProgressPublisher;
@@ -69,28 +80,41 @@ public class OSSUploadOperation {
 
         private static final String UPLOAD_MAGIC = "FE8BB4EA-B593-4FAC-AD7A-2459A36E2E62";
 
+        // Not a monitor, so virtual threads aren't pinned while the file is written.
+        private final transient ReentrantLock lock = new ReentrantLock();
+
         /**
          * Gets the checkpoint data from the checkpoint file.
          */
-        public synchronized void load(String cpFile) throws IOException, ClassNotFoundException {
-            FileInputStream fileIn = new FileInputStream(cpFile);
-            ObjectInputStream in = new ObjectInputStream(fileIn);
-            UploadCheckPoint ucp = (UploadCheckPoint) in.readObject();
-            assign(ucp);
-            in.close();
-            fileIn.close();
+        public void load(String cpFile) throws IOException, ClassNotFoundException {
+            lock.lock();
+            try {
+                FileInputStream fileIn = new FileInputStream(cpFile);
+                ObjectInputStream in = new ObjectInputStream(fileIn);
+                UploadCheckPoint ucp = (UploadCheckPoint) in.readObject();
+                assign(ucp);
+                in.close();
+                fileIn.close();
+            } finally {
+                lock.unlock();
+            }
         }
 
         /**
          * Writes the checkpoint data to the checkpoint file.
          */
-        public synchronized void dump(String cpFile) throws IOException {
-            this.md5 = hashCode();
-            FileOutputStream fileOut = new FileOutputStream(cpFile);
-            ObjectOutputStream outStream = new ObjectOutputStream(fileOut);
-            outStream.writeObject(this);
-            outStream.close();
-            fileOut.close();
+        public void dump(String cpFile) throws IOException {
+            lock.lock();
+            try {
+                this.md5 = hashCode();
+                FileOutputStream fileOut = new FileOutputStream(cpFile);
+                ObjectOutputStream outStream = new ObjectOutputStream(fileOut);
+                outStream.writeObject(this);
+                outStream.close();
+                fileOut.close();
+            } finally {
+                lock.unlock();
+            }
         }
 
         /**
@@ -98,36 +122,46 @@ public class OSSUploadOperation {
          * 
          * @throws IOException
          */
-        public synchronized void update(int partIndex, PartETag partETag, boolean completed) throws IOException {
-            partETags.add(partETag);
-            uploadParts.get(partIndex).isCompleted = completed;
+        public void update(int partIndex, PartETag partETag, boolean completed) throws IOException {
+            lock.lock();
+            try {
+                partETags.add(partETag);
+                uploadParts.get(partIndex).isCompleted = completed;
+            } finally {
+                lock.unlock();
+            }
         }
 
         /**
          * Check if the local file matches the checkpoint.
          */
-        public synchronized boolean isValid(String uploadFile) {
-            // 比较checkpoint的magic和md5
-            // Compares the magic field in checkpoint and the file's md5.
-            if (this.magic == null || !this.magic.equals(UPLOAD_MAGIC) || this.md5 != hashCode()) {
-                return false;
-            }
+        public boolean isValid(String uploadFile) {
+            lock.lock();
+            try {
+                // 比较checkpoint的magic和md5
+                // Compares the magic field in checkpoint and the file's md5.
+                if (this.magic == null || !this.magic.equals(UPLOAD_MAGIC) || this.md5 != hashCode()) {
+                    return false;
+                }
 
-            // Checks if the file exists.
-            File upload = new File(uploadFile);
-            if (!upload.exists()) {
-                return false;
-            }
+                // Checks if the file exists.
+                File upload = new File(uploadFile);
+                if (!upload.exists()) {
+                    return false;
+                }
 
-            // The file name, size and last modified time must be same as the
-            // checkpoint.
-            // If any item is changed, return false (re-upload the file).
-            if (!this.uploadFile.equals(uploadFile) || this.uploadFileStat.size != upload.length()
-                    || this.uploadFileStat.lastModified != upload.lastModified()) {
-                return false;
-            }
+                // The file name, size and last modified time must be same as the
+                // checkpoint.
+                // If any item is changed, return false (re-upload the file).
+                if (!this.uploadFile.equals(uploadFile) || this.uploadFileStat.size != upload.length()
+                        || this.uploadFileStat.lastModified != upload.lastModified()) {
+                    return false;
+                }
 
-            return true;
+                return true;
+            } finally {
+                lock.unlock();
+            }
         }
 
         @Override
@@ -141,6 +175,10 @@ public class OSSUploadOperation {
             result = prime * result + ((uploadFileStat == null) ? 0 : uploadFileStat.hashCode());
             result = prime * result + ((uploadID == null) ? 0 : uploadID.hashCode());
             result = prime * result + ((uploadParts == null) ? 0 : uploadParts.hashCode());
+            if (encryptionKey != null) {
+                result = prime * result + encryptionKey.hashCode();
+                result = prime * result + ((encryptionStart == null) ? 0 : encryptionStart.hashCode());
+            }
             return result;
         }
 
@@ -153,6 +191,8 @@ public class OSSUploadOperation {
             this.uploadID = ucp.uploadID;
             this.uploadParts = ucp.uploadParts;
             this.partETags = ucp.partETags;
+            this.encryptionKey = ucp.encryptionKey;
+            this.encryptionStart = ucp.encryptionStart;
         }
 
         public String magic;
@@ -163,6 +203,8 @@ public class OSSUploadOperation {
         public String uploadID;
         public ArrayList<UploadPart> uploadParts;
         public ArrayList<PartETag> partETags;
+        public String encryptionKey; // the wrapped data key of the client-side encryption.
+        public String encryptionStart; // the initial counter block of the client-side encryption.
 
     }
 
@@ -284,6 +326,18 @@ public class OSSUploadOperation {
 
         assertParameterNotNull(uploadFileRequest.getUploadFile(), "uploadFile");
 
+        CompressionCodec codec = CompressionCodecs.resolve(uploadFileRequest.getCompressionCodec(),
+                multipartOperation.getInnerClient().getClientConfiguration().getCompressionCodec());
+        if (codec != null) {
+            // The file is compressed into a temporary file on each call, so
+            // there is no upload a checkpoint could resume.
+            if (uploadFileRequest.isEnableCheckpoint()) {
+                throw new IllegalArgumentException("The checkpoint can't be enabled for a compressed upload of "
+                        + uploadFileRequest.getUploadFile());
+            }
+            return uploadCompressedFile(uploadFileRequest, codec);
+        }
+
         // The checkpoint is enabled without specifying the checkpoint file,
         // using the default one.
         if (uploadFileRequest.isEnableCheckpoint()) {
@@ -311,7 +365,8 @@ public class OSSUploadOperation {
             }
 
             // The file uploaded is updated, re-upload.
-            if (!uploadCheckPoint.isValid(uploadFileRequest.getUploadFile())) {
+            if (!uploadCheckPoint.isValid(uploadFileRequest.getUploadFile())
+                    || (uploadCheckPoint.encryptionKey != null) != (getEncryptionMaterials(uploadFileRequest) != null)) {
                 prepare(uploadCheckPoint, uploadFileRequest);
                 remove(uploadFileRequest.getCheckpointFile());
             }
@@ -348,6 +403,117 @@ public class OSSUploadOperation {
         return uploadFileResult;
     }
 
+    /**
+     * Compresses the parts of the file concurrently into a temporary file and
+     * uploads it. The compressed parts are concatenated in order, so the part
+     * sizes of the upload don't depend on how well each part is compressed.
+     */
+    private UploadFileResult uploadCompressedFile(UploadFileRequest uploadFileRequest, CompressionCodec codec)
+            throws Throwable {
+        File uploadFile = new File(uploadFileRequest.getUploadFile());
+        File compressedFile = File.createTempFile("oss-compressed-", ".tmp");
+        try {
+            compressFile(uploadFile, compressedFile, codec, uploadFileRequest.getPartSize(),
+                    uploadFileRequest.getTaskNum());
+
+            ObjectMetadata metadata = uploadFileRequest.getObjectMetadata() != null
+                    ? OSSUtils.copyObjectMetadata(uploadFileRequest.getObjectMetadata()) : new ObjectMetadata();
+            if (metadata.getContentType() == null) {
+                metadata.setContentType(
+                        Mimetypes.getInstance().getMimetype(uploadFile.getPath(), uploadFileRequest.getKey()));
+            }
+            metadata.addUserMetadata(CompressionCodecs.CODEC_METADATA_KEY, codec.getName());
+            metadata.addUserMetadata(CompressionCodecs.UNCOMPRESSED_LENGTH_METADATA_KEY,
+                    String.valueOf(uploadFile.length()));
+
+            UploadFileRequest compressedRequest = new UploadFileRequest(uploadFileRequest.getBucketName(),
+                    uploadFileRequest.getKey(), compressedFile.getPath(), uploadFileRequest.getPartSize(),
+                    uploadFileRequest.getTaskNum());
+            compressedRequest.setObjectMetadata(metadata);
+            compressedRequest.setCallback(uploadFileRequest.getCallback());
+            compressedRequest.setProgressListener(uploadFileRequest.getProgressListener());
+            compressedRequest.setEncryptionMaterials(uploadFileRequest.getEncryptionMaterials());
+            return uploadFileWithCheckpoint(compressedRequest);
+        } finally {
+            remove(compressedFile.getPath());
+        }
+    }
+
+    private void compressFile(File source, File target, CompressionCodec codec, long partSize, int taskNum)
+            throws Throwable {
+        ArrayList<UploadPart> parts = splitFile(source.length(), partSize);
+        if (parts.isEmpty()) {
+            // An empty file is still a compressed stream.
+            UploadPart part = new UploadPart();
+            part.number = 1;
+            parts.add(part);
+        }
+
+        ExecutorService service = newTaskExecutor(taskNum);
+        LinkedList<Future<byte[]>> futures = new LinkedList<Future<byte[]>>();
+        OutputStream outstream = new FileOutputStream(target);
+        try {
+            // At most two parts a thread are kept in memory.
+            for (UploadPart part : parts) {
+                if (futures.size() >= taskNum * 2) {
+                    outstream.write(getCompressedPart(futures.removeFirst()));
+                }
+                futures.add(service.submit(new CompressTask(source, part, codec)));
+            }
+            while (!futures.isEmpty()) {
+                outstream.write(getCompressedPart(futures.removeFirst()));
+            }
+        } finally {
+            service.shutdownNow();
+            outstream.close();
+        }
+    }
+
+    private static byte[] getCompressedPart(Future<byte[]> future) throws Throwable {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    static class CompressTask implements Callable<byte[]> {
+
+        public CompressTask(File file, UploadPart uploadPart, CompressionCodec codec) {
+            this.file = file;
+            this.uploadPart = uploadPart;
+            this.codec = codec;
+        }
+
+        @Override
+        public byte[] call() throws Exception {
+            InputStream instream = new FileInputStream(file);
+            try {
+                instream.skip(uploadPart.offset);
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                OutputStream outstream = codec.newCompressingStream(compressed);
+                byte[] buffer = new byte[OSSConstants.DEFAULT_BUFFER_SIZE];
+                long remaining = uploadPart.size;
+                while (remaining > 0) {
+                    int bytesRead = instream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (bytesRead == -1) {
+                        throw new IOException("Unexpected end of file " + file.getPath());
+                    }
+                    outstream.write(buffer, 0, bytesRead);
+                    remaining -= bytesRead;
+                }
+                outstream.close();
+                return compressed.toByteArray();
+            } finally {
+                instream.close();
+            }
+        }
+
+        private File file;
+        private UploadPart uploadPart;
+        private CompressionCodec codec;
+    }
+
     private void prepare(UploadCheckPoint uploadCheckPoint, UploadFileRequest uploadFileRequest) {
         uploadCheckPoint.magic = UploadCheckPoint.UPLOAD_MAGIC;
         uploadCheckPoint.uploadFile = uploadFileRequest.getUploadFile();
@@ -366,6 +532,18 @@ public class OSSUploadOperation {
                     Mimetypes.getInstance().getMimetype(uploadCheckPoint.uploadFile, uploadCheckPoint.key));
         }
 
+        EncryptionMaterials encryptionMaterials = getEncryptionMaterials(uploadFileRequest);
+        if (encryptionMaterials != null) {
+            ContentCryptoMaterial cryptoMaterial = ContentCryptoMaterial.create(encryptionMaterials);
+            uploadCheckPoint.encryptionKey = cryptoMaterial.getWrappedKey();
+            uploadCheckPoint.encryptionStart = cryptoMaterial.getStart();
+            metadata = OSSUtils.copyObjectMetadata(metadata);
+            cryptoMaterial.toMetadata(metadata.getUserMetadata());
+        } else {
+            uploadCheckPoint.encryptionKey = null;
+            uploadCheckPoint.encryptionStart = null;
+        }
+
         InitiateMultipartUploadRequest initiateUploadRequest = new InitiateMultipartUploadRequest(
                 uploadFileRequest.getBucketName(), uploadFileRequest.getKey(), metadata);
         InitiateMultipartUploadResult initiateUploadResult = multipartOperation
@@ -373,10 +551,16 @@ public class OSSUploadOperation {
         uploadCheckPoint.uploadID = initiateUploadResult.getUploadId();
     }
 
+    private ExecutorService newTaskExecutor(int taskNum) {
+        boolean virtualThreads = multipartOperation.getInnerClient().getClientConfiguration().isVirtualThreadsEnabled();
+        return Executors.newFixedThreadPool(taskNum,
+                VirtualThreads.threadFactory(virtualThreads, "oss-upload-", Executors.defaultThreadFactory()));
+    }
+
     private ArrayList<PartResult> upload(UploadCheckPoint uploadCheckPoint, UploadFileRequest uploadFileRequest)
             throws Throwable {
         ArrayList<PartResult> taskResults = new ArrayList<PartResult>();
-        ExecutorService service = Executors.newFixedThreadPool(uploadFileRequest.getTaskNum());
+        ExecutorService service = newTaskExecutor(uploadFileRequest.getTaskNum());
         ArrayList<Future<PartResult>> futures = new ArrayList<Future<PartResult>>();
         ProgressListener listener = uploadFileRequest.getProgressListener();
 
@@ -390,11 +574,14 @@ public class OSSUploadOperation {
         ProgressPublisher.publishRequestContentLength(listener, contentLength);
         uploadFileRequest.setProgressListener(null);
 
+        ContentCryptoMaterial cryptoMaterial = ContentCryptoMaterial.fromMetadata(uploadCheckPoint.encryptionKey,
+                uploadCheckPoint.encryptionStart, getEncryptionMaterials(uploadFileRequest));
+
         // Upload parts.
         for (int i = 0; i < uploadCheckPoint.uploadParts.size(); i++) {
             if (!uploadCheckPoint.uploadParts.get(i).isCompleted) {
                 futures.add(service.submit(new Task(i, "upload-" + i, uploadCheckPoint, i, uploadFileRequest,
-                        multipartOperation, listener)));
+                        multipartOperation, listener, cryptoMaterial)));
             } else {
                 taskResults.add(new PartResult(i + 1, uploadCheckPoint.uploadParts.get(i).offset,
                         uploadCheckPoint.uploadParts.get(i).size));
@@ -430,7 +617,7 @@ public class OSSUploadOperation {
 
         public Task(int id, String name, UploadCheckPoint uploadCheckPoint, int partIndex,
                 UploadFileRequest uploadFileRequest, OSSMultipartOperation multipartOperation,
-                ProgressListener progressListener) {
+                ProgressListener progressListener, ContentCryptoMaterial cryptoMaterial) {
             this.id = id;
             this.name = name;
             this.uploadCheckPoint = uploadCheckPoint;
@@ -438,6 +625,7 @@ public class OSSUploadOperation {
             this.uploadFileRequest = uploadFileRequest;
             this.multipartOperation = multipartOperation;
             this.progressListener = progressListener;
+            this.cryptoMaterial = cryptoMaterial;
         }
 
         @Override
@@ -451,6 +639,12 @@ public class OSSUploadOperation {
 
                 instream = new FileInputStream(uploadCheckPoint.uploadFile);
                 instream.skip(uploadPart.offset);
+                if (cryptoMaterial != null) {
+                    // The cipher stream is reset with the file beneath it, so a
+                    // retried part is read again from the disk.
+                    instream = new RepeatableBoundedFileInputStream(new BoundedInputStream(instream, uploadPart.size));
+                    instream = cryptoMaterial.newCipherStream(instream, uploadPart.offset);
+                }
 
                 UploadPartRequest uploadPartRequest = new UploadPartRequest();
                 uploadPartRequest.setBucketName(uploadFileRequest.getBucketName());
@@ -488,6 +682,12 @@ public class OSSUploadOperation {
         private UploadFileRequest uploadFileRequest;
         private OSSMultipartOperation multipartOperation;
         private ProgressListener progressListener;
+        private ContentCryptoMaterial cryptoMaterial;
+    }
+
+    private EncryptionMaterials getEncryptionMaterials(UploadFileRequest uploadFileRequest) {
+        return uploadFileRequest.getEncryptionMaterials() != null ? uploadFileRequest.getEncryptionMaterials()
+                : multipartOperation.getInnerClient().getClientConfiguration().getEncryptionMaterials();
     }
 
     private CompleteMultipartUploadResult complete(UploadCheckPoint uploadCheckPoint,
@@ -25,6 +25,7 @@ import static com.aliyun.oss.internal.OSSConstants.OSS_AUTHORIZATION_PREFIX;
 import static com.aliyun.oss.internal.OSSConstants.OSS_AUTHORIZATION_SEPERATOR;
 import static com.aliyun.oss.internal.OSSConstants.RESOURCE_NAME_COMMON;
 import static com.aliyun.oss.internal.OSSConstants.RESOURCE_NAME_OSS;
+import static com.aliyun.oss.internal.RequestParameters.*;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -32,11 +33,14 @@ import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import com.aliyun.oss.ClientConfiguration;
+import com.aliyun.oss.HttpMethod;
 import com.aliyun.oss.InconsistentException;
 import com.aliyun.oss.common.comm.ResponseMessage;
 import com.aliyun.oss.common.utils.BinaryUtil;
@@ -56,6 +60,31 @@ public class OSSUtils {
 
     private static final String BUCKET_NAMING_REGEX = "^[a-z0-9][a-z0-9_\\-]{1,61}[a-z0-9]$";
 
+    private static final Map<HttpMethod, String> OPERATION_VERBS = new EnumMap<HttpMethod, String>(HttpMethod.class);
+    private static final Map<String, String> OPERATION_SUBRESOURCES = new HashMap<String, String>();
+
+    static {
+        OPERATION_VERBS.put(HttpMethod.GET, "Get");
+        OPERATION_VERBS.put(HttpMethod.PUT, "Put");
+        OPERATION_VERBS.put(HttpMethod.DELETE, "Delete");
+        OPERATION_VERBS.put(HttpMethod.POST, "Post");
+        OPERATION_VERBS.put(HttpMethod.HEAD, "Head");
+        OPERATION_VERBS.put(HttpMethod.OPTIONS, "Options");
+
+        String[] subresources = new String[] { SUBRESOURCE_ACL, SUBRESOURCE_REFERER, SUBRESOURCE_LOCATION,
+                SUBRESOURCE_LOGGING, SUBRESOURCE_WEBSITE, SUBRESOURCE_LIFECYCLE, SUBRESOURCE_UPLOADS,
+                SUBRESOURCE_DELETE, SUBRESOURCE_CORS, SUBRESOURCE_APPEND, SUBRESOURCE_TAGGING, SUBRESOURCE_IMG,
+                SUBRESOURCE_STYLE, SUBRESOURCE_REPLICATION, SUBRESOURCE_REPLICATION_PROGRESS,
+                SUBRESOURCE_REPLICATION_LOCATION, SUBRESOURCE_CNAME, SUBRESOURCE_BUCKET_INFO,
+                SUBRESOURCE_OBJECTMETA, SUBRESOURCE_QOS, SUBRESOURCE_LIVE, SUBRESOURCE_STATUS, SUBRESOURCE_VOD,
+                SUBRESOURCE_PROCESS_CONF, SUBRESOURCE_SYMLINK, SUBRESOURCE_STAT, SUBRESOURCE_RESTORE,
+                SUBRESOURCE_UDF, SUBRESOURCE_UDF_IMAGE, SUBRESOURCE_UDF_APPLICATION, SUBRESOURCE_UDF_LOG };
+        for (String subresource : subresources) {
+            OPERATION_SUBRESOURCES.put(subresource,
+                    Character.toUpperCase(subresource.charAt(0)) + subresource.substring(1));
+        }
+    }
+
     /**
      * Validate bucket name.
      */
@@ -120,11 +149,21 @@ public class OSSUtils {
      * second-level domain directly.
      */
     public static URI determineFinalEndpoint(URI endpoint, String bucket, ClientConfiguration clientConfig) {
+        return buildEndpoint(endpoint, buildCanonicalHost(endpoint, bucket, clientConfig));
+    }
+
+    /**
+     * Make an endpoint with the scheme, port and path of the original endpoint
+     * and the given host.
+     */
+    static URI buildEndpoint(URI endpoint, String host) {
         try {
             StringBuilder conbinedEndpoint = new StringBuilder();
-            conbinedEndpoint.append(String.format("%s://", endpoint.getScheme()));
-            conbinedEndpoint.append(buildCanonicalHost(endpoint, bucket, clientConfig));
-            conbinedEndpoint.append(endpoint.getPort() != -1 ? String.format(":%s", endpoint.getPort()) : "");
+            conbinedEndpoint.append(endpoint.getScheme()).append("://");
+            conbinedEndpoint.append(host);
+            if (endpoint.getPort() != -1) {
+                conbinedEndpoint.append(':').append(endpoint.getPort());
+            }
             conbinedEndpoint.append(endpoint.getPath());
             return new URI(conbinedEndpoint.toString());
         } catch (URISyntaxException ex) {
@@ -132,7 +171,7 @@ public class OSSUtils {
         }
     }
 
-    private static String buildCanonicalHost(URI endpoint, String bucket, ClientConfiguration clientConfig) {
+    static String buildCanonicalHost(URI endpoint, String bucket, ClientConfiguration clientConfig) {
         String host = endpoint.getHost();
 
         boolean isCname = false;
@@ -140,14 +179,10 @@ public class OSSUtils {
             isCname = cnameExcludeFilter(host, clientConfig.getCnameExcludeList());
         }
 
-        StringBuffer cannonicalHost = new StringBuffer();
         if (bucket != null && !isCname && !clientConfig.isSLDEnabled()) {
-            cannonicalHost.append(bucket).append(".").append(host);
-        } else {
-            cannonicalHost.append(host);
+            return bucket + "." + host;
         }
-
-        return cannonicalHost.toString();
+        return host;
     }
 
     private static boolean cnameExcludeFilter(String hostToFilter, List<String> excludeList) {
@@ -167,6 +202,87 @@ public class OSSUtils {
         return sldEnabled ? makeResourcePath(bucket, key) : makeResourcePath(key);
     }
 
+    /**
+     * Determine the operation name of a request from its method, target and
+     * sub-resource, e.g. GetObject, UploadPartCopy or GetBucketAcl. Used to tag
+     * the request metrics.
+     */
+    public static String determineOperationName(HttpMethod method, String bucket, String key,
+            Map<String, String> parameters, Map<String, String> headers) {
+        String verb = OPERATION_VERBS.get(method);
+        if (bucket == null) {
+            return method == HttpMethod.GET ? "ListBuckets" : verb + "Service";
+        }
+
+        String subresource = null;
+        for (String parameter : parameters.keySet()) {
+            if (OPERATION_SUBRESOURCES.containsKey(parameter)) {
+                subresource = parameter;
+                break;
+            }
+        }
+
+        if (key == null) {
+            if (subresource == null) {
+                switch (method) {
+                case GET:
+                    return "ListObjects";
+                case PUT:
+                    return "CreateBucket";
+                default:
+                    return verb + "Bucket";
+                }
+            }
+            if (SUBRESOURCE_DELETE.equals(subresource) && method == HttpMethod.POST) {
+                return "DeleteObjects";
+            }
+            if (SUBRESOURCE_UPLOADS.equals(subresource) && method == HttpMethod.GET) {
+                return "ListMultipartUploads";
+            }
+            return verb + "Bucket" + OPERATION_SUBRESOURCES.get(subresource);
+        }
+
+        boolean copy = headers != null && headers.containsKey(OSSHeaders.COPY_OBJECT_SOURCE);
+        if (parameters.containsKey(UPLOAD_ID)) {
+            if (parameters.containsKey(PART_NUMBER)) {
+                return copy ? "UploadPartCopy" : "UploadPart";
+            }
+            switch (method) {
+            case POST:
+                return "CompleteMultipartUpload";
+            case DELETE:
+                return "AbortMultipartUpload";
+            default:
+                return "ListParts";
+            }
+        }
+        if (subresource == null) {
+            switch (method) {
+            case HEAD:
+                return "GetObjectMetadata";
+            case PUT:
+                return copy ? "CopyObject" : "PutObject";
+            case POST:
+                return parameters.containsKey(SUBRESOURCE_PROCESS) ? "ProcessObject" : "PostObject";
+            default:
+                return verb + "Object";
+            }
+        }
+        if (SUBRESOURCE_UPLOADS.equals(subresource)) {
+            return "InitiateMultipartUpload";
+        }
+        if (SUBRESOURCE_APPEND.equals(subresource)) {
+            return "AppendObject";
+        }
+        if (SUBRESOURCE_OBJECTMETA.equals(subresource)) {
+            return "GetSimplifiedObjectMeta";
+        }
+        if (SUBRESOURCE_RESTORE.equals(subresource)) {
+            return "RestoreObject";
+        }
+        return verb + "Object" + OPERATION_SUBRESOURCES.get(subresource);
+    }
+
     /**
      * Make a resource path from the object key, used when the bucket name
      * pearing in the endpoint.
@@ -249,6 +365,23 @@ public class OSSUtils {
         }
     }
 
+    /**
+     * Copies the object metadata, so that changes to the copy don't affect
+     * the original.
+     */
+    public static ObjectMetadata copyObjectMetadata(ObjectMetadata metadata) {
+        ObjectMetadata copy = new ObjectMetadata();
+        copy.setUserMetadata(metadata.getUserMetadata());
+        for (Entry<String, Object> entry : metadata.getRawMetadata().entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Date) {
+                value = new Date(((Date) value).getTime());
+            }
+            copy.setHeader(entry.getKey(), value);
+        }
+        return copy;
+    }
+
     public static void addHeader(Map<String, String> headers, String header, String value) {
         if (value != null) {
             headers.put(header, value);
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import static com.aliyun.oss.common.utils.CodingUtils.assertParameterNotNull;
+import static com.aliyun.oss.common.utils.LogUtils.getLog;
+import static com.aliyun.oss.internal.OSSUtils.ensureBucketNameValid;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.common.auth.CredentialsProvider;
+import com.aliyun.oss.common.auth.ServiceSignature;
+import com.aliyun.oss.common.comm.ServiceClient;
+import com.aliyun.oss.common.parser.JAXBResponseParser;
+import com.aliyun.oss.common.utils.DateUtil;
+import com.aliyun.oss.internal.model.OSSErrorResult;
+import com.aliyun.oss.model.WarmUpRequest;
+import com.aliyun.oss.model.WarmUpResult;
+
+/**
+ * Warm-up operation which prepares a client before it serves traffic.
+ */
+public class OSSWarmUpOperation extends OSSOperation {
+
+    public OSSWarmUpOperation(ServiceClient client, CredentialsProvider credsProvider) {
+        super(client, credsProvider);
+    }
+
+    /**
+     * Initializes the parsers, signers and MIME types, then opens the pooled
+     * connections to the buckets.
+     */
+    public WarmUpResult warmUp(WarmUpRequest warmUpRequest) throws ClientException {
+
+        assertParameterNotNull(warmUpRequest, "warmUpRequest");
+        for (String bucketName : warmUpRequest.getBucketNames()) {
+            ensureBucketNameValid(bucketName);
+        }
+
+        long startTime = System.currentTimeMillis();
+        initializeComponents();
+        long initializationTime = System.currentTimeMillis() - startTime;
+
+        Set<URI> endpoints = new LinkedHashSet<URI>();
+        if (warmUpRequest.getBucketNames().isEmpty()) {
+            endpoints.add(getEndpoint());
+        }
+        for (String bucketName : warmUpRequest.getBucketNames()) {
+            endpoints.add(client.getEndpointResolver().resolve(getEndpoint(), bucketName, client.getClientConfiguration()));
+        }
+        int opened = client.openConnections(new ArrayList<URI>(endpoints), warmUpRequest.getConnectionsPerBucket());
+
+        long duration = System.currentTimeMillis() - startTime;
+        getLog().info("Warmed up the client in " + duration + "ms, " + opened + " connections opened.");
+        return new WarmUpResult(initializationTime, duration, opened);
+    }
+
+    private static void initializeComponents() throws ClientException {
+        try {
+            JAXBResponseParser.warmUp(OSSErrorResult.class);
+            ResponseParsers.getXmlRootElement(new ByteArrayInputStream("<WarmUp/>".getBytes()));
+            ServiceSignature.create().computeSignature("key", "data");
+            Mimetypes.getInstance().getMimetype("warmup.txt");
+            DateUtil.parseRfc822Date(DateUtil.formatRfc822Date(new Date()));
+            DateUtil.parseIso8601Date(DateUtil.formatIso8601Date(new Date()));
+        } catch (Exception e) {
+            throw new ClientException("Unable to initialize the client components: " + e.getMessage(), e);
+        }
+    }
+
+}
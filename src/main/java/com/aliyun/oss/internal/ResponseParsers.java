@@ -31,18 +31,20 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.CheckedInputStream;
 
+import org.apache.http.HttpStatus;
 import org.jdom.Document;
 import org.jdom.Element;
 import org.jdom.input.JDOMParseException;
 import org.jdom.input.SAXBuilder;
 
 import com.aliyun.oss.common.comm.ResponseMessage;
+import com.aliyun.oss.common.parser.ParserPool;
 import com.aliyun.oss.common.parser.ResponseParseException;
 import com.aliyun.oss.common.parser.ResponseParser;
 import com.aliyun.oss.common.utils.DateUtil;
 import com.aliyun.oss.common.utils.HttpUtil;
+import com.aliyun.oss.common.utils.IOUtils;
 import com.aliyun.oss.model.AccessControlList;
 import com.aliyun.oss.model.AddBucketReplicationRequest.ReplicationAction;
 import com.aliyun.oss.model.AppendObjectResult;
@@ -79,6 +81,7 @@ import com.aliyun.oss.model.OSSSymlink;
 import com.aliyun.oss.model.ReplicationRule;
 import com.aliyun.oss.model.GetImageStyleResult;
 import com.aliyun.oss.model.GroupGrantee;
+import com.aliyun.oss.model.HeadObjectResult;
 import com.aliyun.oss.model.InitiateMultipartUploadResult;
 import com.aliyun.oss.model.InstanceFlavor;
 import com.aliyun.oss.model.LifecycleRule;
@@ -172,6 +175,14 @@ public final class ResponseParsers {
     public static final GetUdfApplicationInfoResponseParser getUdfApplicationInfoResponseParser = new GetUdfApplicationInfoResponseParser();
     public static final ListUdfApplicationInfoResponseParser listUdfApplicationInfoResponseParser = new ListUdfApplicationInfoResponseParser();
 
+    // SAXBuilder reuses its SAX parser across builds but isn't thread safe.
+    private static final ParserPool<SAXBuilder> saxBuilderPool = new ParserPool<SAXBuilder>() {
+        @Override
+        protected SAXBuilder create() {
+            return new SAXBuilder();
+        }
+    };
+
     public static final class EmptyResponseParser implements ResponseParser<ResponseMessage> {
 
         @Override
@@ -686,6 +697,9 @@ public final class ResponseParsers {
         @Override
         public SimplifiedObjectMeta parse(ResponseMessage response) throws ResponseParseException {
             try {
+                if (response.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+                    return null;
+                }
                 return parseSimplifiedObjectMeta(response.getHeaders());
             } finally {
                 OSSUtils.mandatoryCloseResponse(response);
@@ -734,6 +748,34 @@ public final class ResponseParsers {
 
     }
 
+    /**
+     * Parses the metadata of a HEAD request accepting 404 Not Found, which
+     * is returned as null.
+     */
+    public static final class HeadObjectResponseParser implements ResponseParser<HeadObjectResult> {
+        private String key;
+
+        public HeadObjectResponseParser(final String key) {
+            this.key = key;
+        }
+
+        @Override
+        public HeadObjectResult parse(ResponseMessage response) throws ResponseParseException {
+            try {
+                ObjectMetadata metadata = null;
+                if (response.getStatusCode() != HttpStatus.SC_NOT_FOUND) {
+                    metadata = parseObjectMetadata(response.getHeaders());
+                }
+                HeadObjectResult result = new HeadObjectResult(key, metadata, response.getStatusCode());
+                result.setRequestId(response.getRequestId());
+                return result;
+            } finally {
+                safeCloseResponse(response);
+            }
+        }
+
+    }
+
     public static final class CopyObjectResponseParser implements ResponseParser<CopyObjectResult> {
 
         @Override
@@ -957,10 +999,9 @@ public final class ResponseParsers {
     }
 
     public static <ResultType extends GenericResult> void setCRC(ResultType result, ResponseMessage response) {
-        InputStream inputStream = response.getRequest().getContent();
-        if (inputStream instanceof CheckedInputStream) {
-            CheckedInputStream checkedInputStream = (CheckedInputStream) inputStream;
-            result.setClientCRC(checkedInputStream.getChecksum().getValue());
+        Long clientCRC = IOUtils.getCRCValue(response.getRequest().getContent());
+        if (clientCRC != null) {
+            result.setClientCRC(clientCRC);
         }
 
         String strSrvCrc = response.getHeaders().get(OSSHeaders.OSS_HASH_CRC64_ECMA);
@@ -978,9 +1019,11 @@ public final class ResponseParsers {
         }
     }
 
-    private static Element getXmlRootElement(InputStream responseBody) throws Exception {
-        SAXBuilder builder = new SAXBuilder();
+    static Element getXmlRootElement(InputStream responseBody) throws Exception {
+        SAXBuilder builder = saxBuilderPool.acquire();
         Document doc = builder.build(responseBody);
+        // A builder that failed isn't returned to the pool.
+        saxBuilderPool.release(builder);
         return doc.getRootElement();
     }
 
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The request to concatenate objects into a new object by a multipart
+ * upload. Sources of at least the minimum part size are copied on the server
+ * by uploadPartCopy, the smaller ones are downloaded, merged with their
+ * neighbours and uploaded as regular parts.
+ *
+ */
+public class ComposeObjectRequest extends GenericRequest {
+
+    public static final long MIN_PART_SIZE = 1024 * 100;
+
+    public ComposeObjectRequest(String bucketName, String key) {
+        super(bucketName, key);
+    }
+
+    public ComposeObjectRequest(String bucketName, String key, List<ComposeSource> sources, int taskNum) {
+        super(bucketName, key);
+        this.sources = sources;
+        setTaskNum(taskNum);
+    }
+
+    public ComposeObjectRequest(String bucketName, String key, List<ComposeSource> sources, int taskNum,
+            boolean enableCheckpoint, String checkpointFile) {
+        this(bucketName, key, sources, taskNum);
+        this.enableCheckpoint = enableCheckpoint;
+        this.checkpointFile = checkpointFile;
+    }
+
+    public List<ComposeSource> getSources() {
+        return sources;
+    }
+
+    public void setSources(List<ComposeSource> sources) {
+        this.sources = sources;
+    }
+
+    public ComposeObjectRequest addSource(String bucketName, String key) {
+        return addSource(new ComposeSource(bucketName, key));
+    }
+
+    public ComposeObjectRequest addSource(ComposeSource source) {
+        if (sources == null) {
+            sources = new ArrayList<ComposeSource>();
+        }
+        sources.add(source);
+        return this;
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * Sets the size at which the buffered small sources are uploaded as a
+     * part. It's at least 100KB.
+     * 
+     * @param partSize
+     *            The size of the uploaded parts.
+     */
+    public void setPartSize(long partSize) {
+        if (partSize < MIN_PART_SIZE) {
+            this.partSize = MIN_PART_SIZE;
+        } else {
+            this.partSize = partSize;
+        }
+    }
+
+    public long getCopyPartSize() {
+        return copyPartSize;
+    }
+
+    /**
+     * Sets the maximum size of a part copied on the server. Larger sources are
+     * copied by several parts concurrently. It's between 200KB and 5GB.
+     * 
+     * @param copyPartSize
+     *            The maximum size of the copied parts.
+     */
+    public void setCopyPartSize(long copyPartSize) {
+        if (copyPartSize < MIN_PART_SIZE * 2) {
+            this.copyPartSize = MIN_PART_SIZE * 2;
+        } else if (copyPartSize > MAX_PART_SIZE) {
+            this.copyPartSize = MAX_PART_SIZE;
+        } else {
+            this.copyPartSize = copyPartSize;
+        }
+    }
+
+    public int getTaskNum() {
+        return taskNum;
+    }
+
+    public void setTaskNum(int taskNum) {
+        if (taskNum < 1) {
+            this.taskNum = 1;
+        } else if (taskNum > 1000) {
+            this.taskNum = 1000;
+        } else {
+            this.taskNum = taskNum;
+        }
+    }
+
+    public boolean isEnableCheckpoint() {
+        return enableCheckpoint;
+    }
+
+    public void setEnableCheckpoint(boolean enableCheckpoint) {
+        this.enableCheckpoint = enableCheckpoint;
+    }
+
+    public String getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public void setCheckpointFile(String checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    public ObjectMetadata getObjectMetadata() {
+        return objectMetadata;
+    }
+
+    public void setObjectMetadata(ObjectMetadata objectMetadata) {
+        this.objectMetadata = objectMetadata;
+    }
+
+    public Callback getCallback() {
+        return callback;
+    }
+
+    public void setCallback(Callback callback) {
+        this.callback = callback;
+    }
+
+    private static final long MAX_PART_SIZE = 5 * 1024 * 1024 * 1024L;
+
+    // The objects to concatenate, in order.
+    private List<ComposeSource> sources;
+    // Size of the uploaded parts, by default it's 10MB.
+    private long partSize = 1024 * 1024 * 10;
+    // Maximum size of the copied parts, by default it's 1GB.
+    private long copyPartSize = 1024 * 1024 * 1024L;
+    // Concurrent parts thread count. By default it's 1.
+    private int taskNum = 1;
+    // Enable the checkpoint
+    private boolean enableCheckpoint = false;
+    // The checkpoint file's local path.
+    private String checkpointFile;
+    // The metadata of the target object.
+    private ObjectMetadata objectMetadata;
+    // callback entry.
+    private Callback callback;
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+/**
+ * An object, or a byte range of an object, concatenated by
+ * {@link ComposeObjectRequest}.
+ *
+ */
+public class ComposeSource {
+
+    public ComposeSource(String bucketName, String key) {
+        this.bucketName = bucketName;
+        this.key = key;
+    }
+
+    public ComposeSource(String bucketName, String key, long beginIndex, long length) {
+        this.bucketName = bucketName;
+        this.key = key;
+        this.beginIndex = beginIndex;
+        this.length = length;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public void setBucketName(String bucketName) {
+        this.bucketName = bucketName;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public Long getBeginIndex() {
+        return beginIndex;
+    }
+
+    public Long getLength() {
+        return length;
+    }
+
+    /**
+     * Sets the byte range of the object to concatenate. Without a range the
+     * whole object is concatenated.
+     * 
+     * @param beginIndex
+     *            The offset of the first byte in the object.
+     * @param length
+     *            The number of bytes.
+     */
+    public void setRange(long beginIndex, long length) {
+        this.beginIndex = beginIndex;
+        this.length = length;
+    }
+
+    @Override
+    public String toString() {
+        String range = beginIndex != null ? "[" + beginIndex + "+" + length + "]" : "";
+        return bucketName + "/" + key + range;
+    }
+
+    // The source bucket.
+    private String bucketName;
+    // The source key.
+    private String key;
+    // The offset of the range, or null for the whole object.
+    private Long beginIndex;
+    // The length of the range, or null for the whole object.
+    private Long length;
+}
@@ -25,6 +25,8 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
+import com.aliyun.oss.common.crypto.EncryptionMaterials;
+
 /**
  * This is the request class that is used to download an object from OSS. It
  * wraps all the information needed to download an object.
@@ -47,6 +49,10 @@ public class GetObjectRequest extends GenericRequest {
     private URL absoluteUrl;
     private boolean useUrlSignature = false;
 
+    private boolean decompressionEnabled = true;
+
+    private EncryptionMaterials encryptionMaterials;
+
     /**
      * Constructor
      * 
@@ -292,6 +298,37 @@ public class GetObjectRequest extends GenericRequest {
         this.useUrlSignature = useUrlSignature;
     }
 
+    public boolean isDecompressionEnabled() {
+        return decompressionEnabled;
+    }
+
+    /**
+     * Sets the flag of decompressing the content of an object compressed by
+     * the client-side compression. By default it's true. The ranges of such
+     * objects are never decompressed.
+     * 
+     * @param decompressionEnabled
+     *            false to read the compressed content.
+     */
+    public void setDecompressionEnabled(boolean decompressionEnabled) {
+        this.decompressionEnabled = decompressionEnabled;
+    }
+
+    public EncryptionMaterials getEncryptionMaterials() {
+        return encryptionMaterials;
+    }
+
+    /**
+     * Sets the master key decrypting the object, overriding the one of the client
+     * configuration.
+     * 
+     * @param encryptionMaterials
+     *            The encryption materials.
+     */
+    public void setEncryptionMaterials(EncryptionMaterials encryptionMaterials) {
+        this.encryptionMaterials = encryptionMaterials;
+    }
+
     public String getProcess() {
         return process;
     }
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+import org.apache.http.HttpStatus;
+
+/**
+ * The result of a HEAD request, of a {@link HeadObjectRequest} or of one key
+ * of a {@link HeadObjectsRequest}. The object either is found and has its
+ * metadata, isn't found, or the request failed with an exception. The
+ * constraints of a {@link HeadObjectRequest} which aren't met are returned as
+ * the status code.
+ */
+public class HeadObjectResult extends GenericResult {
+
+    private final String key;
+    private final ObjectMetadata objectMetadata;
+    private final int statusCode;
+    private final Exception exception;
+
+    public HeadObjectResult(String key, ObjectMetadata objectMetadata) {
+        this(key, objectMetadata, objectMetadata != null ? HttpStatus.SC_OK : HttpStatus.SC_NOT_FOUND);
+    }
+
+    public HeadObjectResult(String key, ObjectMetadata objectMetadata, int statusCode) {
+        this.key = key;
+        this.objectMetadata = objectMetadata;
+        this.statusCode = statusCode;
+        this.exception = null;
+    }
+
+    public HeadObjectResult(String key, Exception exception) {
+        this.key = key;
+        this.objectMetadata = null;
+        this.statusCode = 0;
+        this.exception = exception;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the metadata of the object, or null if it isn't found or the
+     * request failed.
+     */
+    public ObjectMetadata getObjectMetadata() {
+        return objectMetadata;
+    }
+
+    /**
+     * Gets the exception of the failed request, which is an OSSException or a
+     * ClientException, or null if the request succeeded.
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    /**
+     * Gets the HTTP status code of the response, or 0 if the request failed.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isFound() {
+        return objectMetadata != null;
+    }
+
+    public boolean isFailed() {
+        return exception != null;
+    }
+
+    /**
+     * Whether the object matches none of the non-matching ETag constraints or
+     * isn't modified since the modified since constraint.
+     */
+    public boolean isNotModified() {
+        return statusCode == HttpStatus.SC_NOT_MODIFIED;
+    }
+
+    /**
+     * Whether the object doesn't match the matching ETag constraints or is
+     * modified since the unmodified since constraint.
+     */
+    public boolean isPreconditionFailed() {
+        return statusCode == HttpStatus.SC_PRECONDITION_FAILED;
+    }
+
+    @Override
+    public String toString() {
+        return "HeadObjectResult [key=" + key + ", found=" + isFound() + ", statusCode=" + statusCode + ", exception=" + exception + "]";
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+/**
+ * The request to get the metadata of many objects of a bucket. The HEAD
+ * requests of the keys are sent concurrently, at most max concurrency at a
+ * time, and their results are returned in the order they complete.
+ */
+public class HeadObjectsRequest extends GenericRequest {
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+    private Iterable<String> keys;
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+
+    public HeadObjectsRequest(String bucketName, Iterable<String> keys) {
+        super(bucketName);
+        this.keys = keys;
+    }
+
+    /**
+     * Gets the keys of the objects. They're read as the results are consumed,
+     * so a lazy iterable isn't read ahead more than max concurrency keys.
+     */
+    public Iterable<String> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(Iterable<String> keys) {
+        this.keys = keys;
+    }
+
+    public HeadObjectsRequest withKeys(Iterable<String> keys) {
+        setKeys(keys);
+        return this;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Sets the max number of HEAD requests in flight. By default it's 16.
+     * 
+     * @param maxConcurrency
+     *            The max number of concurrent requests.
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("The max concurrency must be positive.");
+        }
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public HeadObjectsRequest withMaxConcurrency(int maxConcurrency) {
+        setMaxConcurrency(maxConcurrency);
+        return this;
+    }
+}
@@ -22,6 +22,10 @@ package com.aliyun.oss.model;
 import java.io.File;
 import java.io.InputStream;
 
+import com.aliyun.oss.common.compress.CompressionCodec;
+import com.aliyun.oss.common.compress.CompressionCodecs;
+import com.aliyun.oss.common.crypto.EncryptionMaterials;
+
 public class PutObjectRequest extends GenericRequest {
 
     private File file;
@@ -32,6 +36,10 @@ public class PutObjectRequest extends GenericRequest {
     private Callback callback;
     private String process;
 
+    private CompressionCodec compressionCodec;
+
+    private EncryptionMaterials encryptionMaterials;
+
     public PutObjectRequest(String bucketName, String key, File file) {
         this(bucketName, key, file, null);
     }
@@ -91,4 +99,35 @@ public class PutObjectRequest extends GenericRequest {
     public void setProcess(String process) {
         this.process = process;
     }
+
+    public CompressionCodec getCompressionCodec() {
+        return compressionCodec;
+    }
+
+    /**
+     * Sets the codec compressing the object, overriding the one of the client
+     * configuration. {@link CompressionCodecs#NONE} disables the compression
+     * of the object. The appended objects aren't compressed.
+     * 
+     * @param compressionCodec
+     *            The compression codec.
+     */
+    public void setCompressionCodec(CompressionCodec compressionCodec) {
+        this.compressionCodec = compressionCodec;
+    }
+
+    public EncryptionMaterials getEncryptionMaterials() {
+        return encryptionMaterials;
+    }
+
+    /**
+     * Sets the master key encrypting the object, overriding the one of the client
+     * configuration. The appended objects aren't encrypted.
+     * 
+     * @param encryptionMaterials
+     *            The encryption materials.
+     */
+    public void setEncryptionMaterials(EncryptionMaterials encryptionMaterials) {
+        this.encryptionMaterials = encryptionMaterials;
+    }
 }
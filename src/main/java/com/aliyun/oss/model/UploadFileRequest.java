@@ -19,6 +19,10 @@
 
 package com.aliyun.oss.model;
 
+import com.aliyun.oss.common.compress.CompressionCodec;
+import com.aliyun.oss.common.compress.CompressionCodecs;
+import com.aliyun.oss.common.crypto.EncryptionMaterials;
+
 /**
  * The file upload request to start a multipart upload.
  *
@@ -113,6 +117,40 @@ public class UploadFileRequest extends GenericRequest {
         this.objectMetadata = objectMetadata;
     }
 
+    public CompressionCodec getCompressionCodec() {
+        return compressionCodec;
+    }
+
+    /**
+     * Sets the codec compressing the file, overriding the one of the client
+     * configuration. {@link CompressionCodecs#NONE} disables the compression
+     * of the file. The parts of a compressed file are compressed by the upload
+     * threads. A compressed upload doesn't resume from a checkpoint, so it
+     * can't enable the checkpoint.
+     * 
+     * @param compressionCodec
+     *            The compression codec.
+     */
+    public void setCompressionCodec(CompressionCodec compressionCodec) {
+        this.compressionCodec = compressionCodec;
+    }
+
+    public EncryptionMaterials getEncryptionMaterials() {
+        return encryptionMaterials;
+    }
+
+    /**
+     * Sets the master key encrypting the file, overriding the one of the client
+     * configuration. The parts are encrypted by the upload threads
+     * at their offsets in the file.
+     * 
+     * @param encryptionMaterials
+     *            The encryption materials.
+     */
+    public void setEncryptionMaterials(EncryptionMaterials encryptionMaterials) {
+        this.encryptionMaterials = encryptionMaterials;
+    }
+
     public Callback getCallback() {
         return callback;
     }
@@ -135,4 +173,8 @@ public class UploadFileRequest extends GenericRequest {
     private ObjectMetadata objectMetadata;
     // callback entry.
     private Callback callback;
+
+    private CompressionCodec compressionCodec;
+
+    private EncryptionMaterials encryptionMaterials;
 }
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The request to warm up a client before it serves traffic: the pooled
+ * connections to the buckets are opened, including the TLS handshake for
+ * HTTPS, and the parsers, signers and MIME types are initialized.
+ */
+public class WarmUpRequest extends WebServiceRequest {
+
+    public static final int DEFAULT_CONNECTIONS_PER_BUCKET = 8;
+
+    private List<String> bucketNames = new ArrayList<String>();
+    private int connectionsPerBucket = DEFAULT_CONNECTIONS_PER_BUCKET;
+
+    public WarmUpRequest() {
+    }
+
+    public WarmUpRequest(Collection<String> bucketNames, int connectionsPerBucket) {
+        setBucketNames(bucketNames);
+        setConnectionsPerBucket(connectionsPerBucket);
+    }
+
+    /**
+     * Gets the buckets to open connections to. If empty, the connections are
+     * opened to the endpoint itself.
+     */
+    public List<String> getBucketNames() {
+        return bucketNames;
+    }
+
+    public void setBucketNames(Collection<String> bucketNames) {
+        this.bucketNames.clear();
+        if (bucketNames != null) {
+            this.bucketNames.addAll(bucketNames);
+        }
+    }
+
+    public WarmUpRequest withBucketNames(Collection<String> bucketNames) {
+        setBucketNames(bucketNames);
+        return this;
+    }
+
+    /**
+     * Gets the number of connections to open per bucket, capped by the
+     * connection pool limits.
+     */
+    public int getConnectionsPerBucket() {
+        return connectionsPerBucket;
+    }
+
+    public void setConnectionsPerBucket(int connectionsPerBucket) {
+        if (connectionsPerBucket < 0) {
+            throw new IllegalArgumentException("The connections per bucket should not be negative.");
+        }
+        this.connectionsPerBucket = connectionsPerBucket;
+    }
+
+    public WarmUpRequest withConnectionsPerBucket(int connectionsPerBucket) {
+        setConnectionsPerBucket(connectionsPerBucket);
+        return this;
+    }
+}
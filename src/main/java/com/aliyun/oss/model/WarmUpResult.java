@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+/**
+ * The result of warming up a client.
+ */
+public class WarmUpResult {
+
+    private long initializationTime;
+    private long duration;
+    private int connectionsOpened;
+
+    public WarmUpResult(long initializationTime, long duration, int connectionsOpened) {
+        this.initializationTime = initializationTime;
+        this.duration = duration;
+        this.connectionsOpened = connectionsOpened;
+    }
+
+    /**
+     * Gets the time in millisecond spent initializing the parsers, signers and
+     * MIME types.
+     */
+    public long getInitializationTime() {
+        return initializationTime;
+    }
+
+    /**
+     * Gets the total time in millisecond of the warm-up.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Gets the number of connections opened by the warm-up. Connections which
+     * were already open in the pool are not counted.
+     */
+    public int getConnectionsOpened() {
+        return connectionsOpened;
+    }
+
+    @Override
+    public String toString() {
+        return "WarmUpResult [initializationTime=" + initializationTime + ", duration=" + duration
+                + ", connectionsOpened=" + connectionsOpened + "]";
+    }
+}
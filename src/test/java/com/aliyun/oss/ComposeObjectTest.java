@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aliyun.oss.common.compress.GzipCodec;
+import com.aliyun.oss.common.crypto.EncryptionMaterials;
+import com.aliyun.oss.common.utils.IOUtils;
+import com.aliyun.oss.model.ComposeObjectRequest;
+import com.aliyun.oss.model.ComposeObjectResult;
+import com.aliyun.oss.model.ComposeSource;
+import com.aliyun.oss.model.ListMultipartUploadsRequest;
+import com.aliyun.oss.model.PutObjectRequest;
+import com.aliyun.oss.server.LocalOSSServer;
+
+public class ComposeObjectTest {
+
+    private static final int KB = 1024;
+
+    private LocalOSSServer server;
+    private OSSClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new LocalOSSServer().start();
+        ClientConfiguration config = new ClientConfiguration();
+        config.setSLDEnabled(true);
+        config.setMaxErrorRetry(0);
+        client = new OSSClient(server.getEndpoint(), "id", "key", config);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testSmallSourcesAreMergedAndLargeOnesCopied() throws Throwable {
+        byte[] a = put("bucket", "a", 300 * KB);
+        byte[] b = put("bucket", "b", 10 * KB);
+        byte[] c = put("other", "c", 20 * KB);
+        byte[] d = put("bucket", "d", 250 * KB);
+
+        ComposeObjectRequest request = new ComposeObjectRequest("bucket", "composed");
+        request.addSource("bucket", "a").addSource("bucket", "b").addSource("other", "c").addSource("bucket", "d")
+                .addSource(new ComposeSource("bucket", "a", 1000, 5 * KB));
+        request.setTaskNum(4);
+        ComposeObjectResult result = client.composeObject(request);
+
+        // b and c borrow the head of d to make a part of the minimum size,
+        // the rest of d is copied.
+        assertEquals((300 + 180) * KB, result.getCopiedBytes());
+        assertEquals((100 + 5) * KB, result.getUploadedBytes());
+        assertArrayEquals(concat(a, b, c, d, Arrays.copyOfRange(a, 1000, 1000 + 5 * KB)), get("bucket", "composed"));
+    }
+
+    @Test
+    public void testLargeSourceIsSplitIntoCopyParts() throws Throwable {
+        byte[] a = put("bucket", "a", 450 * KB);
+        byte[] b = put("bucket", "b", 3 * KB);
+
+        ComposeObjectRequest request = new ComposeObjectRequest("bucket", "composed");
+        request.addSource("bucket", "a").addSource("bucket", "b");
+        request.setCopyPartSize(200 * KB);
+        request.setTaskNum(3);
+        ComposeObjectResult result = client.composeObject(request);
+
+        assertEquals(450 * KB, result.getCopiedBytes());
+        assertEquals(3 * KB, result.getUploadedBytes());
+        assertArrayEquals(concat(a, b), get("bucket", "composed"));
+    }
+
+    @Test
+    public void testEmptySources() throws Throwable {
+        put("bucket", "empty", 0);
+
+        ComposeObjectRequest request = new ComposeObjectRequest("bucket", "composed");
+        request.addSource("bucket", "empty").addSource("bucket", "empty");
+        ComposeObjectResult result = client.composeObject(request);
+
+        assertEquals(0, result.getCopiedBytes() + result.getUploadedBytes());
+        assertEquals(0, get("bucket", "composed").length);
+    }
+
+    @Test
+    public void testMissingSourceFailsBeforeUpload() throws Throwable {
+        put("bucket", "a", 200 * KB);
+
+        ComposeObjectRequest request = new ComposeObjectRequest("bucket", "composed");
+        request.addSource("bucket", "a").addSource("bucket", "missing");
+        try {
+            client.composeObject(request);
+            fail("The missing source should fail the composition.");
+        } catch (OSSException e) {
+            assertEquals(OSSErrorCode.NO_SUCH_KEY, e.getErrorCode());
+        }
+        assertTrue(client.listMultipartUploads(new ListMultipartUploadsRequest("bucket")).getMultipartUploads()
+                .isEmpty());
+    }
+
+    @Test
+    public void testEncodedSourcesAreRejected() throws Throwable {
+        put("bucket", "a", 200 * KB);
+        PutObjectRequest compressed = new PutObjectRequest("bucket", "compressed",
+                new ByteArrayInputStream(new byte[KB]));
+        compressed.setCompressionCodec(new GzipCodec());
+        client.putObject(compressed);
+        PutObjectRequest encrypted = new PutObjectRequest("bucket", "encrypted",
+                new ByteArrayInputStream(new byte[KB]));
+        encrypted.setEncryptionMaterials(new EncryptionMaterials(new byte[16]));
+        client.putObject(encrypted);
+
+        for (String key : Arrays.asList("compressed", "encrypted")) {
+            ComposeObjectRequest request = new ComposeObjectRequest("bucket", "composed");
+            request.addSource("bucket", "a").addSource("bucket", key);
+            try {
+                client.composeObject(request);
+                fail("The client-side encoded source should fail the composition.");
+            } catch (IllegalArgumentException e) {
+            }
+        }
+        assertTrue(client.listMultipartUploads(new ListMultipartUploadsRequest("bucket")).getMultipartUploads()
+                .isEmpty());
+    }
+
+    @Test
+    public void testFailedCompositionIsAbortedWithoutCheckpoint() throws Throwable {
+        put("bucket", "a", 200 * KB);
+        put("bucket", "b", 200 * KB);
+
+        ComposeObjectRequest request = new ComposeObjectRequest("bucket", "composed");
+        request.addSource("bucket", "a").addSource("bucket", "b");
+        // Fails the first part, after the two HEAD requests and the initiation.
+        injectServerErrorAt(4);
+        try {
+            client.composeObject(request);
+            fail("The failed part should fail the composition.");
+        } catch (OSSException e) {
+        }
+        assertTrue(client.listMultipartUploads(new ListMultipartUploadsRequest("bucket")).getMultipartUploads()
+                .isEmpty());
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() throws Throwable {
+        byte[] a = put("bucket", "a", 150 * KB);
+        byte[] b = put("bucket", "b", 150 * KB);
+        byte[] c = put("bucket", "c", 150 * KB);
+        File checkpointFile = File.createTempFile("compose", ".ccp");
+        checkpointFile.delete();
+
+        try {
+            ComposeObjectRequest request = new ComposeObjectRequest("bucket", "composed", null, 1, true,
+                    checkpointFile.getPath());
+            request.addSource("bucket", "a").addSource("bucket", "b").addSource("bucket", "c");
+
+            // Three HEAD requests, the initiation, then the second part fails.
+            injectServerErrorAt(6);
+            try {
+                client.composeObject(request);
+                fail("The failed part should fail the composition.");
+            } catch (OSSException e) {
+            }
+            assertTrue(checkpointFile.exists());
+
+            long requestCount = server.getRequestCount();
+            ComposeObjectResult result = client.composeObject(request);
+            // The third part is uploaded after the second one failed, so only
+            // the HEAD requests, the failed part and the completion are left.
+            assertEquals(5, server.getRequestCount() - requestCount);
+            assertEquals(450 * KB, result.getCopiedBytes());
+            assertArrayEquals(concat(a, b, c), get("bucket", "composed"));
+            assertFalse(checkpointFile.exists());
+        } finally {
+            checkpointFile.delete();
+        }
+    }
+
+    @Test
+    public void testChangedSourceInvalidatesCheckpoint() throws Throwable {
+        put("bucket", "a", 150 * KB);
+        byte[] b = put("bucket", "b", 150 * KB);
+        File checkpointFile = File.createTempFile("compose", ".ccp");
+        checkpointFile.delete();
+
+        try {
+            ComposeObjectRequest request = new ComposeObjectRequest("bucket", "composed", null, 1, true,
+                    checkpointFile.getPath());
+            request.addSource("bucket", "a").addSource("bucket", "b");
+
+            injectServerErrorAt(5);
+            try {
+                client.composeObject(request);
+                fail("The failed part should fail the composition.");
+            } catch (OSSException e) {
+            }
+            assertTrue(checkpointFile.exists());
+
+            byte[] a = put("bucket", "a", 160 * KB);
+            ComposeObjectResult result = client.composeObject(request);
+            assertEquals(310 * KB, result.getCopiedBytes());
+            assertArrayEquals(concat(a, b), get("bucket", "composed"));
+        } finally {
+            checkpointFile.delete();
+        }
+    }
+
+    /**
+     * Fails the request of the given number, counted from now. The server
+     * holds each request long enough to inject the error while it's served.
+     */
+    private void injectServerErrorAt(final int number) {
+        server.setLatency(50, TimeUnit.MILLISECONDS);
+        final long target = server.getRequestCount() + number;
+        Thread injector = new Thread() {
+            @Override
+            public void run() {
+                while (server.getRequestCount() < target) {
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                server.injectServerErrors(1);
+                server.setLatency(0, TimeUnit.MILLISECONDS);
+            }
+        };
+        injector.setDaemon(true);
+        injector.start();
+    }
+
+    private byte[] put(String bucketName, String key, int size) {
+        byte[] data = new byte[size];
+        new Random(key.hashCode() + size).nextBytes(data);
+        client.putObject(bucketName, key, new ByteArrayInputStream(data));
+        return data;
+    }
+
+    private byte[] get(String bucketName, String key) throws Exception {
+        return IOUtils.readStreamAsByteArray(client.getObject(bucketName, key).getObjectContent());
+    }
+
+    private static byte[] concat(byte[]... parts) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+import com.aliyun.oss.internal.EndpointResolver;
+import com.aliyun.oss.internal.OSSUtils;
+import com.aliyun.oss.model.GeneratePresignedUrlRequest;
+
+public class EndpointResolverTest {
+
+    @Test
+    public void testResolveMatchesDetermineFinalEndpoint() {
+        ClientConfiguration config = new ClientConfiguration();
+        EndpointResolver resolver = new EndpointResolver();
+        String[] endpoints = { "http://oss-cn-hangzhou.aliyuncs.com", "https://oss-cn-hangzhou.aliyuncs.com:8443/path",
+                "http://img.example.com", "http://127.0.0.1:8080" };
+        String[] buckets = { "bucket", null };
+
+        for (String endpoint : endpoints) {
+            URI uri = URI.create(endpoint);
+            for (String bucket : buckets) {
+                URI expected = OSSUtils.determineFinalEndpoint(uri, bucket, config);
+                assertEquals(expected, resolver.resolve(uri, bucket, config));
+                assertEquals(expected.getHost(), resolver.resolveHost(uri, bucket, config));
+            }
+        }
+
+        URI uri = URI.create("http://oss-cn-hangzhou.aliyuncs.com");
+        assertEquals("bucket.oss-cn-hangzhou.aliyuncs.com", resolver.resolveHost(uri, "bucket", config));
+        assertEquals("img.example.com", resolver.resolveHost(URI.create("http://img.example.com"), "bucket", config));
+    }
+
+    @Test
+    public void testResolvedEndpointsAreCached() {
+        ClientConfiguration config = new ClientConfiguration();
+        EndpointResolver resolver = new EndpointResolver();
+        URI endpoint = URI.create("http://oss-cn-hangzhou.aliyuncs.com");
+
+        URI resolved = resolver.resolve(endpoint, "bucket", config);
+        assertSame(resolved, resolver.resolve(endpoint, "bucket", config));
+        assertSame(resolved, resolver.resolve(URI.create(endpoint.toString()), "bucket", config));
+        assertNotSame(resolved, resolver.resolve(endpoint, "other-bucket", config));
+
+        resolver.invalidate(endpoint);
+        URI reresolved = resolver.resolve(endpoint, "bucket", config);
+        assertNotSame(resolved, reresolved);
+        assertEquals(resolved, reresolved);
+    }
+
+    @Test
+    public void testConfigurationChangesResolveAgain() {
+        ClientConfiguration config = new ClientConfiguration();
+        EndpointResolver resolver = new EndpointResolver();
+        URI endpoint = URI.create("http://img.example.com");
+
+        assertEquals("img.example.com", resolver.resolveHost(endpoint, "bucket", config));
+        config.setSupportCname(false);
+        assertEquals("bucket.img.example.com", resolver.resolveHost(endpoint, "bucket", config));
+        config.setSLDEnabled(true);
+        assertEquals("img.example.com", resolver.resolveHost(endpoint, "bucket", config));
+        config.setSLDEnabled(false);
+        assertEquals("bucket.img.example.com", resolver.resolveHost(endpoint, "bucket", config));
+    }
+
+    @Test
+    public void testSetEndpointInvalidatesResolvedEndpoints() {
+        OSSClient client = new OSSClient("http://oss-cn-hangzhou.aliyuncs.com", "id", "key");
+        try {
+            GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest("bucket", "key");
+            request.setExpiration(new Date(System.currentTimeMillis() + 60000));
+            assertEquals("bucket.oss-cn-hangzhou.aliyuncs.com", client.generatePresignedUrl(request).getHost());
+
+            client.setEndpoint("http://oss-cn-shanghai.aliyuncs.com");
+            assertEquals("bucket.oss-cn-shanghai.aliyuncs.com", client.generatePresignedUrl(request).getHost());
+
+            client.getClientConfiguration().setCnameExcludeList(Arrays.asList("example.com"));
+            client.setEndpoint("http://img.example.com");
+            assertEquals("bucket.img.example.com", client.generatePresignedUrl(request).getHost());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+}
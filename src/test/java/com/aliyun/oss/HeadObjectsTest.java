@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aliyun.oss.common.cache.MetadataCachePolicy;
+import com.aliyun.oss.model.HeadObjectRequest;
+import com.aliyun.oss.model.HeadObjectResult;
+import com.aliyun.oss.model.HeadObjectsRequest;
+import com.aliyun.oss.server.LocalOSSServer;
+
+public class HeadObjectsTest {
+
+    private LocalOSSServer server;
+    private String eTagOfA;
+    private long initialRequestCount;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new LocalOSSServer().start();
+        OSSClient client = createClient(new ClientConfiguration());
+        try {
+            eTagOfA = client.putObject("bucket", "a", new ByteArrayInputStream("a".getBytes())).getETag();
+            client.putObject("bucket", "bb", new ByteArrayInputStream("bb".getBytes()));
+            client.putObject("bucket", "ccc", new ByteArrayInputStream("ccc".getBytes()));
+        } finally {
+            client.shutdown();
+        }
+        initialRequestCount = server.getRequestCount();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void testHeadObjects() {
+        OSSClient client = createClient(new ClientConfiguration());
+        try {
+            List<String> keys = Arrays.asList("a", "missing-1", "bb", "ccc", "missing-2");
+            Map<String, HeadObjectResult> results = collect(
+                    client.headObjects(new HeadObjectsRequest("bucket", keys).withMaxConcurrency(2)));
+
+            assertEquals(5, results.size());
+            assertEquals(1, results.get("a").getObjectMetadata().getContentLength());
+            assertEquals(2, results.get("bb").getObjectMetadata().getContentLength());
+            assertEquals(3, results.get("ccc").getObjectMetadata().getContentLength());
+            for (String key : new String[] { "missing-1", "missing-2" }) {
+                assertFalse(results.get(key).isFound());
+                assertFalse(results.get(key).isFailed());
+                assertNull(results.get(key).getObjectMetadata());
+            }
+            assertEquals(5, requestCount());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testKeysReadAsResultsAreConsumed() {
+        OSSClient client = createClient(new ClientConfiguration());
+        try {
+            final AtomicInteger keysRead = new AtomicInteger();
+            Iterable<String> keys = new Iterable<String>() {
+                @Override
+                public Iterator<String> iterator() {
+                    return new Iterator<String>() {
+                        @Override
+                        public boolean hasNext() {
+                            return keysRead.get() < 100;
+                        }
+
+                        @Override
+                        public String next() {
+                            return "key-" + keysRead.incrementAndGet();
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+            };
+
+            Iterator<HeadObjectResult> results = client
+                    .headObjects(new HeadObjectsRequest("bucket", keys).withMaxConcurrency(4));
+            assertEquals(0, keysRead.get());
+            assertTrue(results.hasNext());
+            assertEquals(4, keysRead.get());
+            results.next();
+            assertTrue(results.hasNext());
+            assertEquals(5, keysRead.get());
+
+            int count = 1;
+            while (results.hasNext()) {
+                assertFalse(results.next().isFound());
+                count++;
+            }
+            assertEquals(100, count);
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvalidKeyFailsAlone() {
+        OSSClient client = createClient(new ClientConfiguration());
+        try {
+            Map<String, HeadObjectResult> results = collect(
+                    client.headObjects(new HeadObjectsRequest("bucket", Arrays.asList("a", "/invalid"))));
+            assertTrue(results.get("a").isFound());
+            assertTrue(results.get("/invalid").isFailed());
+            assertTrue(results.get("/invalid").getException() instanceof IllegalArgumentException);
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testHeadObjectsThroughMetadataCache() {
+        ClientConfiguration config = new ClientConfiguration();
+        config.setMetadataCachePolicy(new MetadataCachePolicy());
+        OSSClient client = createClient(config);
+        try {
+            List<String> keys = Arrays.asList("a", "missing", "bb");
+            collect(client.headObjects(new HeadObjectsRequest("bucket", keys)));
+            assertEquals(3, requestCount());
+
+            Map<String, HeadObjectResult> results = collect(client.headObjects(new HeadObjectsRequest("bucket", keys)));
+            assertEquals(3, requestCount());
+            assertTrue(results.get("a").isFound());
+            assertFalse(results.get("missing").isFound());
+            assertFalse(client.doesObjectExist("bucket", "missing"));
+            assertEquals(3, requestCount());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testHeadObjectReturnsExpectedStatuses() {
+        OSSClient client = createClient(new ClientConfiguration());
+        try {
+            HeadObjectResult found = client.headObject(new HeadObjectRequest("bucket", "a"));
+            assertEquals(200, found.getStatusCode());
+            assertEquals(1, found.getObjectMetadata().getContentLength());
+
+            HeadObjectResult missing = client.headObject(new HeadObjectRequest("bucket", "missing"));
+            assertEquals(404, missing.getStatusCode());
+            assertFalse(missing.isFound());
+
+            HeadObjectRequest unchanged = new HeadObjectRequest("bucket", "a");
+            unchanged.setNonmatchingETagConstraints(Collections.singletonList(eTagOfA));
+            assertTrue(client.headObject(unchanged).isNotModified());
+
+            HeadObjectRequest changed = new HeadObjectRequest("bucket", "a");
+            changed.setMatchingETagConstraints(Collections.singletonList("other"));
+            assertTrue(client.headObject(changed).isPreconditionFailed());
+
+            assertFalse(client.doesObjectExist("bucket", "missing"));
+            assertTrue(client.doesObjectExist("bucket", "a"));
+            assertEquals(6, requestCount());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    private static Map<String, HeadObjectResult> collect(Iterator<HeadObjectResult> results) {
+        Map<String, HeadObjectResult> collected = new HashMap<String, HeadObjectResult>();
+        while (results.hasNext()) {
+            HeadObjectResult result = results.next();
+            collected.put(result.getKey(), result);
+        }
+        return collected;
+    }
+
+    private long requestCount() {
+        return server.getRequestCount() - initialRequestCount;
+    }
+
+    private OSSClient createClient(ClientConfiguration config) {
+        config.setSLDEnabled(true);
+        return new OSSClient(server.getEndpoint(), "id", "key", config);
+    }
+
+}
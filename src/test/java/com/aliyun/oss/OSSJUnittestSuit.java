@@ -22,35 +22,94 @@ package com.aliyun.oss;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import com.aliyun.oss.common.append.AppendObjectWriterTest;
 import com.aliyun.oss.common.auth.ServiceSignatureTest;
+import com.aliyun.oss.common.cache.MetadataCacheTest;
+import com.aliyun.oss.common.cache.TieredObjectCacheTest;
+import com.aliyun.oss.common.comm.BalancingDnsResolverTest;
+import com.aliyun.oss.common.comm.BodyPipelineInputStreamTest;
+import com.aliyun.oss.common.comm.ConnectionPoolPolicyTest;
 import com.aliyun.oss.common.comm.HttpFactoryTest;
+import com.aliyun.oss.common.comm.IdleConnectionReaperTest;
+import com.aliyun.oss.common.comm.RequestCoalescerTest;
+import com.aliyun.oss.common.comm.RequestMetricsTest;
+import com.aliyun.oss.common.comm.ResponseHeaderMapTest;
 import com.aliyun.oss.common.comm.ServiceClientTest;
+import com.aliyun.oss.common.comm.WarmUpTest;
+import com.aliyun.oss.common.compress.CompressionCodecsTest;
+import com.aliyun.oss.common.crypto.ContentCryptoMaterialTest;
+import com.aliyun.oss.common.multipart.MultipartUploadReaperTest;
+import com.aliyun.oss.common.parser.JAXBResponseParserTest;
+import com.aliyun.oss.common.restore.BulkRestoreManagerTest;
 import com.aliyun.oss.common.utils.BinaryUtilTest;
 import com.aliyun.oss.common.utils.DateUtilTest;
 import com.aliyun.oss.common.utils.ExceptionFactoryTest;
 import com.aliyun.oss.common.utils.IOUtilTest;
 import com.aliyun.oss.common.utils.ResourceManagerTest;
+import com.aliyun.oss.common.utils.VirtualThreadsTest;
+import com.aliyun.oss.event.AsyncProgressListenerTest;
+import com.aliyun.oss.server.LocalOSSServerTest;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
     // package com.aliyun.oss
+    ComposeObjectTest.class,
+    EndpointResolverTest.class,
+    HeadObjectsTest.class,
     OSSClientArgCheckTest.class,
     OSSClientRequestTest.class,
     OSSResponseParserTest.class,
     
+    // package com.aliyun.oss.common.append
+    AppendObjectWriterTest.class,
+    
     // package com.aliyun.oss.common.auth
     ServiceSignatureTest.class,
     
+    // package com.aliyun.oss.common.cache
+    MetadataCacheTest.class,
+    TieredObjectCacheTest.class,
+    
     // package com.aliyun.oss.common.comm
+    BalancingDnsResolverTest.class,
+    BodyPipelineInputStreamTest.class,
+    ConnectionPoolPolicyTest.class,
     HttpFactoryTest.class,
+    IdleConnectionReaperTest.class,
     ServiceClientTest.class,
+    RequestMetricsTest.class,
+    RequestCoalescerTest.class,
+    ResponseHeaderMapTest.class,
+    WarmUpTest.class,
+    
+    // package com.aliyun.oss.common.compress
+    CompressionCodecsTest.class,
+    
+    // package com.aliyun.oss.common.crypto
+    ContentCryptoMaterialTest.class,
+    
+    // package com.aliyun.oss.common.multipart
+    MultipartUploadReaperTest.class,
+    
+    // package com.aliyun.oss.common.parser
+    JAXBResponseParserTest.class,
+    
+    // package com.aliyun.oss.common.restore
+    BulkRestoreManagerTest.class,
     
     // package com.aliyun.oss.common.utils
     BinaryUtilTest.class,
     DateUtilTest.class,
     ExceptionFactoryTest.class,
     IOUtilTest.class,
-    ResourceManagerTest.class
+    ResourceManagerTest.class,
+    VirtualThreadsTest.class,
+
+    // package com.aliyun.oss.event
+    AsyncProgressListenerTest.class,
+
+    // package com.aliyun.oss.server
+    LocalOSSServerTest.class
 })
 
 public class OSSJUnittestSuit {
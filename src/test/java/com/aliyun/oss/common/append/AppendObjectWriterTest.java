@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.append;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aliyun.oss.ClientConfiguration;
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.common.utils.IOUtils;
+import com.aliyun.oss.model.AppendObjectRequest;
+import com.aliyun.oss.server.LocalOSSServer;
+
+public class AppendObjectWriterTest {
+
+    private LocalOSSServer server;
+    private OSSClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new LocalOSSServer().start();
+        ClientConfiguration config = new ClientConfiguration();
+        config.setSLDEnabled(true);
+        client = new OSSClient(server.getEndpoint(), "id", "key", config);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testConcurrentRecordsAreGroupCommitted() throws Exception {
+        final AppendObjectWriter writer = new AppendObjectWriter(client, "bucket", "audit.log",
+                new AppendWriterPolicy().withFlushInterval(50));
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            final int thread = i;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 250; j++) {
+                        writer.append(thread + "-" + j + "\n");
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writer.close();
+
+        List<String> lines = readLines("audit.log");
+        assertEquals(2000, lines.size());
+        assertEquals(2000, new HashSet<String>(lines).size());
+        assertInOrderPerThread(lines);
+        assertTrue("Appends: " + writer.getAppendCount(), writer.getAppendCount() < 200);
+        assertEquals(client.getObjectMetadata("bucket", "audit.log").getContentLength(), writer.getNextPosition());
+    }
+
+    @Test
+    public void testFlushStoresQueuedRecords() throws Exception {
+        AppendObjectWriter writer = new AppendObjectWriter(client, "bucket", "flushed.log",
+                new AppendWriterPolicy().withFlushInterval(60 * 1000));
+        try {
+            writer.append("first\n");
+            writer.append("second\n");
+            writer.flush();
+            assertEquals(Arrays.asList("first", "second"), readLines("flushed.log"));
+            assertEquals(1, writer.getAppendCount());
+        } finally {
+            writer.close();
+        }
+        try {
+            writer.append("closed\n");
+            fail("Appending to a closed writer should fail");
+        } catch (ClientException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testPositionConflictIsRecovered() throws Exception {
+        AppendObjectWriter writer = new AppendObjectWriter(client, "bucket", "shared.log");
+        try {
+            writer.append("writer-1\n");
+            writer.flush();
+
+            // Another client appends behind the writer's back.
+            AppendObjectRequest request = new AppendObjectRequest("bucket", "shared.log",
+                    new ByteArrayInputStream("other\n".getBytes("UTF-8"))).withPosition(writer.getNextPosition());
+            client.appendObject(request);
+
+            writer.append("writer-2\n");
+            writer.flush();
+        } finally {
+            writer.close();
+        }
+        assertEquals(Arrays.asList("writer-1", "other", "writer-2"), readLines("shared.log"));
+    }
+
+    @Test
+    public void testAppliedBatchIsNotAppendedTwice() throws Exception {
+        // The first append is stored but its response is lost.
+        final AtomicBoolean lost = new AtomicBoolean();
+        OSS lossyClient = (OSS) Proxy.newProxyInstance(OSS.class.getClassLoader(), new Class<?>[] { OSS.class },
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        Object result;
+                        try {
+                            result = method.invoke(client, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        if (method.getName().equals("appendObject") && lost.compareAndSet(false, true)) {
+                            throw new ClientException("Read timed out");
+                        }
+                        return result;
+                    }
+                });
+
+        AppendObjectWriter writer = new AppendObjectWriter(lossyClient, "bucket", "lossy.log");
+        writer.append("once\n");
+        writer.flush();
+        writer.append("twice\n");
+        writer.close();
+        assertTrue(lost.get());
+        assertEquals(Arrays.asList("once", "twice"), readLines("lossy.log"));
+    }
+
+    @Test
+    public void testExistingObjectIsResumed() throws Exception {
+        AppendObjectRequest request = new AppendObjectRequest("bucket", "resumed.log",
+                new ByteArrayInputStream("earlier\n".getBytes("UTF-8"))).withPosition(0L);
+        client.appendObject(request);
+        client.putObject("bucket", "normal.log", new ByteArrayInputStream("not appendable\n".getBytes("UTF-8")));
+
+        AppendObjectWriter writer = new AppendObjectWriter(client, "bucket", "resumed.log");
+        writer.append("later\n");
+        writer.close();
+        assertEquals(Arrays.asList("earlier", "later"), readLines("resumed.log"));
+
+        writer = new AppendObjectWriter(client, "bucket", "normal.log");
+        writer.append("rolled\n");
+        writer.close();
+        assertEquals("normal.log.1", writer.getCurrentKey());
+        assertEquals(Arrays.asList("rolled"), readLines("normal.log.1"));
+    }
+
+    @Test
+    public void testRollOverAtMaxObjectSize() throws Exception {
+        AppendObjectWriter writer = new AppendObjectWriter(client, "bucket", "rolled.log",
+                new AppendWriterPolicy().withMaxObjectSize(100).withMaxBatchSize(30));
+        Set<String> expected = new HashSet<String>();
+        for (int i = 0; i < 50; i++) {
+            String record = "record-" + (100 + i);
+            expected.add(record);
+            writer.append(record + "\n");
+        }
+        writer.close();
+
+        Set<String> actual = new HashSet<String>();
+        String key = "rolled.log";
+        for (int index = 1; client.doesObjectExist("bucket", key); index++) {
+            assertTrue(client.getObjectMetadata("bucket", key).getContentLength() <= 100);
+            actual.addAll(readLines(key));
+            key = "rolled.log." + index;
+        }
+        assertEquals(expected, actual);
+        assertFalse("rolled.log".equals(writer.getCurrentKey()));
+    }
+
+    private List<String> readLines(String key) throws Exception {
+        InputStream in = client.getObject("bucket", key).getObjectContent();
+        try {
+            String content = new String(IOUtils.readStreamAsByteArray(in), "UTF-8");
+            return content.isEmpty() ? new ArrayList<String>() : Arrays.asList(content.split("\n"));
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void assertInOrderPerThread(List<String> lines) {
+        int[] next = new int[8];
+        for (String line : lines) {
+            String[] parts = line.split("-");
+            int thread = Integer.parseInt(parts[0]);
+            assertEquals(line, next[thread]++, Integer.parseInt(parts[1]));
+        }
+    }
+}
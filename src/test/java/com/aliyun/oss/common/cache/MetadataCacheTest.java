@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aliyun.oss.ClientConfiguration;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.UploadPartRequest;
+import com.aliyun.oss.server.LocalOSSServer;
+
+public class MetadataCacheTest {
+
+    private StubObjectServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubObjectServer();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testNegativeCaching() {
+        OSSClient client = createClient(new MetadataCachePolicy());
+        try {
+            assertFalse(client.doesObjectExist("bucket", "key"));
+            assertFalse(client.doesObjectExist("bucket", "key"));
+            try {
+                client.getObjectMetadata("bucket", "key");
+                fail("Object should not exist.");
+            } catch (OSSException e) {
+                assertEquals(OSSErrorCode.NO_SUCH_KEY, e.getErrorCode());
+            }
+            assertEquals(1, server.requestCount.get());
+            assertEquals(2, client.getMetadataCacheStats().getHitCount());
+            assertEquals(1, client.getMetadataCacheStats().getMissCount());
+
+            // Created through the same client: the negative entry is dropped.
+            client.putObject("bucket", "key", new ByteArrayInputStream("hello".getBytes()));
+            assertTrue(client.doesObjectExist("bucket", "key"));
+            assertTrue(client.doesObjectExist("bucket", "key"));
+            assertEquals(3, server.requestCount.get());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testMetadataCaching() {
+        server.objects.put("/key", "hello".getBytes());
+        OSSClient client = createClient(new MetadataCachePolicy());
+        try {
+            ObjectMetadata metadata = client.getObjectMetadata("bucket", "key");
+            metadata.addUserMetadata("changed", "locally");
+            ObjectMetadata cached = client.getObjectMetadata("bucket", "key");
+            assertEquals(StubObjectServer.eTagOf("hello".getBytes()), cached.getETag());
+            assertEquals(5, cached.getContentLength());
+            assertTrue(cached.getUserMetadata().isEmpty());
+
+            // The full metadata also answers the simplified metadata.
+            assertEquals(5, client.getSimplifiedObjectMeta("bucket", "key").getSize());
+            assertTrue(client.doesObjectExist("bucket", "key"));
+            assertEquals(1, server.requestCount.get());
+
+            client.deleteObject("bucket", "key");
+            assertFalse(client.doesObjectExist("bucket", "key"));
+            assertEquals(3, server.requestCount.get());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompletedMultipartUpload() throws Exception {
+        LocalOSSServer localServer = new LocalOSSServer().start();
+        ClientConfiguration config = new ClientConfiguration();
+        config.setSLDEnabled(true);
+        config.setMetadataCachePolicy(new MetadataCachePolicy());
+        OSSClient client = new OSSClient(localServer.getEndpoint(), "id", "key", config);
+        try {
+            assertFalse(client.doesObjectExist("bucket", "key"));
+            assertFalse(client.doesObjectExist("bucket", "key"));
+
+            // Completed through the same client: the negative entry is dropped.
+            String uploadId = client.initiateMultipartUpload(new InitiateMultipartUploadRequest("bucket", "key"))
+                    .getUploadId();
+            UploadPartRequest uploadPartRequest = new UploadPartRequest("bucket", "key", uploadId, 1,
+                    new ByteArrayInputStream("hello".getBytes()), 5);
+            PartETag partETag = client.uploadPart(uploadPartRequest).getPartETag();
+            client.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest("bucket", "key", uploadId, Arrays.asList(partETag)));
+            assertTrue(client.doesObjectExist("bucket", "key"));
+            assertEquals(5, client.getObjectMetadata("bucket", "key").getContentLength());
+        } finally {
+            client.shutdown();
+            localServer.stop();
+        }
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        MetadataCache cache = new MetadataCache(new MetadataCachePolicy().withTtl(50).withNegativeTtl(0));
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(1);
+
+        cache.putObjectMetadata("a", metadata, cache.stamp("a"));
+        cache.putNotFound("b", cache.stamp("b"));
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+
+        Thread.sleep(100);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getStats().getEntryCount());
+    }
+
+    @Test
+    public void testInvalidationDuringLookup() {
+        MetadataCache cache = new MetadataCache(new MetadataCachePolicy());
+        long stamp = cache.stamp("a");
+        cache.invalidate("a");
+        cache.putNotFound("a", stamp);
+        assertNull(cache.get("a"));
+
+        cache.putNotFound("a", cache.stamp("a"));
+        assertFalse(cache.get("a").isFound());
+    }
+
+    @Test
+    public void testInvalidationOfAnotherKeyDuringLookup() {
+        MetadataCache cache = new MetadataCache(new MetadataCachePolicy());
+        long stamp = cache.stamp("a");
+        cache.invalidate("b");
+        cache.putNotFound("a", stamp);
+        assertFalse(cache.get("a").isFound());
+
+        stamp = cache.stamp("a");
+        cache.clear();
+        cache.putNotFound("a", stamp);
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testEviction() {
+        MetadataCache cache = new MetadataCache(new MetadataCachePolicy().withMaxEntries(3));
+        for (int i = 0; i < 5; i++) {
+            cache.putNotFound("key" + i, cache.stamp("key" + i));
+        }
+        assertEquals(3, cache.getStats().getEntryCount());
+        assertEquals(2, cache.getStats().getEvictionCount());
+        assertNull(cache.get("key0"));
+        assertNull(cache.get("key1"));
+        assertNotNull(cache.get("key4"));
+    }
+
+    private OSSClient createClient(MetadataCachePolicy policy) {
+        ClientConfiguration config = new ClientConfiguration();
+        config.setMetadataCachePolicy(policy);
+        return new OSSClient(server.getEndpoint(), "id", "key", config);
+    }
+
+}
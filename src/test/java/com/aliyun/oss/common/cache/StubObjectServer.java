@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.cache;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves keep-alive HTTP requests the way OSS does for object PUT, GET, HEAD
+ * and DELETE, including the If-Match and If-None-Match constraints, with the header names in the same case as OSS. Objects are
+ * keyed by their path, the bucket being in the host name.
+ */
+class StubObjectServer {
+
+    private static final String NO_SUCH_KEY = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error>"
+            + "<Code>NoSuchKey</Code><Message>The specified key does not exist.</Message>"
+            + "<RequestId>request-id</RequestId><HostId>127.0.0.1</HostId></Error>";
+
+    final Map<String, byte[]> objects = new ConcurrentHashMap<String, byte[]>();
+    final AtomicInteger requestCount = new AtomicInteger();
+    final AtomicInteger bodiesSent = new AtomicInteger();
+
+    private final ServerSocket server;
+
+    StubObjectServer() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        startDaemon(new Runnable() {
+            @Override
+            public void run() {
+                while (!server.isClosed()) {
+                    try {
+                        final Socket socket = server.accept();
+                        startDaemon(new Runnable() {
+                            @Override
+                            public void run() {
+                                serve(socket);
+                            }
+                        });
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    String getEndpoint() {
+        return "http://127.0.0.1:" + server.getLocalPort();
+    }
+
+    void close() throws IOException {
+        server.close();
+    }
+
+    static String eTagOf(byte[] content) {
+        return Integer.toHexString(Arrays.hashCode(content)) + "-" + content.length;
+    }
+
+    private void serve(Socket socket) {
+        try {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            String requestLine;
+            while ((requestLine = readLine(in)) != null && requestLine.length() > 0) {
+                Map<String, String> headers = new HashMap<String, String>();
+                for (String line = readLine(in); line != null && line.length() > 0; line = readLine(in)) {
+                    int colon = line.indexOf(':');
+                    headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+                }
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                if ("chunked".equals(headers.get("transfer-encoding"))) {
+                    for (int size = Integer.parseInt(readLine(in), 16); size > 0; size = Integer
+                            .parseInt(readLine(in), 16)) {
+                        readFully(in, body, size);
+                        readLine(in);
+                    }
+                    readLine(in);
+                } else if (headers.containsKey("content-length")) {
+                    readFully(in, body, Integer.parseInt(headers.get("content-length")));
+                }
+
+                requestCount.incrementAndGet();
+                String method = requestLine.split(" ")[0];
+                String uri = requestLine.split(" ")[1];
+                String path = uri.indexOf('?') >= 0 ? uri.substring(0, uri.indexOf('?')) : uri;
+                respond(out, method, path, uri.endsWith("?objectMeta"), headers, body.toByteArray());
+            }
+        } catch (IOException e) {
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    private void respond(OutputStream out, String method, String path, boolean objectMeta,
+            Map<String, String> headers, byte[] body) throws IOException {
+        if (method.equals("PUT")) {
+            objects.put(path, body);
+        } else if (method.equals("DELETE")) {
+            objects.remove(path);
+            write(out, "204 No Content", null, null, false);
+            return;
+        }
+
+        byte[] content = objects.get(path);
+        if (content == null) {
+            write(out, "404 Not Found", null, method.equals("HEAD") ? null : NO_SUCH_KEY.getBytes("UTF-8"), false);
+        } else if (method.equals("PUT")) {
+            write(out, "200 OK", eTagOf(content), null, false);
+        } else if (eTagOf(content).equals(unquote(headers.get("if-none-match")))) {
+            write(out, "304 Not Modified", eTagOf(content), null, false);
+        } else if (headers.containsKey("if-match") && !eTagOf(content).equals(unquote(headers.get("if-match")))) {
+            write(out, "412 Precondition Failed", null, null, method.equals("HEAD"));
+        } else if (method.equals("HEAD")) {
+            write(out, "200 OK", eTagOf(content), content, true);
+        } else if (objectMeta) {
+            write(out, "200 OK", eTagOf(content), null, false);
+        } else {
+            bodiesSent.incrementAndGet();
+            write(out, "200 OK", eTagOf(content), content, false);
+        }
+    }
+
+    private static void write(OutputStream out, String status, String eTag, byte[] content, boolean headOnly)
+            throws IOException {
+        StringBuilder head = new StringBuilder("HTTP/1.1 " + status + "\r\nx-oss-request-id: request-id\r\n");
+        if (eTag != null) {
+            head.append("ETag: \"" + eTag + "\"\r\n");
+        }
+        if (!status.startsWith("204") && !status.startsWith("304")) {
+            head.append("Content-Length: " + (content != null ? content.length : 0) + "\r\n");
+        }
+        head.append("\r\n");
+        out.write(head.toString().getBytes("UTF-8"));
+        if (content != null && !headOnly) {
+            out.write(content);
+        }
+        out.flush();
+    }
+
+    private static String unquote(String eTag) {
+        return eTag != null ? eTag.replace("\"", "") : null;
+    }
+
+    private static void readFully(InputStream in, OutputStream out, int size) throws IOException {
+        for (int i = 0; i < size; i++) {
+            out.write(in.read());
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int c = in.read(); c != '\n'; c = in.read()) {
+            if (c == -1) {
+                return null;
+            } else if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static void startDaemon(Runnable runnable) {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aliyun.oss.ClientConfiguration;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.ObjectMetadata;
+
+public class TieredObjectCacheTest {
+
+    private StubObjectServer server;
+    private File diskDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubObjectServer();
+        diskDirectory = new File(System.getProperty("java.io.tmpdir"), "oss-cache-test-" + System.nanoTime());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+        File[] files = diskDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        diskDirectory.delete();
+    }
+
+    @Test
+    public void testRevalidateHeapTier() throws Exception {
+        server.objects.put("/key", "hello world".getBytes());
+        OSSClient client = createClient(new ObjectCachePolicy());
+        try {
+            assertArrayEquals("hello world".getBytes(), read(client.getObject("bucket", "key")));
+            assertArrayEquals("hello world".getBytes(), read(client.getObject("bucket", "key")));
+            assertEquals(1, server.bodiesSent.get());
+
+            ObjectCacheStats stats = client.getObjectCacheStats();
+            assertEquals(1, stats.getHitCount());
+            assertEquals(1, stats.getMissCount());
+            assertEquals(1, stats.getHeapEntryCount());
+            assertEquals(11, stats.getHeapSize());
+
+            // Changed on the server side: the new content is downloaded.
+            server.objects.put("/key", "hello again".getBytes());
+            assertArrayEquals("hello again".getBytes(), read(client.getObject("bucket", "key")));
+            assertArrayEquals("hello again".getBytes(), read(client.getObject("bucket", "key")));
+            assertEquals(2, server.bodiesSent.get());
+            assertEquals(2, client.getObjectCacheStats().getHitCount());
+
+            // Overwritten by this client: the cached copy is dropped.
+            client.putObject("bucket", "key", new ByteArrayInputStream("bye".getBytes()));
+            assertEquals(0, client.getObjectCacheStats().getHeapEntryCount());
+            assertArrayEquals("bye".getBytes(), read(client.getObject("bucket", "key")));
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testDiskTierEviction() throws Exception {
+        server.objects.put("/a", new byte[1000]);
+        server.objects.put("/b", new byte[1000]);
+        ObjectCachePolicy policy = new ObjectCachePolicy().withMaxHeapObjectSize(100)
+                .withDiskDirectory(diskDirectory).withDiskCapacity(1500);
+        OSSClient client = createClient(policy);
+        try {
+            read(client.getObject("bucket", "a"));
+            assertEquals(1, client.getObjectCacheStats().getDiskEntryCount());
+            assertEquals(0, client.getObjectCacheStats().getHeapEntryCount());
+            assertEquals(1, diskDirectory.listFiles().length);
+
+            assertEquals(1000, read(client.getObject("bucket", "a")).length);
+            assertEquals(1, client.getObjectCacheStats().getHitCount());
+
+            read(client.getObject("bucket", "b"));
+            ObjectCacheStats stats = client.getObjectCacheStats();
+            assertEquals(1, stats.getEvictionCount());
+            assertEquals(1, stats.getDiskEntryCount());
+            assertEquals(1000, stats.getDiskSize());
+            assertEquals(1, diskDirectory.listFiles().length);
+        } finally {
+            client.shutdown();
+        }
+        assertEquals(0, diskDirectory.listFiles().length);
+    }
+
+    @Test
+    public void testLeastRecentlyReadIsEvicted() {
+        TieredObjectCache cache = new TieredObjectCache(new ObjectCachePolicy().withHeapCapacity(30));
+        ObjectMetadata metadata = new ObjectMetadata();
+        cache.put("a", new CachedObject("a", metadata, new byte[10]));
+        cache.put("b", new CachedObject("b", metadata, new byte[10]));
+        cache.put("c", new CachedObject("c", metadata, new byte[10]));
+        assertNotNull(cache.get("a"));
+
+        cache.put("d", new CachedObject("d", metadata, new byte[10]));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertNotNull(cache.get("d"));
+        ObjectCacheStats stats = cache.getStats();
+        assertEquals(1, stats.getEvictionCount());
+        assertEquals(3, stats.getHeapEntryCount());
+        assertEquals(30, stats.getHeapSize());
+    }
+
+    @Test
+    public void testPartialReadNotCached() throws Exception {
+        server.objects.put("/key", new byte[100]);
+        OSSClient client = createClient(new ObjectCachePolicy());
+        try {
+            OSSObject ossObject = client.getObject("bucket", "key");
+            ossObject.getObjectContent().read(new byte[10]);
+            ossObject.close();
+            assertEquals(0, client.getObjectCacheStats().getHeapEntryCount());
+
+            read(client.getObject("bucket", "key"));
+            assertEquals(1, client.getObjectCacheStats().getHeapEntryCount());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testCacheDisabled() {
+        OSSClient client = createClient(null);
+        try {
+            assertNull(client.getObjectCacheStats());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    private OSSClient createClient(ObjectCachePolicy policy) {
+        ClientConfiguration config = new ClientConfiguration();
+        config.setObjectCachePolicy(policy);
+        return new OSSClient(server.getEndpoint(), "id", "key", config);
+    }
+
+    private static byte[] read(OSSObject ossObject) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream in = ossObject.getObjectContent();
+        byte[] buffer = new byte[64];
+        for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.http.conn.DnsResolver;
+import org.junit.Test;
+
+public class BalancingDnsResolverTest {
+
+    static class StubDnsResolver implements DnsResolver {
+        int lookups;
+        boolean unavailable;
+        InetAddress[] addresses;
+
+        StubDnsResolver(InetAddress... addresses) {
+            this.addresses = addresses;
+        }
+
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            lookups++;
+            if (unavailable) {
+                throw new UnknownHostException(host);
+            }
+            return addresses.clone();
+        }
+    }
+
+    private static InetAddress address(int last) throws UnknownHostException {
+        return InetAddress.getByAddress("oss.example.com", new byte[] { 10, 0, 0, (byte) last });
+    }
+
+    @Test
+    public void testRoundRobinAndCache() throws Exception {
+        StubDnsResolver stub = new StubDnsResolver(address(1), address(2), address(3));
+        BalancingDnsResolver resolver = new BalancingDnsResolver(stub, 60 * 1000, 30 * 1000);
+
+        Set<InetAddress> first = new HashSet<InetAddress>();
+        for (int i = 0; i < 3; i++) {
+            InetAddress[] resolved = resolver.resolve("bucket.oss.example.com");
+            assertEquals(3, resolved.length);
+            first.add(resolved[0]);
+        }
+        assertEquals(3, first.size());
+        assertEquals(1, stub.lookups);
+    }
+
+    @Test
+    public void testExpiredAddressesRefreshed() throws Exception {
+        StubDnsResolver stub = new StubDnsResolver(address(1));
+        BalancingDnsResolver resolver = new BalancingDnsResolver(stub, 0, 30 * 1000);
+
+        resolver.resolve("bucket.oss.example.com");
+        resolver.resolve("bucket.oss.example.com");
+        assertEquals(2, stub.lookups);
+
+        // Serve the stale addresses when the DNS is unavailable.
+        stub.unavailable = true;
+        assertEquals(address(1), resolver.resolve("bucket.oss.example.com")[0]);
+    }
+
+    @Test
+    public void testFailingAddressQuarantined() throws Exception {
+        StubDnsResolver stub = new StubDnsResolver(address(1), address(2), address(3));
+        BalancingDnsResolver resolver = new BalancingDnsResolver(stub, 60 * 1000, 30 * 1000);
+
+        for (int i = 0; i < BalancingDnsResolver.MAX_CONSECUTIVE_FAILURES; i++) {
+            assertFalse(resolver.isQuarantined(address(2)));
+            resolver.recordFailure(address(2));
+        }
+        assertTrue(resolver.isQuarantined(address(2)));
+
+        for (int i = 0; i < 6; i++) {
+            InetAddress[] resolved = resolver.resolve("bucket.oss.example.com");
+            assertEquals(3, resolved.length);
+            assertEquals(address(2), resolved[2]);
+        }
+    }
+
+    @Test
+    public void testSlowAddressTriedLast() throws Exception {
+        StubDnsResolver stub = new StubDnsResolver(address(1), address(2));
+        BalancingDnsResolver resolver = new BalancingDnsResolver(stub, 60 * 1000, 30 * 1000);
+
+        resolver.recordSuccess(address(1), 1000L * 1000);
+        resolver.recordSuccess(address(2), 1000L * 1000 * 1000);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(address(1), resolver.resolve("bucket.oss.example.com")[0]);
+        }
+    }
+
+    @Test
+    public void testIpAddressNotCached() throws Exception {
+        StubDnsResolver stub = new StubDnsResolver(address(1));
+        BalancingDnsResolver resolver = new BalancingDnsResolver(stub, 60 * 1000, 30 * 1000);
+        resolver.resolve("10.0.0.1");
+        resolver.resolve("10.0.0.1");
+        assertEquals(2, stub.lookups);
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.aliyun.oss.common.comm.io.BodyPipelineInputStream;
+import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.common.utils.IOUtils;
+import com.aliyun.oss.event.ProgressEvent;
+import com.aliyun.oss.event.ProgressEventType;
+import com.aliyun.oss.event.ProgressListener;
+
+public class BodyPipelineInputStreamTest {
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private static long crcOf(byte[] data, int len) {
+        CRC64 crc = new CRC64();
+        crc.update(data, len);
+        return crc.getValue();
+    }
+
+    private static InputStream unmarkable(byte[] data) {
+        return new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+
+    private static class CountingListener implements ProgressListener {
+        long requestBytes;
+        long responseBytes;
+        int completedEvents;
+
+        @Override
+        public void progressChanged(ProgressEvent progressEvent) {
+            if (progressEvent.getEventType() == ProgressEventType.REQUEST_BYTE_TRANSFER_EVENT) {
+                requestBytes += progressEvent.getBytes();
+            } else if (progressEvent.getEventType() == ProgressEventType.RESPONSE_BYTE_TRANSFER_EVENT) {
+                responseBytes += progressEvent.getBytes();
+            } else if (progressEvent.getEventType() == ProgressEventType.TRANSFER_COMPLETED_EVENT) {
+                completedEvents++;
+            }
+        }
+    }
+
+    @Test
+    public void testChecksumAndProgressInOnePass() throws IOException {
+        byte[] data = randomBytes(100 * 1024 + 17);
+        CountingListener listener = new CountingListener();
+
+        BodyPipelineInputStream pipeline = BodyPipelineInputStream.pipelineOf(unmarkable(data))
+                .withResponseProgress(listener).withChecksum();
+        assertSame(pipeline, BodyPipelineInputStream.pipelineOf(pipeline));
+        assertSame(pipeline, pipeline.withChecksum().withTransferCompletedEvent(listener));
+
+        assertArrayEquals(data, IOUtils.readStreamAsByteArray(pipeline));
+        assertEquals(crcOf(data, data.length), pipeline.getChecksumValue().longValue());
+        assertEquals(crcOf(data, data.length), IOUtils.getCRCValue(pipeline).longValue());
+        assertEquals(data.length, listener.responseBytes);
+        assertEquals(0, listener.requestBytes);
+        assertEquals(1, listener.completedEvents);
+
+        pipeline.close();
+        assertEquals(1, listener.completedEvents);
+    }
+
+    @Test
+    public void testLimit() throws IOException {
+        byte[] data = randomBytes(20000);
+        BodyPipelineInputStream pipeline = new BodyPipelineInputStream(unmarkable(data)).withLimit(12345)
+                .withChecksum();
+
+        byte[] read = IOUtils.readStreamAsByteArray(pipeline);
+        assertEquals(12345, read.length);
+        assertEquals(-1, pipeline.read());
+        assertEquals(crcOf(data, 12345), pipeline.getChecksumValue().longValue());
+        assertNull(new BodyPipelineInputStream(unmarkable(data)).getChecksumValue());
+    }
+
+    @Test
+    public void testUnmarkableStreamWithoutReplayBuffer() throws IOException {
+        BodyPipelineInputStream pipeline = new BodyPipelineInputStream(unmarkable(randomBytes(100)));
+        assertFalse(pipeline.markSupported());
+        pipeline.mark(100);
+        try {
+            pipeline.reset();
+            fail("Reset without a replay buffer should fail");
+        } catch (IOException e) {
+            // Expected exception.
+        }
+        assertTrue(pipeline.withReplayBuffer().markSupported());
+    }
+
+    @Test
+    public void testResetReplaysUnmarkableStream() throws IOException {
+        byte[] data = randomBytes(50 * 1024);
+        CountingListener listener = new CountingListener();
+        BodyPipelineInputStream pipeline = new BodyPipelineInputStream(unmarkable(data)).withReplayBuffer()
+                .withChecksum().withRequestProgress(listener);
+
+        pipeline.mark(data.length);
+        byte[] buffer = new byte[30 * 1024];
+        int read = 0;
+        while (read < buffer.length) {
+            read += pipeline.read(buffer, read, buffer.length - read);
+        }
+        pipeline.reset();
+
+        assertArrayEquals(data, IOUtils.readStreamAsByteArray(pipeline));
+        assertEquals(crcOf(data, data.length), pipeline.getChecksumValue().longValue());
+    }
+
+    @Test
+    public void testResetDelegatesToMarkableStream() throws IOException {
+        byte[] data = randomBytes(10000);
+        BodyPipelineInputStream pipeline = new BodyPipelineInputStream(new ByteArrayInputStream(data))
+                .withLimit(data.length).withChecksum();
+
+        pipeline.mark(0);
+        assertEquals(4000, pipeline.skip(4000));
+        pipeline.reset();
+
+        assertArrayEquals(data, IOUtils.readStreamAsByteArray(pipeline));
+        assertEquals(crcOf(data, data.length), pipeline.getChecksumValue().longValue());
+    }
+
+    @Test
+    public void testResetBeyondReadLimit() throws IOException {
+        byte[] data = randomBytes(10000);
+        BodyPipelineInputStream pipeline = new BodyPipelineInputStream(unmarkable(data)).withReplayBuffer();
+
+        pipeline.mark(1000);
+        pipeline.skip(2000);
+        try {
+            pipeline.reset();
+            fail("Reset beyond the read limit should fail");
+        } catch (IOException e) {
+            // Expected exception.
+        }
+        pipeline.close();
+    }
+
+    @Test
+    public void testMarkWhileReplaying() throws IOException {
+        byte[] data = randomBytes(40000);
+        BodyPipelineInputStream pipeline = new BodyPipelineInputStream(unmarkable(data)).withReplayBuffer()
+                .withChecksum();
+
+        pipeline.mark(data.length);
+        pipeline.skip(20000);
+        pipeline.reset();
+        pipeline.skip(5000);
+        pipeline.mark(data.length);
+        pipeline.skip(30000);
+        pipeline.reset();
+
+        byte[] rest = IOUtils.readStreamAsByteArray(pipeline);
+        assertEquals(35000, rest.length);
+        assertEquals(data[5000], rest[0]);
+        assertEquals(data[data.length - 1], rest[rest.length - 1]);
+        assertEquals(crcOf(data, data.length), pipeline.getChecksumValue().longValue());
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.junit.Test;
+
+public class ConnectionPoolPolicyTest {
+
+    private static InstrumentedHttpClientConnectionManager createManager(ConnectionPoolPolicy policy, int maxTotal) {
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory> create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory()).build();
+        return new InstrumentedHttpClientConnectionManager(registry, policy, maxTotal, -1);
+    }
+
+    private static HttpRoute route(String bucket) {
+        return new HttpRoute(new HttpHost(bucket + ".oss-cn-hangzhou.aliyuncs.com", 80, "http"));
+    }
+
+    private static HttpClientConnection lease(InstrumentedHttpClientConnectionManager manager, HttpRoute route)
+            throws Exception {
+        return manager.requestConnection(route, null).get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testMaxConnectionsPerRoute() throws Exception {
+        ConnectionPoolPolicy policy = new ConnectionPoolPolicy();
+        policy.setMaxConnectionsPerRoute(10);
+        InstrumentedHttpClientConnectionManager manager = createManager(policy, 100);
+        try {
+            HttpRoute route = route("bucket");
+            HttpClientConnection conn = lease(manager, route);
+            assertEquals(10, manager.getMaxPerRoute(route));
+
+            ConnectionPoolStats stats = manager.getConnectionPoolStats();
+            assertEquals(1, stats.getLeased());
+            assertEquals(100, stats.getMax());
+            ConnectionPoolStats routeStats = stats.getRouteStats().get("http://bucket.oss-cn-hangzhou.aliyuncs.com:80");
+            assertEquals(1, routeStats.getLeased());
+            assertEquals(10, routeStats.getMax());
+
+            manager.releaseConnection(conn, null, 0, TimeUnit.MILLISECONDS);
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testMinReservedConnectionsPerRoute() throws Exception {
+        ConnectionPoolPolicy policy = new ConnectionPoolPolicy();
+        policy.setMinReservedConnectionsPerRoute(30);
+        policy.setAdjustmentInterval(60 * 1000);
+        InstrumentedHttpClientConnectionManager manager = createManager(policy, 100);
+        try {
+            HttpRoute first = route("first");
+            manager.releaseConnection(lease(manager, first), null, 0, TimeUnit.MILLISECONDS);
+            assertEquals(100, manager.getMaxPerRoute(first));
+
+            HttpRoute second = route("second");
+            HttpRoute third = route("third");
+            manager.releaseConnection(lease(manager, second), null, 0, TimeUnit.MILLISECONDS);
+            manager.releaseConnection(lease(manager, third), null, 0, TimeUnit.MILLISECONDS);
+            assertEquals(40, manager.getMaxPerRoute(first));
+            assertEquals(40, manager.getMaxPerRoute(second));
+            assertEquals(40, manager.getMaxPerRoute(third));
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testGoneRoutesGiveTheirReserveBack() throws Exception {
+        ConnectionPoolPolicy policy = new ConnectionPoolPolicy();
+        policy.setMinReservedConnectionsPerRoute(30);
+        policy.setAdjustmentInterval(0);
+        InstrumentedHttpClientConnectionManager manager = createManager(policy, 100);
+        try {
+            // Far more routes than 100 / 30, each of them gone once released.
+            for (int i = 0; i < 10; i++) {
+                manager.releaseConnection(lease(manager, route("bucket" + i)), null, 0, TimeUnit.MILLISECONDS);
+            }
+
+            HttpRoute hot = route("hot");
+            HttpClientConnection connection = lease(manager, hot);
+            assertEquals(100, manager.getMaxPerRoute(hot));
+
+            HttpRoute other = route("other");
+            HttpClientConnection otherConnection = lease(manager, other);
+            assertEquals(70, manager.getMaxPerRoute(hot));
+            assertEquals(70, manager.getMaxPerRoute(other));
+
+            manager.releaseConnection(otherConnection, null, 0, TimeUnit.MILLISECONDS);
+            manager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+            connection = lease(manager, hot);
+            assertEquals(100, manager.getMaxPerRoute(hot));
+            manager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testAdaptiveSizing() throws Exception {
+        ConnectionPoolPolicy policy = new ConnectionPoolPolicy();
+        policy.setMaxConnectionsPerRoute(4);
+        policy.setAdaptiveSizingEnabled(true);
+        policy.setLeaseWaitThreshold(0);
+        policy.setAdjustmentInterval(0);
+        InstrumentedHttpClientConnectionManager manager = createManager(policy, 16);
+        try {
+            HttpRoute route = route("hot");
+            for (int i = 0; i < 20; i++) {
+                manager.releaseConnection(lease(manager, route), null, 0, TimeUnit.MILLISECONDS);
+            }
+            assertTrue(manager.getMaxPerRoute(route) > 4);
+            assertTrue(manager.getMaxPerRoute(route) <= 16);
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Test;
+
+public class IdleConnectionReaperTest {
+
+    @Test
+    public void testRegisterAndRemove() {
+        InstrumentedHttpClientConnectionManager manager = createManager();
+        try {
+            int size = IdleConnectionReaper.size();
+            assertTrue(IdleConnectionReaper.registerConnectionManager(manager, 1000, 1000));
+            assertFalse(IdleConnectionReaper.registerConnectionManager(manager, 1000, 1000));
+            assertEquals(size + 1, IdleConnectionReaper.size());
+            assertEquals(0, IdleConnectionReaper.getReclaimedConnectionCount(manager));
+
+            assertTrue(IdleConnectionReaper.removeConnectionManager(manager));
+            assertFalse(IdleConnectionReaper.removeConnectionManager(manager));
+            assertEquals(size, IdleConnectionReaper.size());
+            assertEquals(-1, IdleConnectionReaper.getReclaimedConnectionCount(manager));
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testReclaimIdleConnections() throws Exception {
+        ServerSocket server = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"));
+        InstrumentedHttpClientConnectionManager manager = createManager();
+        try {
+            HttpRoute route = new HttpRoute(new HttpHost("127.0.0.1", server.getLocalPort(), "http"));
+            HttpClientConnection conn = manager.requestConnection(route, null).get(1, TimeUnit.SECONDS);
+            manager.connect(conn, route, 1000, new BasicHttpContext());
+            manager.routeComplete(conn, route, new BasicHttpContext());
+            manager.releaseConnection(conn, null, 60, TimeUnit.SECONDS);
+            assertEquals(1, manager.getTotalStats().getAvailable());
+
+            IdleConnectionReaper.registerConnectionManager(manager, 1, 10);
+            long deadline = System.currentTimeMillis() + 5000;
+            // The count is updated right after the connection is closed.
+            while ((manager.getTotalStats().getAvailable() > 0
+                    || IdleConnectionReaper.getReclaimedConnectionCount(manager) == 0)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, manager.getTotalStats().getAvailable());
+            assertEquals(1, IdleConnectionReaper.getReclaimedConnectionCount(manager));
+            assertTrue(IdleConnectionReaper.getReclaimedConnectionCount() >= 1);
+        } finally {
+            IdleConnectionReaper.removeConnectionManager(manager);
+            manager.shutdown();
+            server.close();
+        }
+    }
+
+    private static InstrumentedHttpClientConnectionManager createManager() {
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory> create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory()).build();
+        return new InstrumentedHttpClientConnectionManager(registry, null, 10, -1);
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class RequestCoalescerTest {
+
+    private static final int CALLERS = 8;
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSharedResult() throws Exception {
+        List<Future<StringBuilder>> results = submit("key", "result", true, null);
+        awaitFollowers(CALLERS - 1);
+        release.countDown();
+
+        List<StringBuilder> copies = new ArrayList<StringBuilder>();
+        for (Future<StringBuilder> result : results) {
+            assertEquals("result", result.get().toString());
+            for (StringBuilder copy : copies) {
+                assertTrue(copy != result.get());
+            }
+            copies.add(result.get());
+        }
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    public void testSharedFailure() throws Exception {
+        RuntimeException failure = new IllegalStateException("failed");
+        List<Future<StringBuilder>> results = submit("key", "result", true, failure);
+        awaitFollowers(CALLERS - 1);
+        release.countDown();
+
+        for (Future<StringBuilder> result : results) {
+            try {
+                result.get();
+                fail("The failure should be shared.");
+            } catch (ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        }
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    public void testUnshareableResult() throws Exception {
+        List<Future<StringBuilder>> results = submit("key", "result", false, null);
+        awaitFollowers(CALLERS - 1);
+        release.countDown();
+
+        for (Future<StringBuilder> result : results) {
+            assertEquals("result", result.get().toString());
+        }
+        assertEquals(CALLERS, executions.get());
+    }
+
+    @Test
+    public void testSequentialRequests() throws Exception {
+        release.countDown();
+        for (int i = 0; i < 3; i++) {
+            assertEquals("result", submit("key", "result", true, null, 1).get(0).get().toString());
+        }
+        assertEquals(3, executions.get());
+        assertEquals(0, coalescer.getCoalescedRequestCount());
+    }
+
+    private List<Future<StringBuilder>> submit(final String key, final String value, final boolean shareable,
+            final RuntimeException failure) {
+        return submit(key, value, shareable, failure, CALLERS);
+    }
+
+    private List<Future<StringBuilder>> submit(final String key, final String value, final boolean shareable,
+            final RuntimeException failure, int callers) {
+        List<Future<StringBuilder>> results = new ArrayList<Future<StringBuilder>>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(new Callable<StringBuilder>() {
+                @Override
+                public StringBuilder call() throws Exception {
+                    return coalescer.execute(key, new RequestCoalescer.Execution<StringBuilder, String>() {
+
+                        @Override
+                        protected StringBuilder execute() {
+                            if (executions.incrementAndGet() == 1) {
+                                awaitRelease();
+                            }
+                            if (failure != null) {
+                                throw failure;
+                            }
+                            return new StringBuilder(value);
+                        }
+
+                        @Override
+                        protected String share(StringBuilder result) {
+                            return shareable ? result.toString() : null;
+                        }
+
+                        @Override
+                        protected StringBuilder copy(String shared) {
+                            return new StringBuilder(shared);
+                        }
+                    });
+                }
+            }));
+        }
+        return results;
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitFollowers(int followers) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (coalescer.getCoalescedRequestCount() < followers && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(followers, coalescer.getCoalescedRequestCount());
+    }
+
+}
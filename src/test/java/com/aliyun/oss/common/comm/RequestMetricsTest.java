@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.aliyun.oss.ClientConfiguration;
+import com.aliyun.oss.ClientErrorCode;
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.HttpMethod;
+import com.aliyun.oss.common.metrics.DefaultMetricsCollector;
+import com.aliyun.oss.common.metrics.LatencyHistogram;
+import com.aliyun.oss.common.metrics.MetricsCollector;
+import com.aliyun.oss.common.metrics.OperationMetrics;
+import com.aliyun.oss.common.metrics.RequestMetrics;
+import com.aliyun.oss.internal.OSSUtils;
+import com.aliyun.oss.internal.RequestParameters;
+
+public class RequestMetricsTest {
+
+    static class RecordingCollector implements MetricsCollector {
+        List<RequestMetrics> collected = new ArrayList<RequestMetrics>();
+
+        @Override
+        public void collect(RequestMetrics metrics) {
+            collected.add(metrics);
+        }
+    }
+
+    static class StubServiceClient extends DefaultServiceClient {
+        private int failures;
+        private byte[] body;
+
+        StubServiceClient(ClientConfiguration config, int failures, byte[] body) {
+            super(config);
+            this.failures = failures;
+            this.body = body;
+        }
+
+        @Override
+        public ResponseMessage sendRequestCore(Request request, ExecutionContext context) throws IOException {
+            if (failures-- > 0) {
+                throw new ClientException(null, ClientErrorCode.CONNECTION_TIMEOUT, "requestid", null);
+            }
+            ResponseMessage response = new ResponseMessage(null);
+            response.setStatusCode(200);
+            if (body != null) {
+                response.setContent(new ByteArrayInputStream(body));
+            }
+            return response;
+        }
+    }
+
+    private static RequestMessage createRequest(String operationName) throws Exception {
+        RequestMessage request = new RequestMessage("bucket", "key");
+        request.setEndpoint(new URI("http://localhost"));
+        request.setMethod(HttpMethod.GET);
+        request.setOperationName(operationName);
+        return request;
+    }
+
+    @Test
+    public void testMetricsPublishedAfterBodyConsumed() throws Exception {
+        RecordingCollector collector = new RecordingCollector();
+        ClientConfiguration config = new ClientConfiguration();
+        config.setMetricsCollector(collector);
+        StubServiceClient client = new StubServiceClient(config, 2, new byte[1000]);
+        try {
+            ResponseMessage response = client.sendRequest(createRequest("GetObject"), new ExecutionContext());
+            assertEquals(0, collector.collected.size());
+
+            byte[] buffer = new byte[300];
+            while (response.getContent().read(buffer) != -1) {
+            }
+            response.getContent().close();
+
+            assertEquals(1, collector.collected.size());
+            RequestMetrics metrics = collector.collected.get(0);
+            assertEquals("GetObject", metrics.getOperationName());
+            assertEquals(200, metrics.getStatusCode());
+            assertEquals(2, metrics.getRetryCount());
+            assertEquals(1000, metrics.getBytesReceived());
+            assertTrue(metrics.getSigningTime() >= 0);
+            assertTrue(metrics.getTotalTime() >= metrics.getSigningTime());
+            assertTrue(metrics.isSuccessful());
+            assertNull(metrics.getException());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testMetricsPublishedOnFailure() throws Exception {
+        RecordingCollector collector = new RecordingCollector();
+        ClientConfiguration config = new ClientConfiguration();
+        config.setMaxErrorRetry(1);
+        config.setMetricsCollector(collector);
+        StubServiceClient client = new StubServiceClient(config, 5, null);
+        try {
+            client.sendRequest(createRequest(null), new ExecutionContext());
+            fail("ClientException should be thrown.");
+        } catch (ClientException e) {
+            assertEquals(1, collector.collected.size());
+            RequestMetrics metrics = collector.collected.get(0);
+            assertEquals("GET", metrics.getOperationName());
+            assertEquals(1, metrics.getRetryCount());
+            assertEquals(-1, metrics.getStatusCode());
+            assertNotNull(metrics.getException());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testDefaultMetricsCollector() throws Exception {
+        DefaultMetricsCollector collector = new DefaultMetricsCollector();
+        ClientConfiguration config = new ClientConfiguration();
+        config.setMetricsCollector(collector);
+        StubServiceClient client = new StubServiceClient(config, 0, null);
+        try {
+            for (int i = 0; i < 10; i++) {
+                client.sendRequest(createRequest("PutObject"), new ExecutionContext());
+            }
+            OperationMetrics metrics = collector.getOperationMetrics("PutObject");
+            assertEquals(10, metrics.getRequestCount());
+            assertEquals(0, metrics.getErrorCount());
+            assertEquals(10, metrics.getStatusClassCount(2));
+            assertEquals(10, metrics.getTotalTime().getCount());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testLatencyHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+
+        for (long i = 1; i <= 10000; i++) {
+            histogram.recordValue(i);
+        }
+        assertEquals(10000, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(10000, histogram.getMax());
+        assertEquals(5000.5, histogram.getMean(), 0.001);
+        assertEquals(5000, histogram.getValueAtPercentile(50), 5000 / 64);
+        assertEquals(9900, histogram.getValueAtPercentile(99), 9900 / 64);
+        assertEquals(10000, histogram.getValueAtPercentile(100));
+
+        histogram.recordValue(Long.MAX_VALUE);
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, histogram.getMax());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void testDetermineOperationName() {
+        List<String> none = new ArrayList<String>();
+        assertEquals("ListBuckets", name(HttpMethod.GET, null, null, none));
+        assertEquals("ListObjects", name(HttpMethod.GET, "bucket", null, none));
+        assertEquals("GetBucketAcl", name(HttpMethod.GET, "bucket", null, list(RequestParameters.SUBRESOURCE_ACL)));
+        assertEquals("DeleteObjects", name(HttpMethod.POST, "bucket", null, list(RequestParameters.SUBRESOURCE_DELETE)));
+        assertEquals("GetObject", name(HttpMethod.GET, "bucket", "key", none));
+        assertEquals("PutObject", name(HttpMethod.PUT, "bucket", "key", none));
+        assertEquals("GetObjectMetadata", name(HttpMethod.HEAD, "bucket", "key", none));
+        assertEquals("AppendObject", name(HttpMethod.POST, "bucket", "key", list(RequestParameters.SUBRESOURCE_APPEND)));
+        assertEquals("UploadPart",
+                name(HttpMethod.PUT, "bucket", "key", list(RequestParameters.UPLOAD_ID, RequestParameters.PART_NUMBER)));
+        assertEquals("CompleteMultipartUpload", name(HttpMethod.POST, "bucket", "key", list(RequestParameters.UPLOAD_ID)));
+    }
+
+    private static List<String> list(String... parameters) {
+        List<String> list = new ArrayList<String>();
+        for (String parameter : parameters) {
+            list.add(parameter);
+        }
+        return list;
+    }
+
+    private static String name(HttpMethod method, String bucket, String key, List<String> parameterNames) {
+        Map<String, String> parameters = new LinkedHashMap<String, String>();
+        for (String parameter : parameterNames) {
+            parameters.put(parameter, "");
+        }
+        return OSSUtils.determineOperationName(method, bucket, key, parameters, null);
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+import org.junit.Test;
+
+public class ResponseHeaderMapTest {
+
+    private static String toIso88591(String value) throws Exception {
+        return new String(value.getBytes("utf-8"), "iso-8859-1");
+    }
+
+    @Test
+    public void testCaseInsensitiveLookup() {
+        ResponseHeaderMap headers = new ResponseHeaderMap(new Header[] { new BasicHeader("ETag", "\"abc\""),
+                new BasicHeader("x-oss-request-id", "5C1234"), new BasicHeader("Content-Length", "5") });
+
+        assertEquals("\"abc\"", headers.get("ETag"));
+        assertEquals("\"abc\"", headers.get("Etag"));
+        assertEquals("5C1234", headers.get("X-OSS-Request-Id"));
+        assertTrue(headers.containsKey("content-length"));
+        assertFalse(headers.containsKey("x-oss-hash-crc64ecma"));
+        assertNull(headers.get("x-oss-hash-crc64ecma"));
+        assertNull(headers.get(null));
+        assertEquals(3, headers.size());
+    }
+
+    @Test
+    public void testValuesAreDecodedFromIso88591() throws Exception {
+        String value = "中文-value";
+        ResponseHeaderMap headers = new ResponseHeaderMap(new Header[] {
+                new BasicHeader("x-oss-meta-name", toIso88591(value)), new BasicHeader("ETag", "\"abc\"") });
+
+        assertEquals(value, headers.get("x-oss-meta-name"));
+        assertEquals(value, headers.get("X-Oss-Meta-Name"));
+
+        Map<String, String> copy = new HashMap<String, String>(headers);
+        assertEquals(2, copy.size());
+        assertEquals(value, copy.get("x-oss-meta-name"));
+        assertEquals("\"abc\"", copy.get("ETag"));
+    }
+
+    @Test
+    public void testLastDuplicateHeaderWins() {
+        ResponseHeaderMap headers = new ResponseHeaderMap(new Header[] { new BasicHeader("Date", "first"),
+                new BasicHeader("ETag", "\"abc\""), new BasicHeader("date", "second") });
+
+        assertEquals("second", headers.get("Date"));
+        assertEquals(2, headers.size());
+
+        Map<String, String> copy = new HashMap<String, String>();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            copy.put(header.getKey(), header.getValue());
+        }
+        assertEquals(2, copy.size());
+        assertEquals("\"abc\"", copy.get("ETag"));
+        assertEquals("second", copy.get("date"));
+    }
+
+    @Test
+    public void testModifications() throws Exception {
+        ResponseHeaderMap headers = new ResponseHeaderMap(new Header[] { new BasicHeader("ETag", "\"abc\""),
+                new BasicHeader("x-oss-meta-name", toIso88591("中文")) });
+
+        headers.put("x-oss-request-id", "5C1234");
+        assertEquals("5C1234", headers.get("X-OSS-REQUEST-ID"));
+        assertEquals("中文", headers.get("x-oss-meta-name"));
+        assertEquals(3, headers.size());
+
+        assertEquals("\"abc\"", headers.remove("etag"));
+        assertFalse(headers.containsKey("ETag"));
+        assertEquals(2, headers.size());
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.aliyun.oss.ClientConfiguration;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.model.WarmUpRequest;
+import com.aliyun.oss.model.WarmUpResult;
+import com.aliyun.oss.server.LocalOSSServer;
+
+public class WarmUpTest {
+
+    @Test
+    public void testWarmUp() throws Exception {
+        ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        ClientConfiguration config = new ClientConfiguration();
+        config.setMaxConnections(6);
+        OSSClient client = new OSSClient("http://127.0.0.1:" + server.getLocalPort(), "id", "key", config);
+        try {
+            WarmUpResult result = client.warmUp(new WarmUpRequest(Arrays.asList("bucket-a", "bucket-b"), 4));
+            // Path-style requests on an IP endpoint share a single route.
+            assertEquals(4, result.getConnectionsOpened());
+            assertTrue(result.getDuration() >= result.getInitializationTime());
+            assertEquals(4, client.getConnectionPoolStats().getAvailable());
+            assertEquals(0, client.getConnectionPoolStats().getLeased());
+
+            // Connections that are already pooled are not opened again.
+            result = client.warmUp(new WarmUpRequest(Arrays.asList("bucket-a"), 4));
+            assertEquals(0, result.getConnectionsOpened());
+
+            // The pool ceiling is never exceeded.
+            result = client.warmUp(new WarmUpRequest().withConnectionsPerBucket(10));
+            assertEquals(2, result.getConnectionsOpened());
+            assertEquals(6, client.getConnectionPoolStats().getAvailable());
+        } finally {
+            client.shutdown();
+            server.close();
+        }
+    }
+
+    @Test
+    public void testWarmUpDefaultPort() throws Exception {
+        // The proxy makes an endpoint without a port reachable, the route still
+        // targets the default port of the scheme.
+        LocalOSSServer server = new LocalOSSServer().start();
+        ClientConfiguration config = new ClientConfiguration();
+        config.setSLDEnabled(true);
+        config.setProxyHost("127.0.0.1");
+        String endpoint = server.getEndpoint();
+        config.setProxyPort(Integer.parseInt(endpoint.substring(endpoint.lastIndexOf(':') + 1)));
+        OSSClient client = new OSSClient("http://127.0.0.1", "id", "key", config);
+        try {
+            WarmUpResult result = client.warmUp(new WarmUpRequest(Arrays.asList("bucket"), 2));
+            assertEquals(2, result.getConnectionsOpened());
+            assertEquals(2, server.getConnectionCount());
+
+            // The request leases a warmed connection instead of opening another.
+            client.createBucket("bucket");
+            assertEquals(2, server.getConnectionCount());
+        } finally {
+            client.shutdown();
+            server.stop();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBucketName() {
+        OSSClient client = new OSSClient("http://127.0.0.1", "id", "key");
+        try {
+            client.warmUp(new WarmUpRequest(Arrays.asList("Invalid_Bucket"), 1));
+        } finally {
+            client.shutdown();
+        }
+    }
+
+}
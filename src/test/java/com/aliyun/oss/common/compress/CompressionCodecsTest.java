@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.compress;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CompressionCodecsTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] content = newCompressibleContent(200 * 1024);
+        byte[] compressed = readAll(CompressionCodecs.compress(new ByteArrayInputStream(content),
+                new GzipCodec()));
+        assertTrue(compressed.length < content.length / 4);
+
+        InputStream decompressed = CompressionCodecs.decompress(new ByteArrayInputStream(compressed),
+                new GzipCodec());
+        assertArrayEquals(content, readAll(decompressed));
+    }
+
+    @Test
+    public void testEmptyContent() throws IOException {
+        byte[] compressed = readAll(CompressionCodecs.compress(new ByteArrayInputStream(new byte[0]),
+                new GzipCodec()));
+        assertTrue(compressed.length > 0);
+        assertEquals(0, readAll(CompressionCodecs.decompress(new ByteArrayInputStream(compressed),
+                new GzipCodec())).length);
+    }
+
+    @Test
+    public void testConcatenatedParts() throws IOException {
+        byte[] first = newCompressibleContent(64 * 1024);
+        byte[] second = newCompressibleContent(10 * 1024);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        compressed.write(readAll(CompressionCodecs.compress(new ByteArrayInputStream(first), new GzipCodec())));
+        compressed.write(readAll(CompressionCodecs.compress(new ByteArrayInputStream(second), new GzipCodec())));
+
+        // Like a network stream, the source has nothing available between
+        // the reads.
+        InputStream source = new FilterInputStream(new ByteArrayInputStream(compressed.toByteArray())) {
+            @Override
+            public int available() {
+                return 0;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 100));
+            }
+        };
+        byte[] decompressed = readAll(CompressionCodecs.decompress(source, new GzipCodec()));
+
+        assertEquals(first.length + second.length, decompressed.length);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(first);
+        expected.write(second);
+        assertArrayEquals(expected.toByteArray(), decompressed);
+    }
+
+    @Test
+    public void testResetRestartsCompression() throws IOException {
+        byte[] content = newCompressibleContent(200 * 1024);
+        byte[] expected = readAll(CompressionCodecs.compress(new ByteArrayInputStream(content), new GzipCodec()));
+
+        InputStream compressed = CompressionCodecs.compress(new ByteArrayInputStream(content), new GzipCodec());
+        assertTrue(compressed.markSupported());
+        compressed.mark(0);
+        assertTrue(compressed.read(new byte[1000], 0, 1000) > 0);
+        compressed.reset();
+        assertArrayEquals(expected, readAll(compressed));
+
+        // Only the start of the content can be marked.
+        compressed = CompressionCodecs.compress(new ByteArrayInputStream(content), new GzipCodec());
+        compressed.read();
+        compressed.mark(0);
+        try {
+            compressed.reset();
+            fail("The compressor can't be restored in the middle of the content.");
+        } catch (IOException e) {
+        }
+    }
+
+    @Test
+    public void testDecompressedStreamKeepsCompressedStream() throws IOException {
+        InputStream compressed = new ByteArrayInputStream(new byte[0]);
+        DecompressingInputStream decompressed = (DecompressingInputStream) CompressionCodecs.decompress(compressed,
+                new GzipCodec());
+        assertSame(compressed, decompressed.getCompressedStream());
+    }
+
+    @Test
+    public void testRegistry() {
+        assertTrue(CompressionCodecs.get("gzip") instanceof GzipCodec);
+        assertTrue(CompressionCodecs.get("GZIP") instanceof GzipCodec);
+        assertNull(CompressionCodecs.get("unknown"));
+        assertNull(CompressionCodecs.get(null));
+
+        CompressionCodec codec = new GzipCodec() {
+            @Override
+            public String getName() {
+                return "test-codec";
+            }
+        };
+        CompressionCodecs.register(codec);
+        assertSame(codec, CompressionCodecs.get("test-codec"));
+    }
+
+    @Test
+    public void testResolve() {
+        CompressionCodec requestCodec = new GzipCodec();
+        CompressionCodec clientCodec = new GzipCodec();
+        assertSame(requestCodec, CompressionCodecs.resolve(requestCodec, clientCodec));
+        assertSame(clientCodec, CompressionCodecs.resolve(null, clientCodec));
+        assertNull(CompressionCodecs.resolve(CompressionCodecs.NONE, clientCodec));
+        assertNull(CompressionCodecs.resolve(null, null));
+    }
+
+    private static byte[] newCompressibleContent(int size) {
+        Random random = new Random(size);
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < size) {
+            sb.append("{\"id\":").append(random.nextInt(1000)).append(",\"name\":\"object\"}\n");
+        }
+        return sb.substring(0, size).getBytes();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int bytesRead;
+        while ((bytesRead = in.read(buffer)) != -1) {
+            out.write(buffer, 0, bytesRead);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+}
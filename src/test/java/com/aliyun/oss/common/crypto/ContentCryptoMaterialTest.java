@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.Test;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.common.utils.BinaryUtil;
+
+public class ContentCryptoMaterialTest {
+
+    private final EncryptionMaterials materials = new EncryptionMaterials(newBytes(16, 1));
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        ContentCryptoMaterial material = ContentCryptoMaterial.create(materials);
+        byte[] content = newBytes(100 * 1024 + 7, 2);
+
+        byte[] encrypted = readAll(material.newCipherStream(new ByteArrayInputStream(content), 0));
+        assertEquals(content.length, encrypted.length);
+        assertFalse(Arrays.equals(content, encrypted));
+
+        byte[] decrypted = readAll(material.newCipherStream(new ByteArrayInputStream(encrypted), 0));
+        assertArrayEquals(content, decrypted);
+    }
+
+    @Test
+    public void testDecryptRangesIndependently() throws IOException {
+        ContentCryptoMaterial material = ContentCryptoMaterial.create(materials);
+        byte[] content = newBytes(64 * 1024, 3);
+        byte[] encrypted = readAll(material.newCipherStream(new ByteArrayInputStream(content), 0));
+
+        Random random = new Random(4);
+        for (int i = 0; i < 100; i++) {
+            int start = random.nextInt(content.length);
+            int end = start + random.nextInt(content.length - start);
+            byte[] range = Arrays.copyOfRange(encrypted, start, end);
+            byte[] decrypted = readAll(material.newCipherStream(new ByteArrayInputStream(range), start));
+            assertArrayEquals(Arrays.copyOfRange(content, start, end), decrypted);
+        }
+    }
+
+    @Test
+    public void testEncryptPartsIndependently() throws IOException {
+        ContentCryptoMaterial material = ContentCryptoMaterial.create(materials);
+        byte[] content = newBytes(3 * 1000 + 5, 5);
+        byte[] whole = readAll(material.newCipherStream(new ByteArrayInputStream(content), 0));
+
+        ByteArrayOutputStream parts = new ByteArrayOutputStream();
+        for (int offset = 0; offset < content.length; offset += 1000) {
+            int end = Math.min(offset + 1000, content.length);
+            parts.write(readAll(material.newCipherStream(
+                    new ByteArrayInputStream(Arrays.copyOfRange(content, offset, end)), offset)));
+        }
+        assertArrayEquals(whole, parts.toByteArray());
+    }
+
+    @Test
+    public void testCounterCarry() throws IOException {
+        Map<String, String> userMetadata = new HashMap<String, String>();
+        ContentCryptoMaterial.create(materials).toMetadata(userMetadata);
+        byte[] start = new byte[16];
+        Arrays.fill(start, 8, 16, (byte) 0xff);
+        userMetadata.put(ContentCryptoMaterial.START_METADATA_KEY,
+                BinaryUtil.toBase64String(start));
+        ContentCryptoMaterial material = ContentCryptoMaterial.fromMetadata(userMetadata, materials);
+
+        byte[] content = newBytes(4096, 6);
+        byte[] encrypted = readAll(material.newCipherStream(new ByteArrayInputStream(content), 0));
+        byte[] range = Arrays.copyOfRange(encrypted, 1000, 4096);
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 4096),
+                readAll(material.newCipherStream(new ByteArrayInputStream(range), 1000)));
+    }
+
+    @Test
+    public void testResetRepositionsCipher() throws IOException {
+        ContentCryptoMaterial material = ContentCryptoMaterial.create(materials);
+        byte[] content = newBytes(10000, 7);
+        byte[] expected = readAll(material.newCipherStream(new ByteArrayInputStream(content), 0));
+
+        InputStream stream = material.newCipherStream(new ByteArrayInputStream(content), 0);
+        stream.read(new byte[333]);
+        stream.mark(Integer.MAX_VALUE);
+        stream.read(new byte[4000]);
+        stream.reset();
+        stream.skip(17);
+        byte[] rest = readAll(stream);
+        assertArrayEquals(Arrays.copyOfRange(expected, 350, expected.length), rest);
+    }
+
+    @Test
+    public void testMetadata() throws IOException {
+        ContentCryptoMaterial material = ContentCryptoMaterial.create(materials);
+        Map<String, String> userMetadata = new HashMap<String, String>();
+        material.toMetadata(userMetadata);
+        assertEquals(ContentCryptoMaterial.CONTENT_CIPHER_ALGORITHM,
+                userMetadata.get(ContentCryptoMaterial.CEK_ALGORITHM_METADATA_KEY));
+        assertEquals(EncryptionMaterials.KEY_WRAP_ALGORITHM,
+                userMetadata.get(ContentCryptoMaterial.WRAP_ALGORITHM_METADATA_KEY));
+
+        byte[] content = newBytes(1000, 8);
+        byte[] encrypted = readAll(material.newCipherStream(new ByteArrayInputStream(content), 0));
+        ContentCryptoMaterial restored = ContentCryptoMaterial.fromMetadata(userMetadata, materials);
+        assertArrayEquals(content, readAll(restored.newCipherStream(new ByteArrayInputStream(encrypted), 0)));
+
+        assertNull(ContentCryptoMaterial.fromMetadata(new HashMap<String, String>(), materials));
+
+        try {
+            ContentCryptoMaterial.fromMetadata(userMetadata, new EncryptionMaterials(newBytes(16, 9)));
+            fail("The data key must not be unwrapped with another master key.");
+        } catch (ClientException e) {
+        }
+    }
+
+    @Test
+    public void testInvalidMasterKey() {
+        try {
+            new EncryptionMaterials(new SecretKeySpec(new byte[8], "DES"));
+            fail("The master key must be an AES key.");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    private static byte[] newBytes(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1000];
+        int bytesRead;
+        while ((bytesRead = in.read(buffer)) != -1) {
+            out.write(buffer, 0, bytesRead);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.multipart;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aliyun.oss.ClientConfiguration;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.ListMultipartUploadsRequest;
+import com.aliyun.oss.model.MultipartUpload;
+import com.aliyun.oss.model.UploadPartRequest;
+import com.aliyun.oss.server.LocalOSSServer;
+
+public class MultipartUploadReaperTest {
+
+    private LocalOSSServer server;
+    private OSSClient client;
+    private MultipartUploadReaper reaper;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new LocalOSSServer().start();
+        client = newClient(ClientConfiguration.DEFAULT_MAX_RETRIES);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (reaper != null) {
+            reaper.shutdown();
+        }
+        client.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testStaleUploadsAreAbortedPageByPage() throws Exception {
+        long bytes = 0;
+        for (int i = 0; i < 25; i++) {
+            bytes += initiate("bucket", "key-" + (i % 10), i % 3, 1000 + i);
+        }
+        Thread.sleep(10);
+
+        reaper = new MultipartUploadReaper(client,
+                new MultipartUploadReaperPolicy().withMinAge(0).withMaxUploadsPerPage(7).withMaxConcurrency(4),
+                "bucket");
+        ReapResult result = reaper.reap("bucket");
+
+        assertEquals(25, result.getScannedUploads());
+        assertEquals(25, result.getAbortedUploads());
+        assertEquals(0, result.getFailedUploads());
+        assertEquals(bytes, result.getReclaimedBytes());
+        assertTrue(listUploads("bucket").isEmpty());
+    }
+
+    @Test
+    public void testAgeAndPrefixFilters() throws Exception {
+        initiate("bucket", "logs/old-1", 1, 100);
+        initiate("bucket", "logs/old-2", 0, 0);
+        initiate("bucket", "data/old", 1, 100);
+        Thread.sleep(1500);
+        initiate("bucket", "logs/new", 1, 100);
+
+        reaper = new MultipartUploadReaper(client,
+                new MultipartUploadReaperPolicy().withMinAge(1000).withPrefix("logs/"), "bucket");
+        ReapResult result = reaper.reap("bucket");
+
+        assertEquals(3, result.getScannedUploads());
+        assertEquals(2, result.getAbortedUploads());
+        assertEquals(100, result.getReclaimedBytes());
+        List<String> keys = new ArrayList<String>();
+        for (MultipartUpload upload : listUploads("bucket")) {
+            keys.add(upload.getKey());
+        }
+        assertEquals(2, keys.size());
+        assertTrue(keys.contains("data/old"));
+        assertTrue(keys.contains("logs/new"));
+    }
+
+    @Test
+    public void testReclaimedBytesNotMeasured() throws Exception {
+        initiate("bucket", "key", 2, 100);
+        Thread.sleep(10);
+        long requestCount = server.getRequestCount();
+
+        reaper = new MultipartUploadReaper(client,
+                new MultipartUploadReaperPolicy().withMinAge(0).withMeasureReclaimedBytes(false), "bucket");
+        ReapResult result = reaper.reap("bucket");
+
+        assertEquals(1, result.getAbortedUploads());
+        assertEquals(0, result.getReclaimedBytes());
+        // One listing and one abort, without listParts.
+        assertEquals(2, server.getRequestCount() - requestCount);
+    }
+
+    @Test
+    public void testListingIsRetriedByClient() throws Exception {
+        initiate("bucket", "key", 1, 100);
+        Thread.sleep(10);
+        server.injectServerErrors(2);
+
+        reaper = new MultipartUploadReaper(client, new MultipartUploadReaperPolicy().withMinAge(0), "bucket");
+        ReapResult result = reaper.reap("bucket");
+
+        assertEquals(1, result.getAbortedUploads());
+        assertEquals(100, result.getReclaimedBytes());
+    }
+
+    @Test
+    public void testRunSweepsAllBucketsDespiteFailures() throws Exception {
+        client.shutdown();
+        client = newClient(0);
+        initiate("first", "key", 1, 100);
+        initiate("second", "key", 1, 200);
+        Thread.sleep(10);
+
+        reaper = new MultipartUploadReaper(client, new MultipartUploadReaperPolicy().withMinAge(0), "first",
+                "second");
+        assertNull(reaper.getLastResult());
+
+        // The listing of the first bucket fails and isn't retried.
+        server.injectServerErrors(1);
+        reaper.run();
+        assertEquals(1, reaper.getLastResult().getAbortedUploads());
+        assertEquals(200, reaper.getLastResult().getReclaimedBytes());
+        assertEquals(1, listUploads("first").size());
+
+        reaper.run();
+        assertEquals(1, reaper.getLastResult().getAbortedUploads());
+        assertEquals(100, reaper.getLastResult().getReclaimedBytes());
+        assertEquals(2, reaper.getTotal().getAbortedUploads());
+        assertEquals(300, reaper.getTotal().getReclaimedBytes());
+        assertTrue(listUploads("first").isEmpty());
+    }
+
+    private OSSClient newClient(int maxErrorRetry) {
+        ClientConfiguration config = new ClientConfiguration();
+        config.setSLDEnabled(true);
+        config.setMaxErrorRetry(maxErrorRetry);
+        return new OSSClient(server.getEndpoint(), "id", "key", config);
+    }
+
+    /**
+     * Initiates an upload with the parts of the size, returning their total
+     * size.
+     */
+    private long initiate(String bucketName, String key, int partCount, int partSize) {
+        String uploadId = client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, key))
+                .getUploadId();
+        for (int i = 1; i <= partCount; i++) {
+            UploadPartRequest request = new UploadPartRequest();
+            request.setBucketName(bucketName);
+            request.setKey(key);
+            request.setUploadId(uploadId);
+            request.setPartNumber(i);
+            request.setInputStream(new ByteArrayInputStream(new byte[partSize]));
+            request.setPartSize(partSize);
+            client.uploadPart(request);
+        }
+        return (long) partCount * partSize;
+    }
+
+    private List<MultipartUpload> listUploads(String bucketName) {
+        return client.listMultipartUploads(new ListMultipartUploadsRequest(bucketName)).getMultipartUploads();
+    }
+}
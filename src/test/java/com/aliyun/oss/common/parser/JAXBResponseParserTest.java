@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.junit.Test;
+
+import com.aliyun.oss.common.comm.ResponseMessage;
+import com.aliyun.oss.internal.model.OSSErrorResult;
+
+public class JAXBResponseParserTest {
+
+    private final JAXBResponseParser parser = new JAXBResponseParser(OSSErrorResult.class);
+
+    @Test
+    public void testConcurrentParsing() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < 16; i++) {
+                final int thread = i;
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        for (int j = 0; j < 200; j++) {
+                            String requestId = thread + "-" + j;
+                            OSSErrorResult result = (OSSErrorResult) parser.parse(response(error(requestId)));
+                            assertEquals("NoSuchKey", result.Code);
+                            assertEquals(requestId, result.RequestId);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMalformedResponseDoesNotAffectLaterOnes() throws Exception {
+        try {
+            parser.parse(response("<?xml version=\"1.0\"?><Error><Code>NoSuchKey</Code>"));
+            fail("The truncated response should fail to parse");
+        } catch (ResponseParseException e) {
+            // Expected.
+        }
+        OSSErrorResult result = (OSSErrorResult) parser.parse(response(error("after-failure")));
+        assertEquals("after-failure", result.RequestId);
+    }
+
+    @Test
+    public void testJAXBFailureOnlyFailsParsing() throws Exception {
+        System.setProperty(CONTEXT_FACTORY_PROPERTY, FailingContextFactory.class.getName());
+        try {
+            JAXBResponseParser failingParser = new JAXBResponseParser(FailingModel.class);
+            try {
+                failingParser.parse(response("<FailingModel/>"));
+                fail("The JAXB failure should be reported by the parsing");
+            } catch (ResponseParseException e) {
+                assertTrue(e.getCause().getCause() instanceof IllegalStateException);
+            }
+        } finally {
+            System.clearProperty(CONTEXT_FACTORY_PROPERTY);
+        }
+    }
+
+    @Test
+    public void testPoolIsBounded() throws Exception {
+        ParserPool<Object> pool = new ParserPool<Object>() {
+            @Override
+            protected Object create() {
+                return new Object();
+            }
+        };
+        List<Object> parsers = new ArrayList<Object>();
+        for (int i = 0; i < ParserPool.MAX_POOLED_PARSERS + 10; i++) {
+            parsers.add(pool.acquire());
+        }
+        for (Object parser : parsers) {
+            pool.release(parser);
+        }
+        assertEquals(ParserPool.MAX_POOLED_PARSERS, pool.size());
+        assertTrue(parsers.contains(pool.acquire()));
+        assertEquals(ParserPool.MAX_POOLED_PARSERS - 1, pool.size());
+    }
+
+    private static final String CONTEXT_FACTORY_PROPERTY = "javax.xml.bind.context.factory";
+
+    @XmlRootElement(name = "FailingModel")
+    public static class FailingModel {
+    }
+
+    public static class FailingContextFactory {
+        public static JAXBContext createContext(Class<?>[] classes, Map<String, ?> properties) {
+            throw new IllegalStateException("The JAXB implementation is unavailable");
+        }
+    }
+
+    private static String error(String requestId) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>NoSuchKey</Code>"
+                + "<Message>The specified key does not exist.</Message><RequestId>" + requestId
+                + "</RequestId><HostId>bucket.oss-cn-hangzhou.aliyuncs.com</HostId></Error>";
+    }
+
+    private static ResponseMessage response(String content) throws Exception {
+        ResponseMessage response = new ResponseMessage(null);
+        response.setStatusCode(404);
+        response.setContent(new ByteArrayInputStream(content.getBytes("UTF-8")));
+        return response;
+    }
+}
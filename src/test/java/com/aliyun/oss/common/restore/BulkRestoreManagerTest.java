@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.restore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aliyun.oss.ClientConfiguration;
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.utils.IOUtils;
+import com.aliyun.oss.model.HeadObjectResult;
+import com.aliyun.oss.model.HeadObjectsRequest;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.StorageClass;
+import com.aliyun.oss.server.LocalOSSServer;
+
+public class BulkRestoreManagerTest {
+
+    private LocalOSSServer server;
+    private OSSClient client;
+    private BulkRestoreManager manager;
+
+    private final Map<String, byte[]> fetched = new ConcurrentHashMap<String, byte[]>();
+    private final List<String> fetchOrder = Collections.synchronizedList(new ArrayList<String>());
+    private final RestoredObjectHandler handler = new RestoredObjectHandler() {
+        @Override
+        public void handle(OSSObject object) throws Exception {
+            fetched.put(object.getKey(), IOUtils.readStreamAsByteArray(object.getObjectContent()));
+            fetchOrder.add(object.getKey());
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        server = new LocalOSSServer().start();
+        ClientConfiguration config = new ClientConfiguration();
+        config.setSLDEnabled(true);
+        client = new OSSClient(server.getEndpoint(), "id", "key", config);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (manager != null) {
+            manager.shutdown();
+        }
+        client.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testArchivedObjectsAreFetchedOnceRestored() throws Exception {
+        server.setRestoreTime(300, TimeUnit.MILLISECONDS);
+        List<String> keys = new ArrayList<String>();
+        for (int i = 0; i < 20; i++) {
+            keys.add("archive-" + i);
+            put(keys.get(i), StorageClass.Archive);
+        }
+
+        manager = new BulkRestoreManager(client,
+                new BulkRestorePolicy().withInitialPollInterval(100).withMaxConcurrency(4).withDownloadConcurrency(3));
+        BulkRestoreResult result = manager.restoreAndFetch("bucket", keys, handler);
+
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(20, result.getRestoredObjects());
+        assertEquals(20, result.getFetchedObjects());
+        for (String key : keys) {
+            assertArrayEquals(key.getBytes(), fetched.get(key));
+        }
+        // All the objects are polled together.
+        assertTrue(result.getPolls() <= 3);
+    }
+
+    @Test
+    public void testReadableObjectsAreFetchedWhileOthersAreRestored() throws Exception {
+        server.setRestoreTime(500, TimeUnit.MILLISECONDS);
+        put("archived", StorageClass.Archive);
+        put("standard", StorageClass.Standard);
+
+        manager = new BulkRestoreManager(client, new BulkRestorePolicy().withInitialPollInterval(100));
+        BulkRestoreResult result = manager.restoreAndFetch("bucket", Arrays.asList("archived", "standard"), handler);
+
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(1, result.getRestoredObjects());
+        assertEquals(Arrays.asList("standard", "archived"), fetchOrder);
+
+        // Restored already, fetched without polling.
+        fetchOrder.clear();
+        result = manager.restoreAndFetch("bucket", Arrays.asList("archived"), handler);
+        assertEquals(0, result.getPolls());
+        assertEquals(Arrays.asList("archived"), fetchOrder);
+    }
+
+    @Test
+    public void testPollIntervalBacksOff() throws Exception {
+        server.setRestoreTime(1000, TimeUnit.MILLISECONDS);
+        put("archived", StorageClass.Archive);
+
+        manager = new BulkRestoreManager(client,
+                new BulkRestorePolicy().withInitialPollInterval(50).withPollBackoff(2).withMaxPollInterval(400));
+        BulkRestoreResult result = manager.restoreAndFetch("bucket", Arrays.asList("archived"), handler);
+
+        // Polled after 50, 150, 350, 750 and 1150ms instead of every 50ms.
+        assertEquals(1, result.getFetchedObjects());
+        assertTrue(result.getPolls() >= 4 && result.getPolls() <= 6);
+    }
+
+    @Test
+    public void testFailures() throws Exception {
+        server.setRestoreTime(10, TimeUnit.SECONDS);
+        put("slow", StorageClass.Archive);
+        put("standard", StorageClass.Standard);
+
+        manager = new BulkRestoreManager(client,
+                new BulkRestorePolicy().withInitialPollInterval(50).withMaxWaitTime(300));
+        BulkRestoreResult result = manager.restoreAndFetch("bucket", Arrays.asList("slow", "missing", "standard"),
+                new RestoredObjectHandler() {
+                    @Override
+                    public void handle(OSSObject object) throws Exception {
+                        throw new IllegalStateException("Disk full");
+                    }
+                });
+
+        assertEquals(3, result.getFailures().size());
+        assertTrue(result.getFailures().get("slow") instanceof ClientException);
+        assertEquals(OSSErrorCode.NO_SUCH_KEY, ((OSSException) result.getFailures().get("missing")).getErrorCode());
+        assertTrue(result.getFailures().get("standard") instanceof IllegalStateException);
+        assertEquals(0, result.getFetchedObjects());
+    }
+
+    @Test
+    public void testPollFailures() throws Exception {
+        server.setRestoreTime(10, TimeUnit.SECONDS);
+        put("unreachable", StorageClass.Archive);
+        put("forbidden", StorageClass.Archive);
+
+        // The polls of the objects fail, transiently or not.
+        OSSClient failingClient = new OSSClient(server.getEndpoint(), "id", "key", client.getClientConfiguration()) {
+            @Override
+            public Iterator<HeadObjectResult> headObjects(HeadObjectsRequest headObjectsRequest) {
+                List<HeadObjectResult> results = new ArrayList<HeadObjectResult>();
+                for (String key : headObjectsRequest.getKeys()) {
+                    results.add(new HeadObjectResult(key, key.equals("forbidden")
+                            ? new OSSException("Forbidden", OSSErrorCode.ACCESS_DENIED, null, null, null, null, null)
+                            : new ClientException("Connection refused")));
+                }
+                return results.iterator();
+            }
+        };
+        try {
+            manager = new BulkRestoreManager(failingClient,
+                    new BulkRestorePolicy().withInitialPollInterval(10).withMaxPollFailures(3));
+            BulkRestoreResult result = manager.restoreAndFetch("bucket", Arrays.asList("unreachable", "forbidden"),
+                    handler);
+
+            assertEquals(2, result.getFailures().size());
+            assertTrue(result.getFailures().get("unreachable") instanceof ClientException);
+            assertEquals(OSSErrorCode.ACCESS_DENIED,
+                    ((OSSException) result.getFailures().get("forbidden")).getErrorCode());
+            // The forbidden object fails at the first poll, the other at the third.
+            assertEquals(3, result.getPolls());
+        } finally {
+            failingClient.shutdown();
+        }
+    }
+
+    private void put(String key, StorageClass storageClass) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setHeader("x-oss-storage-class", storageClass.toString());
+        client.putObject("bucket", key, new ByteArrayInputStream(key.getBytes()), metadata);
+    }
+}
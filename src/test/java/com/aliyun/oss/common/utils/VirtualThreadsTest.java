@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.aliyun.oss.ClientConfiguration;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.model.DownloadFileRequest;
+import com.aliyun.oss.model.UploadFileRequest;
+import com.aliyun.oss.server.LocalOSSServer;
+
+public class VirtualThreadsTest {
+
+    @Test
+    public void testThreadFactory() throws Exception {
+        ThreadFactory platformFactory = Executors.defaultThreadFactory();
+        assertSame(platformFactory, VirtualThreads.threadFactory(false, "test-", platformFactory));
+
+        if (VirtualThreads.javaVersion() < 21) {
+            assertFalse(VirtualThreads.isSupported());
+            assertNull(VirtualThreads.newThreadFactory("test-"));
+            assertSame(platformFactory, VirtualThreads.threadFactory(true, "test-", platformFactory));
+            return;
+        }
+
+        assertTrue(VirtualThreads.isSupported());
+        Thread thread = VirtualThreads.threadFactory(true, "test-", platformFactory).newThread(new Runnable() {
+            public void run() {
+            }
+        });
+        assertEquals("test-1", thread.getName());
+        assertEquals(Boolean.TRUE, Thread.class.getMethod("isVirtual").invoke(thread));
+    }
+
+    @Test
+    public void testDaemonThreadFactory() {
+        ThreadFactory factory = VirtualThreads.daemonThreadFactory("daemon-");
+        Runnable task = new Runnable() {
+            public void run() {
+            }
+        };
+        Thread thread = factory.newThread(task);
+        assertEquals("daemon-1", thread.getName());
+        assertTrue(thread.isDaemon());
+        assertEquals("daemon-2", factory.newThread(task).getName());
+    }
+
+    /**
+     * Runs the request paths on virtual threads and checks that none of them
+     * is pinned to its carrier thread by a monitor. It needs JDK 21 with
+     * -Djdk.tracePinnedThreads, which the virtual-threads build profile sets,
+     * and is skipped otherwise.
+     */
+    @Test
+    public void testRequestPathsDoNotPinVirtualThreads() throws Throwable {
+        assumeTrue(VirtualThreads.isSupported() && System.getProperty("jdk.tracePinnedThreads") != null);
+        ThreadFactory factory = VirtualThreads.newThreadFactory("pinning-");
+
+        // A virtual thread that sleeps while holding a monitor must be
+        // reported, or else the check below proves nothing.
+        final Object monitor = new Object();
+        String trace = runAndCaptureTrace(factory, 4, new Task() {
+            public void run() throws Exception {
+                synchronized (monitor) {
+                    Thread.sleep(10);
+                }
+            }
+        });
+        assertTrue(trace, trace.contains("<== monitors"));
+
+        LocalOSSServer server = new LocalOSSServer().start();
+        server.setLatency(5, TimeUnit.MILLISECONDS);
+        ClientConfiguration config = new ClientConfiguration();
+        config.setSLDEnabled(true);
+        config.setRequestTimeoutEnabled(true);
+        config.setVirtualThreadsEnabled(true);
+        final OSSClient client = new OSSClient(server.getEndpoint(), "id", "key", config);
+        final File file = File.createTempFile("pinning", ".txt");
+        final File downloaded = new File(file.getPath() + ".download");
+        try {
+            final byte[] data = new byte[300 * 1024];
+            new Random(0).nextBytes(data);
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(data);
+            out.close();
+
+            // The file transfers run their parts on virtual threads of their own.
+            trace = runAndCaptureTrace(factory, 1, new Task() {
+                public void run() throws Throwable {
+                    client.getEndpoint();
+                    client.putObject("bucket", "object.txt", new ByteArrayInputStream(data));
+                    client.getObject("bucket", "object.txt").getObjectContent().close();
+
+                    UploadFileRequest uploadFileRequest = new UploadFileRequest("bucket", "uploaded.txt");
+                    uploadFileRequest.setUploadFile(file.getPath());
+                    uploadFileRequest.setPartSize(100 * 1024);
+                    uploadFileRequest.setTaskNum(3);
+                    uploadFileRequest.setEnableCheckpoint(true);
+                    client.uploadFile(uploadFileRequest);
+
+                    DownloadFileRequest downloadFileRequest = new DownloadFileRequest("bucket", "uploaded.txt");
+                    downloadFileRequest.setDownloadFile(downloaded.getPath());
+                    downloadFileRequest.setPartSize(100 * 1024);
+                    downloadFileRequest.setTaskNum(3);
+                    downloadFileRequest.setEnableCheckpoint(true);
+                    client.downloadFile(downloadFileRequest);
+                }
+            });
+            assertFalse(trace, trace.contains("<== monitors"));
+            assertArrayEquals(data, read(downloaded));
+        } finally {
+            client.shutdown();
+            server.stop();
+            file.delete();
+            downloaded.delete();
+        }
+    }
+
+    private interface Task {
+        void run() throws Throwable;
+    }
+
+    /**
+     * Runs the task on virtual threads at once and returns what the JDK
+     * printed about pinned threads meanwhile.
+     */
+    private static String runAndCaptureTrace(ThreadFactory factory, int threadCount, final Task task)
+            throws Throwable {
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(captured, true));
+        try {
+            List<Thread> threads = new ArrayList<Thread>();
+            for (int i = 0; i < threadCount; i++) {
+                Thread thread = factory.newThread(new Runnable() {
+                    public void run() {
+                        try {
+                            task.run();
+                        } catch (Throwable t) {
+                            failure.compareAndSet(null, t);
+                        }
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } finally {
+            System.setOut(stdout);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return captured.toString("UTF-8");
+    }
+
+    private static byte[] read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return IOUtils.readStreamAsByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.aliyun.oss.common.comm.io.BodyPipelineInputStream;
+
+public class AsyncProgressListenerTest {
+
+    private static class RecordingListener implements ProgressListener {
+        final List<ProgressEvent> events = Collections.synchronizedList(new ArrayList<ProgressEvent>());
+        final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+        final long delay;
+
+        RecordingListener(long delay) {
+            this.delay = delay;
+        }
+
+        @Override
+        public void progressChanged(ProgressEvent progressEvent) {
+            threads.add(Thread.currentThread());
+            events.add(progressEvent);
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        long bytes(ProgressEventType type) {
+            long bytes = 0;
+            synchronized (events) {
+                for (ProgressEvent event : events) {
+                    if (event.getEventType() == type) {
+                        bytes += event.getBytes();
+                    }
+                }
+            }
+            return bytes;
+        }
+    }
+
+    @Test
+    public void testConcurrentBytesAreCoalesced() throws Exception {
+        RecordingListener recorder = new RecordingListener(0);
+        final AsyncProgressListener listener = new AsyncProgressListener(recorder, 50);
+
+        final int threadCount = 8;
+        final int eventsPerThread = 10000;
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        ProgressPublisher.publishProgress(listener, ProgressEventType.TRANSFER_STARTED_EVENT);
+        ProgressPublisher.publishRequestContentLength(listener, threadCount * eventsPerThread * 100L);
+        listener.flush();
+        for (int i = 0; i < threadCount; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < eventsPerThread; j++) {
+                        ProgressPublisher.publishRequestBytesTransferred(listener, 100);
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+        ProgressPublisher.publishProgress(listener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
+        listener.flush();
+
+        assertEquals(threadCount * eventsPerThread * 100L, recorder.bytes(ProgressEventType.REQUEST_BYTE_TRANSFER_EVENT));
+        assertTrue(recorder.events.size() < threadCount * eventsPerThread / 10);
+        assertEquals(1, recorder.threads.size());
+        assertFalse(recorder.threads.contains(Thread.currentThread()));
+
+        List<ProgressEvent> events = recorder.events;
+        assertEquals(ProgressEventType.TRANSFER_STARTED_EVENT, events.get(0).getEventType());
+        assertEquals(ProgressEventType.REQUEST_CONTENT_LENGTH_EVENT, events.get(1).getEventType());
+        assertEquals(ProgressEventType.TRANSFER_COMPLETED_EVENT, events.get(events.size() - 1).getEventType());
+
+        AggregatedProgressEvent last = (AggregatedProgressEvent) events.get(events.size() - 2);
+        assertEquals(threadCount * eventsPerThread * 100L, last.getTransferredBytes());
+        assertEquals(threadCount * eventsPerThread * 100L, last.getTotalBytes());
+        assertEquals(0, last.getEstimatedTimeRemaining());
+        assertTrue(last.getAverageBytesPerSecond() > 0);
+    }
+
+    @Test
+    public void testSlowListenerDoesNotBlockTransfer() throws Exception {
+        RecordingListener recorder = new RecordingListener(500);
+        AsyncProgressListener listener = new AsyncProgressListener(recorder, 10);
+
+        byte[] data = new byte[1024 * 1024];
+        BodyPipelineInputStream content = new BodyPipelineInputStream(new ByteArrayInputStream(data))
+                .withResponseProgress(listener);
+        ProgressPublisher.publishResponseContentLength(listener, data.length);
+
+        long start = System.currentTimeMillis();
+        byte[] buffer = new byte[8 * 1024];
+        while (content.read(buffer) != -1) {
+        }
+        content.close();
+        assertTrue(System.currentTimeMillis() - start < 500);
+
+        listener.flush();
+        assertEquals(data.length, recorder.bytes(ProgressEventType.RESPONSE_BYTE_TRANSFER_EVENT));
+    }
+
+    @Test
+    public void testEstimatedTimeRemaining() throws Exception {
+        RecordingListener recorder = new RecordingListener(0);
+        AsyncProgressListener listener = new AsyncProgressListener(recorder, 1000);
+
+        ProgressPublisher.publishResponseContentLength(listener, 1000);
+        Thread.sleep(50);
+        ProgressPublisher.publishResponseBytesTransferred(listener, 250);
+        listener.flush();
+
+        AggregatedProgressEvent event = (AggregatedProgressEvent) recorder.events.get(recorder.events.size() - 1);
+        assertEquals(250, event.getBytes());
+        assertEquals(250, event.getTransferredBytes());
+        assertEquals(1000, event.getTotalBytes());
+        assertTrue(event.getBytesPerSecond() > 0);
+        // 750 bytes left at no more than 250 bytes per 50ms.
+        assertTrue(event.getEstimatedTimeRemaining() >= 150);
+        assertTrue(event.getEstimatedTimeRemaining() < 3000);
+    }
+
+}
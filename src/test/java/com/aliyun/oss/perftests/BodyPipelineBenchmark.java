@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.perftests;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.CheckedInputStream;
+
+import com.aliyun.oss.common.comm.RepeatableInputStreamEntity.NoAutoClosedInputStreamEntity;
+import com.aliyun.oss.common.comm.io.BodyPipelineInputStream;
+import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.event.ProgressEvent;
+import com.aliyun.oss.event.ProgressInputStream;
+import com.aliyun.oss.event.ProgressListener;
+import com.aliyun.oss.internal.OSSConstants;
+
+/**
+ * Compares the throughput of reading request and response bodies through the
+ * stacked wrapper streams the SDK used before (buffering for mark, progress and
+ * CRC64 wrappers, each with its own copy) against a single
+ * {@link BodyPipelineInputStream}. The bodies come from a stream which doesn't
+ * support mark, like a network or user-provided stream.
+ * 
+ * <p>
+ * Usage: BodyPipelineBenchmark [body size in KB] [iterations]
+ * </p>
+ */
+public class BodyPipelineBenchmark {
+
+    private static final int OLD_ENTITY_BUFFER_SIZE = 2048;
+
+    private static final ProgressListener LISTENER = new ProgressListener() {
+        @Override
+        public void progressChanged(ProgressEvent progressEvent) {
+        }
+    };
+
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    private static long checksum;
+
+    private interface Body {
+        long transfer(byte[] data) throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sizeKB = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        byte[] data = new byte[sizeKB * 1024];
+        new Random(0).nextBytes(data);
+
+        Body stackedUpload = new Body() {
+            public long transfer(byte[] data) throws IOException {
+                InputStream content = new BufferedInputStream(unmarkable(data), OSSConstants.DEFAULT_STREAM_BUFFER_SIZE);
+                content.mark(OSSConstants.DEFAULT_STREAM_BUFFER_SIZE);
+                content = new ProgressInputStream(content, LISTENER) {
+                };
+                CheckedInputStream checked = new CheckedInputStream(content, new CRC64());
+                byte[] buffer = new byte[OLD_ENTITY_BUFFER_SIZE];
+                int l;
+                while ((l = checked.read(buffer)) != -1) {
+                    DISCARD.write(buffer, 0, l);
+                }
+                return checked.getChecksum().getValue();
+            }
+        };
+        Body pipelineUpload = new Body() {
+            public long transfer(byte[] data) throws IOException {
+                BodyPipelineInputStream content = new BodyPipelineInputStream(unmarkable(data)).withReplayBuffer();
+                content.mark(OSSConstants.DEFAULT_STREAM_BUFFER_SIZE);
+                content.withRequestProgress(LISTENER).withChecksum();
+                new NoAutoClosedInputStreamEntity(content, data.length).writeTo(DISCARD);
+                content.close();
+                return content.getChecksumValue();
+            }
+        };
+        Body stackedDownload = new Body() {
+            public long transfer(byte[] data) throws IOException {
+                InputStream content = new ProgressInputStream(unmarkable(data), LISTENER) {
+                };
+                content = new CheckedInputStream(content, new CRC64());
+                content = new ProgressInputStream(content, LISTENER) {
+                };
+                CheckedInputStream checked = new CheckedInputStream(content, new CRC64());
+                drain(checked);
+                return checked.getChecksum().getValue();
+            }
+        };
+        Body pipelineDownload = new Body() {
+            public long transfer(byte[] data) throws IOException {
+                BodyPipelineInputStream content = BodyPipelineInputStream.pipelineOf(unmarkable(data))
+                        .withResponseProgress(LISTENER).withChecksum().withTransferCompletedEvent(LISTENER);
+                drain(content);
+                return content.getChecksumValue();
+            }
+        };
+
+        // Warm up the JIT before measuring.
+        for (Body body : new Body[] { stackedUpload, pipelineUpload, stackedDownload, pipelineDownload }) {
+            measure(body, data, Math.max(1, iterations / 10));
+        }
+
+        report("upload, stacked streams", measure(stackedUpload, data, iterations), data.length, iterations);
+        report("upload, body pipeline", measure(pipelineUpload, data, iterations), data.length, iterations);
+        report("download, stacked streams", measure(stackedDownload, data, iterations), data.length, iterations);
+        report("download, body pipeline", measure(pipelineDownload, data, iterations), data.length, iterations);
+    }
+
+    private static InputStream unmarkable(byte[] data) {
+        return new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[OSSConstants.DEFAULT_BUFFER_SIZE];
+        while (in.read(buffer) != -1) {
+        }
+    }
+
+    private static long measure(Body body, byte[] data, int iterations) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            checksum ^= body.transfer(data);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, long nanos, int size, int iterations) {
+        double megabytes = (double) size * iterations / (1024 * 1024);
+        System.out.printf("%-28s %10.1f MB/s%n", name, megabytes / (nanos / 1e9));
+    }
+
+}
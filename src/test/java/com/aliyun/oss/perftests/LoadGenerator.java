@@ -0,0 +1,599 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.perftests;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.common.metrics.LatencyHistogram;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.DeleteObjectsRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.ListObjectsRequest;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.UploadPartRequest;
+import com.aliyun.oss.server.LocalOSSServer;
+
+/**
+ * An open-loop load generator for OSS.
+ * 
+ * <p>
+ * Requests are issued at a constant arrival rate, independent of how fast
+ * earlier requests complete, and every latency is measured from the time the
+ * request was scheduled to start rather than from the time a worker picked it
+ * up. A slow response therefore shows up in the latency of every request that
+ * queued behind it, instead of silently lowering the request rate the way a
+ * closed loop that waits for each response does (coordinated omission). The
+ * service time, measured from the actual start, is reported alongside.
+ * </p>
+ * 
+ * <p>
+ * The operations are drawn from a weighted mix of PUT, GET, HEAD, LIST,
+ * DELETE, MULTIPART and COPY, and the object sizes from a weighted size
+ * distribution. A warm-up phase runs the same load before the measured phase
+ * and its results are discarded. The results are printed and written as a JSON
+ * report. When no endpoint is configured the load runs against an embedded
+ * {@link LocalOSSServer}.
+ * </p>
+ * 
+ * <p>
+ * Usage: LoadGenerator [config.properties]
+ * </p>
+ * 
+ * <p>
+ * The properties, each of which can be overridden by a system property of the
+ * same name, are:
+ * <ul>
+ * <li>endpoint, accessKeyId, accessKeySecret, bucket: the target; the default
+ * is an embedded local server.</li>
+ * <li>rate: the requests issued per second, 100 by default.</li>
+ * <li>warmupSeconds, durationSeconds: the phase lengths, 10 and 60 by
+ * default.</li>
+ * <li>threads: the concurrent requests, 64 by default.</li>
+ * <li>mix: the operation weights, "get:60,put:20,head:10,list:4,delete:3,copy:2,multipart:1"
+ * by default.</li>
+ * <li>sizes: the object size weights, "4KB:50,100KB:35,1MB:14,8MB:1" by
+ * default.</li>
+ * <li>keys: the objects written before the load starts and read during it,
+ * 100 by default.</li>
+ * <li>partSize: the multipart part size, 1MB by default.</li>
+ * <li>prefix: the key prefix, "loadgen/" by default.</li>
+ * <li>report: the JSON report file, "loadgen-report.json" by default.</li>
+ * </ul>
+ * </p>
+ */
+public class LoadGenerator {
+
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9, 99.99 };
+
+    private final OSS client;
+    private final String bucket;
+    private final String prefix;
+    private final double rate;
+    private final int threads;
+    private final int keys;
+    private final long partSize;
+    private final WeightedChoice<OperationType> mix;
+    private final WeightedChoice<Long> sizes;
+    private final byte[] payload;
+
+    private final Map<OperationType, OperationStats> stats = new EnumMap<OperationType, OperationStats>(
+            OperationType.class);
+    private final OperationStats total = new OperationStats();
+    private final ConcurrentLinkedQueue<String> scratchKeys = new ConcurrentLinkedQueue<String>();
+    private final AtomicLong scratchSequence = new AtomicLong();
+    private final AtomicLong maxBacklog = new AtomicLong();
+    private final AtomicLong backlog = new AtomicLong();
+    private final Random random = new Random(0);
+
+    public LoadGenerator(OSS client, String bucket, Properties config) {
+        this.client = client;
+        this.bucket = bucket;
+        this.prefix = config.getProperty("prefix", "loadgen/");
+        this.rate = Double.parseDouble(config.getProperty("rate", "100"));
+        this.threads = Integer.parseInt(config.getProperty("threads", "64"));
+        this.keys = Integer.parseInt(config.getProperty("keys", "100"));
+        this.partSize = parseSize(config.getProperty("partSize", "1MB"));
+        this.mix = parseMix(config.getProperty("mix", "get:60,put:20,head:10,list:4,delete:3,copy:2,multipart:1"));
+        this.sizes = parseSizes(config.getProperty("sizes", "4KB:50,100KB:35,1MB:14,8MB:1"));
+        if (rate <= 0 || threads <= 0 || keys <= 0 || partSize <= 0) {
+            throw new IllegalArgumentException("rate, threads, keys and partSize must be positive");
+        }
+
+        long maxSize = 0;
+        for (Long size : sizes.values) {
+            maxSize = Math.max(maxSize, size);
+        }
+        if (maxSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Object sizes must be below 2GB");
+        }
+        this.payload = new byte[(int) maxSize];
+        new Random(1).nextBytes(payload);
+        for (OperationType type : OperationType.values()) {
+            stats.put(type, new OperationStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Properties config = new Properties();
+        if (args.length > 0) {
+            InputStream in = new FileInputStream(args[0]);
+            try {
+                config.load(in);
+            } finally {
+                in.close();
+            }
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (config.containsKey(name) || isKnownProperty(name)) {
+                config.setProperty(name, System.getProperty(name));
+            }
+        }
+
+        LocalOSSServer server = null;
+        String endpoint = config.getProperty("endpoint", "");
+        ClientBuilderConfiguration clientConfig = new ClientBuilderConfiguration();
+        clientConfig.setMaxConnections(Integer.parseInt(config.getProperty("threads", "64")));
+        if (endpoint.length() == 0) {
+            server = new LocalOSSServer().start();
+            endpoint = server.getEndpoint();
+            clientConfig.setSLDEnabled(true);
+        }
+        OSS client = new OSSClientBuilder().build(endpoint, config.getProperty("accessKeyId", "id"),
+                config.getProperty("accessKeySecret", "key"), clientConfig);
+        try {
+            LoadGenerator generator = new LoadGenerator(client, config.getProperty("bucket", "bucket"), config);
+            generator.run(Integer.parseInt(config.getProperty("warmupSeconds", "10")),
+                    Integer.parseInt(config.getProperty("durationSeconds", "60")),
+                    new File(config.getProperty("report", "loadgen-report.json")));
+        } finally {
+            client.shutdown();
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    private static boolean isKnownProperty(String name) {
+        return name.equals("endpoint") || name.equals("accessKeyId") || name.equals("accessKeySecret")
+                || name.equals("bucket") || name.equals("rate") || name.equals("warmupSeconds")
+                || name.equals("durationSeconds") || name.equals("threads") || name.equals("mix")
+                || name.equals("sizes") || name.equals("keys") || name.equals("partSize") || name.equals("prefix")
+                || name.equals("report");
+    }
+
+    /**
+     * Writes the objects the load reads, runs the warm-up and the measured
+     * phase, removes the objects again, and prints and writes the report.
+     */
+    public void run(int warmupSeconds, int durationSeconds, File report) throws Exception {
+        for (int i = 0; i < keys; i++) {
+            put(dataKey(i), sizes.next(random));
+        }
+
+        if (warmupSeconds > 0) {
+            System.out.printf("Warming up for %d seconds at %.0f requests/s%n", warmupSeconds, rate);
+            runPhase(warmupSeconds);
+            reset();
+        }
+
+        System.out.printf("Measuring for %d seconds at %.0f requests/s%n", durationSeconds, rate);
+        long elapsed = runPhase(durationSeconds);
+
+        printReport(elapsed);
+        writeReport(report, warmupSeconds, durationSeconds, elapsed);
+        System.out.println("Report written to " + report.getAbsolutePath());
+        cleanUp();
+    }
+
+    /**
+     * Issues requests at the configured rate for the given duration and waits
+     * for the outstanding ones. The schedule never waits for a response: when
+     * all workers are busy the requests queue up, and the time they spend in
+     * the queue counts towards their latency.
+     * 
+     * @return the elapsed nanoseconds from the first scheduled request to the
+     *         last response.
+     */
+    private long runPhase(int seconds) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        try {
+            for (long i = 0;; i++) {
+                long intendedStart = start + (long) (i * 1e9 / rate);
+                if (intendedStart >= end) {
+                    break;
+                }
+                long delay;
+                while ((delay = intendedStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                long queued = backlog.incrementAndGet();
+                if (queued > maxBacklog.get()) {
+                    maxBacklog.set(queued);
+                }
+                executor.execute(new Operation(mix.next(random), random.nextInt(keys), sizes.next(random),
+                        intendedStart));
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void reset() {
+        for (OperationStats operationStats : stats.values()) {
+            operationStats.reset();
+        }
+        total.reset();
+        maxBacklog.set(0);
+    }
+
+    private class Operation implements Runnable {
+        private final OperationType type;
+        private final int keyIndex;
+        private final long size;
+        private final long intendedStart;
+
+        Operation(OperationType type, int keyIndex, long size, long intendedStart) {
+            this.type = type;
+            this.keyIndex = keyIndex;
+            this.size = size;
+            this.intendedStart = intendedStart;
+        }
+
+        public void run() {
+            backlog.decrementAndGet();
+            long started = System.nanoTime();
+            long bytes = 0;
+            boolean failed = false;
+            try {
+                bytes = execute(type, keyIndex, size);
+            } catch (Exception e) {
+                failed = true;
+            }
+            long completed = System.nanoTime();
+            stats.get(type).record(completed - intendedStart, completed - started, bytes, failed);
+            total.record(completed - intendedStart, completed - started, bytes, failed);
+        }
+    }
+
+    private long execute(OperationType type, int keyIndex, long size) throws IOException {
+        switch (type) {
+        case PUT:
+            return put(dataKey(keyIndex), size);
+        case GET:
+            return get(dataKey(keyIndex));
+        case HEAD:
+            client.getObjectMetadata(bucket, dataKey(keyIndex));
+            return 0;
+        case LIST:
+            client.listObjects(new ListObjectsRequest(bucket).withPrefix(prefix).withMaxKeys(100));
+            return 0;
+        case DELETE:
+            // Deletes objects created by copies and multipart uploads, so the
+            // objects that the reads depend on stay in place.
+            String key = scratchKeys.poll();
+            client.deleteObject(bucket, key != null ? key : scratchKey());
+            return 0;
+        case COPY:
+            String destination = scratchKey();
+            client.copyObject(bucket, dataKey(keyIndex), bucket, destination);
+            scratchKeys.add(destination);
+            return 0;
+        case MULTIPART:
+            return multipartUpload(size);
+        default:
+            throw new IllegalArgumentException("Unsupported operation " + type);
+        }
+    }
+
+    private long put(String key, long size) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(size);
+        client.putObject(bucket, key, new ByteArrayInputStream(payload, 0, (int) size), metadata);
+        return size;
+    }
+
+    private long get(String key) throws IOException {
+        OSSObject object = client.getObject(bucket, key);
+        InputStream content = object.getObjectContent();
+        long bytes = 0;
+        try {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                bytes += read;
+            }
+        } finally {
+            content.close();
+        }
+        return bytes;
+    }
+
+    private long multipartUpload(long size) {
+        String key = scratchKey();
+        String uploadId = client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key))
+                .getUploadId();
+        List<PartETag> partETags = new ArrayList<PartETag>();
+        long offset = 0;
+        int partNumber = 1;
+        do {
+            long length = Math.min(partSize, size - offset);
+            UploadPartRequest request = new UploadPartRequest(bucket, key, uploadId, partNumber,
+                    new ByteArrayInputStream(payload, (int) offset, (int) length), length);
+            partETags.add(client.uploadPart(request).getPartETag());
+            offset += length;
+            partNumber++;
+        } while (offset < size);
+        client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, uploadId, partETags));
+        scratchKeys.add(key);
+        return size;
+    }
+
+    private String dataKey(int index) {
+        return prefix + "data/" + index;
+    }
+
+    private String scratchKey() {
+        return prefix + "scratch/" + scratchSequence.incrementAndGet();
+    }
+
+    private void cleanUp() {
+        List<String> remaining = new ArrayList<String>();
+        for (int i = 0; i < keys; i++) {
+            remaining.add(dataKey(i));
+        }
+        remaining.addAll(scratchKeys);
+        scratchKeys.clear();
+        for (int i = 0; i < remaining.size(); i += 1000) {
+            List<String> batch = remaining.subList(i, Math.min(remaining.size(), i + 1000));
+            client.deleteObjects(new DeleteObjectsRequest(bucket).withKeys(new ArrayList<String>(batch)));
+        }
+    }
+
+    private void printReport(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%-10s %8s %7s %9s %9s %9s %9s %9s %9s%n", "operation", "count", "errors", "ops/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<OperationType, OperationStats> entry : stats.entrySet()) {
+            printRow(entry.getKey().name(), entry.getValue(), seconds);
+        }
+        printRow("TOTAL", total, seconds);
+        System.out.printf("Latency is measured from the scheduled start; the largest backlog was %d requests.%n",
+                maxBacklog.get());
+    }
+
+    private static void printRow(String name, OperationStats operationStats, double seconds) {
+        LatencyHistogram latency = operationStats.latency;
+        if (latency.getCount() == 0) {
+            return;
+        }
+        System.out.printf("%-10s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, latency.getCount(),
+                operationStats.errors.get(), latency.getCount() / seconds,
+                latency.getValueAtPercentile(50) / 1e3, latency.getValueAtPercentile(90) / 1e3,
+                latency.getValueAtPercentile(99) / 1e3, latency.getValueAtPercentile(99.9) / 1e3,
+                latency.getMax() / 1e3);
+    }
+
+    private void writeReport(File file, int warmupSeconds, int durationSeconds, long elapsedNanos)
+            throws IOException {
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"rate\": ").append(format(rate)).append(",\n");
+        json.append("  \"threads\": ").append(threads).append(",\n");
+        json.append("  \"warmupSeconds\": ").append(warmupSeconds).append(",\n");
+        json.append("  \"durationSeconds\": ").append(durationSeconds).append(",\n");
+        json.append("  \"elapsedSeconds\": ").append(format(seconds)).append(",\n");
+        json.append("  \"maxBacklog\": ").append(maxBacklog.get()).append(",\n");
+        json.append("  \"mix\": {");
+        for (int i = 0; i < mix.values.size(); i++) {
+            json.append(i == 0 ? "" : ", ").append('"').append(mix.values.get(i)).append("\": ")
+                    .append(mix.weights[i]);
+        }
+        json.append("},\n");
+        json.append("  \"sizes\": {");
+        for (int i = 0; i < sizes.values.size(); i++) {
+            json.append(i == 0 ? "" : ", ").append('"').append(sizes.values.get(i)).append("\": ")
+                    .append(sizes.weights[i]);
+        }
+        json.append("},\n");
+        json.append("  \"operations\": {\n");
+        for (Map.Entry<OperationType, OperationStats> entry : stats.entrySet()) {
+            appendStats(json, entry.getKey().name(), entry.getValue(), seconds);
+            json.append(",\n");
+        }
+        appendStats(json, "TOTAL", total, seconds);
+        json.append("\n  }\n}\n");
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(json.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void appendStats(StringBuilder json, String name, OperationStats operationStats,
+            double seconds) {
+        long count = operationStats.latency.getCount();
+        json.append("    \"").append(name).append("\": {");
+        json.append("\"count\": ").append(count);
+        json.append(", \"errors\": ").append(operationStats.errors.get());
+        json.append(", \"bytes\": ").append(operationStats.bytes.get());
+        json.append(", \"throughput\": ").append(format(count / seconds));
+        json.append(", \"latencyMs\": ");
+        appendHistogram(json, operationStats.latency);
+        json.append(", \"serviceTimeMs\": ");
+        appendHistogram(json, operationStats.serviceTime);
+        json.append("}");
+    }
+
+    private static void appendHistogram(StringBuilder json, LatencyHistogram histogram) {
+        json.append("{\"mean\": ").append(format(histogram.getMean() / 1e3));
+        for (double percentile : PERCENTILES) {
+            json.append(", \"p").append(format(percentile).replace(".", "_")).append("\": ")
+                    .append(format(histogram.getValueAtPercentile(percentile) / 1e3));
+        }
+        json.append(", \"max\": ").append(format(histogram.getMax() / 1e3)).append("}");
+    }
+
+    private static String format(double value) {
+        String formatted = String.format(Locale.ROOT, "%.3f", value);
+        formatted = formatted.replaceAll("0+$", "");
+        return formatted.endsWith(".") ? formatted.substring(0, formatted.length() - 1) : formatted;
+    }
+
+    static WeightedChoice<OperationType> parseMix(String mix) {
+        WeightedChoice<OperationType> choice = new WeightedChoice<OperationType>();
+        for (String[] entry : parseWeights(mix)) {
+            choice.add(OperationType.valueOf(entry[0].toUpperCase(Locale.ROOT)), Integer.parseInt(entry[1]));
+        }
+        return choice;
+    }
+
+    static WeightedChoice<Long> parseSizes(String sizes) {
+        WeightedChoice<Long> choice = new WeightedChoice<Long>();
+        for (String[] entry : parseWeights(sizes)) {
+            choice.add(parseSize(entry[0]), Integer.parseInt(entry[1]));
+        }
+        return choice;
+    }
+
+    private static List<String[]> parseWeights(String weights) {
+        List<String[]> entries = new ArrayList<String[]>();
+        for (String entry : weights.split(",")) {
+            entry = entry.trim();
+            if (entry.length() == 0) {
+                continue;
+            }
+            int colon = entry.lastIndexOf(':');
+            entries.add(colon < 0 ? new String[] { entry, "1" }
+                    : new String[] { entry.substring(0, colon).trim(), entry.substring(colon + 1).trim() });
+        }
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("No weights in '" + weights + "'");
+        }
+        return entries;
+    }
+
+    static long parseSize(String size) {
+        String value = size.trim().toUpperCase(Locale.ROOT);
+        long unit = 1;
+        if (value.endsWith("KB")) {
+            unit = 1024;
+        } else if (value.endsWith("MB")) {
+            unit = 1024 * 1024;
+        } else if (value.endsWith("GB")) {
+            unit = 1024 * 1024 * 1024;
+        }
+        if (unit > 1) {
+            value = value.substring(0, value.length() - 2);
+        } else if (value.endsWith("B")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return (long) (Double.parseDouble(value.trim()) * unit);
+    }
+
+    /**
+     * Picks values at random in proportion to their weights.
+     */
+    static class WeightedChoice<T> {
+        final List<T> values = new ArrayList<T>();
+        int[] weights = new int[0];
+        private int totalWeight;
+
+        void add(T value, int weight) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + value);
+            }
+            values.add(value);
+            int[] grown = new int[weights.length + 1];
+            System.arraycopy(weights, 0, grown, 0, weights.length);
+            grown[weights.length] = weight;
+            weights = grown;
+            totalWeight += weight;
+        }
+
+        T next(Random random) {
+            if (totalWeight == 0) {
+                throw new IllegalStateException("All weights are zero");
+            }
+            int point = random.nextInt(totalWeight);
+            for (int i = 0; i < weights.length; i++) {
+                point -= weights[i];
+                if (point < 0) {
+                    return values.get(i);
+                }
+            }
+            throw new IllegalStateException();
+        }
+    }
+
+    private static class OperationStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LatencyHistogram serviceTime = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+
+        void record(long latencyNanos, long serviceTimeNanos, long transferred, boolean failed) {
+            latency.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(serviceTimeNanos));
+            bytes.addAndGet(transferred);
+            if (failed) {
+                errors.incrementAndGet();
+            }
+        }
+
+        void reset() {
+            latency.reset();
+            serviceTime.reset();
+            errors.set(0);
+            bytes.set(0);
+        }
+    }
+}
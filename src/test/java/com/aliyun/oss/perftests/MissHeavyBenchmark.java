@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.perftests;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import com.aliyun.oss.ClientConfiguration;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.GenericRequest;
+import com.aliyun.oss.model.HeadObjectRequest;
+
+/**
+ * Compares the throughput of probing missing objects through the exception
+ * path, where the 404 response is turned into an {@link OSSException}, against
+ * {@link OSSClient#doesObjectExist(GenericRequest)} and
+ * {@link OSSClient#headObject(HeadObjectRequest)}, which return the expected
+ * outcome as a value. A local server answers every request with 404 on a
+ * keep-alive connection, so the client side dominates.
+ * 
+ * <p>
+ * Usage: MissHeavyBenchmark [iterations]
+ * </p>
+ */
+public class MissHeavyBenchmark {
+
+    private static final byte[] NO_SUCH_KEY = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error>"
+            + "<Code>NoSuchKey</Code><Message>The specified key does not exist.</Message>"
+            + "<RequestId>request-id</RequestId><HostId>127.0.0.1</HostId></Error>").getBytes();
+
+    private interface Probe {
+        boolean exists(OSSClient client, String key);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+
+        ServerSocket server = startNotFoundServer();
+        OSSClient client = new OSSClient("http://127.0.0.1:" + server.getLocalPort(), "id", "key",
+                new ClientConfiguration());
+
+        Probe headException = new Probe() {
+            public boolean exists(OSSClient client, String key) {
+                try {
+                    client.getObjectMetadata("bucket", key);
+                    return true;
+                } catch (OSSException e) {
+                    return false;
+                }
+            }
+        };
+        Probe objectMetaException = new Probe() {
+            public boolean exists(OSSClient client, String key) {
+                try {
+                    client.getSimplifiedObjectMeta(new GenericRequest("bucket", key));
+                    return true;
+                } catch (OSSException e) {
+                    return false;
+                }
+            }
+        };
+        Probe doesObjectExist = new Probe() {
+            public boolean exists(OSSClient client, String key) {
+                return client.doesObjectExist(new GenericRequest("bucket", key));
+            }
+        };
+        Probe headObject = new Probe() {
+            public boolean exists(OSSClient client, String key) {
+                return client.headObject(new HeadObjectRequest("bucket", key)).isFound();
+            }
+        };
+
+        try {
+            // Warm up the JIT before measuring.
+            for (Probe probe : new Probe[] { headException, objectMetaException, doesObjectExist, headObject }) {
+                measure(client, probe, Math.max(1, iterations / 10));
+            }
+
+            report("HEAD, exception", measure(client, headException, iterations), iterations);
+            report("objectMeta, exception", measure(client, objectMetaException, iterations), iterations);
+            report("doesObjectExist", measure(client, doesObjectExist, iterations), iterations);
+            report("headObject", measure(client, headObject, iterations), iterations);
+        } finally {
+            client.shutdown();
+            server.close();
+        }
+    }
+
+    private static long measure(OSSClient client, Probe probe, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (probe.exists(client, "missing-" + i)) {
+                throw new IllegalStateException("The object should be missing");
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, long nanos, int iterations) {
+        System.out.printf("%-24s %10.0f ops/s %8.1f us/op%n", name, iterations / (nanos / 1e9),
+                nanos / 1e3 / iterations);
+    }
+
+    private static ServerSocket startNotFoundServer() throws IOException {
+        final ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        startDaemon(new Runnable() {
+            public void run() {
+                while (!server.isClosed()) {
+                    try {
+                        final Socket socket = server.accept();
+                        startDaemon(new Runnable() {
+                            public void run() {
+                                serve(socket);
+                            }
+                        });
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            }
+        });
+        return server;
+    }
+
+    private static void serve(Socket socket) {
+        try {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            String requestLine;
+            while ((requestLine = readLine(in)) != null && requestLine.length() > 0) {
+                while (readLine(in).length() > 0) {
+                }
+                // Writes the response at once to avoid waiting for delayed ACKs.
+                boolean head = requestLine.startsWith("HEAD");
+                ByteArrayOutputStream response = new ByteArrayOutputStream();
+                response.write(("HTTP/1.1 404 Not Found\r\nx-oss-request-id: request-id\r\n"
+                        + "Content-Length: " + (head ? 0 : NO_SUCH_KEY.length) + "\r\n\r\n").getBytes("UTF-8"));
+                if (!head) {
+                    response.write(NO_SUCH_KEY);
+                }
+                response.writeTo(out);
+                out.flush();
+            }
+        } catch (IOException e) {
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int c = in.read(); c != '\n'; c = in.read()) {
+            if (c == -1) {
+                return null;
+            } else if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static void startDaemon(Runnable runnable) {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+}
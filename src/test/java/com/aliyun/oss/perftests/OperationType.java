@@ -21,5 +21,10 @@ package com.aliyun.oss.perftests;
 
 public enum OperationType {
     PUT,
-    GET
+    GET,
+    HEAD,
+    LIST,
+    DELETE,
+    MULTIPART,
+    COPY
 }
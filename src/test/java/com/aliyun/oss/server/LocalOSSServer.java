@@ -0,0 +1,1575 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.input.SAXBuilder;
+
+import com.aliyun.oss.common.utils.BinaryUtil;
+import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.common.utils.DateUtil;
+
+/**
+ * An in-process stand-in for OSS, which serves the object operations the SDK
+ * uses over HTTP: put, get with range and constraints, head, object meta,
+ * delete, delete multiple, list objects, copy, append, restore, and the
+ * multipart operations including upload part copy. The responses have the
+ * headers OSS returns, including the ETag and the x-oss-hash-crc64ecma
+ * checksum. Objects put with the Archive storage class can't be read until
+ * they're restored, which takes the restore time.
+ * 
+ * <p>
+ * The objects are kept in memory, or in files under a directory for large
+ * data sets. Latency, a bandwidth limit per request, 5xx errors and stalled
+ * requests (timeouts) can be injected to test the throughput, retries and
+ * multipart behavior of the client end to end without a live bucket.
+ * Signatures aren't verified.
+ * </p>
+ * 
+ * <p>
+ * The clients must send path-style requests (/bucket/key) by enabling
+ * {@link com.aliyun.oss.ClientConfiguration#setSLDEnabled(boolean)}, since the
+ * endpoint is an IP address. Requests to bucket.host are served too.
+ * </p>
+ */
+public class LocalOSSServer {
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+    private static final String USER_METADATA_PREFIX = "x-oss-meta-";
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final ServerSocket server;
+    private final ExecutorService executor;
+    private final File storageDirectory;
+    private final Set<Socket> connections = Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+
+    private final ConcurrentSkipListMap<String, StoredObject> objects = new ConcurrentSkipListMap<String, StoredObject>();
+    private final ConcurrentHashMap<String, MultipartUpload> uploads = new ConcurrentHashMap<String, MultipartUpload>();
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong connectionCount = new AtomicLong();
+    private final AtomicLong requestIds = new AtomicLong();
+    private final AtomicInteger pendingServerErrors = new AtomicInteger();
+    private final AtomicInteger pendingTimeouts = new AtomicInteger();
+    private final Random random = new Random();
+
+    private volatile long latencyMillis;
+    private volatile long bytesPerSecond;
+    private volatile double serverErrorRate;
+    private volatile double timeoutRate;
+    private volatile long stallMillis = 30 * 1000;
+    private volatile long restoreMillis;
+
+    /**
+     * Creates a server keeping the objects in memory.
+     */
+    public LocalOSSServer() throws IOException {
+        this(null);
+    }
+
+    /**
+     * Creates a server keeping the content of the objects in files under the
+     * directory, or in memory if it's null.
+     */
+    public LocalOSSServer(File storageDirectory) throws IOException {
+        if (storageDirectory != null && !storageDirectory.isDirectory() && !storageDirectory.mkdirs()) {
+            throw new IOException("Cannot create the storage directory " + storageDirectory);
+        }
+        this.storageDirectory = storageDirectory;
+        this.server = new ServerSocket(0, 100, InetAddress.getByName("127.0.0.1"));
+        this.executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "local-oss-server-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public LocalOSSServer start() {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                while (!server.isClosed()) {
+                    try {
+                        final Socket socket = server.accept();
+                        connections.add(socket);
+                        connectionCount.incrementAndGet();
+                        executor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                serveConnection(socket);
+                            }
+                        });
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            }
+        });
+        return this;
+    }
+
+    public void stop() {
+        try {
+            server.close();
+        } catch (IOException e) {
+        }
+        for (Socket socket : connections) {
+            closeQuietly(socket);
+        }
+        executor.shutdownNow();
+        for (StoredObject object : objects.values()) {
+            object.content.delete();
+        }
+        for (MultipartUpload upload : uploads.values()) {
+            upload.delete();
+        }
+    }
+
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + server.getLocalPort();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public int getObjectCount() {
+        return objects.size();
+    }
+
+    /**
+     * Delays every response by the latency, like the round trip to a remote
+     * region.
+     */
+    public void setLatency(long latency, TimeUnit unit) {
+        this.latencyMillis = unit.toMillis(latency);
+    }
+
+    /**
+     * Limits the rate at which the body of each request is read and the body
+     * of each response is written, or 0 for no limit.
+     */
+    public void setBandwidth(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Sets the probability for each request to fail with 503 Service
+     * Unavailable.
+     */
+    public void setServerErrorRate(double serverErrorRate) {
+        this.serverErrorRate = serverErrorRate;
+    }
+
+    /**
+     * Sets the probability for each request to stall without response, until
+     * the client times out.
+     */
+    public void setTimeoutRate(double timeoutRate) {
+        this.timeoutRate = timeoutRate;
+    }
+
+    /**
+     * Sets how long the stalled requests are held before their connection is
+     * closed. It should exceed the socket timeout of the clients.
+     */
+    public void setStallTime(long stallTime, TimeUnit unit) {
+        this.stallMillis = unit.toMillis(stallTime);
+    }
+
+    /**
+     * Sets how long the restore of an Archive object takes.
+     */
+    public void setRestoreTime(long restoreTime, TimeUnit unit) {
+        this.restoreMillis = unit.toMillis(restoreTime);
+    }
+
+    /**
+     * Fails the next requests with 503 Service Unavailable.
+     */
+    public void injectServerErrors(int count) {
+        pendingServerErrors.addAndGet(count);
+    }
+
+    /**
+     * Stalls the next requests without response.
+     */
+    public void injectTimeouts(int count) {
+        pendingTimeouts.addAndGet(count);
+    }
+
+    private void serveConnection(Socket socket) {
+        try {
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            Exchange exchange;
+            while ((exchange = Exchange.read(in, out)) != null && serve(exchange)) {
+            }
+        } catch (IOException e) {
+            // The client has closed the connection.
+        } finally {
+            connections.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * Serves the request, and returns whether the connection can be reused.
+     */
+    private boolean serve(Exchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        String requestId = newRequestId();
+        try {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            if (takeFault(pendingTimeouts, timeoutRate)) {
+                Thread.sleep(stallMillis);
+                return false;
+            }
+            if (takeFault(pendingServerErrors, serverErrorRate)) {
+                drain(exchange.getRequestBody());
+                throw new OSSError(503, "ServiceUnavailable", "Please reduce your request rate.");
+            }
+            new Request(exchange, requestId).dispatch();
+        } catch (OSSError e) {
+            sendError(exchange, requestId, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            sendError(exchange, requestId, new OSSError(500, "InternalError", String.valueOf(e)));
+        }
+        return exchange.close();
+    }
+
+    private boolean takeFault(AtomicInteger pending, double rate) {
+        for (int count = pending.get(); count > 0; count = pending.get()) {
+            if (pending.compareAndSet(count, count - 1)) {
+                return true;
+            }
+        }
+        if (rate <= 0) {
+            return false;
+        }
+        synchronized (random) {
+            return random.nextDouble() < rate;
+        }
+    }
+
+    private String newRequestId() {
+        return String.format("%024X", requestIds.incrementAndGet());
+    }
+
+    private void sendError(Exchange exchange, String requestId, OSSError error) {
+        try {
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("x-oss-request-id", requestId);
+            for (Map.Entry<String, String> header : error.headers.entrySet()) {
+                headers.set(header.getKey(), header.getValue());
+            }
+            if (exchange.getRequestMethod().equals("HEAD") || error.statusCode == 304) {
+                exchange.sendResponseHeaders(error.statusCode, -1);
+                return;
+            }
+            byte[] body = (XML_HEADER + "<Error>\n  <Code>" + error.code + "</Code>\n  <Message>"
+                    + escape(error.getMessage()) + "</Message>\n  <RequestId>" + requestId + "</RequestId>\n  <HostId>"
+                    + "127.0.0.1" + "</HostId>\n</Error>\n").getBytes("UTF-8");
+            headers.set("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(error.statusCode, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (IOException e) {
+            // The client has gone.
+        }
+    }
+
+    /**
+     * An error response of OSS.
+     */
+    private static class OSSError extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int statusCode;
+        final String code;
+        final Map<String, String> headers = new HashMap<String, String>();
+
+        OSSError(int statusCode, String code, String message) {
+            super(message);
+            this.statusCode = statusCode;
+            this.code = code;
+        }
+    }
+
+    /**
+     * The content of an object or a part, in memory or in a file.
+     */
+    private class Content {
+        private final byte[] data;
+        private final File file;
+        final long length;
+        final String md5;
+        final long crc;
+
+        Content(byte[] data) throws IOException {
+            if (storageDirectory != null) {
+                this.file = new File(storageDirectory, UUID.randomUUID().toString());
+                FileOutputStream out = new FileOutputStream(file);
+                try {
+                    out.write(data);
+                } finally {
+                    out.close();
+                }
+                this.data = null;
+            } else {
+                this.file = null;
+                this.data = data;
+            }
+            this.length = data.length;
+            this.md5 = BinaryUtil.encodeMD5(data).toUpperCase();
+            CRC64 crc64 = new CRC64();
+            crc64.update(data, 0, data.length);
+            this.crc = crc64.getValue();
+        }
+
+        InputStream open(long offset, long length) throws IOException {
+            if (data != null) {
+                return new ByteArrayInputStream(data, (int) offset, (int) length);
+            }
+            final RandomAccessFile in = new RandomAccessFile(file, "r");
+            in.seek(offset);
+            return new FileInputStream(in.getFD()) {
+                @Override
+                public void close() throws IOException {
+                    in.close();
+                }
+            };
+        }
+
+        byte[] read(long offset, long length) throws IOException {
+            if (data != null && offset == 0 && length == data.length) {
+                return data;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) length);
+            InputStream in = open(offset, length);
+            try {
+                copy(in, out, length);
+            } finally {
+                in.close();
+            }
+            return out.toByteArray();
+        }
+
+        /**
+         * Deletes the file of the content. The content in memory may be shared
+         * by copies of the object.
+         */
+        void delete() {
+            if (file != null) {
+                file.delete();
+            }
+        }
+    }
+
+    private class StoredObject {
+        final Content content;
+        final String eTag;
+        final String type;
+        final Date lastModified = new Date();
+        final Map<String, String> metadata;
+        volatile String storageClass = "Standard";
+        // When the restore of an Archive object completes, or -1 if it isn't requested.
+        volatile long restoredAt = -1;
+
+        StoredObject(Content content, String eTag, String type, Map<String, String> metadata) {
+            this.content = content;
+            this.eTag = eTag;
+            this.type = type;
+            this.metadata = metadata;
+        }
+    }
+
+    private class MultipartUpload {
+        final String bucket;
+        final String key;
+        final String uploadId = UUID.randomUUID().toString().replace("-", "").toUpperCase();
+        final Date initiated = new Date();
+        final Map<String, String> metadata;
+        final ConcurrentSkipListMap<Integer, Content> parts = new ConcurrentSkipListMap<Integer, Content>();
+        final Map<Integer, Date> partModified = new ConcurrentHashMap<Integer, Date>();
+
+        MultipartUpload(String bucket, String key, Map<String, String> metadata) {
+            this.bucket = bucket;
+            this.key = key;
+            this.metadata = metadata;
+        }
+
+        void putPart(int partNumber, Content content) {
+            Content previous = parts.put(partNumber, content);
+            partModified.put(partNumber, new Date());
+            if (previous != null) {
+                previous.delete();
+            }
+        }
+
+        void delete() {
+            for (Content part : parts.values()) {
+                part.delete();
+            }
+        }
+    }
+
+    /**
+     * A request, with its bucket, key and parameters parsed the way OSS does.
+     */
+    private class Request {
+        final Exchange exchange;
+        final String requestId;
+        final String method;
+        final Headers headers;
+        final Map<String, String> params = new LinkedHashMap<String, String>();
+        String bucket;
+        String key;
+
+        Request(Exchange exchange, String requestId) throws IOException {
+            this.exchange = exchange;
+            this.requestId = requestId;
+            this.method = exchange.getRequestMethod();
+            this.headers = exchange.getRequestHeaders();
+
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            if (rawQuery != null) {
+                for (String param : rawQuery.split("&")) {
+                    int equals = param.indexOf('=');
+                    if (equals < 0) {
+                        params.put(decode(param), null);
+                    } else {
+                        params.put(decode(param.substring(0, equals)), decode(param.substring(equals + 1)));
+                    }
+                }
+            }
+
+            String path = decode(exchange.getRequestURI().getRawPath());
+            String host = headers.getFirst("Host");
+            String serverHost = server.getInetAddress().getHostAddress();
+            if (host != null && host.indexOf(':') >= 0) {
+                host = host.substring(0, host.indexOf(':'));
+            }
+            if (host != null && host.endsWith("." + serverHost)) {
+                bucket = host.substring(0, host.length() - serverHost.length() - 1);
+                key = path.length() > 1 ? path.substring(1) : null;
+            } else if (path.length() > 1) {
+                int slash = path.indexOf('/', 1);
+                bucket = slash < 0 ? path.substring(1) : path.substring(1, slash);
+                key = slash < 0 || slash == path.length() - 1 ? null : path.substring(slash + 1);
+            }
+        }
+
+        void dispatch() throws Exception {
+            if (bucket == null) {
+                throw new OSSError(400, "InvalidBucketName", "The bucket name is missing.");
+            }
+            if (key == null) {
+                if (method.equals("GET") && params.containsKey("uploads")) {
+                    listMultipartUploads();
+                } else if (method.equals("POST") && params.containsKey("delete")) {
+                    deleteObjects();
+                } else if (method.equals("GET")) {
+                    listObjects();
+                } else {
+                    drain(exchange.getRequestBody());
+                    send(method.equals("DELETE") ? 204 : 200, null);
+                }
+            } else if (params.containsKey("uploads") && method.equals("POST")) {
+                initiateMultipartUpload();
+            } else if (params.containsKey("uploadId")) {
+                if (method.equals("PUT")) {
+                    uploadPart();
+                } else if (method.equals("POST")) {
+                    completeMultipartUpload();
+                } else if (method.equals("DELETE")) {
+                    abortMultipartUpload();
+                } else {
+                    listParts();
+                }
+            } else if (method.equals("POST") && params.containsKey("append")) {
+                appendObject();
+            } else if (method.equals("POST") && params.containsKey("restore")) {
+                restoreObject();
+            } else if (method.equals("PUT") && headers.containsKey("x-oss-copy-source")) {
+                copyObject();
+            } else if (method.equals("PUT")) {
+                putObject();
+            } else if (method.equals("GET") || method.equals("HEAD")) {
+                getObject();
+            } else if (method.equals("DELETE")) {
+                deleteObject(bucket, key);
+                send(204, null);
+            } else {
+                throw new OSSError(405, "MethodNotAllowed", "The specified method is not allowed.");
+            }
+        }
+
+        private void putObject() throws Exception {
+            Content content = new Content(readBody());
+            StoredObject object = new StoredObject(content, content.md5, "Normal", userMetadata(headers));
+            if (headers.containsKey("x-oss-storage-class")) {
+                object.storageClass = headers.getFirst("x-oss-storage-class");
+            }
+            putStoredObject(bucket, key, object);
+            setObjectHeaders(object, false);
+            send(200, null);
+        }
+
+        private void appendObject() throws Exception {
+            long position = Long.parseLong(params.get("position"));
+            byte[] data = readBody();
+            synchronized (objects) {
+                StoredObject existing = objects.get(objectKey(bucket, key));
+                long length = existing != null ? existing.content.length : 0;
+                if (existing != null && !existing.type.equals("Appendable")) {
+                    throw new OSSError(409, "ObjectNotAppendable", "The object is not appendable.");
+                }
+                if (position != length) {
+                    OSSError error = new OSSError(409, "PositionNotEqualToLength",
+                            "Position is not equal to file length.");
+                    error.headers.put("x-oss-next-append-position", String.valueOf(length));
+                    throw error;
+                }
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                if (existing != null) {
+                    content.write(existing.content.read(0, existing.content.length));
+                }
+                content.write(data);
+                Content appended = new Content(content.toByteArray());
+                putStoredObject(bucket, key, new StoredObject(appended, appended.md5, "Appendable",
+                        existing != null ? existing.metadata : userMetadata(headers)));
+                exchange.getResponseHeaders().set("x-oss-next-append-position", String.valueOf(appended.length));
+                exchange.getResponseHeaders().set("x-oss-hash-crc64ecma", unsigned(appended.crc));
+                exchange.getResponseHeaders().set("ETag", quote(appended.md5));
+            }
+            send(200, null);
+        }
+
+        private void restoreObject() throws Exception {
+            drain(exchange.getRequestBody());
+            StoredObject object = objects.get(objectKey(bucket, key));
+            if (object == null) {
+                throw new OSSError(404, "NoSuchKey", "The specified key does not exist.");
+            }
+            if (!object.storageClass.equals("Archive")) {
+                throw new OSSError(400, "OperationNotSupported", "The operation is not supported for this resource.");
+            }
+            boolean started = false;
+            synchronized (object) {
+                if (object.restoredAt < 0) {
+                    object.restoredAt = System.currentTimeMillis() + restoreMillis;
+                    started = true;
+                }
+            }
+            if (!started && System.currentTimeMillis() < object.restoredAt) {
+                throw new OSSError(409, "RestoreAlreadyInProgress", "The restore operation is in progress.");
+            }
+            send(started ? 202 : 200, null);
+        }
+
+        private void copyObject() throws Exception {
+            drain(exchange.getRequestBody());
+            StoredObject source = getCopySource();
+            Map<String, String> metadata = "REPLACE".equals(headers.getFirst("x-oss-metadata-directive"))
+                    ? userMetadata(headers) : source.metadata;
+            Content content = storageDirectory != null
+                    ? new Content(source.content.read(0, source.content.length)) : source.content;
+            StoredObject copy = new StoredObject(content, source.eTag, source.type, metadata);
+            putStoredObject(bucket, key, copy);
+            sendXml(200, "<CopyObjectResult>\n  <ETag>" + quote(copy.eTag) + "</ETag>\n  <LastModified>"
+                    + DateUtil.formatIso8601Date(copy.lastModified) + "</LastModified>\n</CopyObjectResult>\n");
+        }
+
+        private StoredObject getCopySource() throws Exception {
+            String source = decode(headers.getFirst("x-oss-copy-source"));
+            if (source.startsWith("/")) {
+                source = source.substring(1);
+            }
+            int slash = source.indexOf('/');
+            StoredObject object = slash > 0 ? objects.get(objectKey(source.substring(0, slash),
+                    source.substring(slash + 1))) : null;
+            if (object == null) {
+                throw new OSSError(404, "NoSuchKey", "The specified key does not exist.");
+            }
+            String ifMatch = headers.getFirst("x-oss-copy-source-if-match");
+            if (ifMatch != null && !unquote(ifMatch).equals(object.eTag)) {
+                throw new OSSError(412, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold.");
+            }
+            return object;
+        }
+
+        private void getObject() throws Exception {
+            StoredObject object = objects.get(objectKey(bucket, key));
+            if (object == null) {
+                throw new OSSError(404, "NoSuchKey", "The specified key does not exist.");
+            }
+            checkConstraints(object);
+
+            if (params.containsKey("objectMeta")) {
+                exchange.getResponseHeaders().set("ETag", quote(object.eTag));
+                exchange.getResponseHeaders().set("Last-Modified", DateUtil.formatRfc822Date(object.lastModified));
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.content.length));
+                exchange.getResponseHeaders().set("x-oss-request-id", requestId);
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            boolean head = method.equals("HEAD");
+            if (!head && isArchived(object)) {
+                throw new OSSError(403, "InvalidObjectState", "The operation is not valid for the object's state");
+            }
+            setObjectHeaders(object, true);
+            long total = object.content.length;
+            long[] range = head ? null : parseRange(headers.getFirst("Range"), total);
+            if (head) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(total));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            long offset = range != null ? range[0] : 0;
+            long length = range != null ? range[1] - range[0] + 1 : total;
+            if (range != null) {
+                exchange.getResponseHeaders().set("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + total);
+            }
+            exchange.sendResponseHeaders(range != null ? 206 : 200, length > 0 ? length : -1);
+            if (length > 0) {
+                InputStream in = object.content.open(offset, length);
+                try {
+                    copy(in, throttle(exchange.getResponseBody()), length);
+                } finally {
+                    in.close();
+                }
+            }
+        }
+
+        private boolean isArchived(StoredObject object) {
+            return object.storageClass.equals("Archive")
+                    && (object.restoredAt < 0 || System.currentTimeMillis() < object.restoredAt);
+        }
+
+        private void checkConstraints(StoredObject object) throws Exception {
+            String ifMatch = headers.getFirst("If-Match");
+            if (ifMatch != null && !eTagMatches(ifMatch, object.eTag)) {
+                throw new OSSError(412, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold.");
+            }
+            String ifUnmodifiedSince = headers.getFirst("If-Unmodified-Since");
+            if (ifUnmodifiedSince != null
+                    && object.lastModified.getTime() / 1000 > DateUtil.parseRfc822Date(ifUnmodifiedSince).getTime() / 1000) {
+                throw new OSSError(412, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold.");
+            }
+            String ifNoneMatch = headers.getFirst("If-None-Match");
+            String ifModifiedSince = headers.getFirst("If-Modified-Since");
+            if ((ifNoneMatch != null && eTagMatches(ifNoneMatch, object.eTag)) || (ifModifiedSince != null
+                    && object.lastModified.getTime() / 1000 <= DateUtil.parseRfc822Date(ifModifiedSince).getTime() / 1000)) {
+                OSSError error = new OSSError(304, "NotModified", "Not Modified");
+                error.headers.put("ETag", quote(object.eTag));
+                throw error;
+            }
+        }
+
+        private void setObjectHeaders(StoredObject object, boolean full) {
+            Headers responseHeaders = exchange.getResponseHeaders();
+            responseHeaders.set("x-oss-request-id", requestId);
+            responseHeaders.set("ETag", quote(object.eTag));
+            responseHeaders.set("x-oss-hash-crc64ecma", unsigned(object.content.crc));
+            if (!full) {
+                return;
+            }
+            responseHeaders.set("Last-Modified", DateUtil.formatRfc822Date(object.lastModified));
+            responseHeaders.set("Accept-Ranges", "bytes");
+            responseHeaders.set("x-oss-object-type", object.type);
+            responseHeaders.set("x-oss-storage-class", object.storageClass);
+            if (object.restoredAt >= 0) {
+                responseHeaders.set("x-oss-restore", isArchived(object) ? "ongoing-request=\"true\""
+                        : "ongoing-request=\"false\", expiry-date=\""
+                                + DateUtil.formatRfc822Date(new Date(object.restoredAt + 24 * 60 * 60 * 1000L)) + "\"");
+            }
+            for (Map.Entry<String, String> entry : object.metadata.entrySet()) {
+                responseHeaders.set(entry.getKey(), entry.getValue());
+            }
+            if (!object.metadata.containsKey("Content-Type")) {
+                responseHeaders.set("Content-Type", "application/octet-stream");
+            }
+            if (object.type.equals("Appendable")) {
+                responseHeaders.set("x-oss-next-append-position", String.valueOf(object.content.length));
+            }
+        }
+
+        private void deleteObjects() throws Exception {
+            Element root = parseXml(readBody());
+            boolean quiet = Boolean.parseBoolean(root.getChildText("Quiet"));
+            StringBuilder xml = new StringBuilder("<DeleteResult>\n");
+            for (Object element : root.getChildren("Object")) {
+                String deleted = ((Element) element).getChildText("Key");
+                deleteObject(bucket, deleted);
+                if (!quiet) {
+                    xml.append("  <Deleted>\n    <Key>").append(escape(deleted)).append("</Key>\n  </Deleted>\n");
+                }
+            }
+            sendXml(200, xml.append("</DeleteResult>\n").toString());
+        }
+
+        private void listObjects() throws Exception {
+            String prefix = param("prefix", "");
+            String marker = param("marker", "");
+            String delimiter = param("delimiter", "");
+            int maxKeys = Integer.parseInt(param("max-keys", "100"));
+            boolean urlEncoded = "url".equals(params.get("encoding-type"));
+
+            StringBuilder contents = new StringBuilder();
+            TreeSet<String> commonPrefixes = new TreeSet<String>();
+            String bucketPrefix = objectKey(bucket, "");
+            String lastKey = null;
+            int count = 0;
+            boolean truncated = false;
+            for (Map.Entry<String, StoredObject> entry : objects.tailMap(bucketPrefix + marker, false).entrySet()) {
+                if (!entry.getKey().startsWith(bucketPrefix + prefix)) {
+                    if (entry.getKey().compareTo(bucketPrefix + prefix) > 0) {
+                        break;
+                    }
+                    continue;
+                }
+                String objectKey = entry.getKey().substring(bucketPrefix.length());
+                String commonPrefix = null;
+                if (delimiter.length() > 0) {
+                    int index = objectKey.indexOf(delimiter, prefix.length());
+                    if (index >= 0) {
+                        commonPrefix = objectKey.substring(0, index + delimiter.length());
+                    }
+                }
+                if (commonPrefix != null && commonPrefixes.contains(commonPrefix)) {
+                    lastKey = objectKey;
+                    continue;
+                }
+                if (count == maxKeys) {
+                    truncated = true;
+                    break;
+                }
+                count++;
+                lastKey = objectKey;
+                if (commonPrefix != null) {
+                    commonPrefixes.add(commonPrefix);
+                    continue;
+                }
+                StoredObject object = entry.getValue();
+                contents.append("  <Contents>\n    <Key>").append(encode(objectKey, urlEncoded))
+                        .append("</Key>\n    <LastModified>").append(DateUtil.formatIso8601Date(object.lastModified))
+                        .append("</LastModified>\n    <ETag>").append(quote(object.eTag))
+                        .append("</ETag>\n    <Type>").append(object.type).append("</Type>\n    <Size>")
+                        .append(object.content.length).append("</Size>\n    <StorageClass>Standard</StorageClass>\n")
+                        .append("    <Owner>\n      <ID>local</ID>\n      <DisplayName>local</DisplayName>\n")
+                        .append("    </Owner>\n  </Contents>\n");
+            }
+
+            StringBuilder xml = new StringBuilder("<ListBucketResult>\n  <Name>").append(bucket)
+                    .append("</Name>\n  <Prefix>").append(encode(prefix, urlEncoded)).append("</Prefix>\n  <Marker>")
+                    .append(encode(marker, urlEncoded)).append("</Marker>\n  <MaxKeys>").append(maxKeys)
+                    .append("</MaxKeys>\n  <Delimiter>").append(encode(delimiter, urlEncoded))
+                    .append("</Delimiter>\n  <IsTruncated>").append(truncated).append("</IsTruncated>\n");
+            if (truncated) {
+                xml.append("  <NextMarker>").append(encode(lastKey, urlEncoded)).append("</NextMarker>\n");
+            }
+            if (urlEncoded) {
+                xml.append("  <EncodingType>url</EncodingType>\n");
+            }
+            xml.append(contents);
+            for (String commonPrefix : commonPrefixes) {
+                xml.append("  <CommonPrefixes>\n    <Prefix>").append(encode(commonPrefix, urlEncoded))
+                        .append("</Prefix>\n  </CommonPrefixes>\n");
+            }
+            sendXml(200, xml.append("</ListBucketResult>\n").toString());
+        }
+
+        private void initiateMultipartUpload() throws Exception {
+            drain(exchange.getRequestBody());
+            MultipartUpload upload = new MultipartUpload(bucket, key, userMetadata(headers));
+            uploads.put(upload.uploadId, upload);
+            sendXml(200, "<InitiateMultipartUploadResult>\n  <Bucket>" + bucket + "</Bucket>\n  <Key>" + escape(key)
+                    + "</Key>\n  <UploadId>" + upload.uploadId + "</UploadId>\n</InitiateMultipartUploadResult>\n");
+        }
+
+        private void uploadPart() throws Exception {
+            MultipartUpload upload = getUpload();
+            int partNumber = Integer.parseInt(params.get("partNumber"));
+            if (partNumber < 1 || partNumber > 10000) {
+                throw new OSSError(400, "InvalidArgument", "Part number must be an integer between 1 and 10000.");
+            }
+
+            if (headers.containsKey("x-oss-copy-source")) {
+                drain(exchange.getRequestBody());
+                StoredObject source = getCopySource();
+                long[] range = parseRange(headers.getFirst("x-oss-copy-source-range"), source.content.length);
+                long offset = range != null ? range[0] : 0;
+                long length = range != null ? range[1] - range[0] + 1 : source.content.length;
+                Content part = new Content(source.content.read(offset, length));
+                upload.putPart(partNumber, part);
+                sendXml(200, "<CopyPartResult>\n  <LastModified>" + DateUtil.formatIso8601Date(new Date())
+                        + "</LastModified>\n  <ETag>" + quote(part.md5) + "</ETag>\n</CopyPartResult>\n");
+                return;
+            }
+
+            Content part = new Content(readBody());
+            upload.putPart(partNumber, part);
+            exchange.getResponseHeaders().set("ETag", quote(part.md5));
+            exchange.getResponseHeaders().set("x-oss-hash-crc64ecma", unsigned(part.crc));
+            send(200, null);
+        }
+
+        private void completeMultipartUpload() throws Exception {
+            MultipartUpload upload = getUpload();
+            Element root = parseXml(readBody());
+
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            ByteArrayOutputStream md5s = new ByteArrayOutputStream();
+            int previous = 0;
+            List<?> partElements = root.getChildren("Part");
+            for (Object element : partElements) {
+                int partNumber = Integer.parseInt(((Element) element).getChildText("PartNumber"));
+                String eTag = unquote(((Element) element).getChildText("ETag"));
+                Content part = upload.parts.get(partNumber);
+                if (partNumber <= previous) {
+                    throw new OSSError(400, "InvalidPartOrder", "The list of parts was not in ascending order.");
+                }
+                if (part == null || !part.md5.equalsIgnoreCase(eTag)) {
+                    throw new OSSError(400, "InvalidPart", "One or more of the specified parts could not be found.");
+                }
+                previous = partNumber;
+                content.write(part.read(0, part.length));
+                md5s.write(hexToBytes(part.md5));
+            }
+
+            uploads.remove(upload.uploadId);
+            Content object = new Content(content.toByteArray());
+            String eTag = BinaryUtil.encodeMD5(md5s.toByteArray()).toUpperCase() + "-" + partElements.size();
+            putStoredObject(bucket, key, new StoredObject(object, eTag, "Multipart", upload.metadata));
+            upload.delete();
+
+            exchange.getResponseHeaders().set("x-oss-hash-crc64ecma", unsigned(object.crc));
+            sendXml(200, "<CompleteMultipartUploadResult>\n  <Location>" + getEndpoint() + "/" + bucket + "/"
+                    + escape(key) + "</Location>\n  <Bucket>" + bucket + "</Bucket>\n  <Key>" + escape(key)
+                    + "</Key>\n  <ETag>" + quote(eTag) + "</ETag>\n</CompleteMultipartUploadResult>\n");
+        }
+
+        private void abortMultipartUpload() throws Exception {
+            MultipartUpload upload = getUpload();
+            uploads.remove(upload.uploadId);
+            upload.delete();
+            send(204, null);
+        }
+
+        private void listParts() throws Exception {
+            MultipartUpload upload = getUpload();
+            int marker = Integer.parseInt(param("part-number-marker", "0"));
+            int maxParts = Integer.parseInt(param("max-parts", "1000"));
+
+            StringBuilder parts = new StringBuilder();
+            int count = 0;
+            int last = 0;
+            boolean truncated = false;
+            for (Map.Entry<Integer, Content> entry : upload.parts.tailMap(marker, false).entrySet()) {
+                if (count == maxParts) {
+                    truncated = true;
+                    break;
+                }
+                count++;
+                last = entry.getKey();
+                Date modified = upload.partModified.get(entry.getKey());
+                parts.append("  <Part>\n    <PartNumber>").append(entry.getKey())
+                        .append("</PartNumber>\n    <LastModified>")
+                        .append(DateUtil.formatIso8601Date(modified != null ? modified : upload.initiated))
+                        .append("</LastModified>\n    <ETag>").append(quote(entry.getValue().md5))
+                        .append("</ETag>\n    <Size>").append(entry.getValue().length).append("</Size>\n  </Part>\n");
+            }
+            sendXml(200, "<ListPartsResult>\n  <Bucket>" + bucket + "</Bucket>\n  <Key>" + escape(key) + "</Key>\n"
+                    + "  <UploadId>" + upload.uploadId + "</UploadId>\n  <StorageClass>Standard</StorageClass>\n"
+                    + "  <PartNumberMarker>" + marker + "</PartNumberMarker>\n  <NextPartNumberMarker>" + last
+                    + "</NextPartNumberMarker>\n  <MaxParts>" + maxParts + "</MaxParts>\n  <IsTruncated>" + truncated
+                    + "</IsTruncated>\n" + parts + "</ListPartsResult>\n");
+        }
+
+        private void listMultipartUploads() throws Exception {
+            String prefix = param("prefix", "");
+            String keyMarker = param("key-marker", "");
+            String uploadIdMarker = param("upload-id-marker", "");
+            int maxUploads = Integer.parseInt(param("max-uploads", "1000"));
+
+            SortedMap<String, MultipartUpload> sorted = new TreeMap<String, MultipartUpload>();
+            for (MultipartUpload upload : uploads.values()) {
+                String sortKey = upload.key + "\n" + upload.uploadId;
+                if (upload.bucket.equals(bucket) && upload.key.startsWith(prefix)
+                        && sortKey.compareTo(keyMarker + "\n" + uploadIdMarker) > 0) {
+                    sorted.put(sortKey, upload);
+                }
+            }
+
+            StringBuilder entries = new StringBuilder();
+            int count = 0;
+            MultipartUpload last = null;
+            boolean truncated = false;
+            for (MultipartUpload upload : sorted.values()) {
+                if (count == maxUploads) {
+                    truncated = true;
+                    break;
+                }
+                count++;
+                last = upload;
+                entries.append("  <Upload>\n    <Key>").append(escape(upload.key)).append("</Key>\n    <UploadId>")
+                        .append(upload.uploadId).append("</UploadId>\n    <StorageClass>Standard</StorageClass>\n")
+                        .append("    <Initiated>").append(DateUtil.formatIso8601Date(upload.initiated))
+                        .append("</Initiated>\n  </Upload>\n");
+            }
+            sendXml(200, "<ListMultipartUploadsResult>\n  <Bucket>" + bucket + "</Bucket>\n  <KeyMarker>"
+                    + escape(keyMarker) + "</KeyMarker>\n  <UploadIdMarker>" + uploadIdMarker
+                    + "</UploadIdMarker>\n  <NextKeyMarker>" + (last != null ? escape(last.key) : "")
+                    + "</NextKeyMarker>\n  <NextUploadIdMarker>" + (last != null ? last.uploadId : "")
+                    + "</NextUploadIdMarker>\n  <Delimiter></Delimiter>\n  <Prefix>" + escape(prefix)
+                    + "</Prefix>\n  <MaxUploads>" + maxUploads + "</MaxUploads>\n  <IsTruncated>" + truncated
+                    + "</IsTruncated>\n" + entries + "</ListMultipartUploadsResult>\n");
+        }
+
+        private MultipartUpload getUpload() throws Exception {
+            MultipartUpload upload = uploads.get(params.get("uploadId"));
+            if (upload == null || !upload.bucket.equals(bucket) || !upload.key.equals(key)) {
+                drain(exchange.getRequestBody());
+                throw new OSSError(404, "NoSuchUpload", "The specified upload does not exist.");
+            }
+            return upload;
+        }
+
+        private String param(String name, String defaultValue) {
+            String value = params.get(name);
+            return value != null ? value : defaultValue;
+        }
+
+        private byte[] readBody() throws Exception {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            InputStream in = throttle(exchange.getRequestBody());
+            copy(in, body, Long.MAX_VALUE);
+            byte[] data = body.toByteArray();
+
+            String contentMd5 = headers.getFirst("Content-MD5");
+            if (contentMd5 != null && !contentMd5.equals(BinaryUtil.toBase64String(BinaryUtil.calculateMd5(data)))) {
+                throw new OSSError(400, "InvalidDigest", "The Content-MD5 you specified was invalid.");
+            }
+            return data;
+        }
+
+        private void sendXml(int statusCode, String xml) throws IOException {
+            exchange.getResponseHeaders().set("Content-Type", "application/xml");
+            send(statusCode, (XML_HEADER + xml).getBytes("UTF-8"));
+        }
+
+        private void send(int statusCode, byte[] body) throws IOException {
+            exchange.getResponseHeaders().set("x-oss-request-id", requestId);
+            exchange.sendResponseHeaders(statusCode, body != null && body.length > 0 ? body.length : -1);
+            if (body != null && body.length > 0) {
+                OutputStream out = throttle(exchange.getResponseBody());
+                out.write(body);
+                out.flush();
+            }
+        }
+    }
+
+    private void putStoredObject(String bucket, String key, StoredObject object) {
+        StoredObject previous = objects.put(objectKey(bucket, key), object);
+        if (previous != null && previous.content != object.content) {
+            previous.content.delete();
+        }
+    }
+
+    private void deleteObject(String bucket, String key) {
+        StoredObject previous = objects.remove(objectKey(bucket, key));
+        if (previous != null) {
+            previous.content.delete();
+        }
+    }
+
+    private static String objectKey(String bucket, String key) {
+        return bucket + "/" + key;
+    }
+
+    private static Map<String, String> userMetadata(Headers headers) {
+        Map<String, String> metadata = new TreeMap<String, String>();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            String name = header.getKey().toLowerCase();
+            if (name.startsWith(USER_METADATA_PREFIX)) {
+                metadata.put(name, header.getValue());
+            }
+        }
+        for (String name : new String[] { "Content-Type", "Content-Disposition", "Content-Encoding",
+                "Cache-Control", "Expires" }) {
+            if (headers.containsKey(name)) {
+                metadata.put(name, headers.getFirst(name));
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Parses a single byte range the way OSS does: a range which can't be
+     * satisfied is ignored and the whole object is returned.
+     */
+    private static long[] parseRange(String range, long total) {
+        if (range == null || !range.startsWith("bytes=") || range.indexOf(',') >= 0 || total == 0) {
+            return null;
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.length() == 0) {
+                long suffix = Long.parseLong(last);
+                start = Math.max(0, total - suffix);
+                end = total - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.length() == 0 ? total - 1 : Math.min(Long.parseLong(last), total - 1);
+            }
+            return start <= end && start < total ? new long[] { start, end } : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Element parseXml(byte[] xml) throws Exception {
+        Document document = new SAXBuilder().build(new ByteArrayInputStream(xml));
+        return document.getRootElement();
+    }
+
+    private static boolean eTagMatches(String constraint, String eTag) {
+        for (String candidate : constraint.split(",")) {
+            String value = unquote(candidate.trim());
+            if (value.equals("*") || value.equalsIgnoreCase(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String quote(String eTag) {
+        return "\"" + eTag + "\"";
+    }
+
+    private static String unquote(String eTag) {
+        return eTag != null ? eTag.replace("\"", "").trim() : "";
+    }
+
+    private static String unsigned(long value) {
+        return new BigInteger(Long.toHexString(value), 16).toString();
+    }
+
+    private static byte[] hexToBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    private static String decode(String value) throws UnsupportedEncodingException {
+        return value != null ? URLDecoder.decode(value.replace("+", "%2B"), "UTF-8") : null;
+    }
+
+    private static String encode(String value, boolean urlEncoded) throws UnsupportedEncodingException {
+        if (value == null) {
+            return "";
+        }
+        return urlEncoded ? URLEncoder.encode(value, "UTF-8").replace("+", "%20") : escape(value);
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;")
+                .replace("'", "&apos;");
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (in.read(buffer) != -1) {
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = length;
+        int read;
+        while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+        out.flush();
+    }
+
+    private InputStream throttle(InputStream in) {
+        final long rate = bytesPerSecond;
+        if (rate <= 0) {
+            return in;
+        }
+        final Throttle throttle = new Throttle(rate);
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                throttle.acquire(1);
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, Math.min(len, throttle.chunkSize()));
+                if (read > 0) {
+                    throttle.acquire(read);
+                }
+                return read;
+            }
+        };
+    }
+
+    private OutputStream throttle(OutputStream out) {
+        final long rate = bytesPerSecond;
+        if (rate <= 0) {
+            return out;
+        }
+        final Throttle throttle = new Throttle(rate);
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                throttle.acquire(1);
+                out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                while (len > 0) {
+                    int chunk = Math.min(len, throttle.chunkSize());
+                    throttle.acquire(chunk);
+                    out.write(b, off, chunk);
+                    off += chunk;
+                    len -= chunk;
+                }
+            }
+        };
+    }
+
+    /**
+     * Paces the bytes of one request or response to the bandwidth limit.
+     */
+    private static class Throttle {
+        private final long bytesPerSecond;
+        private final long start = System.nanoTime();
+        private long bytes;
+
+        Throttle(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        int chunkSize() {
+            return (int) Math.max(1, Math.min(BUFFER_SIZE, bytesPerSecond / 10));
+        }
+
+        void acquire(int count) throws IOException {
+            bytes += count;
+            long due = start + bytes * 1000000000L / bytesPerSecond;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while throttling");
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+        }
+    }
+
+    /**
+     * HTTP headers looked up regardless of case, which keep the case of their
+     * names like OSS does.
+     */
+    private static class Headers extends TreeMap<String, String> {
+        private static final long serialVersionUID = 1L;
+
+        Headers() {
+            super(String.CASE_INSENSITIVE_ORDER);
+        }
+
+        String getFirst(String name) {
+            return get(name);
+        }
+
+        void set(String name, String value) {
+            remove(name);
+            put(name, value);
+        }
+    }
+
+    /**
+     * An HTTP/1.1 request and its response on a keep-alive connection.
+     */
+    private static class Exchange {
+        private static final Map<Integer, String> REASONS = new HashMap<Integer, String>();
+
+        static {
+            REASONS.put(200, "OK");
+            REASONS.put(204, "No Content");
+            REASONS.put(206, "Partial Content");
+            REASONS.put(304, "Not Modified");
+            REASONS.put(400, "Bad Request");
+            REASONS.put(404, "Not Found");
+            REASONS.put(405, "Method Not Allowed");
+            REASONS.put(409, "Conflict");
+            REASONS.put(412, "Precondition Failed");
+            REASONS.put(500, "Internal Server Error");
+            REASONS.put(503, "Service Unavailable");
+        }
+
+        private final String method;
+        private final URI uri;
+        private final Headers requestHeaders;
+        private final InputStream requestBody;
+        private final Headers responseHeaders = new Headers();
+        private final OutputStream out;
+        private OutputStream responseBody;
+        private boolean sent;
+
+        private Exchange(String method, URI uri, Headers requestHeaders, InputStream requestBody, OutputStream out) {
+            this.method = method;
+            this.uri = uri;
+            this.requestHeaders = requestHeaders;
+            this.requestBody = requestBody;
+            this.out = out;
+        }
+
+        /**
+         * Reads the next request of the connection, or returns null when the
+         * client has closed it.
+         */
+        static Exchange read(InputStream in, OutputStream out) throws IOException {
+            String requestLine = readLine(in);
+            if (requestLine == null || requestLine.length() == 0) {
+                return null;
+            }
+            String[] parts = requestLine.split(" ");
+            Headers headers = new Headers();
+            for (String line = readLine(in); line != null && line.length() > 0; line = readLine(in)) {
+                int colon = line.indexOf(':');
+                headers.put(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+            }
+
+            InputStream body;
+            if ("chunked".equalsIgnoreCase(headers.getFirst("Transfer-Encoding"))) {
+                body = new ChunkedInputStream(in);
+            } else if (headers.containsKey("Content-Length")) {
+                body = new LengthInputStream(in, Long.parseLong(headers.getFirst("Content-Length")));
+            } else {
+                body = new LengthInputStream(in, 0);
+            }
+            if ("100-continue".equalsIgnoreCase(headers.getFirst("Expect"))) {
+                out.write("HTTP/1.1 100 Continue\r\n\r\n".getBytes("UTF-8"));
+                out.flush();
+            }
+            return new Exchange(parts[0], URI.create(parts[1]), headers, body, out);
+        }
+
+        String getRequestMethod() {
+            return method;
+        }
+
+        URI getRequestURI() {
+            return uri;
+        }
+
+        Headers getRequestHeaders() {
+            return requestHeaders;
+        }
+
+        InputStream getRequestBody() {
+            return requestBody;
+        }
+
+        Headers getResponseHeaders() {
+            return responseHeaders;
+        }
+
+        /**
+         * Sends the status line and headers, with the length of the body, or -1
+         * if there's none.
+         */
+        void sendResponseHeaders(int statusCode, long length) throws IOException {
+            StringBuilder head = new StringBuilder("HTTP/1.1 ").append(statusCode).append(' ')
+                    .append(REASONS.containsKey(statusCode) ? REASONS.get(statusCode) : "Unknown").append("\r\n");
+            head.append("Server: AliyunOSS\r\n");
+            head.append("Date: ").append(DateUtil.formatRfc822Date(new Date())).append("\r\n");
+            head.append("Connection: keep-alive\r\n");
+            // A Content-Length set by the handler is sent as is, like the object
+            // size of HEAD and GetObjectMeta responses which have no body.
+            if (responseHeaders.containsKey("Content-Length")) {
+                length = method.equals("HEAD") ? -1 : Long.parseLong(responseHeaders.getFirst("Content-Length"));
+            } else if (statusCode != 204 && statusCode != 304 && !method.equals("HEAD")) {
+                responseHeaders.set("Content-Length", String.valueOf(Math.max(length, 0)));
+            }
+            for (Map.Entry<String, String> header : responseHeaders.entrySet()) {
+                head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+            }
+            out.write(head.append("\r\n").toString().getBytes("UTF-8"));
+            responseBody = new LengthOutputStream(out, Math.max(length, 0));
+            sent = true;
+        }
+
+        OutputStream getResponseBody() {
+            return responseBody;
+        }
+
+        /**
+         * Completes the exchange, and returns whether the connection can be
+         * reused.
+         */
+        boolean close() throws IOException {
+            out.flush();
+            if (!sent || ((LengthOutputStream) responseBody).remaining > 0
+                    || "close".equalsIgnoreCase(requestHeaders.getFirst("Connection"))) {
+                return false;
+            }
+            drain(requestBody);
+            return true;
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            for (int c = in.read(); c != '\n'; c = in.read()) {
+                if (c == -1) {
+                    return line.length() > 0 ? line.toString() : null;
+                } else if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return line.toString();
+        }
+    }
+
+    /**
+     * Reads the body of a request with a Content-Length.
+     */
+    private static class LengthInputStream extends FilterInputStream {
+        private long remaining;
+
+        LengthInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read == -1) {
+                throw new IOException("The connection was closed before the end of the body");
+            }
+            remaining -= read;
+            return read;
+        }
+
+        @Override
+        public void close() {
+            // The connection stays open for the next request.
+        }
+    }
+
+    /**
+     * Reads the body of a request with chunked transfer encoding.
+     */
+    private static class ChunkedInputStream extends FilterInputStream {
+        private long remaining;
+        private boolean eof;
+
+        ChunkedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (eof) {
+                return -1;
+            }
+            if (remaining == 0) {
+                String size = Exchange.readLine(in);
+                int extension = size.indexOf(';');
+                remaining = Long.parseLong((extension >= 0 ? size.substring(0, extension) : size).trim(), 16);
+                if (remaining == 0) {
+                    // Skips the trailers up to the empty line.
+                    for (String line = Exchange.readLine(in); line != null && line.length() > 0; line = Exchange
+                            .readLine(in)) {
+                    }
+                    eof = true;
+                    return -1;
+                }
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read == -1) {
+                throw new IOException("The connection was closed before the end of the body");
+            }
+            remaining -= read;
+            if (remaining == 0) {
+                Exchange.readLine(in);
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+            // The connection stays open for the next request.
+        }
+    }
+
+    /**
+     * Writes the body of a response, and keeps track of the bytes left.
+     */
+    private static class LengthOutputStream extends FilterOutputStream {
+        long remaining;
+
+        LengthOutputStream(OutputStream out, long length) {
+            super(out);
+            this.remaining = length;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > remaining) {
+                throw new IOException("Too many bytes for the Content-Length of the response");
+            }
+            out.write(b, off, len);
+            remaining -= len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /**
+     * Starts a server on a random port until the process is killed, for
+     * load testing from another process.
+     * 
+     * <p>
+     * Usage: LocalOSSServer [storage directory]
+     * </p>
+     */
+    public static void main(String[] args) throws Exception {
+        LocalOSSServer server = new LocalOSSServer(args.length > 0 ? new File(args[0]) : null).start();
+        System.out.println("Serving on " + server.getEndpoint());
+        Thread.sleep(Long.MAX_VALUE);
+    }
+
+}
@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.server;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aliyun.oss.ClientConfiguration;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.compress.GzipCodec;
+import com.aliyun.oss.common.crypto.EncryptionMaterials;
+import com.aliyun.oss.common.utils.IOUtils;
+import com.aliyun.oss.event.ProgressEvent;
+import com.aliyun.oss.event.ProgressEventType;
+import com.aliyun.oss.event.ProgressListener;
+import com.aliyun.oss.model.AppendObjectRequest;
+import com.aliyun.oss.model.AppendObjectResult;
+import com.aliyun.oss.model.DeleteObjectsRequest;
+import com.aliyun.oss.model.GenericRequest;
+import com.aliyun.oss.model.GetObjectRequest;
+import com.aliyun.oss.model.ListMultipartUploadsRequest;
+import com.aliyun.oss.model.ListObjectsRequest;
+import com.aliyun.oss.model.ObjectListing;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PutObjectRequest;
+import com.aliyun.oss.model.StorageClass;
+import com.aliyun.oss.model.UploadFileRequest;
+
+public class LocalOSSServerTest {
+
+    private LocalOSSServer server;
+    private OSSClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new LocalOSSServer().start();
+        client = createClient(new ClientConfiguration());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testObjectOperations() throws Exception {
+        byte[] data = randomBytes(10000);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.addUserMetadata("author", "someone");
+        client.putObject("bucket", "dir/object", new ByteArrayInputStream(data), metadata);
+
+        assertArrayEquals(data, read(client.getObject("bucket", "dir/object").getObjectContent()));
+        GetObjectRequest rangeRequest = new GetObjectRequest("bucket", "dir/object");
+        rangeRequest.setRange(100, 199);
+        assertArrayEquals(Arrays.copyOfRange(data, 100, 200), read(client.getObject(rangeRequest).getObjectContent()));
+        ObjectMetadata head = client.getObjectMetadata("bucket", "dir/object");
+        assertEquals(data.length, head.getContentLength());
+        assertEquals("someone", head.getUserMetadata().get("author"));
+        assertEquals(data.length, client.getSimplifiedObjectMeta(new GenericRequest("bucket", "dir/object")).getSize());
+
+        client.copyObject("bucket", "dir/object", "bucket", "dir/copy");
+        assertArrayEquals(data, read(client.getObject("bucket", "dir/copy").getObjectContent()));
+
+        AppendObjectRequest append = new AppendObjectRequest("bucket", "appendable", new ByteArrayInputStream(data));
+        append.setPosition(0L);
+        AppendObjectResult appended = client.appendObject(append);
+        append = new AppendObjectRequest("bucket", "appendable", new ByteArrayInputStream(data));
+        append.setPosition(appended.getNextPosition());
+        assertEquals(2L * data.length, client.appendObject(append).getNextPosition().longValue());
+
+        ObjectListing listing = client.listObjects(new ListObjectsRequest("bucket").withDelimiter("/"));
+        assertEquals(1, listing.getObjectSummaries().size());
+        assertEquals("appendable", listing.getObjectSummaries().get(0).getKey());
+        assertEquals(Arrays.asList("dir/"), listing.getCommonPrefixes());
+        assertEquals(2, client.listObjects("bucket", "dir/").getObjectSummaries().size());
+
+        client.deleteObjects(new DeleteObjectsRequest("bucket").withKeys(Arrays.asList("dir/object", "dir/copy")));
+        client.deleteObject("bucket", "appendable");
+        assertFalse(client.doesObjectExist("bucket", "dir/object"));
+        assertEquals(0, server.getObjectCount());
+    }
+
+    @Test
+    public void testMultipartUploadToDisk() throws Throwable {
+        File directory = File.createTempFile("local-oss", "");
+        directory.delete();
+        LocalOSSServer diskServer = new LocalOSSServer(directory).start();
+        OSSClient diskClient = new OSSClient(diskServer.getEndpoint(), "id", "key",
+                newConfiguration(new ClientConfiguration()));
+        File file = File.createTempFile("multipart", ".dat");
+        try {
+            byte[] data = randomBytes(350 * 1024);
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(data);
+            out.close();
+
+            UploadFileRequest uploadFileRequest = new UploadFileRequest("bucket", "large");
+            uploadFileRequest.setUploadFile(file.getPath());
+            uploadFileRequest.setPartSize(100 * 1024);
+            uploadFileRequest.setTaskNum(3);
+            diskClient.uploadFile(uploadFileRequest);
+
+            assertArrayEquals(data, read(diskClient.getObject("bucket", "large").getObjectContent()));
+            assertEquals("Multipart", diskClient.getObjectMetadata("bucket", "large").getObjectType());
+            assertTrue(diskClient.listMultipartUploads(new ListMultipartUploadsRequest("bucket")).getMultipartUploads()
+                    .isEmpty());
+        } finally {
+            file.delete();
+            diskClient.shutdown();
+            diskServer.stop();
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void testEncryptedPartIsRetriedFromTheFile() throws Throwable {
+        File file = File.createTempFile("encrypted", ".dat");
+        try {
+            byte[] data = randomBytes(3 * 1024 * 1024);
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(data);
+            out.close();
+
+            UploadFileRequest uploadFileRequest = new UploadFileRequest("bucket", "encrypted");
+            uploadFileRequest.setUploadFile(file.getPath());
+            uploadFileRequest.setPartSize(data.length);
+            uploadFileRequest.setEncryptionMaterials(new EncryptionMaterials(randomBytes(16)));
+            // The part, larger than any replay buffer, is the first request
+            // after the upload is initiated.
+            uploadFileRequest.setProgressListener(new ProgressListener() {
+                @Override
+                public void progressChanged(ProgressEvent progressEvent) {
+                    if (progressEvent.getEventType() == ProgressEventType.REQUEST_CONTENT_LENGTH_EVENT) {
+                        server.injectServerErrors(1);
+                    }
+                }
+            });
+            client.uploadFile(uploadFileRequest);
+
+            // Initiate, the failed part, the retried part and complete.
+            assertEquals(4, server.getRequestCount());
+            GetObjectRequest getObjectRequest = new GetObjectRequest("bucket", "encrypted");
+            getObjectRequest.setEncryptionMaterials(new EncryptionMaterials(randomBytes(16)));
+            assertArrayEquals(data, read(client.getObject(getObjectRequest).getObjectContent()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testCompressedFileIsRetriedFromTheFile() throws Exception {
+        File file = File.createTempFile("compressed", ".dat");
+        try {
+            // Incompressible, so the body is larger than any replay buffer.
+            byte[] data = randomBytes(2 * 1024 * 1024);
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(data);
+            out.close();
+
+            server.injectServerErrors(1);
+            PutObjectRequest putObjectRequest = new PutObjectRequest("bucket", "compressed", file);
+            putObjectRequest.setCompressionCodec(new GzipCodec());
+            client.putObject(putObjectRequest);
+
+            assertEquals(2, server.getRequestCount());
+            assertArrayEquals(data, read(client.getObject("bucket", "compressed").getObjectContent()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testCompressedUploadRejectsCheckpoint() throws Throwable {
+        File file = File.createTempFile("compressed", ".dat");
+        try {
+            UploadFileRequest uploadFileRequest = new UploadFileRequest("bucket", "compressed", file.getPath(),
+                    100 * 1024, 1, true);
+            uploadFileRequest.setCompressionCodec(new GzipCodec());
+            try {
+                client.uploadFile(uploadFileRequest);
+                fail("A compressed upload can't resume from a checkpoint");
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+            assertEquals(0, server.getRequestCount());
+            assertFalse(new File(file.getPath() + ".ucp").exists());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testRequestsAreCoalescedAcrossSeconds() throws Exception {
+        ClientConfiguration config = new ClientConfiguration();
+        config.setRequestCoalescingEnabled(true);
+        final OSSClient coalescingClient = createClient(config);
+        try {
+            client.putObject("bucket", "object", new ByteArrayInputStream(randomBytes(100)));
+            long requestCount = server.getRequestCount();
+            server.setLatency(2, TimeUnit.SECONDS);
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<ObjectMetadata> first = executor.submit(new Callable<ObjectMetadata>() {
+                    public ObjectMetadata call() throws Exception {
+                        return coalescingClient.getObjectMetadata("bucket", "object");
+                    }
+                });
+                // The Date header of the second request is a second later.
+                Thread.sleep(1100);
+                ObjectMetadata second = coalescingClient.getObjectMetadata("bucket", "object");
+
+                assertEquals(100, first.get().getContentLength());
+                assertEquals(100, second.getContentLength());
+                assertEquals(requestCount + 1, server.getRequestCount());
+            } finally {
+                executor.shutdown();
+            }
+        } finally {
+            coalescingClient.shutdown();
+        }
+    }
+
+    @Test
+    public void testServerErrorsAreRetried() throws Exception {
+        server.injectServerErrors(2);
+        client.putObject("bucket", "object", new ByteArrayInputStream(randomBytes(100)));
+        assertEquals(3, server.getRequestCount());
+        assertTrue(client.doesObjectExist("bucket", "object"));
+    }
+
+    @Test
+    public void testStalledRequestTimesOut() throws Exception {
+        ClientConfiguration config = new ClientConfiguration();
+        config.setSocketTimeout(300);
+        OSSClient timingOutClient = createClient(config);
+        try {
+            client.putObject("bucket", "object", new ByteArrayInputStream(randomBytes(100)));
+            server.setStallTime(2, TimeUnit.SECONDS);
+            server.injectTimeouts(1);
+            assertEquals(100, read(timingOutClient.getObject("bucket", "object").getObjectContent()).length);
+            assertEquals(3, server.getRequestCount());
+        } finally {
+            timingOutClient.shutdown();
+        }
+    }
+
+    @Test
+    public void testLatencyAndBandwidth() throws Exception {
+        client.putObject("bucket", "object", new ByteArrayInputStream(randomBytes(64 * 1024)));
+        server.setLatency(100, TimeUnit.MILLISECONDS);
+        server.setBandwidth(256 * 1024);
+
+        long start = System.nanoTime();
+        assertEquals(64 * 1024, read(client.getObject("bucket", "object").getObjectContent()).length);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Elapsed " + elapsedMillis + "ms", elapsedMillis >= 300);
+    }
+
+    @Test
+    public void testArchivedObjectIsReadableOnceRestored() throws Exception {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setHeader("x-oss-storage-class", StorageClass.Archive.toString());
+        client.putObject("bucket", "archived", new ByteArrayInputStream(randomBytes(100)), metadata);
+        server.setRestoreTime(200, TimeUnit.MILLISECONDS);
+
+        try {
+            client.getObject("bucket", "archived");
+            fail("An archived object shouldn't be readable.");
+        } catch (OSSException e) {
+            assertEquals(OSSErrorCode.INVALID_OBJECT_STATE, e.getErrorCode());
+        }
+        assertEquals(202, client.restoreObject("bucket", "archived").getStatusCode());
+        assertFalse(client.getObjectMetadata("bucket", "archived").isRestoreCompleted());
+        try {
+            client.restoreObject("bucket", "archived");
+            fail("The restore should be in progress.");
+        } catch (OSSException e) {
+            assertEquals(OSSErrorCode.RESTORE_ALREADY_IN_PROGRESS, e.getErrorCode());
+        }
+
+        Thread.sleep(300);
+        assertTrue(client.getObjectMetadata("bucket", "archived").isRestoreCompleted());
+        assertEquals(200, client.restoreObject("bucket", "archived").getStatusCode());
+        assertEquals(100, read(client.getObject("bucket", "archived").getObjectContent()).length);
+    }
+
+    private OSSClient createClient(ClientConfiguration config) {
+        return new OSSClient(server.getEndpoint(), "id", "key", newConfiguration(config));
+    }
+
+    private static ClientConfiguration newConfiguration(ClientConfiguration config) {
+        config.setSLDEnabled(true);
+        return config;
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        try {
+            return IOUtils.readStreamAsByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
+
+}